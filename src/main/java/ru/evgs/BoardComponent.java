@@ -0,0 +1,198 @@
+package ru.evgs;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+import javax.swing.JComponent;
+// the game field painted by one component: it listens to the game table and repaints only the cells changed
+// the empty cell with its grid and every stone are rendered once to small images, painting copies them to the cells
+// of the dirty region, so the cost of a repaint doesn't depend on the size of the field
+// it's used on the event dispatch thread, as the game table it shows
+public class BoardComponent extends JComponent implements MoveListener {
+	private static final long serialVersionUID = -2381559113437722064L;
+	public static final int DEFAULT_CELL_SIZE = 45;
+	public static final int MIN_CELL_SIZE = 16;
+	// cells of large fields are made smaller to fit the board to this size, the rest is scrolled
+	public static final int MAX_BOARD_PIXELS = 720;
+	private static final Color GRID_COLOR = Color.BLACK;
+	private static final Color HUMAN_COLOR = Color.BLUE;
+	private static final Color COMPUTER_COLOR = Color.RED;
+	private static final Color WINNER_COLOR = Color.CYAN;
+	private final transient GameTable gameTable;
+	private final int size;
+	private final int cellSize;
+	// cells of the winner line
+	private final BitSet winnerCells = new BitSet();
+	private transient BufferedImage emptyCellImage;
+	private transient BufferedImage humanImage;
+	private transient BufferedImage computerImage;
+	private transient BufferedImage humanWinnerImage;
+	private transient BufferedImage computerWinnerImage;
+	private transient CellClickListener cellClickListener;
+
+	public BoardComponent(GameTable gameTable) {
+		this(gameTable, getDefaultCellSize(gameTable.getSize()));
+	}
+
+	public BoardComponent(GameTable gameTable, int cellSize) {
+		this.gameTable = Objects.requireNonNull(gameTable, "Game table can't be null");
+		if (cellSize < MIN_CELL_SIZE) {
+			throw new IllegalArgumentException("Invalid cell size: cellSize=" + cellSize);
+		}
+		this.size = gameTable.getSize();
+		this.cellSize = cellSize;
+		setOpaque(true);
+		setBackground(Color.WHITE);
+		setPreferredSize(new Dimension(size * cellSize, size * cellSize));
+		gameTable.addMoveListener(this);
+		addMouseListener(new MouseAdapter() {
+			@Override
+			public void mouseClicked(MouseEvent e) {
+				handleClick(e.getX(), e.getY());
+			}
+		});
+	}
+	// the size of cells which fits the field to MAX_BOARD_PIXELS, but not larger than DEFAULT_CELL_SIZE
+	public static int getDefaultCellSize(int size) {
+		return Math.max(MIN_CELL_SIZE, Math.min(DEFAULT_CELL_SIZE, MAX_BOARD_PIXELS / size));
+	}
+	// the listener is notified about clicks on cells while the component is enabled
+	public void setCellClickListener(CellClickListener cellClickListener) {
+		this.cellClickListener = cellClickListener;
+	}
+
+	public int getCellSize() {
+		return cellSize;
+	}
+	// finding the cell under the point encoded as row * size + col, -1 if the point is out of the field
+	public int getCellAt(int x, int y) {
+		if (x < 0 || y < 0) {
+			return -1;
+		}
+		int row = y / cellSize;
+		int col = x / cellSize;
+		return row < size && col < size ? row * size + col : -1;
+	}
+
+	private void handleClick(int x, int y) {
+		int cell = getCellAt(x, y);
+		if (cell >= 0 && isEnabled() && cellClickListener != null) {
+			cellClickListener.cellClicked(cell / size, cell % size);
+		}
+	}
+	// marking cells of the winner line with the winner color, marks are cleared by reInit of the game table
+	public void markWinnerCells(List<Cell> cells) {
+		for (Cell cell : cells) {
+			winnerCells.set(cell.getRowIndex() * size + cell.getColIndex());
+			repaintCell(cell.getRowIndex(), cell.getColIndex());
+		}
+	}
+
+	public void repaintCell(int row, int col) {
+		repaint(col * cellSize, row * cellSize, cellSize, cellSize);
+	}
+
+	@Override
+	public void makeMove(int row, int col, CellValue cellValue) {
+		repaintCell(row, col);
+	}
+
+	@Override
+	public void undoMove(int row, int col, CellValue cellValue) {
+		winnerCells.clear(row * size + col);
+		repaintCell(row, col);
+	}
+
+	@Override
+	public void reset() {
+		winnerCells.clear();
+		repaint();
+	}
+	// only cells intersecting the clip are painted
+	@Override
+	protected void paintComponent(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = new Rectangle(0, 0, getWidth(), getHeight());
+		}
+		g.setColor(getBackground());
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		int firstRow = Math.max(clip.y / cellSize, 0);
+		int lastRow = Math.min((clip.y + clip.height - 1) / cellSize, size - 1);
+		int firstCol = Math.max(clip.x / cellSize, 0);
+		int lastCol = Math.min((clip.x + clip.width - 1) / cellSize, size - 1);
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int col = firstCol; col <= lastCol; col++) {
+				int x = col * cellSize;
+				int y = row * cellSize;
+				g.drawImage(getEmptyCellImage(), x, y, null);
+				BufferedImage stoneImage = getStoneImage(gameTable.getValue(row, col), winnerCells.get(row * size + col));
+				if (stoneImage != null) {
+					g.drawImage(stoneImage, x, y, null);
+				}
+			}
+		}
+	}
+
+	private BufferedImage getEmptyCellImage() {
+		if (emptyCellImage == null) {
+			emptyCellImage = new BufferedImage(cellSize, cellSize, BufferedImage.TYPE_INT_RGB);
+			Graphics g = emptyCellImage.createGraphics();
+			g.setColor(getBackground());
+			g.fillRect(0, 0, cellSize, cellSize);
+			g.setColor(GRID_COLOR);
+			g.drawRect(0, 0, cellSize - 1, cellSize - 1);
+			g.dispose();
+		}
+		return emptyCellImage;
+	}
+	// images of stones are created on the first paint, null for the empty cell
+	private BufferedImage getStoneImage(CellValue cellValue, boolean winner) {
+		switch (cellValue) {
+		case HUMAN:
+			if (winner) {
+				return humanWinnerImage != null ? humanWinnerImage : (humanWinnerImage = createStoneImage(cellValue, WINNER_COLOR, Font.BOLD));
+			}
+			return humanImage != null ? humanImage : (humanImage = createStoneImage(cellValue, HUMAN_COLOR, Font.PLAIN));
+		case COMPUTER:
+			if (winner) {
+				return computerWinnerImage != null ? computerWinnerImage
+						: (computerWinnerImage = createStoneImage(cellValue, WINNER_COLOR, Font.BOLD));
+			}
+			return computerImage != null ? computerImage : (computerImage = createStoneImage(cellValue, COMPUTER_COLOR, Font.PLAIN));
+		default:
+			return null;
+		}
+	}
+	// the glyph of the stone centered in a transparent image of the cell
+	private BufferedImage createStoneImage(CellValue cellValue, Color color, int fontStyle) {
+		BufferedImage image = new BufferedImage(cellSize, cellSize, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = image.createGraphics();
+		g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+		g.setFont(new Font(Font.SERIF, fontStyle, cellSize * 7 / 9));
+		g.setColor(color);
+		FontMetrics metrics = g.getFontMetrics();
+		String glyph = cellValue.getValue();
+		int x = (cellSize - metrics.stringWidth(glyph)) / 2;
+		int y = (cellSize - metrics.getHeight()) / 2 + metrics.getAscent();
+		g.drawString(glyph, x, y);
+		g.dispose();
+		return image;
+	}
+	// listener of clicks on cells of the field
+	public interface CellClickListener {
+		void cellClicked(int row, int col);
+	}
+}
@@ -1,53 +1,104 @@
 package ru.evgs;
 
-import java.awt.Color;
+import java.awt.BorderLayout;
+import java.awt.Cursor;
 import java.awt.Dimension;
-import java.awt.Font;
-import java.awt.GridLayout;
 import java.awt.HeadlessException;
 import java.awt.Toolkit;
-import java.awt.event.MouseAdapter;
-import java.awt.event.MouseEvent;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
-import javax.swing.BorderFactory;
+import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
-import javax.swing.SwingConstants;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JScrollPane;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ru.evgs.impl.DefaultComputerTurn;
+import ru.evgs.impl.AlphaBetaComputerTurn;
 import ru.evgs.impl.DefaultGameTable;
 import ru.evgs.impl.DefaultHumanTurn;
 import ru.evgs.impl.DefaultWinnerChecker;
+import ru.evgs.impl.EngineMetrics;
+import ru.evgs.impl.GameRecord;
+import ru.evgs.impl.GameRecordWriter;
+import ru.evgs.impl.PatternEvaluator;
+import ru.evgs.impl.PositionExporter;
 
 public class GUIGomoku extends JFrame {
 	private static final Logger LOGGER = LoggerFactory.getLogger(GUIGomoku.class); 
 	private static final long serialVersionUID = 1714372457079337160L;
-	private final JLabel cells[][];
+	private static final int DEFAULT_SIZE = 15;
+	private static final int DEFAULT_WIN_COUNT = 5;
+	// engine description of TournamentRunner, the default engine is the easy one
+	private static final String DEFAULT_ENGINE = "default";
+	// percent of one CPU used by the alpha-beta engine while the human is thinking, unless its description has the ponder option
+	private static final int PONDER_CPU_SHARE = 100;
+	// the field is painted by one component, which repaints cells changed on the game table
+	private final BoardComponent board;
+	private final JLabel statusLabel = new JLabel(" ");
+	private final JProgressBar progressBar = new JProgressBar();
 	// creating game objects
 	private final GameTable gameTable;
+	// the computer turn plays on its own copy of the game table, which is changed only by the engine thread,
+	// so the event dispatch thread never waits for the engine and never reads a table changed by it
+	private final GameTable engineTable;
+	private final ExecutorService engineExecutor;
+	// the turn computed now, null if the human makes a turn
+	private ComputerTurnWorker engineWorker;
 	private final HumanTurn humanTurn;
 	private final ComputerTurn computerTurn;
 	private final WinnerChecker winnerChecker;
 	// flag for checking witch turn is first
 	private boolean isHumanFirstTurn;
+	// games are appended to the file of game records if it's given, the record is changed on the event dispatch thread
+	private GameRecordWriter gameRecordWriter;
+	private PositionExporter positionExporter;
+	private final GameRecord record;
 
 	public GUIGomoku() throws HeadlessException {
+		this(DEFAULT_SIZE, DEFAULT_WIN_COUNT);
+	}
+
+	public GUIGomoku(int size, int winCount) throws HeadlessException {
+		this(size, winCount, DEFAULT_ENGINE);
+	}
+
+	public GUIGomoku(int size, int winCount, String engine) throws HeadlessException {
 		super("Gomoku");
+		if (size < winCount || winCount <= 1) {
+			throw new IllegalArgumentException("Invalid board: size=" + size + ", winCount=" + winCount);
+		}
 		//config section
-		gameTable = new DefaultGameTable();
+		gameTable = new DefaultGameTable(size);
+		engineTable = new DefaultGameTable(size);
 		humanTurn = new DefaultHumanTurn();
-		computerTurn = new DefaultComputerTurn();
-		winnerChecker = new DefaultWinnerChecker();
+		computerTurn = TournamentRunner.createComputerTurn(engine, winCount);
+		if (computerTurn instanceof AlphaBetaComputerTurn && !engine.contains("ponder=")) {
+			((AlphaBetaComputerTurn) computerTurn).setPonderCpuShare(PONDER_CPU_SHARE);
+		}
+		winnerChecker = new DefaultWinnerChecker(winCount);
 		//end config section
+		engineExecutor = Executors.newSingleThreadExecutor(new EngineThreadFactory());
 		initGameComponents();
-		// array for display cells
-		cells = new JLabel[gameTable.getSize()][gameTable.getSize()];
+		board = new BoardComponent(gameTable);
+		record = new GameRecord(size, winCount, CellValue.HUMAN);
 		// human makes a turn first on game start, always
 		isHumanFirstTurn = true;
 		createGameUITable();
@@ -55,146 +106,156 @@ public class GUIGomoku extends JFrame {
 			@Override
 			public void windowClosing(WindowEvent e) {
 				LOGGER.info("Game stopped with game table {}x{}", gameTable.getSize(), gameTable.getSize());
+				cancelComputerTurn();
+				engineExecutor.shutdownNow();
+				TournamentRunner.closeComputerTurn(computerTurn);
+				closeGameRecordWriter();
+				closePositionExporter();
 				System.exit(0);
 			}
 		});
 	}
+	// the writer is closed by the window
+	public void setGameRecordWriter(GameRecordWriter gameRecordWriter) {
+		this.gameRecordWriter = gameRecordWriter;
+	}
+	// positions of finished games are exported by the exporter, it's closed by the window
+	public void setPositionExporter(PositionExporter positionExporter) {
+		this.positionExporter = positionExporter;
+	}
 	// initialising game components
 	protected void initGameComponents(){
 		humanTurn.setGameTable(gameTable);
-		computerTurn.setGameTable(gameTable);
+		computerTurn.setGameTable(engineTable);
 		winnerChecker.setGameTable(gameTable);
 	}
 
+	// the board listens to the game table, so only the changed cell is repainted
 	protected void drawCellValue(Cell cell) {
-		CellValue cellValue = gameTable.getValue(cell.getRowIndex(), cell.getColIndex());
-		cells[cell.getRowIndex()][cell.getColIndex()].setText(cellValue.getValue());
-		if(cellValue == CellValue.COMPUTER) {
-			cells[cell.getRowIndex()][cell.getColIndex()].setForeground(Color.RED);
-		} else  {
-			// human
-			cells[cell.getRowIndex()][cell.getColIndex()].setForeground(Color.BLUE);
-		}
-		
+		board.repaintCell(cell.getRowIndex(), cell.getColIndex());
 	}
 
 	protected void markWinnerCells(List<Cell> winnerCells) {
-		for (int i = 0; i < winnerCells.size(); i++) {
-			Cell cell = winnerCells.get(i);
-			cells[cell.getRowIndex()][cell.getColIndex()].setForeground(Color.CYAN);
-			cells[cell.getRowIndex()][cell.getColIndex()].setFont(new Font(Font.SERIF, Font.BOLD, 35));
-		}
+		board.markWinnerCells(winnerCells);
 	}
 	// drawing game table
 	protected void createGameUITable() {
-		setLayout(new GridLayout(gameTable.getSize(), gameTable.getSize()));
-		for (int i = 0; i < gameTable.getSize(); i++) {
-			for (int j = 0; j < gameTable.getSize(); j++) {
-				final int row = i;
-				final int col = j;
-				// creating label in cell
-				cells[i][j] = new JLabel();
-				// setting size of label
-				cells[i][j].setPreferredSize(new Dimension(45, 45));
-				// setting alignment
-				cells[i][j].setHorizontalAlignment(SwingConstants.CENTER);
-				cells[i][j].setVerticalAlignment(SwingConstants.CENTER);
-				// setting font of label
-				cells[i][j].setFont(new Font(Font.SERIF, Font.PLAIN, 35));
-				// creating border
-				cells[i][j].setBorder(BorderFactory.createLineBorder(Color.BLACK));
-				// adding label to frame
-				add(cells[i][j]);
-				// adding event listener
-				cells[i][j].addMouseListener(new MouseAdapter() {
-					@Override
-					public void mouseClicked(MouseEvent e) {
-						handleHumanTurn(row, col);
-					}
-				});
+		setLayout(new BorderLayout());
+		board.setCellClickListener(new BoardComponent.CellClickListener() {
+			@Override
+			public void cellClicked(int row, int col) {
+				handleHumanTurn(row, col);
 			}
+		});
+		// a field larger than BoardComponent.MAX_BOARD_PIXELS is scrolled
+		JScrollPane boardScrollPane = new JScrollPane(board);
+		Dimension boardSize = board.getPreferredSize();
+		int viewportSize = BoardComponent.MAX_BOARD_PIXELS;
+		if (boardSize.width > viewportSize) {
+			boardScrollPane.getViewport().setPreferredSize(new Dimension(viewportSize, viewportSize));
+			boardScrollPane.getVerticalScrollBar().setUnitIncrement(board.getCellSize());
+			boardScrollPane.getHorizontalScrollBar().setUnitIncrement(board.getCellSize());
+		} else {
+			boardScrollPane.setBorder(null);
 		}
+		add(boardScrollPane, BorderLayout.CENTER);
+		// status bar with the take back button and the progress of the computer turn
+		JPanel statusPanel = new JPanel(new BorderLayout());
+		JButton takeBackButton = new JButton("Take back");
+		takeBackButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				takeBack();
+			}
+		});
+		statusPanel.add(takeBackButton, BorderLayout.WEST);
+		statusPanel.add(statusLabel, BorderLayout.CENTER);
+		progressBar.setIndeterminate(true);
+		progressBar.setVisible(false);
+		statusPanel.add(progressBar, BorderLayout.EAST);
+		add(statusPanel, BorderLayout.SOUTH);
 	}
 
 	protected void startNewGame() {
 		// on a new game computer makes a first turn
 		isHumanFirstTurn = !isHumanFirstTurn;
-		// clear game field
+		// the turn of the previous game isn't needed anymore
+		cancelComputerTurn();
+		writeRecord(GameRecord.UNFINISHED);
+		// clear game field, the board is repainted and winner marks are cleared by the game table
 		gameTable.reInit();
-		for (int i = 0; i < gameTable.getSize(); i++) {
-			for (int j = 0; j < gameTable.getSize(); j++) {
-				cells[i][j].setText(gameTable.getValue(i, j).getValue());
-				cells[i][j].setFont(new Font(Font.SERIF, Font.PLAIN, 35));
-				cells[i][j].setForeground(Color.BLACK);
+		board.setEnabled(true);
+		runOnEngineThread(new Runnable() {
+			@Override
+			public void run() {
+				stopPondering();
+				engineTable.reInit();
 			}
-		}
+		});
 		if (!isHumanFirstTurn) {
-			Cell compCell = computerTurn.makeFirstTurn();
-			drawCellValue(compCell);
+			startComputerTurn(true);
 		}
 		LOGGER.info("------------------------------------------------------");
-		LOGGER.info("New game started with game table {}x{} {}", gameTable.getSize(), gameTable.getSize(), isHumanFirstTurn ? "" : CellValue.COMPUTER + " made the first turn");
+		LOGGER.info("New game started with game table {}x{} {}", gameTable.getSize(), gameTable.getSize(), isHumanFirstTurn ? "" : CellValue.COMPUTER + " makes the first turn");
 	}
 
+	// the disabled board ignores clicks
 	protected void stopGame() {
-		for (int i = 0; i < gameTable.getSize(); i++) {
-			for (int j = 0; j < gameTable.getSize(); j++) {
-				cells[i][j].removeMouseListener(cells[i][j].getMouseListeners()[0]);
-			}
-		}
+		board.setEnabled(false);
 		LOGGER.info("Game disabled with game table {}x{}", gameTable.getSize(), gameTable.getSize());
 	}
-	// creating dialog when game is over
-	protected void handleGameOver(String message) {
+	// creating dialog when game is over, result is one of results of GameRecord
+	protected void handleGameOver(String message, int result) {
+		writeRecord(result);
 		int option =JOptionPane.showConfirmDialog(this, message);
 		if (option == JOptionPane.YES_OPTION) {
 			startNewGame();
 		} else if (option == JOptionPane.CANCEL_OPTION) {
+			closeGameRecordWriter();
+			closePositionExporter();
 			System.exit(0);
 		} else {
 			stopGame();
 		}
 	}
 
-	protected void handleHumanTurn(int row, int col) {
+	protected void handleHumanTurn(final int row, final int col) {
+		if (engineWorker != null) {
+			// clicks are blocked while computer is thinking
+			LOGGER.debug("Cell {}:{} is clicked while computer is thinking", row, col);
+			return;
+		}
 		try {
 			// if cell is empty
 			if (gameTable.isCellFree(row, col)) {
 				// player making a turn
 				Cell humanCell = humanTurn.makeTurn(row, col);
+				recordMove(humanCell, CellValue.HUMAN, GameRecord.NO_SCORE, 0);
 				// drawing a cell
 				drawCellValue(humanCell);
 				// checking - human win?
-				WinnerResult winnerResult = winnerChecker.isWinnerFound(CellValue.HUMAN);
+				WinnerResult winnerResult = winnerChecker.isWinnerFoundByLastTurn(humanCell);
 				if (winnerResult.winnerExists()) {
 					// marking winner cells with winner color
 					markWinnerCells(winnerResult.getWinnerCells());
 					LOGGER.info("Human wins: {}", winnerResult.getWinnerCells());
-					handleGameOver("Game over: You win!\nNew game?");
+					handleGameOver("Game over: You win!\nNew game?", GameRecord.HUMAN_WINS);
 					return;
 				}
 				// checking for draw
 				if (!gameTable.emptyCellExists()) {
 					LOGGER.info("Nobody wins - draw");
-					handleGameOver("Game over: Draw!\nNew game?");
-					return;
-				}
-				// than computer make a turn
-				// similarly, we check his victory
-				Cell compCell = computerTurn.makeTurn();
-				drawCellValue(compCell);
-				winnerResult = winnerChecker.isWinnerFound(CellValue.COMPUTER);
-				if (winnerResult.winnerExists()) {
-					markWinnerCells(winnerResult.getWinnerCells());
-					LOGGER.info("Computer wins: {}", winnerResult.getWinnerCells());
-					handleGameOver("Game over: Computer wins!\nNew game?");
-					return;
-				}
-				if (!gameTable.emptyCellExists()) {
-					LOGGER.info("Nobody wins - draw");
-					handleGameOver("Game over: Draw!\nNew game?");
+					handleGameOver("Game over: Draw!\nNew game?", GameRecord.DRAW);
 					return;
 				}
+				// than computer make a turn in background, the result is handled by handleComputerTurn
+				runOnEngineThread(new Runnable() {
+					@Override
+					public void run() {
+						engineTable.makeMove(row, col, CellValue.HUMAN);
+					}
+				});
+				startComputerTurn(false);
 			} else {
 				LOGGER.warn("Cell {}:{} is not empty", row, col);
 				JOptionPane.showMessageDialog(this, "Cell is not empty! Click on empty cell!");
@@ -204,9 +265,270 @@ public class GUIGomoku extends JFrame {
 		}
 	}
 
-	public static void main(String[] args) {
+	// taking back the last turn of the human with the reply of the computer, the reply being computed is cancelled;
+	// moves are undone by the journals of the game table and the engine table, the finished game can't be changed
+	protected void takeBack() {
+		if (!board.isEnabled() || gameTable.getMoveCount() == 0) {
+			return;
+		}
+		// the first turn of the computer isn't taken back, there is no turn of the human before it
+		int undoCount = getLastMoveSide() == CellValue.HUMAN ? 1 : 2;
+		if (gameTable.getMoveCount() < undoCount) {
+			return;
+		}
+		cancelComputerTurn();
+		for (int i = 0; i < undoCount; i++) {
+			undoMove();
+		}
+		int size = gameTable.getSize();
+		final int moveCount = gameTable.getMoveCount();
+		// the cancelled reply can be made on the engine table already, so it's undone too
+		runOnEngineThread(new Runnable() {
+			@Override
+			public void run() {
+				stopPondering();
+				while (engineTable.getMoveCount() > moveCount) {
+					engineTable.undoMove();
+				}
+			}
+		});
+		LOGGER.info("Turn is taken back, {} moves are left on game table {}x{}", moveCount, size, size);
+	}
+
+	private CellValue getLastMoveSide() {
+		int move = gameTable.getLastMove();
+		return gameTable.getValue(move / gameTable.getSize(), move % gameTable.getSize());
+	}
+	// the board is repainted by the game table
+	private void undoMove() {
+		gameTable.undoMove();
+		if (record.getMoveCount() > 0) {
+			record.removeLastMove();
+		}
+	}
+
+	// setting weights of the evaluation of the alpha-beta engine, e.g. tuned by EvaluationTuner, before the game is started
+	public void setEngineWeights(int[] weights) {
+		if (!(computerTurn instanceof AlphaBetaComputerTurn)) {
+			throw new IllegalStateException("Weights are used only by the alpha-beta engine: " + computerTurn.getClass().getSimpleName());
+		}
+		((AlphaBetaComputerTurn) computerTurn).setWeights(weights);
+	}
+
+	// showing the computer turn and checking his victory, similarly to the human turn
+	protected void handleComputerTurn(Cell compCell, long micros) {
+		gameTable.makeMove(compCell.getRowIndex(), compCell.getColIndex(), CellValue.COMPUTER);
+		// the engine thread doesn't change the score after the turn until the next one
+		int score = computerTurn instanceof AlphaBetaComputerTurn ? ((AlphaBetaComputerTurn) computerTurn).getLastScore() : GameRecord.NO_SCORE;
+		recordMove(compCell, CellValue.COMPUTER, score, micros);
+		drawCellValue(compCell);
+		WinnerResult winnerResult = winnerChecker.isWinnerFoundByLastTurn(compCell);
+		if (winnerResult.winnerExists()) {
+			markWinnerCells(winnerResult.getWinnerCells());
+			LOGGER.info("Computer wins: {}", winnerResult.getWinnerCells());
+			handleGameOver("Game over: Computer wins!\nNew game?", GameRecord.COMPUTER_WINS);
+			return;
+		}
+		if (!gameTable.emptyCellExists()) {
+			LOGGER.info("Nobody wins - draw");
+			handleGameOver("Game over: Draw!\nNew game?", GameRecord.DRAW);
+			return;
+		}
+		// the computer thinks about the expected reply while the human is thinking
+		if (computerTurn instanceof PonderingComputerTurn) {
+			runOnEngineThread(new Runnable() {
+				@Override
+				public void run() {
+					((PonderingComputerTurn) computerTurn).startPondering();
+				}
+			});
+		}
+	}
+	// starting the computer turn on the engine thread, the progress is shown until it's done
+	protected void startComputerTurn(boolean firstTurn) {
+		engineWorker = new ComputerTurnWorker(firstTurn);
+		showThinking(true);
+		engineExecutor.execute(engineWorker);
+	}
+	// cancelling the computer turn: the search is interrupted and its result is ignored
+	protected void cancelComputerTurn() {
+		if (engineWorker != null) {
+			engineWorker.cancel(true);
+			engineWorker = null;
+			showThinking(false);
+			LOGGER.info("Computer turn is cancelled");
+		}
+	}
+
+	private void recordMove(Cell cell, CellValue side, int score, long micros) {
+		if (record.getMoveCount() == 0) {
+			record.reset(gameTable.getSize(), record.getWinCount(), side);
+		}
+		record.addMove(cell.getRowIndex() * gameTable.getSize() + cell.getColIndex(), score, micros);
+	}
+	// the record is encoded by write and export, so it's cleared for the next game right away
+	private void writeRecord(int result) {
+		if (record.getMoveCount() > 0) {
+			record.setResult(result);
+			if (gameRecordWriter != null) {
+				gameRecordWriter.write(record);
+			}
+			if (positionExporter != null) {
+				positionExporter.export(record);
+			}
+			record.reset(record.getSize(), record.getWinCount(), CellValue.HUMAN);
+		}
+	}
+
+	private void closeGameRecordWriter() {
+		if (gameRecordWriter != null) {
+			writeRecord(GameRecord.UNFINISHED);
+			try {
+				gameRecordWriter.close();
+			} catch (IOException e) {
+				LOGGER.error("Error of close of game records: " + e.getMessage(), e);
+			}
+			gameRecordWriter = null;
+		}
+	}
+
+	private void closePositionExporter() {
+		if (positionExporter != null) {
+			try {
+				positionExporter.close();
+			} catch (IOException e) {
+				LOGGER.error("Error of close of exported positions: " + e.getMessage(), e);
+			}
+			positionExporter = null;
+		}
+	}
+
+	// must be called on the engine thread
+	private void stopPondering() {
+		if (computerTurn instanceof PonderingComputerTurn) {
+			((PonderingComputerTurn) computerTurn).stopPondering();
+		}
+	}
+
+	private void runOnEngineThread(Runnable task) {
+		engineExecutor.execute(task);
+	}
+
+	private void showThinking(boolean thinking) {
+		statusLabel.setText(thinking ? "Computer is thinking..." : " ");
+		progressBar.setVisible(thinking);
+		board.setCursor(Cursor.getPredefinedCursor(thinking ? Cursor.WAIT_CURSOR : Cursor.DEFAULT_CURSOR));
+	}
+	// computer turn on the engine thread, done() is called on the event dispatch thread
+	private class ComputerTurnWorker extends SwingWorker<Cell, Void> {
+		private final boolean firstTurn;
+		private long micros;
+
+		ComputerTurnWorker(boolean firstTurn) {
+			this.firstTurn = firstTurn;
+		}
+
+		@Override
+		protected Cell doInBackground() {
+			long startTime = System.nanoTime();
+			Cell cell = firstTurn ? computerTurn.makeFirstTurn() : computerTurn.makeTurn();
+			micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+			return cell;
+		}
+
+		@Override
+		protected void done() {
+			// a cancelled turn was already replaced
+			if (isCancelled() || engineWorker != this) {
+				return;
+			}
+			engineWorker = null;
+			showThinking(false);
+			try {
+				handleComputerTurn(get(), micros);
+			} catch (ExecutionException e) {
+				LOGGER.error("Error in the game: " + e.getCause().getMessage(), e.getCause());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (RuntimeException e) {
+				LOGGER.error("Error in the game: " + e.getMessage(), e);
+			}
+		}
+	}
+	// the engine thread is a daemon, so it doesn't prevent exit of the application
+	private static class EngineThreadFactory implements ThreadFactory {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "gomoku-engine");
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+
+	// usage: GUIGomoku [--size N] [--win N] [--engine ENGINE] [--record FILE] [--export DIR] [--weights FILE]
+	// ENGINE is the engine description of TournamentRunner, --weights is only for the alpha-beta engine
+	public static void main(String[] args) throws IOException {
+		int size = DEFAULT_SIZE;
+		int winCount = DEFAULT_WIN_COUNT;
+		String engine = DEFAULT_ENGINE;
+		Path record = null;
+		Path export = null;
+		int[] weights = null;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--size":
+				size = Integer.parseInt(args[++i]);
+				break;
+			case "--win":
+				winCount = Integer.parseInt(args[++i]);
+				break;
+			case "--engine":
+				engine = args[++i];
+				break;
+			case "--record":
+				record = Paths.get(args[++i]);
+				break;
+			case "--export":
+				export = Paths.get(args[++i]);
+				break;
+			case "--weights":
+				weights = PatternEvaluator.readWeights(Paths.get(args[++i]));
+				break;
+			default:
+				System.err.println("Unknown option: " + args[i]);
+				System.err.println("Usage: GUIGomoku [--size N] [--win N] [--engine ENGINE] [--record FILE] [--export DIR] [--weights FILE]");
+				System.exit(1);
+			}
+		}
+		TournamentRunner.checkEngine(engine, winCount);
+		if (weights != null && !engine.startsWith("alphabeta")) {
+			throw new IllegalArgumentException("Weights are used only by the alpha-beta engine: engine=" + engine);
+		}
+		final int boardSize = size;
+		final int boardWinCount = winCount;
+		final String boardEngine = engine;
+		final GameRecordWriter gameRecordWriter = record != null ? GameRecordWriter.open(record) : null;
+		final PositionExporter positionExporter = export != null ? PositionExporter.open(export) : null;
+		final int[] engineWeights = weights;
+		EngineMetrics.registerMBean();
+		// Swing components are created on the event dispatch thread
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				createAndShow(boardSize, boardWinCount, boardEngine, gameRecordWriter, positionExporter, engineWeights);
+			}
+		});
+	}
+
+	private static void createAndShow(int size, int winCount, String engine, GameRecordWriter gameRecordWriter,
+			PositionExporter positionExporter, int[] weights) {
 		// creating GUI
-		GUIGomoku w = new GUIGomoku();
+		GUIGomoku w = new GUIGomoku(size, winCount, engine);
+		w.setGameRecordWriter(gameRecordWriter);
+		w.setPositionExporter(positionExporter);
+		if (weights != null) {
+			w.setEngineWeights(weights);
+		}
 		// making window not resizable
 		w.setResizable(false);
 		// making a window display all its elements
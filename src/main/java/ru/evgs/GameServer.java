@@ -0,0 +1,615 @@
+package ru.evgs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.impl.AlphaBetaComputerTurn;
+import ru.evgs.impl.DefaultGameTable;
+import ru.evgs.impl.DefaultHumanTurn;
+import ru.evgs.impl.DefaultWinnerChecker;
+import ru.evgs.impl.EngineMetrics;
+import ru.evgs.impl.GameRecord;
+import ru.evgs.impl.GameRecordWriter;
+import ru.evgs.impl.LatencyHistogram;
+import ru.evgs.impl.PositionExporter;
+import ru.evgs.impl.TranspositionTable;
+// headless server of human-vs-computer games over HTTP, every session has its own game table, human turn, computer
+// turn and winner checker, as one window of GUIGomoku; finished sessions are reset and reused
+// alpha-beta engines of sessions share one transposition table and engines share one pool of helper threads, so
+// a session takes only the memory of its searchers; trees of MCTS aren't shared, its memory option is per session
+// a few HTTP threads only parse requests, turns run on the bounded engine pool, which answers the requests itself;
+// when the pool queue or the count of sessions is full, requests are rejected with 503 instead of waiting
+// protocol (responses are text lines "key=value"):
+// - POST /sessions[?first=computer] - new game: session, state and the computer turn if it's first
+// - POST /sessions/ID/turn?row=R&col=C - human turn: state and the computer turn if the game isn't over
+// - DELETE /sessions/ID - closing the game
+// - GET /stats - sessions, turns and latencies of turns in microseconds
+// usage: GameServer [--port N] [--engine ENGINE] [--engine-threads N] [--queue N] [--max-sessions N]
+//                   [--size N] [--win N] [--record FILE] [--export DIR] [--verbose], ENGINE is the engine of TournamentRunner
+// --record appends games of closed sessions to the file of game records, unfinished ones too
+// --export adds positions of finished games of closed sessions to chunks of training positions in the directory
+public class GameServer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(GameServer.class);
+	public static final int DEFAULT_PORT = 8080;
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+	public static final int DEFAULT_MAX_SESSIONS = 10000;
+	public static final long DEFAULT_SESSION_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+	// states of games in responses
+	public static final String PLAYING = "playing";
+	public static final String HUMAN_WINS = "human_wins";
+	public static final String COMPUTER_WINS = "computer_wins";
+	public static final String DRAW = "draw";
+	private static final int HTTP_THREADS = 2;
+	static {
+		// the server writes headers and body separately, with Nagle's algorithm the body waits for the delayed ack
+		// of the client, it adds 40 ms to every turn; the property is read once when the HTTP server is loaded
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+	private final int port;
+	private final String engine;
+	private final int engineThreads;
+	private final int maxSessions;
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+	private long sessionTimeoutMillis = DEFAULT_SESSION_TIMEOUT_MILLIS;
+	private int size = 15;
+	private int winCount = 5;
+	private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+	// reset sessions of finished games, so tables and engines aren't created for every game
+	private final ConcurrentLinkedQueue<Session> pool = new ConcurrentLinkedQueue<>();
+	private final AtomicLong nextSessionId = new AtomicLong();
+	// slots of sessions are reserved by this count before sessions are added, so the limit holds for concurrent requests
+	private final AtomicInteger reservedSessions = new AtomicInteger();
+	private final AtomicLong createdSessions = new AtomicLong();
+	private final AtomicLong finishedGames = new AtomicLong();
+	private final AtomicLong rejectedRequests = new AtomicLong();
+	private final LatencyHistogram turnLatencies = new LatencyHistogram();
+	private GameRecordWriter gameRecordWriter;
+	private PositionExporter positionExporter;
+	private HttpServer server;
+	private ExecutorService httpExecutor;
+	private ThreadPoolExecutor engineExecutor;
+	// pondering of all sessions shares the threads of this pool, so sessions don't keep own threads
+	private ExecutorService ponderExecutor;
+	// engines of all sessions share the table and helper threads, helpers run only while their turns run on engine threads
+	private TranspositionTable transpositionTable;
+	private ExecutorService helperExecutor;
+	private ScheduledExecutorService sweeper;
+	private long startTime;
+
+	public GameServer(int port, String engine, int engineThreads, int maxSessions) {
+		if (engineThreads <= 0 || maxSessions <= 0) {
+			throw new IllegalArgumentException("Invalid server: engineThreads=" + engineThreads + ", maxSessions=" + maxSessions);
+		}
+		// checking the engine description before start
+		TournamentRunner.checkEngine(engine, winCount);
+		this.port = port;
+		this.engine = engine;
+		this.engineThreads = engineThreads;
+		this.maxSessions = maxSessions;
+	}
+	// setting count of turns which can wait for an engine thread
+	public void setQueueCapacity(int queueCapacity) {
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+		}
+		this.queueCapacity = queueCapacity;
+	}
+	// sessions without requests for this time are closed
+	public void setSessionTimeoutMillis(long sessionTimeoutMillis) {
+		if (sessionTimeoutMillis <= 0) {
+			throw new IllegalArgumentException("Session timeout must be positive: " + sessionTimeoutMillis);
+		}
+		this.sessionTimeoutMillis = sessionTimeoutMillis;
+	}
+	// setting size of game tables and count of stones in a line for the win
+	public void setBoard(int size, int winCount) {
+		if (size < winCount || winCount <= 1) {
+			throw new IllegalArgumentException("Invalid board: size=" + size + ", winCount=" + winCount);
+		}
+		TournamentRunner.checkEngine(engine, winCount);
+		this.size = size;
+		this.winCount = winCount;
+	}
+
+	// games of closed sessions are written by the writer, null if they aren't recorded
+	public void setGameRecordWriter(GameRecordWriter gameRecordWriter) {
+		this.gameRecordWriter = gameRecordWriter;
+	}
+	// positions of finished games of closed sessions are exported by the exporter, null if they aren't exported
+	public void setPositionExporter(PositionExporter positionExporter) {
+		this.positionExporter = positionExporter;
+	}
+
+	public void start() throws IOException {
+		server = HttpServer.create(new InetSocketAddress(port), 0);
+		httpExecutor = Executors.newFixedThreadPool(HTTP_THREADS);
+		server.setExecutor(httpExecutor);
+		engineExecutor = new ThreadPoolExecutor(engineThreads, engineThreads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(queueCapacity));
+		ponderExecutor = Executors.newFixedThreadPool(engineThreads);
+		transpositionTable = TournamentRunner.createTranspositionTable(engine);
+		helperExecutor = Executors.newCachedThreadPool();
+		server.createContext("/sessions", new SessionHandler());
+		server.createContext("/stats", new StatsHandler());
+		sweeper = Executors.newSingleThreadScheduledExecutor();
+		long sweepPeriod = Math.max(sessionTimeoutMillis / 4, 1);
+		sweeper.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				closeIdleSessions();
+			}
+		}, sweepPeriod, sweepPeriod, TimeUnit.MILLISECONDS);
+		startTime = System.nanoTime();
+		server.start();
+		LOGGER.info("Game server started on port {}: engine {}, {} engine threads, max {} sessions", getPort(), engine, engineThreads, maxSessions);
+	}
+
+	public void stop() {
+		server.stop(0);
+		httpExecutor.shutdownNow();
+		engineExecutor.shutdownNow();
+		ponderExecutor.shutdownNow();
+		helperExecutor.shutdownNow();
+		sweeper.shutdownNow();
+		for (Session session : sessions.values()) {
+			TournamentRunner.closeComputerTurn(session.computerTurn);
+		}
+		for (Session session : pool) {
+			TournamentRunner.closeComputerTurn(session.computerTurn);
+		}
+		LOGGER.info("Game server stopped: {}", getStats().replace('\n', ' '));
+	}
+	// the bound port, it's chosen by the system if the port 0 is given
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	public int getActiveSessions() {
+		return sessions.size();
+	}
+
+	public long getCreatedSessions() {
+		return createdSessions.get();
+	}
+
+	public long getRejectedRequests() {
+		return rejectedRequests.get();
+	}
+	// latencies of turns from the request to the response, with waiting in the queue
+	public LatencyHistogram getTurnLatencies() {
+		return turnLatencies;
+	}
+
+	String getStats() {
+		double seconds = Math.max(System.nanoTime() - startTime, 1) / (double) TimeUnit.SECONDS.toNanos(1);
+		return String.format(Locale.ROOT, "active=%d\ncreated=%d\nfinished=%d\nrejected=%d\nsessions_per_second=%.2f\nturns=%d\n"
+				+ "turn_p50_us=%d\nturn_p99_us=%d\nturn_max_us=%d\n", sessions.size(), createdSessions.get(), finishedGames.get(),
+				rejectedRequests.get(), createdSessions.get() / seconds, turnLatencies.getCount(), turnLatencies.getPercentile(50),
+				turnLatencies.getPercentile(99), turnLatencies.getMax());
+	}
+
+	private void closeIdleSessions() {
+		long now = System.nanoTime();
+		Iterator<Session> iterator = sessions.values().iterator();
+		while (iterator.hasNext()) {
+			Session session = iterator.next();
+			if (now - session.lastAccessTime > TimeUnit.MILLISECONDS.toNanos(sessionTimeoutMillis) && session.busy.compareAndSet(false, true)) {
+				LOGGER.debug("Session {} is closed by timeout", session.id);
+				close(session);
+			}
+		}
+	}
+	// the session is busy until the caller frees it, pooled sessions are busy too
+	private Session acquire() {
+		Session session = pool.poll();
+		if (session == null) {
+			session = new Session();
+			session.busy.set(true);
+		}
+		session.id = nextSessionId.incrementAndGet();
+		session.lastAccessTime = System.nanoTime();
+		return session;
+	}
+	// removing the session taken as busy and freeing its slot
+	private void close(Session session) {
+		sessions.remove(session.id);
+		reservedSessions.decrementAndGet();
+		release(session);
+	}
+	// the session must be taken as busy, so no turn runs on it; it stays busy in the pool, so a request which has
+	// found it before it's closed can't take it
+	private void release(Session session) {
+		if (session.computerTurn instanceof PonderingComputerTurn) {
+			((PonderingComputerTurn) session.computerTurn).stopPondering();
+		}
+		if ((gameRecordWriter != null || positionExporter != null) && session.record.getMoveCount() > 0) {
+			session.record.setResult(HUMAN_WINS.equals(session.state) ? GameRecord.HUMAN_WINS : COMPUTER_WINS.equals(session.state)
+					? GameRecord.COMPUTER_WINS : DRAW.equals(session.state) ? GameRecord.DRAW : GameRecord.UNFINISHED);
+			if (gameRecordWriter != null) {
+				gameRecordWriter.write(session.record);
+			}
+			if (positionExporter != null) {
+				positionExporter.export(session.record);
+			}
+		}
+		session.record.reset(size, winCount, CellValue.HUMAN);
+		session.gameTable.reInit();
+		session.state = PLAYING;
+		pool.offer(session);
+	}
+	// one game: the same objects as a window of GUIGomoku
+	private class Session {
+		private final GameTable gameTable;
+		private final HumanTurn humanTurn;
+		private final ComputerTurn computerTurn;
+		private final WinnerChecker winnerChecker;
+		// moves of the game, the first side is set by the first move
+		private final GameRecord record = new GameRecord(size, winCount, CellValue.HUMAN);
+		// a session makes one turn at a time
+		private final AtomicBoolean busy = new AtomicBoolean();
+		private volatile long lastAccessTime;
+		private long id;
+		private String state = PLAYING;
+
+		Session() {
+			gameTable = new DefaultGameTable(size);
+			humanTurn = new DefaultHumanTurn();
+			computerTurn = TournamentRunner.createComputerTurn(engine, winCount, transpositionTable, helperExecutor);
+			if (computerTurn instanceof AlphaBetaComputerTurn) {
+				((AlphaBetaComputerTurn) computerTurn).setPonderExecutor(ponderExecutor);
+			}
+			winnerChecker = new DefaultWinnerChecker(winCount);
+			humanTurn.setGameTable(gameTable);
+			computerTurn.setGameTable(gameTable);
+			winnerChecker.setGameTable(gameTable);
+		}
+		// the human turn and the reply of the computer, as GUIGomoku.handleHumanTurn
+		void makeTurn(int row, int col, StringBuilder response) {
+			Cell humanCell = humanTurn.makeTurn(row, col);
+			recordMove(humanCell, CellValue.HUMAN, GameRecord.NO_SCORE, 0);
+			response.append("human=").append(humanCell).append('\n');
+			if (winnerChecker.isWinnerFoundByLastTurn(humanCell).winnerExists()) {
+				state = HUMAN_WINS;
+			} else if (!gameTable.emptyCellExists()) {
+				state = DRAW;
+			} else {
+				makeComputerTurn(false, response);
+			}
+		}
+
+		void makeComputerTurn(boolean firstTurn, StringBuilder response) {
+			long startTime = System.nanoTime();
+			Cell computerCell = firstTurn ? computerTurn.makeFirstTurn() : computerTurn.makeTurn();
+			int score = computerTurn instanceof AlphaBetaComputerTurn ? ((AlphaBetaComputerTurn) computerTurn).getLastScore() : GameRecord.NO_SCORE;
+			recordMove(computerCell, CellValue.COMPUTER, score, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+			response.append("computer=").append(computerCell).append('\n');
+			if (winnerChecker.isWinnerFoundByLastTurn(computerCell).winnerExists()) {
+				state = COMPUTER_WINS;
+			} else if (!gameTable.emptyCellExists()) {
+				state = DRAW;
+			} else if (computerTurn instanceof PonderingComputerTurn) {
+				// the engine thinks while the human is thinking, with the CPU share of the engine description
+				((PonderingComputerTurn) computerTurn).startPondering();
+			}
+		}
+
+		private void recordMove(Cell cell, CellValue side, int score, long micros) {
+			if (record.getMoveCount() == 0) {
+				record.reset(size, winCount, side);
+			}
+			record.addMove(cell.getRowIndex() * size + cell.getColIndex(), score, micros);
+		}
+	}
+	// requests of sessions, turns are passed to the engine pool
+	private class SessionHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				String[] path = exchange.getRequestURI().getPath().split("/");
+				String method = exchange.getRequestMethod();
+				if (path.length == 2 && "POST".equals(method)) {
+					createSession(exchange);
+				} else if (path.length == 4 && "turn".equals(path[3]) && "POST".equals(method)) {
+					makeTurn(exchange, path[2]);
+				} else if (path.length == 3 && "DELETE".equals(method)) {
+					Session session = takeSession(path[2]);
+					long id = session.id;
+					close(session);
+					send(exchange, 200, "closed=" + id + "\n");
+				} else {
+					throw new HttpException(404, "Unknown request: " + method + " " + exchange.getRequestURI());
+				}
+			} catch (HttpException e) {
+				send(exchange, e.code, "error=" + e.getMessage() + "\n");
+			}
+		}
+
+		private void createSession(final HttpExchange exchange) throws IOException {
+			if (reservedSessions.incrementAndGet() > maxSessions) {
+				reservedSessions.decrementAndGet();
+				rejectedRequests.incrementAndGet();
+				throw new HttpException(503, "Too many sessions: " + maxSessions);
+			}
+			final Session session = acquire();
+			sessions.put(session.id, session);
+			createdSessions.incrementAndGet();
+			final StringBuilder response = new StringBuilder();
+			response.append("session=").append(session.id).append('\n');
+			if (!"computer".equals(parseQuery(exchange).get("first"))) {
+				session.busy.set(false);
+				send(exchange, 200, response.append("state=").append(session.state).append('\n').toString());
+				return;
+			}
+			final long requestTime = System.nanoTime();
+			try {
+				submit(exchange, session, new Runnable() {
+					@Override
+					public void run() {
+						session.makeComputerTurn(true, response);
+						sendTurn(exchange, session, response, requestTime);
+					}
+				});
+			} catch (HttpException e) {
+				session.busy.set(true);
+				close(session);
+				throw e;
+			}
+		}
+
+		private void makeTurn(final HttpExchange exchange, String id) throws IOException {
+			final long requestTime = System.nanoTime();
+			Map<String, String> query = parseQuery(exchange);
+			final int row;
+			final int col;
+			try {
+				row = Integer.parseInt(query.get("row"));
+				col = Integer.parseInt(query.get("col"));
+			} catch (NumberFormatException e) {
+				throw new HttpException(400, "Turn requires row and col: " + exchange.getRequestURI());
+			}
+			final Session session = takeSession(id);
+			session.lastAccessTime = requestTime;
+			if (!PLAYING.equals(session.state) || row < 0 || col < 0 || row >= size || col >= size || !session.gameTable.isCellFree(row, col)) {
+				session.busy.set(false);
+				throw new HttpException(409, "Cell " + row + ":" + col + " is not free or game is over: state=" + session.state);
+			}
+			submit(exchange, session, new Runnable() {
+				@Override
+				public void run() {
+					StringBuilder response = new StringBuilder();
+					session.makeTurn(row, col, response);
+					sendTurn(exchange, session, response, requestTime);
+				}
+			});
+		}
+		// admission control: a full queue rejects the turn instead of delaying all sessions
+		private void submit(HttpExchange exchange, Session session, Runnable turn) throws IOException {
+			try {
+				engineExecutor.execute(new TurnTask(exchange, session, turn));
+			} catch (RejectedExecutionException e) {
+				session.busy.set(false);
+				rejectedRequests.incrementAndGet();
+				throw new HttpException(503, "Server is busy");
+			}
+		}
+
+		private void sendTurn(HttpExchange exchange, Session session, StringBuilder response, long requestTime) {
+			response.append("state=").append(session.state).append('\n');
+			if (!PLAYING.equals(session.state)) {
+				finishedGames.incrementAndGet();
+			}
+			session.lastAccessTime = System.nanoTime();
+			session.busy.set(false);
+			try {
+				send(exchange, 200, response.toString());
+			} catch (IOException e) {
+				LOGGER.debug("Response to session {} isn't sent: {}", session.id, e.getMessage());
+			}
+			turnLatencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - requestTime));
+		}
+
+		// taking the session of the id as busy: the session can be closed by timeout and reused by another game after
+		// it's found, so it must still have the id when it's taken
+		private Session takeSession(String id) {
+			long sessionId = parseId(id);
+			Session session = sessions.get(sessionId);
+			if (session == null) {
+				throw new HttpException(404, "Session not found: " + id);
+			}
+			if (!session.busy.compareAndSet(false, true)) {
+				if (sessions.get(sessionId) != session) {
+					throw new HttpException(404, "Session not found: " + id);
+				}
+				throw new HttpException(409, "Session is busy: " + id);
+			}
+			if (sessions.get(sessionId) != session) {
+				session.busy.set(false);
+				throw new HttpException(404, "Session not found: " + id);
+			}
+			return session;
+		}
+
+		private long parseId(String id) {
+			try {
+				return Long.parseLong(id);
+			} catch (NumberFormatException e) {
+				throw new HttpException(400, "Invalid session: " + id);
+			}
+		}
+	}
+	// the turn on an engine thread, errors of the engine are answered by 500
+	private class TurnTask implements Runnable {
+		private final HttpExchange exchange;
+		private final Session session;
+		private final Runnable turn;
+
+		TurnTask(HttpExchange exchange, Session session, Runnable turn) {
+			this.exchange = exchange;
+			this.session = session;
+			this.turn = turn;
+		}
+
+		@Override
+		public void run() {
+			try {
+				turn.run();
+			} catch (RuntimeException e) {
+				LOGGER.error("Error in the session " + session.id + ": " + e.getMessage(), e);
+				session.busy.set(false);
+				try {
+					send(exchange, 500, "error=" + e.getMessage() + "\n");
+				} catch (IOException ioe) {
+					LOGGER.debug("Response to session {} isn't sent: {}", session.id, ioe.getMessage());
+				}
+			}
+		}
+	}
+
+	private class StatsHandler implements HttpHandler {
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			send(exchange, 200, getStats());
+		}
+	}
+
+	private static Map<String, String> parseQuery(HttpExchange exchange) {
+		Map<String, String> query = new HashMap<>();
+		String rawQuery = exchange.getRequestURI().getRawQuery();
+		if (rawQuery != null) {
+			for (String parameter : rawQuery.split("&")) {
+				String[] keyAndValue = parameter.split("=", 2);
+				query.put(keyAndValue[0], keyAndValue.length > 1 ? keyAndValue[1] : "");
+			}
+		}
+		return query;
+	}
+
+	private static void send(HttpExchange exchange, int code, String body) throws IOException {
+		byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(code, bytes.length);
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(bytes);
+		}
+	}
+	// error answered by the HTTP status
+	private static class HttpException extends RuntimeException {
+		private static final long serialVersionUID = -3461527740367372418L;
+		private final int code;
+
+		HttpException(int code, String message) {
+			super(message);
+			this.code = code;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		String engine = "default";
+		int engineThreads = Runtime.getRuntime().availableProcessors();
+		int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+		int maxSessions = DEFAULT_MAX_SESSIONS;
+		int size = 15;
+		int winCount = 5;
+		String record = null;
+		String export = null;
+		boolean verbose = false;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--port":
+				port = Integer.parseInt(args[++i]);
+				break;
+			case "--engine":
+				engine = args[++i];
+				break;
+			case "--engine-threads":
+				engineThreads = Integer.parseInt(args[++i]);
+				break;
+			case "--queue":
+				queueCapacity = Integer.parseInt(args[++i]);
+				break;
+			case "--max-sessions":
+				maxSessions = Integer.parseInt(args[++i]);
+				break;
+			case "--size":
+				size = Integer.parseInt(args[++i]);
+				break;
+			case "--win":
+				winCount = Integer.parseInt(args[++i]);
+				break;
+			case "--record":
+				record = args[++i];
+				break;
+			case "--export":
+				export = args[++i];
+				break;
+			case "--verbose":
+				verbose = true;
+				break;
+			default:
+				System.err.println("Unknown option: " + args[i]);
+				System.err.println("Usage: GameServer [--port N] [--engine ENGINE] [--engine-threads N] [--queue N] [--max-sessions N]"
+						+ " [--size N] [--win N] [--record FILE] [--export DIR] [--verbose]");
+				System.exit(1);
+			}
+		}
+		if (!verbose) {
+			TournamentRunner.quietEngineLogging();
+		}
+		final GameServer gameServer = new GameServer(port, engine, engineThreads, maxSessions);
+		gameServer.setQueueCapacity(queueCapacity);
+		gameServer.setBoard(size, winCount);
+		final GameRecordWriter gameRecordWriter = record != null ? GameRecordWriter.open(Paths.get(record)) : null;
+		final PositionExporter positionExporter = export != null ? PositionExporter.open(Paths.get(export)) : null;
+		EngineMetrics.registerMBean();
+		gameServer.setGameRecordWriter(gameRecordWriter);
+		gameServer.setPositionExporter(positionExporter);
+		gameServer.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			@Override
+			public void run() {
+				gameServer.stop();
+				if (gameRecordWriter != null) {
+					try {
+						gameRecordWriter.close();
+					} catch (IOException e) {
+						LOGGER.error("Error of close of game records: " + e.getMessage(), e);
+					}
+				}
+				if (positionExporter != null) {
+					try {
+						positionExporter.close();
+					} catch (IOException e) {
+						LOGGER.error("Error of close of exported positions: " + e.getMessage(), e);
+					}
+				}
+			}
+		}));
+	}
+}
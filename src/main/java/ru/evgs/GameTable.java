@@ -13,4 +13,23 @@ public interface GameTable {
 	boolean isCellFree(int row, int col);
 	// checking the existing of empty cells
 	boolean emptyCellExists();
+	// getting a Zobrist hash of stones on the field, it is updated incrementally by every setValue
+	long getHashKey();
+	// putting the stone on the free cell and remembering it in the journal of moves
+	void makeMove(int row, int col, CellValue cellValue);
+	// removing the stone of the last move of the journal
+	void undoMove();
+	// getting a count of moves in the journal, i.e. the number of the last move
+	int getMoveCount();
+	// getting a cell of the last move of the journal encoded as row * size + col, -1 if the journal is empty
+	int getLastMove();
+	// getting a count of stones on the field
+	int getStoneCount();
+	// copying cells of all stones encoded as row * size + col to the buffer, it must fit getStoneCount() cells
+	// returns the count of stones
+	int getStoneCells(int[] buffer);
+	// adding the listener which is notified about every stone put on or removed from the field
+	void addMoveListener(MoveListener listener);
+
+	void removeMoveListener(MoveListener listener);
 }
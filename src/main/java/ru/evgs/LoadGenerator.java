@@ -0,0 +1,275 @@
+package ru.evgs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.impl.LatencyHistogram;
+// load generator of GameServer: client threads play games of random human turns until all sessions are played,
+// latencies of turns are measured by clients, i.e. with HTTP, and are reported with sessions per second
+// usage: LoadGenerator [--host HOST] [--port N] [--clients N] [--sessions N] [--size N] [--seed N]
+//                      [--embedded [--engine ENGINE] [--engine-threads N]]
+// --embedded starts the server in the same JVM on a free port, so the load can be tested by one command
+public class LoadGenerator {
+	private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+	private final String baseUrl;
+	private final int clients;
+	private final int sessions;
+	private final int size;
+	private final long seed;
+
+	public LoadGenerator(String host, int port, int clients, int sessions, int size, long seed) {
+		if (clients <= 0 || sessions <= 0) {
+			throw new IllegalArgumentException("Invalid load: clients=" + clients + ", sessions=" + sessions);
+		}
+		this.baseUrl = "http://" + host + ":" + port;
+		this.clients = clients;
+		this.sessions = sessions;
+		this.size = size;
+		this.seed = seed;
+	}
+	// playing all sessions by client threads
+	public LoadResult run() throws InterruptedException {
+		final LoadResult result = new LoadResult();
+		final AtomicInteger remainingSessions = new AtomicInteger(sessions);
+		ExecutorService executor = Executors.newFixedThreadPool(clients);
+		try {
+			long startTime = System.nanoTime();
+			List<Future<?>> futures = new ArrayList<>(clients);
+			for (int i = 0; i < clients; i++) {
+				final Random random = new Random(seed + i);
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() {
+						while (remainingSessions.getAndDecrement() > 0) {
+							playSession(random, result);
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					LOGGER.error("Error in the client: " + e.getCause().getMessage(), e.getCause());
+				}
+			}
+			result.nanos = System.nanoTime() - startTime;
+			return result;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	// one game: the human makes random turns to free cells until the game is over
+	private void playSession(Random random, LoadResult result) {
+		boolean[] occupied = new boolean[size * size];
+		String session = null;
+		try {
+			Response response = request("POST", "/sessions" + (random.nextBoolean() ? "?first=computer" : ""));
+			if (response.code != HttpURLConnection.HTTP_OK) {
+				result.addFailure(response.code);
+				return;
+			}
+			session = response.values.get("session");
+			markTurns(response, occupied);
+			while (GameServer.PLAYING.equals(response.values.get("state"))) {
+				int cell = randomFreeCell(random, occupied);
+				long startTime = System.nanoTime();
+				response = request("POST", "/sessions/" + session + "/turn?row=" + cell / size + "&col=" + cell % size);
+				result.turnLatencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+				if (response.code != HttpURLConnection.HTTP_OK) {
+					result.addFailure(response.code);
+					break;
+				}
+				markTurns(response, occupied);
+			}
+			if (response.code == HttpURLConnection.HTTP_OK) {
+				result.completedSessions.incrementAndGet();
+			}
+			request("DELETE", "/sessions/" + session);
+		} catch (IOException e) {
+			LOGGER.debug("Session {} is failed: {}", session, e.getMessage());
+			result.addFailure(0);
+		}
+	}
+
+	private void markTurns(Response response, boolean[] occupied) {
+		for (String key : new String[] { "human", "computer" }) {
+			String cell = response.values.get(key);
+			if (cell != null) {
+				String[] rowAndCol = cell.split(":");
+				occupied[Integer.parseInt(rowAndCol[0]) * size + Integer.parseInt(rowAndCol[1])] = true;
+			}
+		}
+	}
+
+	private static int randomFreeCell(Random random, boolean[] occupied) {
+		int cell = random.nextInt(occupied.length);
+		while (occupied[cell]) {
+			cell = (cell + 1) % occupied.length;
+		}
+		return cell;
+	}
+	// the response is read fully, so the connection is kept alive and reused by the next request
+	private Response request(String method, String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+		connection.setRequestMethod(method);
+		Response response = new Response();
+		response.code = connection.getResponseCode();
+		InputStream input = response.code < HttpURLConnection.HTTP_BAD_REQUEST ? connection.getInputStream() : connection.getErrorStream();
+		if (input != null) {
+			try (InputStream body = input) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buffer = new byte[256];
+				int count;
+				while ((count = body.read(buffer)) > 0) {
+					bytes.write(buffer, 0, count);
+				}
+				for (String line : new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+					String[] keyAndValue = line.split("=", 2);
+					if (keyAndValue.length == 2) {
+						response.values.put(keyAndValue[0], keyAndValue[1]);
+					}
+				}
+			}
+		}
+		return response;
+	}
+
+	private static class Response {
+		private int code;
+		private final Map<String, String> values = new HashMap<>();
+	}
+	// summary of the load
+	public static class LoadResult {
+		private final AtomicLong completedSessions = new AtomicLong();
+		private final AtomicLong rejected = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		private final LatencyHistogram turnLatencies = new LatencyHistogram();
+		private long nanos;
+
+		void addFailure(int code) {
+			if (code == HttpURLConnection.HTTP_UNAVAILABLE) {
+				rejected.incrementAndGet();
+			} else {
+				errors.incrementAndGet();
+			}
+		}
+
+		public long getCompletedSessions() {
+			return completedSessions.get();
+		}
+		// sessions and turns rejected by admission control of the server
+		public long getRejected() {
+			return rejected.get();
+		}
+
+		public long getErrors() {
+			return errors.get();
+		}
+
+		public LatencyHistogram getTurnLatencies() {
+			return turnLatencies;
+		}
+
+		public double getSessionsPerSecond() {
+			return completedSessions.get() * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1);
+		}
+
+		String format() {
+			return String.format(Locale.ROOT, "sessions: %d, rejected: %d, errors: %d, time: %d ms, sessions/s: %.2f%n"
+					+ "turn latency, us: turns %d, p50 %d, p90 %d, p99 %d, max %d%n", completedSessions.get(), rejected.get(), errors.get(),
+					TimeUnit.NANOSECONDS.toMillis(nanos), getSessionsPerSecond(), turnLatencies.getCount(), turnLatencies.getPercentile(50),
+					turnLatencies.getPercentile(90), turnLatencies.getPercentile(99), turnLatencies.getMax());
+		}
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String host = "localhost";
+		int port = GameServer.DEFAULT_PORT;
+		int clients = 8;
+		int sessions = 1000;
+		int size = 15;
+		long seed = 1;
+		boolean embedded = false;
+		String engine = "default";
+		int engineThreads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--host":
+				host = args[++i];
+				break;
+			case "--port":
+				port = Integer.parseInt(args[++i]);
+				break;
+			case "--clients":
+				clients = Integer.parseInt(args[++i]);
+				break;
+			case "--sessions":
+				sessions = Integer.parseInt(args[++i]);
+				break;
+			case "--size":
+				size = Integer.parseInt(args[++i]);
+				break;
+			case "--seed":
+				seed = Long.parseLong(args[++i]);
+				break;
+			case "--embedded":
+				embedded = true;
+				break;
+			case "--engine":
+				engine = args[++i];
+				break;
+			case "--engine-threads":
+				engineThreads = Integer.parseInt(args[++i]);
+				break;
+			default:
+				System.err.println("Unknown option: " + args[i]);
+				System.err.println("Usage: LoadGenerator [--host HOST] [--port N] [--clients N] [--sessions N] [--size N] [--seed N]"
+						+ " [--embedded [--engine ENGINE] [--engine-threads N]]");
+				System.exit(1);
+			}
+		}
+		GameServer server = null;
+		if (embedded) {
+			TournamentRunner.quietEngineLogging();
+			server = new GameServer(0, engine, engineThreads, GameServer.DEFAULT_MAX_SESSIONS);
+			server.setBoard(size, Math.min(5, size));
+			server.start();
+			host = "localhost";
+			port = server.getPort();
+		}
+		LOGGER.info("Load started: {} sessions by {} clients against {}:{}", sessions, clients, host, port);
+		try {
+			LoadResult result = new LoadGenerator(host, port, clients, sessions, size, seed).run();
+			System.out.print(result.format());
+			if (server != null) {
+				System.out.print(server.getStats());
+			}
+		} finally {
+			if (server != null) {
+				server.stop();
+			}
+		}
+	}
+}
@@ -0,0 +1,11 @@
+package ru.evgs;
+// listener of stones put on and removed from the game table
+// it keeps incremental state (evaluation, candidate moves, etc.) up to date with the field
+public interface MoveListener {
+	// the stone is put on the empty cell
+	void makeMove(int row, int col, CellValue cellValue);
+	// the stone is removed from the cell
+	void undoMove(int row, int col, CellValue cellValue);
+	// all stones are removed from the field
+	void reset();
+}
@@ -0,0 +1,9 @@
+package ru.evgs;
+// computer turn which can search while the human is thinking: the search of the expected position
+// is reused by the next turn if the human makes the expected turn, otherwise it's discarded
+public interface PonderingComputerTurn extends ComputerTurn {
+	// starting the search in background after the computer turn, the game table isn't used by it
+	void startPondering();
+	// stopping the search and waiting for it, the next turn stops it itself
+	void stopPondering();
+}
@@ -0,0 +1,538 @@
+package ru.evgs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.impl.AlphaBetaComputerTurn;
+import ru.evgs.impl.BookComputerTurn;
+import ru.evgs.impl.DefaultComputerTurn;
+import ru.evgs.impl.DefaultGameTable;
+import ru.evgs.impl.DefaultWinnerChecker;
+import ru.evgs.impl.EngineMetrics;
+import ru.evgs.impl.GameRecord;
+import ru.evgs.impl.GameRecordWriter;
+import ru.evgs.impl.MctsComputerTurn;
+import ru.evgs.impl.MirroredGameTable;
+import ru.evgs.impl.OpeningBook;
+import ru.evgs.impl.PatternEvaluator;
+import ru.evgs.impl.PositionCache;
+import ru.evgs.impl.PositionExporter;
+import ru.evgs.impl.SparseGameTable;
+import ru.evgs.impl.TranspositionTable;
+// headless self-play: plays games between two computer turns on a thread pool and reports results and move latencies
+// usage: TournamentRunner [--games N] [--threads N] [--first ENGINE] [--second ENGINE] [--openings N] [--seed N]
+//                         [--board dense|sparse] [--size N] [--win N] [--record FILE] [--export DIR] [--metrics] [--verbose]
+// ENGINE is "default[:book=FILE]" or "alphabeta[:time=ms,nodes=N,depth=N,threads=N,hash=MB,ponder=CPU%,cache=FILE,
+// weights=FILE,book=FILE]" or "mcts[:time=ms,playouts=N,threads=N,memory=MB,book=FILE]", alpha-beta and MCTS keep dense buffers
+// of the field size, so very large sparse fields are for the default engine
+// --record appends games to the file of game records, the first engine plays by computer stones in them
+// --export adds positions of games to chunks of training positions in the directory (see PositionExporter)
+// --metrics enables EngineMetrics and prints them after the results
+public class TournamentRunner {
+	private static final Logger LOGGER = LoggerFactory.getLogger(TournamentRunner.class);
+	// results of one game
+	static final int DRAW = 0;
+	static final int FIRST_WINS = 1;
+	static final int SECOND_WINS = 2;
+	// opening stones are placed in the square of this side around the middle of the field
+	static final int OPENING_AREA = 7;
+	private static final Map<String, PositionCache> POSITION_CACHES = new HashMap<>();
+	private final int games;
+	private final int threads;
+	private final String firstEngine;
+	private final String secondEngine;
+	private final int openingStones;
+	private final long seed;
+	private boolean sparse;
+	private int size = 15;
+	private int winCount = 5;
+	private GameRecordWriter gameRecordWriter;
+	private PositionExporter positionExporter;
+
+	public TournamentRunner(int games, int threads, String firstEngine, String secondEngine, int openingStones, long seed) {
+		if (games <= 0 || threads <= 0 || openingStones < 0 || openingStones > OPENING_AREA * OPENING_AREA) {
+			throw new IllegalArgumentException("Invalid tournament: games=" + games + ", threads=" + threads + ", openings=" + openingStones);
+		}
+		// checking engines before the start
+		checkEngine(firstEngine, winCount);
+		checkEngine(secondEngine, winCount);
+		this.games = games;
+		this.threads = threads;
+		this.firstEngine = firstEngine;
+		this.secondEngine = secondEngine;
+		this.openingStones = openingStones;
+		this.seed = seed;
+	}
+	// setting the field of games: dense or sparse game table, its size and count of stones in a line for the win
+	public void setBoard(boolean sparse, int size, int winCount) {
+		if (size < winCount || winCount <= 1 || (size < OPENING_AREA && openingStones > size * size)) {
+			throw new IllegalArgumentException("Invalid board: size=" + size + ", winCount=" + winCount + ", openings=" + openingStones);
+		}
+		checkEngine(firstEngine, winCount);
+		checkEngine(secondEngine, winCount);
+		this.sparse = sparse;
+		this.size = size;
+		this.winCount = winCount;
+	}
+	// played games are written by the writer, null if they aren't recorded
+	public void setGameRecordWriter(GameRecordWriter gameRecordWriter) {
+		this.gameRecordWriter = gameRecordWriter;
+	}
+	// positions of played games are exported by the exporter, null if they aren't exported
+	public void setPositionExporter(PositionExporter positionExporter) {
+		this.positionExporter = positionExporter;
+	}
+	// checking the engine description without creating the engine: the name, options, their numbers and files
+	static void checkEngine(String engine, int winCount) {
+		EngineDescription description = new EngineDescription(engine);
+		if (description.book != null && !Files.isReadable(Paths.get(description.book))) {
+			throw new IllegalArgumentException("Can't open opening book: " + description.book);
+		}
+		String weights = description.options.get("weights");
+		if (weights != null && readWeights(weights).length != winCount) {
+			throw new IllegalArgumentException("Count of weights must be equal to win count: weights=" + weights + ", winCount=" + winCount);
+		}
+	}
+	// creating computer turn by the engine description
+	static ComputerTurn createComputerTurn(String engine, int winCount) {
+		return createComputerTurn(engine, winCount, null, null);
+	}
+	// alpha-beta and MCTS engines search with the given transposition table and pool of helper threads instead of
+	// their own ones if they aren't null, e.g. engines of all sessions of a server share them
+	static ComputerTurn createComputerTurn(String engine, int winCount, TranspositionTable transpositionTable, ExecutorService helperExecutor) {
+		EngineDescription description = new EngineDescription(engine);
+		ComputerTurn computerTurn = createEngine(description, winCount, transpositionTable, helperExecutor);
+		// the opening book option is common for all engines
+		if (description.book != null) {
+			try {
+				return new BookComputerTurn(OpeningBook.open(Paths.get(description.book)), computerTurn);
+			} catch (IOException e) {
+				closeComputerTurn(computerTurn);
+				throw new IllegalArgumentException("Can't open opening book: " + description.book, e);
+			}
+		}
+		return computerTurn;
+	}
+	// transposition table of the size of the alpha-beta engine description, null for other engines
+	static TranspositionTable createTranspositionTable(String engine) {
+		EngineDescription description = new EngineDescription(engine);
+		if (!"alphabeta".equals(description.name)) {
+			return null;
+		}
+		return new TranspositionTable(description.getLong("hash", AlphaBetaComputerTurn.DEFAULT_HASH_MEMORY_BYTES / 1024 / 1024) * 1024 * 1024);
+	}
+
+	private static ComputerTurn createEngine(EngineDescription description, int winCount, TranspositionTable transpositionTable,
+			ExecutorService helperExecutor) {
+		if ("default".equals(description.name)) {
+			return new DefaultComputerTurn(winCount);
+		} else if ("alphabeta".equals(description.name)) {
+			long hash = transpositionTable != null ? 0
+					: description.getLong("hash", AlphaBetaComputerTurn.DEFAULT_HASH_MEMORY_BYTES / 1024 / 1024) * 1024 * 1024;
+			AlphaBetaComputerTurn computerTurn = new AlphaBetaComputerTurn(description.getLong("time", AlphaBetaComputerTurn.DEFAULT_TIME_LIMIT_MILLIS),
+					description.getLong("nodes", Long.MAX_VALUE), (int) description.getLong("depth", AlphaBetaComputerTurn.DEFAULT_MAX_DEPTH), hash);
+			computerTurn.setWinCount(winCount);
+			if (transpositionTable != null) {
+				computerTurn.setTranspositionTable(transpositionTable);
+			}
+			computerTurn.setThreadCount((int) description.getLong("threads", 1));
+			computerTurn.setHelperExecutor(helperExecutor);
+			computerTurn.setPonderCpuShare((int) description.getLong("ponder", 0));
+			String cache = description.options.get("cache");
+			if (cache != null) {
+				computerTurn.setPositionCache(openPositionCache(cache));
+			}
+			String weights = description.options.get("weights");
+			if (weights != null) {
+				computerTurn.setWeights(readWeights(weights));
+			}
+			return computerTurn;
+		}
+		MctsComputerTurn computerTurn = new MctsComputerTurn(description.getLong("time", MctsComputerTurn.DEFAULT_TIME_LIMIT_MILLIS),
+				description.getLong("playouts", Long.MAX_VALUE),
+				description.getLong("memory", MctsComputerTurn.DEFAULT_TREE_MEMORY_BYTES / 1024 / 1024) * 1024 * 1024);
+		computerTurn.setWinCount(winCount);
+		computerTurn.setThreadCount((int) description.getLong("threads", 1));
+		computerTurn.setHelperExecutor(helperExecutor);
+		return computerTurn;
+	}
+
+	private static int[] readWeights(String weights) {
+		try {
+			return PatternEvaluator.readWeights(Paths.get(weights));
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Can't read weights: " + weights, e);
+		}
+	}
+	// releasing threads of the engine, engines are closed after every game, so a long tournament doesn't leak
+	// threads of engines
+	static void closeComputerTurn(ComputerTurn computerTurn) {
+		if (computerTurn instanceof Closeable) {
+			try {
+				((Closeable) computerTurn).close();
+			} catch (IOException e) {
+				LOGGER.warn("Computer turn isn't closed: " + e.getMessage(), e);
+			}
+		}
+	}
+	// playing all games, the first engine makes the first turn in even games
+	public TournamentResult run() throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			long startTime = System.nanoTime();
+			List<Future<GameResult>> futures = new ArrayList<>(games);
+			for (int i = 0; i < games; i++) {
+				final int gameIndex = i;
+				futures.add(executor.submit(new Callable<GameResult>() {
+					@Override
+					public GameResult call() {
+						return playGame(gameIndex);
+					}
+				}));
+			}
+			TournamentResult result = new TournamentResult();
+			for (Future<GameResult> future : futures) {
+				try {
+					result.add(future.get());
+				} catch (ExecutionException e) {
+					LOGGER.error("Error in the game: " + e.getCause().getMessage(), e.getCause());
+					result.errors++;
+				}
+			}
+			result.nanos = System.nanoTime() - startTime;
+			return result;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	// playing one game on its own game table
+	GameResult playGame(int gameIndex) {
+		GameTable gameTable = sparse ? new SparseGameTable(size) : new DefaultGameTable(size);
+		WinnerChecker winnerChecker = new DefaultWinnerChecker(winCount);
+		winnerChecker.setGameTable(gameTable);
+		// the first engine plays by computer stones, the second one by human stones through the mirrored table
+		ComputerTurn[] computerTurns = { createComputerTurn(firstEngine, winCount), createComputerTurn(secondEngine, winCount) };
+		try {
+			return playGame(gameIndex, gameTable, winnerChecker, computerTurns);
+		} finally {
+			closeComputerTurn(computerTurns[0]);
+			closeComputerTurn(computerTurns[1]);
+		}
+	}
+
+	private GameResult playGame(int gameIndex, GameTable gameTable, WinnerChecker winnerChecker, ComputerTurn[] computerTurns) {
+		computerTurns[0].setGameTable(gameTable);
+		computerTurns[1].setGameTable(new MirroredGameTable(gameTable));
+		CellValue[] cellValues = { CellValue.COMPUTER, CellValue.HUMAN };
+		GameResult result = new GameResult();
+		int current = gameIndex % 2;
+		GameRecord record = gameRecordWriter != null || positionExporter != null ? new GameRecord(size, winCount, cellValues[current]) : null;
+		current = playOpening(gameTable, cellValues, current, new Random(seed + gameIndex), record);
+		boolean firstTurn = openingStones == 0;
+		while (gameTable.emptyCellExists()) {
+			long startTime = System.nanoTime();
+			Cell cell = firstTurn ? computerTurns[current].makeFirstTurn() : computerTurns[current].makeTurn();
+			long time = System.nanoTime() - startTime;
+			result.addLatency(current, time);
+			firstTurn = false;
+			if (record != null) {
+				int score = computerTurns[current] instanceof AlphaBetaComputerTurn
+						? ((AlphaBetaComputerTurn) computerTurns[current]).getLastScore() : GameRecord.NO_SCORE;
+				record.addMove(cell.getRowIndex() * size + cell.getColIndex(), score, TimeUnit.NANOSECONDS.toMicros(time));
+			}
+			if (winnerChecker.isWinnerFoundByLastTurn(cell).winnerExists()) {
+				result.winner = current == 0 ? FIRST_WINS : SECOND_WINS;
+				break;
+			}
+			// a pondering engine thinks while the other one makes its turn
+			if (computerTurns[current] instanceof PonderingComputerTurn) {
+				((PonderingComputerTurn) computerTurns[current]).startPondering();
+			}
+			current = 1 - current;
+		}
+		for (ComputerTurn computerTurn : computerTurns) {
+			if (computerTurn instanceof PonderingComputerTurn) {
+				((PonderingComputerTurn) computerTurn).stopPondering();
+			}
+		}
+		if (record != null) {
+			record.setResult(result.winner == FIRST_WINS ? GameRecord.COMPUTER_WINS
+					: result.winner == SECOND_WINS ? GameRecord.HUMAN_WINS : GameRecord.DRAW);
+			if (gameRecordWriter != null) {
+				gameRecordWriter.write(record);
+			}
+			if (positionExporter != null) {
+				positionExporter.export(record);
+			}
+		}
+		LOGGER.debug("Game {} is over: result {}, turns {}", gameIndex, result.winner, result.turns[0] + result.turns[1]);
+		return result;
+	}
+	// engines of all games share one cache of the file, it stays open until exit and is flushed by its own thread
+	private static synchronized PositionCache openPositionCache(String path) {
+		PositionCache positionCache = POSITION_CACHES.get(path);
+		if (positionCache == null) {
+			try {
+				positionCache = PositionCache.open(Paths.get(path), PositionCache.DEFAULT_MEMORY_BYTES);
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Can't open position cache: " + path, e);
+			}
+			POSITION_CACHES.put(path, positionCache);
+		}
+		return positionCache;
+	}
+	// random opening stones near the middle of the field, returns the index of the engine which moves next
+	private int playOpening(GameTable gameTable, CellValue[] cellValues, int current, Random random, GameRecord record) {
+		// the area is cut by the field if it's smaller
+		int area = Math.min(OPENING_AREA, gameTable.getSize());
+		int first = gameTable.getSize() / 2 - area / 2;
+		for (int placed = 0; placed < openingStones; ) {
+			int row = first + random.nextInt(area);
+			int col = first + random.nextInt(area);
+			if (gameTable.isCellFree(row, col)) {
+				gameTable.makeMove(row, col, cellValues[current]);
+				if (record != null) {
+					record.addMove(row, col);
+				}
+				current = 1 - current;
+				placed++;
+			}
+		}
+		return current;
+	}
+
+	public static void main(String[] args) throws InterruptedException, IOException {
+		int games = 100;
+		int threads = Runtime.getRuntime().availableProcessors();
+		String firstEngine = "alphabeta:time=100";
+		String secondEngine = "default";
+		int openings = 2;
+		long seed = 1;
+		boolean verbose = false;
+		boolean sparse = false;
+		int size = 15;
+		int winCount = 5;
+		Path record = null;
+		Path export = null;
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--games":
+				games = Integer.parseInt(args[++i]);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "--first":
+				firstEngine = args[++i];
+				break;
+			case "--second":
+				secondEngine = args[++i];
+				break;
+			case "--openings":
+				openings = Integer.parseInt(args[++i]);
+				break;
+			case "--seed":
+				seed = Long.parseLong(args[++i]);
+				break;
+			case "--board":
+				sparse = "sparse".equals(args[++i]);
+				break;
+			case "--size":
+				size = Integer.parseInt(args[++i]);
+				break;
+			case "--win":
+				winCount = Integer.parseInt(args[++i]);
+				break;
+			case "--record":
+				record = Paths.get(args[++i]);
+				break;
+			case "--export":
+				export = Paths.get(args[++i]);
+				break;
+			case "--metrics":
+				EngineMetrics.getInstance().setEnabled(true);
+				break;
+			case "--verbose":
+				verbose = true;
+				break;
+			default:
+				System.err.println("Unknown option: " + args[i]);
+				System.err.println("Usage: TournamentRunner [--games N] [--threads N] [--first ENGINE] [--second ENGINE] [--openings N] [--seed N]"
+						+ " [--board dense|sparse] [--size N] [--win N] [--record FILE] [--export DIR] [--metrics] [--verbose]");
+				System.exit(1);
+			}
+		}
+		if (!verbose) {
+			quietEngineLogging();
+		}
+		EngineMetrics.registerMBean();
+		LOGGER.info("Tournament started: {} games of {} against {} on {} threads", games, firstEngine, secondEngine, threads);
+		TournamentRunner runner = new TournamentRunner(games, threads, firstEngine, secondEngine, openings, seed);
+		runner.setBoard(sparse, size, winCount);
+		try (GameRecordWriter gameRecordWriter = record != null ? GameRecordWriter.open(record) : null;
+				PositionExporter positionExporter = export != null ? PositionExporter.open(export) : null) {
+			runner.setGameRecordWriter(gameRecordWriter);
+			runner.setPositionExporter(positionExporter);
+			TournamentResult result = runner.run();
+			System.out.println(result.format(firstEngine, secondEngine));
+			if (EngineMetrics.isMetricsEnabled()) {
+				System.out.println(EngineMetrics.getInstance());
+			}
+		}
+	}
+	// engines log every turn, it would distort latencies of thousands of games
+	static void quietEngineLogging() {
+		Logger engineLogger = LoggerFactory.getLogger("ru.evgs.impl");
+		if (engineLogger instanceof ch.qos.logback.classic.Logger) {
+			((ch.qos.logback.classic.Logger) engineLogger).setLevel(ch.qos.logback.classic.Level.WARN);
+		}
+	}
+	// parsed engine description: the name, the opening book and other options, which are known to the engine
+	private static class EngineDescription {
+		private static final List<String> ALPHA_BETA_OPTIONS = Arrays.asList("time", "nodes", "depth", "threads", "hash", "ponder", "cache", "weights");
+		private static final List<String> MCTS_OPTIONS = Arrays.asList("time", "playouts", "threads", "memory");
+		// options with values which aren't numbers
+		private static final List<String> FILE_OPTIONS = Arrays.asList("cache", "weights");
+		private final String name;
+		private String book;
+		private final Map<String, String> options = new HashMap<>();
+
+		EngineDescription(String engine) {
+			String[] nameAndOptions = engine.split(":", 2);
+			name = nameAndOptions[0];
+			List<String> known;
+			if ("default".equals(name)) {
+				known = Collections.emptyList();
+			} else if ("alphabeta".equals(name)) {
+				known = ALPHA_BETA_OPTIONS;
+			} else if ("mcts".equals(name)) {
+				known = MCTS_OPTIONS;
+			} else {
+				throw new IllegalArgumentException("Unknown engine: " + engine);
+			}
+			if (nameAndOptions.length == 1) {
+				return;
+			}
+			for (String option : nameAndOptions[1].split(",")) {
+				String[] keyAndValue = option.split("=", 2);
+				if (keyAndValue.length != 2) {
+					throw new IllegalArgumentException("Invalid engine option: " + option);
+				}
+				if ("book".equals(keyAndValue[0])) {
+					book = keyAndValue[1];
+					continue;
+				}
+				if (!known.contains(keyAndValue[0])) {
+					throw new IllegalArgumentException("Unknown engine option: " + option);
+				}
+				if (!FILE_OPTIONS.contains(keyAndValue[0])) {
+					// the share of CPU of pondering can be 0, other numbers are limits and sizes
+					long value = Long.parseLong(keyAndValue[1]);
+					if (value < 0 || (value == 0 && !"ponder".equals(keyAndValue[0]))) {
+						throw new IllegalArgumentException("Invalid engine option: " + option);
+					}
+				}
+				options.put(keyAndValue[0], keyAndValue[1]);
+			}
+		}
+
+		long getLong(String key, long defaultValue) {
+			String value = options.get(key);
+			return value != null ? Long.parseLong(value) : defaultValue;
+		}
+	}
+	// results and latencies of one game, index 0 is the first engine
+	static class GameResult {
+		int winner = DRAW;
+		final int[] turns = new int[2];
+		final long[][] latencies = { new long[64], new long[64] };
+
+		void addLatency(int engine, long nanos) {
+			if (turns[engine] == latencies[engine].length) {
+				latencies[engine] = Arrays.copyOf(latencies[engine], turns[engine] * 2);
+			}
+			latencies[engine][turns[engine]++] = nanos;
+		}
+	}
+	// summary of all games
+	public static class TournamentResult {
+		private final int[] outcomes = new int[3];
+		private final long[][] latencies = { new long[1024], new long[1024] };
+		private final int[] turns = new int[2];
+		private int errors;
+		private long nanos;
+
+		void add(GameResult game) {
+			outcomes[game.winner]++;
+			for (int engine = 0; engine < 2; engine++) {
+				if (turns[engine] + game.turns[engine] > latencies[engine].length) {
+					latencies[engine] = Arrays.copyOf(latencies[engine], Math.max(latencies[engine].length * 2, turns[engine] + game.turns[engine]));
+				}
+				System.arraycopy(game.latencies[engine], 0, latencies[engine], turns[engine], game.turns[engine]);
+				turns[engine] += game.turns[engine];
+			}
+		}
+
+		public int getFirstWins() {
+			return outcomes[FIRST_WINS];
+		}
+
+		public int getSecondWins() {
+			return outcomes[SECOND_WINS];
+		}
+
+		public int getDraws() {
+			return outcomes[DRAW];
+		}
+
+		public int getErrors() {
+			return errors;
+		}
+
+		public double getGamesPerSecond() {
+			return (getFirstWins() + getSecondWins() + getDraws()) * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1);
+		}
+		// latency percentile of turns of the engine (0 - first, 1 - second) in microseconds
+		public long getLatencyPercentile(int engine, double percentile) {
+			if (turns[engine] == 0) {
+				return 0;
+			}
+			long[] sorted = Arrays.copyOf(latencies[engine], turns[engine]);
+			Arrays.sort(sorted);
+			int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile / 100 * sorted.length) - 1);
+			return TimeUnit.NANOSECONDS.toMicros(sorted[Math.max(index, 0)]);
+		}
+
+		String format(String firstEngine, String secondEngine) {
+			StringBuilder report = new StringBuilder();
+			report.append(String.format("games: %d, %s wins: %d, draws: %d, %s wins: %d, errors: %d%n", getFirstWins() + getSecondWins() + getDraws(),
+					firstEngine, getFirstWins(), getDraws(), secondEngine, getSecondWins(), errors));
+			report.append(String.format("time: %d ms, games/s: %.2f%n", TimeUnit.NANOSECONDS.toMillis(nanos), getGamesPerSecond()));
+			String[] engines = { firstEngine, secondEngine };
+			for (int engine = 0; engine < 2; engine++) {
+				report.append(String.format("%s turn latency, us: turns %d, p50 %d, p90 %d, p99 %d, max %d%n", engines[engine], turns[engine],
+						getLatencyPercentile(engine, 50), getLatencyPercentile(engine, 90), getLatencyPercentile(engine, 99),
+						getLatencyPercentile(engine, 100)));
+			}
+			return report.toString();
+		}
+	}
+}
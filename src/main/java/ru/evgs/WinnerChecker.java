@@ -5,4 +5,6 @@ public interface WinnerChecker {
 	void setGameTable(GameTable gameTable);
 	// checks if there is a winning combination by value of cell
 	WinnerResult isWinnerFound(CellValue cellValue);
+	// checks if the last turn made a winning combination, only the lines through its cell are inspected
+	WinnerResult isWinnerFoundByLastTurn(Cell lastTurn);
 }
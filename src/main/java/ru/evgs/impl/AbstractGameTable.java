@@ -0,0 +1,198 @@
+package ru.evgs.impl;
+
+import java.util.Arrays;
+
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.MoveListener;
+// common part of game table implementations: index checks, the journal of moves, the stone count,
+// the Zobrist hash and move listeners; all of them are updated by setValue, so every query is O(1)
+// subclasses only store values of cells
+public abstract class AbstractGameTable implements GameTable {
+	private static final MoveListener[] NO_LISTENERS = new MoveListener[0];
+	private static final int INITIAL_JOURNAL_CAPACITY = 256;
+	private final int size;
+	private final ZobristKeys zobristKeys;
+	// cells of moves made by makeMove, encoded as row * size + col
+	private int[] journal;
+	private int moveCount;
+	private int stoneCount;
+	private long hashKey;
+	// array instead of a list, so notification doesn't allocate an iterator
+	private MoveListener[] listeners = NO_LISTENERS;
+
+	protected AbstractGameTable(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Size of game table must be positive: size=" + size);
+		}
+		this.size = size;
+		zobristKeys = new ZobristKeys(size);
+		// the journal grows with the game, so large fields don't reserve their area
+		journal = new int[Math.min(size * size, INITIAL_JOURNAL_CAPACITY)];
+	}
+	// reading value of the cell, indexes are already verified
+	protected abstract CellValue readCell(int row, int col);
+	// writing value of the cell, indexes are already verified
+	protected abstract void writeCell(int row, int col, CellValue cellValue);
+	// making all cells empty
+	protected abstract void clearCells();
+	// getting value of cell by row and col
+	@Override
+	public CellValue getValue(int row, int col) {
+		checkIndexes(row, col);
+		return readCell(row, col);
+	}
+	// set the cell value with the passed value for the row and column
+	// listeners see it as removing of the old stone and putting of the new one; the move of the journal which
+	// has put the old stone is dropped from the journal, so undoMove never removes a stone it hasn't put
+	@Override
+	public void setValue(int row, int col, CellValue cellValue) {
+		checkIndexes(row, col);
+		CellValue oldValue = readCell(row, col);
+		if (oldValue == cellValue) {
+			return;
+		}
+		if (oldValue != CellValue.EMPTY) {
+			dropMove(row * size + col);
+		}
+		updateCell(row, col, oldValue, cellValue);
+	}
+	// writing the cell and updating the count of stones, the hash and listeners
+	private void updateCell(int row, int col, CellValue oldValue, CellValue cellValue) {
+		writeCell(row, col, cellValue);
+		// replacing key of the old stone by key of the new one
+		hashKey ^= zobristKeys.getKey(row, col, oldValue) ^ zobristKeys.getKey(row, col, cellValue);
+		if (oldValue != CellValue.EMPTY) {
+			stoneCount--;
+			for (MoveListener listener : listeners) {
+				listener.undoMove(row, col, oldValue);
+			}
+		}
+		if (cellValue != CellValue.EMPTY) {
+			stoneCount++;
+			for (MoveListener listener : listeners) {
+				listener.makeMove(row, col, cellValue);
+			}
+		}
+	}
+
+	@Override
+	public void makeMove(int row, int col, CellValue cellValue) {
+		if (cellValue == null || cellValue == CellValue.EMPTY) {
+			throw new IllegalArgumentException("Move must put a stone: " + cellValue);
+		}
+		if (!isCellFree(row, col)) {
+			throw new IllegalStateException("Cell is not free: row=" + row + ", col=" + col);
+		}
+		if (moveCount == journal.length) {
+			journal = Arrays.copyOf(journal, journal.length * 2);
+		}
+		journal[moveCount++] = row * size + col;
+		updateCell(row, col, CellValue.EMPTY, cellValue);
+	}
+
+	@Override
+	public void undoMove() {
+		if (moveCount == 0) {
+			throw new IllegalStateException("There are no moves to undo");
+		}
+		int cell = journal[--moveCount];
+		updateCell(cell / size, cell % size, readCell(cell / size, cell % size), CellValue.EMPTY);
+	}
+	// removing the move of the cell from the journal, a cell has at most one move there; the search goes from
+	// the last move, and stones of moves are replaced only by editing of the position, so it's rare
+	private void dropMove(int cell) {
+		for (int i = moveCount - 1; i >= 0; i--) {
+			if (journal[i] == cell) {
+				System.arraycopy(journal, i + 1, journal, i, moveCount - i - 1);
+				moveCount--;
+				return;
+			}
+		}
+	}
+
+	@Override
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	@Override
+	public int getLastMove() {
+		return moveCount == 0 ? -1 : journal[moveCount - 1];
+	}
+
+	@Override
+	public int getStoneCount() {
+		return stoneCount;
+	}
+
+	// scanning of the field, sparse implementations can do it faster
+	@Override
+	public int getStoneCells(int[] buffer) {
+		int stones = 0;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (readCell(i, j) != CellValue.EMPTY) {
+					buffer[stones++] = i * size + j;
+				}
+			}
+		}
+		return stones;
+	}
+
+	@Override
+	public void addMoveListener(MoveListener listener) {
+		listeners = Arrays.copyOf(listeners, listeners.length + 1);
+		listeners[listeners.length - 1] = listener;
+	}
+
+	@Override
+	public void removeMoveListener(MoveListener listener) {
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == listener) {
+				MoveListener[] rest = new MoveListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, rest, 0, i);
+				System.arraycopy(listeners, i + 1, rest, i, rest.length - i);
+				listeners = rest;
+				return;
+			}
+		}
+	}
+	// initialization cells of the field by empty values, the journal is cleared too
+	@Override
+	public void reInit() {
+		clearCells();
+		moveCount = 0;
+		stoneCount = 0;
+		hashKey = 0;
+		for (MoveListener listener : listeners) {
+			listener.reset();
+		}
+	}
+	// getting a size of field
+	@Override
+	public int getSize() {
+		return size;
+	}
+	// checking is cell free
+	@Override
+	public boolean isCellFree(int row, int col) {
+		return getValue(row, col) == CellValue.EMPTY;
+	}
+	// checking is empty cells exists: the stone count is kept up to date by setValue
+	@Override
+	public boolean emptyCellExists() {
+		return stoneCount < size * size;
+	}
+	// getting a hash of the stones
+	@Override
+	public long getHashKey() {
+		return hashKey;
+	}
+	// verifying index
+	protected void checkIndexes(int row, int col) {
+		if (row < 0 || row >= size || col < 0 || col >= size) {
+			throw new IndexOutOfBoundsException("Invalid row or col indexes: row=" + row + ", col=" + col + ", size=" + size);
+		}
+	}
+}
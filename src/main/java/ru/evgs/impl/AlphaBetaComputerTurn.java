@@ -0,0 +1,566 @@
+package ru.evgs.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.ComputerTurn;
+import ru.evgs.GameTable;
+import ru.evgs.PonderingComputerTurn;
+// computer turn by negamax search with alpha-beta pruning and iterative deepening
+// every turn has a hard budget by time and by count of nodes, when it's over the best move found so far is made
+// with several threads the search is Lazy SMP: helper threads search the same position with their own searchers
+// and share only the lock-free transposition table, the move of the main (calling) thread is made
+// with pondering the expected reply of the human is found after the turn, and the position after it is searched
+// in background; if the human makes this reply, the turn starts from that search and the warm transposition table
+// threads of the search and of pondering are released by close, the turn can't be used after it
+public class AlphaBetaComputerTurn implements PonderingComputerTurn, Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(AlphaBetaComputerTurn.class);
+	// default budget of one turn
+	public static final long DEFAULT_TIME_LIMIT_MILLIS = 1000;
+	public static final int DEFAULT_MAX_DEPTH = 10;
+	// default memory of transposition table
+	public static final long DEFAULT_HASH_MEMORY_BYTES = 16L * 1024 * 1024;
+	// depth of the search of the expected reply of the human
+	private static final int PONDER_PREDICTION_DEPTH = 2;
+	private static final long PONDER_THREAD_KEEP_ALIVE_SECONDS = 1;
+	// pondering takes at most the budget of so many turns, so a pool of pondering shared by idle games isn't held by them
+	private static final int PONDER_BUDGET_TURNS = 4;
+	private final long timeLimitMillis;
+	private final long nodeLimit;
+	private final int maxDepth;
+	private GameTable gameTable;
+	// searchers[0] is used by the calling thread, others by helper threads
+	private AlphaBetaSearcher[] searchers;
+	private int threadCount = 1;
+	private ExecutorService helperExecutor;
+	// the pool of helper threads is created by this turn, so it's shut down by close and by a new count of threads
+	private boolean ownHelperExecutor;
+	private long lastNodes;
+	private int lastScore;
+	private TranspositionTable transpositionTable;
+	private PositionCache positionCache;
+	// the cache is keyed by canonical keys, so symmetric positions share its entries
+	private SymmetricKeys symmetricKeys;
+	private ThreatSpaceSearch threatSpaceSearch;
+	private int winCount = DefaultConstants.WIN_COUNT;
+	private int candidateRadius = CandidateMoves.DEFAULT_RADIUS;
+	// weights of the evaluation, null for the default ones
+	private int[] weights;
+	// percent of one CPU used by pondering, 0 disables it
+	private int ponderCpuShare;
+	private ExecutorService ponderExecutor;
+	// the pool of pondering is created by this turn, so it's shut down by close
+	private boolean ownPonderExecutor;
+	private AlphaBetaSearcher ponderSearcher;
+	private PonderBudget ponderBudget;
+	private Future<?> ponderFuture;
+	// result of the last pondering, it's written by the ponder thread and read after it's finished
+	private long ponderKey;
+	private int ponderExpectedMove = -1;
+	private int ponderMove;
+	private int ponderScore;
+	private int ponderDepth;
+
+	public AlphaBetaComputerTurn() {
+		this(DEFAULT_TIME_LIMIT_MILLIS, Long.MAX_VALUE, DEFAULT_MAX_DEPTH);
+	}
+
+	public AlphaBetaComputerTurn(long timeLimitMillis, long nodeLimit, int maxDepth) {
+		this(timeLimitMillis, nodeLimit, maxDepth, DEFAULT_HASH_MEMORY_BYTES);
+	}
+	// the memory of the transposition table is given here, so a table of another size isn't allocated in vain;
+	// 0 creates no table, e.g. when a table shared by computer turns is set
+	public AlphaBetaComputerTurn(long timeLimitMillis, long nodeLimit, int maxDepth, long hashMemoryBytes) {
+		if (timeLimitMillis <= 0 || nodeLimit <= 0) {
+			throw new IllegalArgumentException("Budget of turn must be positive: timeLimitMillis=" + timeLimitMillis + ", nodeLimit=" + nodeLimit);
+		}
+		if (maxDepth <= 0 || maxDepth >= AlphaBetaSearcher.MAX_PLY) {
+			throw new IllegalArgumentException("Invalid max depth: " + maxDepth + ". Required 1.." + (AlphaBetaSearcher.MAX_PLY - 1));
+		}
+		this.timeLimitMillis = timeLimitMillis;
+		this.nodeLimit = nodeLimit;
+		this.maxDepth = maxDepth;
+		this.transpositionTable = hashMemoryBytes > 0 ? new TranspositionTable(hashMemoryBytes) : null;
+		this.threatSpaceSearch = new ThreatSpaceSearch();
+	}
+	// replacing the search of forced wins made before the full search, or null to disable it
+	// its time limit is a part of the turn budget
+	public void setThreatSpaceSearch(ThreatSpaceSearch threatSpaceSearch) {
+		this.threatSpaceSearch = threatSpaceSearch;
+	}
+	// replacing the transposition table, e.g. by a table of another size, or null to search without it
+	public void setTranspositionTable(TranspositionTable transpositionTable) {
+		this.transpositionTable = transpositionTable;
+		if (searchers != null) {
+			for (AlphaBetaSearcher searcher : searchers) {
+				searcher.setTranspositionTable(transpositionTable);
+			}
+		}
+	}
+	// setting the persistent cache of turns, or null to search without it: a position found in it on the max depth
+	// isn't searched again, a shallower result is the first move of the search; results of turns are stored to it
+	public void setPositionCache(PositionCache positionCache) {
+		this.positionCache = positionCache;
+	}
+
+	public PositionCache getPositionCache() {
+		return positionCache;
+	}
+	// setting percent of one CPU used by pondering: the search sleeps between slices to keep the share,
+	// 0 disables pondering, 100 searches without sleeps
+	public void setPonderCpuShare(int ponderCpuShare) {
+		if (ponderCpuShare < 0 || ponderCpuShare > 100) {
+			throw new IllegalArgumentException("Share of CPU must be 0..100: " + ponderCpuShare);
+		}
+		if (ponderCpuShare == 0) {
+			stopPondering();
+		}
+		this.ponderCpuShare = ponderCpuShare;
+	}
+
+	public int getPonderCpuShare() {
+		return ponderCpuShare;
+	}
+	// replacing the thread of pondering by a pool shared by computer turns, e.g. of sessions of a server
+	public void setPonderExecutor(ExecutorService ponderExecutor) {
+		stopPondering();
+		shutdownPonderExecutor();
+		this.ponderExecutor = ponderExecutor;
+	}
+	// setting the max distance from stones of the cells searched as moves
+	public void setCandidateRadius(int candidateRadius) {
+		if (candidateRadius <= 0) {
+			throw new IllegalArgumentException("Radius of candidate moves must be positive: " + candidateRadius);
+		}
+		this.candidateRadius = candidateRadius;
+		if (gameTable != null) {
+			createSearcher();
+		}
+	}
+	// setting count of stones in a line for the win, the search of forced wins is replaced by the default one
+	// for this count, or it's disabled if the count is too small for threats; weights of another count are dropped
+	public void setWinCount(int winCount) {
+		if (winCount <= 1) {
+			throw new IllegalArgumentException("Win count must be greater than 1: winCount=" + winCount);
+		}
+		this.winCount = winCount;
+		if (weights != null && weights.length != winCount) {
+			weights = null;
+		}
+		threatSpaceSearch = winCount >= ThreatSpaceSearch.MIN_WIN_COUNT ? new ThreatSpaceSearch(ThreatSpaceSearch.DEFAULT_MAX_DEPTH,
+				ThreatSpaceSearch.DEFAULT_TIME_LIMIT_MILLIS, winCount) : null;
+		if (gameTable != null) {
+			createSearcher();
+		}
+	}
+
+	public int getWinCount() {
+		return winCount;
+	}
+	// setting weights of patterns of the evaluation, e.g. tuned by EvaluationTuner, or null for the default ones;
+	// their count must be equal to the win count
+	public void setWeights(int[] weights) {
+		if (weights != null && weights.length != winCount) {
+			throw new IllegalArgumentException("Count of weights must be equal to win count: weights=" + weights.length + ", winCount=" + winCount);
+		}
+		this.weights = weights != null ? weights.clone() : null;
+		if (gameTable != null) {
+			createSearcher();
+		}
+	}
+
+	public int[] getWeights() {
+		return weights != null ? weights.clone() : PatternEvaluator.defaultWeights(winCount);
+	}
+	// setting count of search threads, 1 searches only in the calling thread and gives reproducible results
+	// with the node budget; the transposition table is required for more threads, it's the only way they help
+	// helper threads are started by the first turn, so a turn which never searches doesn't keep threads
+	public void setThreadCount(int threadCount) {
+		if (threadCount <= 0) {
+			throw new IllegalArgumentException("Count of threads must be positive: " + threadCount);
+		}
+		shutdownHelperExecutor();
+		this.threadCount = threadCount;
+		if (gameTable != null) {
+			createSearcher();
+		}
+	}
+
+	// replacing helper threads by a pool shared by computer turns, e.g. of sessions of a server, or null for own threads;
+	// the pool must have threads for helpers of all turns which search at the same time
+	public void setHelperExecutor(ExecutorService helperExecutor) {
+		shutdownHelperExecutor();
+		this.helperExecutor = helperExecutor;
+	}
+
+	public int getThreadCount() {
+		return threadCount;
+	}
+	// count of nodes searched by all threads on the last turn
+	public long getLastNodes() {
+		return lastNodes;
+	}
+	// score of the last turn for the computer, AlphaBetaSearcher.WIN_SCORE for a forced win
+	public int getLastScore() {
+		return lastScore;
+	}
+
+	public TranspositionTable getTranspositionTable() {
+		return transpositionTable;
+	}
+	// remember the playing field
+	@Override
+	public void setGameTable(GameTable gameTable) {
+		// checking that game field not null
+		Objects.requireNonNull(gameTable, "Game table can't be null");
+		// checking that game field size not smaller than winner count
+		if (gameTable.getSize() < winCount) {
+			throw new IllegalArgumentException("Size of gameTable is small: size=" + gameTable.getSize() + ". Required >= " + winCount);
+		}
+		this.gameTable = gameTable;
+		createSearcher();
+	}
+
+	private void createSearcher() {
+		stopPondering();
+		ponderSearcher = null;
+		symmetricKeys = new SymmetricKeys(gameTable.getSize());
+		searchers = new AlphaBetaSearcher[threadCount];
+		for (int i = 0; i < threadCount; i++) {
+			searchers[i] = new AlphaBetaSearcher(gameTable.getSize(), winCount, candidateRadius, getWeights());
+			searchers[i].setTranspositionTable(transpositionTable);
+		}
+	}
+	// making turn, it's measured while EngineMetrics is enabled
+	@Override
+	public Cell makeTurn() {
+		if (!EngineMetrics.isMetricsEnabled()) {
+			return searchTurn();
+		}
+		long startTime = System.nanoTime();
+		long hits = transpositionTable != null ? transpositionTable.getHits() : 0;
+		long misses = transpositionTable != null ? transpositionTable.getMisses() : 0;
+		Object event = EngineEvents.beginTurn();
+		Cell cell = searchTurn();
+		EngineMetrics metrics = EngineMetrics.getInstance();
+		metrics.recordTurn(System.nanoTime() - startTime, lastNodes, 0);
+		if (transpositionTable != null) {
+			metrics.recordTranspositionProbes(transpositionTable.getHits() - hits, transpositionTable.getMisses() - misses);
+		}
+		EngineEvents.commitTurn(event, "alphabeta", cell.getRowIndex() * gameTable.getSize() + cell.getColIndex(), lastNodes, 0);
+		return cell;
+	}
+	// deepening the search until the budget or the max depth is over
+	private Cell searchTurn() {
+		if (!gameTable.emptyCellExists()) {
+			throw new ComputerCantMakeTurnException("All cells are filled! Have you checked draw state before call of computer turn?");
+		}
+		long startTime = System.nanoTime();
+		stopPondering();
+		SearchBudget budget = new SearchBudget(nodeLimit, SearchBudget.getDeadline(startTime, timeLimitMillis));
+		if (transpositionTable != null) {
+			transpositionTable.newSearch();
+		}
+		for (AlphaBetaSearcher searcher : searchers) {
+			searcher.setPosition(gameTable);
+			searcher.setBudget(budget);
+			searcher.resetBestMove();
+		}
+		AlphaBetaSearcher searcher = searchers[0];
+		// the cache is probed first, its turns are made without the search of forced wins too; it has moves of
+		// canonical positions, so they are moved back to the position of the table
+		long key = searcher.getHashKey(CellValue.COMPUTER);
+		int size = gameTable.getSize();
+		long cacheKey = key;
+		int symmetry = SymmetricKeys.IDENTITY;
+		long cached = TranspositionTable.MISS;
+		if (positionCache != null) {
+			symmetricKeys.setPosition(gameTable);
+			cacheKey = symmetricKeys.getCanonicalKey(CellValue.COMPUTER);
+			symmetry = symmetricKeys.getCanonicalSymmetry();
+			cached = positionCache.probe(cacheKey);
+			if (EngineMetrics.isMetricsEnabled()) {
+				EngineMetrics.getInstance().recordPositionCacheProbe(cached != TranspositionTable.MISS);
+			}
+		}
+		if (cached != TranspositionTable.MISS) {
+			int move = TranspositionTable.getMove(cached);
+			Cell cell = makeKnownTurn(move >= 0 && move < size * size ? SymmetricKeys.inverse(size, symmetry, move) : move,
+					TranspositionTable.getScore(cached), TranspositionTable.getDepth(cached), "cached", startTime);
+			if (cell != null) {
+				return cell;
+			}
+		}
+		if (ponderDepth > 0) {
+			// the pondering is used once: by the turn after the expected reply or by no turn
+			int depth = ponderDepth;
+			ponderDepth = 0;
+			if (ponderKey == key) {
+				Cell cell = makeKnownTurn(ponderMove, ponderScore, depth, "pondered", startTime);
+				if (cell != null) {
+					return cell;
+				}
+			} else {
+				LOGGER.debug("Pondering is discarded: the human hasn't made the expected turn");
+			}
+		}
+		if (threatSpaceSearch != null) {
+			// a forced win doesn't need the full search; the threat search spends the budget of the turn, so the
+			// alpha-beta search gets what is left of it
+			Cell cell = threatSpaceSearch.findVcf(gameTable, CellValue.COMPUTER, budget);
+			if (cell == null && !budget.isStopped()) {
+				cell = threatSpaceSearch.findVct(gameTable, CellValue.COMPUTER, budget);
+			}
+			if (cell != null) {
+				gameTable.makeMove(cell.getRowIndex(), cell.getColIndex(), CellValue.COMPUTER);
+				lastNodes = 0;
+				lastScore = AlphaBetaSearcher.WIN_SCORE;
+				LOGGER.info("Computer turn is {}: forced win, time {} ms", cell, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+				return cell;
+			}
+		}
+		List<Future<?>> helpers = startHelpers();
+		int depth = searchIteratively(searcher, 1);
+		// helpers are needed only while the main thread is searching
+		budget.stop();
+		waitHelpers(helpers);
+		lastNodes = 0;
+		for (AlphaBetaSearcher helper : searchers) {
+			lastNodes += helper.getNodes();
+		}
+		int move = searcher.getBestMove();
+		lastScore = searcher.getBestScore();
+		if (positionCache != null && depth > 0) {
+			positionCache.store(cacheKey, SymmetricKeys.transform(size, symmetry, move), searcher.getBestScore(), depth, TranspositionTable.EXACT);
+		}
+		Cell cell = new Cell(move / size, move % size);
+		gameTable.makeMove(cell.getRowIndex(), cell.getColIndex(), CellValue.COMPUTER);
+		long time = System.nanoTime() - startTime;
+		LOGGER.info("Computer turn is {}: depth {}, score {}, nodes {}, threads {}, time {} ms, {} nodes/s", cell, depth, searcher.getBestScore(),
+				lastNodes, threadCount, TimeUnit.NANOSECONDS.toMillis(time), lastNodes * TimeUnit.SECONDS.toNanos(1) / Math.max(time, 1));
+		LOGGER.debug("Transposition table after turn: {}", transpositionTable);
+		return cell;
+	}
+	// making the turn found before (cached or pondered) if it's searched on the max depth or it wins, otherwise
+	// the main searcher starts from it and null is returned
+	private Cell makeKnownTurn(int move, int score, int depth, String source, long startTime) {
+		int size = gameTable.getSize();
+		if (move < 0 || move >= size * size || !gameTable.isCellFree(move / size, move % size)) {
+			return null;
+		}
+		if (depth < maxDepth && score < AlphaBetaSearcher.WIN_SCORE - AlphaBetaSearcher.MAX_PLY) {
+			searchers[0].setBestMove(move, score);
+			LOGGER.debug("Search starts from the {} move {}: depth {}, score {}", source, move, depth, score);
+			return null;
+		}
+		lastNodes = 0;
+		lastScore = score;
+		Cell cell = new Cell(move / size, move % size);
+		gameTable.makeMove(cell.getRowIndex(), cell.getColIndex(), CellValue.COMPUTER);
+		LOGGER.info("Computer turn is {}: {}, depth {}, score {}, time {} ms", cell, source, depth, score,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+		return cell;
+	}
+	// starting pondering on the position of the game table, the human is expected to make the next turn
+	@Override
+	public void startPondering() {
+		stopPondering();
+		ponderDepth = 0;
+		ponderExpectedMove = -1;
+		if (ponderCpuShare == 0 || gameTable == null || !gameTable.emptyCellExists()) {
+			return;
+		}
+		if (ponderSearcher == null) {
+			ponderSearcher = new AlphaBetaSearcher(gameTable.getSize(), winCount, candidateRadius, getWeights());
+			ponderSearcher.setTranspositionTable(transpositionTable);
+		}
+		// the position is copied here, so the game table isn't read by the ponder thread
+		ponderSearcher.setPosition(gameTable);
+		ponderBudget = new PonderBudget(ponderCpuShare, multiplyBudget(nodeLimit),
+				SearchBudget.getDeadline(System.nanoTime(), multiplyBudget(timeLimitMillis)));
+		ponderSearcher.setBudget(ponderBudget);
+		if (ponderExecutor == null) {
+			// the own thread of pondering ends when it's idle, so computer turns of finished games don't keep threads
+			ponderExecutor = new ThreadPoolExecutor(0, 1, PONDER_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+					new LinkedBlockingQueue<Runnable>(), new HelperThreadFactory("alpha-beta-ponder-"));
+			ownPonderExecutor = true;
+		}
+		ponderFuture = ponderExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				ponder();
+			}
+		});
+	}
+
+	// the limit of PONDER_BUDGET_TURNS turns, it saturates, so no limit stays no limit
+	private static long multiplyBudget(long limit) {
+		return limit > Long.MAX_VALUE / PONDER_BUDGET_TURNS ? Long.MAX_VALUE : limit * PONDER_BUDGET_TURNS;
+	}
+	// the reply of the human expected by the last pondering, -1 if it isn't found
+	int getPonderExpectedMove() {
+		return ponderExpectedMove;
+	}
+
+	@Override
+	public void stopPondering() {
+		if (ponderFuture == null) {
+			return;
+		}
+		ponderBudget.stop();
+		// pondering still queued behind pondering of other games isn't waited for, the started one ends by the stopped budget
+		if (!ponderFuture.cancel(false)) {
+			try {
+				ponderFuture.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} catch (ExecutionException e) {
+				LOGGER.error("Error in pondering: " + e.getCause().getMessage(), e.getCause());
+			}
+		}
+		ponderFuture = null;
+	}
+	// finding the expected reply of the human by a shallow search and searching the position after it
+	private void ponder() {
+		AlphaBetaSearcher searcher = ponderSearcher;
+		if (ponderBudget.isStopped()) {
+			return;
+		}
+		searcher.resetBestMove();
+		for (int depth = 1; depth <= PONDER_PREDICTION_DEPTH; depth++) {
+			if (!searcher.searchRoot(depth, CellValue.HUMAN, searcher.getBestMove())) {
+				return;
+			}
+		}
+		int expectedMove = searcher.getBestMove();
+		if (expectedMove < 0 || searcher.makeMove(expectedMove, CellValue.HUMAN)) {
+			// there is nothing to search after the win of the human
+			return;
+		}
+		ponderExpectedMove = expectedMove;
+		ponderKey = searcher.getHashKey(CellValue.COMPUTER);
+		searcher.resetBestMove();
+		int depth = 0;
+		while (depth < maxDepth && searcher.searchRoot(depth + 1, CellValue.COMPUTER, searcher.getBestMove())) {
+			depth++;
+			ponderMove = searcher.getBestMove();
+			ponderScore = searcher.getBestScore();
+			ponderDepth = depth;
+			if (Math.abs(ponderScore) >= AlphaBetaSearcher.WIN_SCORE - AlphaBetaSearcher.MAX_PLY) {
+				break;
+			}
+		}
+		LOGGER.debug("Pondering of the expected turn {} is over: depth {}, move {}, nodes {}", expectedMove, depth, ponderMove,
+				searcher.getNodes());
+	}
+	// deepening the search from the first depth until the budget or the max depth is over, returns the depth searched
+	private int searchIteratively(AlphaBetaSearcher searcher, int firstDepth) {
+		int depth = firstDepth - 1;
+		while (depth < maxDepth && searcher.searchRoot(depth + 1, CellValue.COMPUTER, searcher.getBestMove())) {
+			depth++;
+			LOGGER.debug("Depth {} is searched: best move {}, score {}, nodes {}", depth, searcher.getBestMove(), searcher.getBestScore(), searcher.getNodes());
+			// there is no sense to search deeper if the win or the loss is found
+			if (Math.abs(searcher.getBestScore()) >= AlphaBetaSearcher.WIN_SCORE - AlphaBetaSearcher.MAX_PLY) {
+				break;
+			}
+		}
+		return depth;
+	}
+	// every second helper starts one ply deeper, so helpers fill the transposition table ahead of the main thread
+	private List<Future<?>> startHelpers() {
+		if (helperExecutor == null && threadCount > 1) {
+			helperExecutor = Executors.newFixedThreadPool(threadCount - 1, new HelperThreadFactory("alpha-beta-helper-"));
+			ownHelperExecutor = true;
+		}
+		List<Future<?>> helpers = new ArrayList<>(threadCount - 1);
+		for (int i = 1; i < threadCount; i++) {
+			final AlphaBetaSearcher helper = searchers[i];
+			final int firstDepth = 1 + i % 2;
+			helpers.add(helperExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+					searchIteratively(helper, firstDepth);
+				}
+			}));
+		}
+		return helpers;
+	}
+
+	private void waitHelpers(List<Future<?>> helpers) {
+		for (Future<?> helper : helpers) {
+			try {
+				helper.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				LOGGER.error("Error in the search helper: " + e.getCause().getMessage(), e.getCause());
+			}
+		}
+	}
+
+	@Override
+	public Cell makeFirstTurn() {
+		// just making a turn in the middle of the field
+		Cell cell = new Cell(gameTable.getSize() / 2, gameTable.getSize() / 2);
+		gameTable.makeMove(cell.getRowIndex(), cell.getColIndex(), CellValue.COMPUTER);
+		lastScore = 0;
+		LOGGER.info("Computer first turn is {}", cell);
+		return cell;
+	}
+	// stopping pondering and shutting down own helper threads and the own thread of pondering, shared pools are left
+	// to their owners
+	@Override
+	public void close() {
+		stopPondering();
+		shutdownPonderExecutor();
+		shutdownHelperExecutor();
+	}
+
+	private void shutdownHelperExecutor() {
+		if (ownHelperExecutor) {
+			helperExecutor.shutdownNow();
+			ownHelperExecutor = false;
+		}
+		helperExecutor = null;
+	}
+
+	private void shutdownPonderExecutor() {
+		if (ownPonderExecutor) {
+			ponderExecutor.shutdownNow();
+			ponderExecutor = null;
+			ownPonderExecutor = false;
+		}
+	}
+	// helper and ponder threads are daemons, so they don't prevent exit of the application
+	private static class HelperThreadFactory implements ThreadFactory {
+		private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+		private final String prefix;
+
+		HelperThreadFactory(String prefix) {
+			this.prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, prefix + THREAD_NUMBER.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
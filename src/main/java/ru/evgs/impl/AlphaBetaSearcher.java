@@ -0,0 +1,289 @@
+package ru.evgs.impl;
+
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+// negamax search with alpha-beta pruning over a private copy of the game table
+// cells are encoded as row * size + col, so the search itself doesn't create Cell objects
+class AlphaBetaSearcher {
+	// score of the won position, the ply of the win is subtracted to prefer fast wins and slow losses
+	static final int WIN_SCORE = 1000000;
+	static final int MAX_PLY = 64;
+	// the budget is checked once per this count of nodes (or per the node limit if it's less)
+	private static final int BUDGET_CHUNK = 1024;
+	private final GameTable board;
+	private final ZobristKeys zobristKeys;
+	private final int size;
+	// incremental evaluation, it's updated by every move and undo
+	private final PatternEvaluator evaluator;
+	// move lists per ply, reused between nodes; a list is allocated when the search reaches its ply, so a searcher
+	// of a shallow search or of an idle session of a server takes little memory
+	private final int[][] moves;
+	private final int[][] moveScores;
+	// incremental set of empty cells near stones
+	private final CandidateMoves candidates;
+	private TranspositionTable transpositionTable;
+	private long nodes;
+	private SearchBudget budget;
+	private int budgetChunk;
+	private int uncheckedNodes;
+	private boolean aborted;
+	private int bestMove;
+	private int bestScore;
+
+	AlphaBetaSearcher(int size, int winCount, int candidateRadius) {
+		this(size, winCount, candidateRadius, PatternEvaluator.defaultWeights(winCount));
+	}
+	// weights of patterns of the evaluation, see PatternEvaluator
+	AlphaBetaSearcher(int size, int winCount, int candidateRadius, int[] weights) {
+		this.board = new BitBoardGameTable(size);
+		this.zobristKeys = new ZobristKeys(size);
+		this.size = size;
+		evaluator = new PatternEvaluator(size, winCount, weights);
+		moves = new int[MAX_PLY][];
+		moveScores = new int[MAX_PLY][];
+		candidates = new CandidateMoves(size, candidateRadius);
+		// the evaluation and candidates follow the board by its moves
+		board.addMoveListener(evaluator);
+		board.addMoveListener(candidates);
+	}
+	// copying position from the game table, listeners of the board are updated by the copying
+	void setPosition(GameTable gameTable) {
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				board.setValue(i, j, gameTable.getValue(i, j));
+			}
+		}
+	}
+	// setting a transposition table shared by searches, null disables it
+	void setTranspositionTable(TranspositionTable transpositionTable) {
+		this.transpositionTable = transpositionTable;
+	}
+	// setting a budget for the next search, it can be shared with other searchers
+	void setBudget(SearchBudget budget) {
+		this.nodes = 0;
+		this.budget = budget;
+		this.budgetChunk = budget.getChunkSize(BUDGET_CHUNK);
+		this.uncheckedNodes = 0;
+		this.aborted = false;
+	}
+	// searching the root position on the depth, the best move of the previous iteration is searched first
+	// returns false if the budget is over, but the best move is still updated if it was improved
+	boolean searchRoot(int depth, CellValue side, int previousBestMove) {
+		int count = generateMoves(0, side);
+		if (previousBestMove >= 0) {
+			for (int i = 0; i < count; i++) {
+				if (moves[0][i] == previousBestMove) {
+					moveScores[0][i] = Integer.MAX_VALUE;
+				}
+			}
+		}
+		if (bestMove < 0 && count > 0) {
+			// if the budget is over even before the first move is searched, the move is chosen by ordering only
+			int best = 0;
+			for (int i = 1; i < count; i++) {
+				if (moveScores[0][i] > moveScores[0][best]) {
+					best = i;
+				}
+			}
+			bestMove = moves[0][best];
+		}
+		int alpha = -WIN_SCORE - 1;
+		int iterationBestMove = -1;
+		for (int i = 0; i < count; i++) {
+			int move = pickNextMove(0, i, count);
+			int score = searchMove(move, depth, alpha, WIN_SCORE + 1, side, 0);
+			if (aborted) {
+				break;
+			}
+			if (score > alpha || iterationBestMove < 0) {
+				alpha = score;
+				iterationBestMove = move;
+			}
+		}
+		// a partially searched iteration can be trusted only if it has found a better move than the previous one
+		if (iterationBestMove >= 0 && (!aborted || iterationBestMove != previousBestMove)) {
+			bestMove = iterationBestMove;
+			bestScore = alpha;
+		}
+		return !aborted;
+	}
+
+	private int negamax(int depth, int alpha, int beta, CellValue side, int ply) {
+		if (depth == 0 || ply == MAX_PLY - 1) {
+			return evaluator.evaluate(side);
+		}
+		long key = board.getHashKey() ^ zobristKeys.getSideKey(side);
+		int hashMove = -1;
+		if (transpositionTable != null) {
+			long entry = transpositionTable.probe(key);
+			if (entry != TranspositionTable.MISS) {
+				hashMove = TranspositionTable.getMove(entry);
+				if (TranspositionTable.getDepth(entry) >= depth) {
+					int score = fromHashScore(TranspositionTable.getScore(entry), ply);
+					int flag = TranspositionTable.getFlag(entry);
+					if (flag == TranspositionTable.EXACT || (flag == TranspositionTable.LOWER_BOUND && score >= beta)
+							|| (flag == TranspositionTable.UPPER_BOUND && score <= alpha)) {
+						return score;
+					}
+				}
+			}
+		}
+		int count = generateMoves(ply, side);
+		if (count == 0) {
+			// no moves - draw
+			return 0;
+		}
+		if (hashMove >= 0) {
+			// the best move of the previous search of the position is searched first
+			for (int i = 0; i < count; i++) {
+				if (moves[ply][i] == hashMove) {
+					moveScores[ply][i] = Integer.MAX_VALUE;
+				}
+			}
+		}
+		int originalAlpha = alpha;
+		int best = -WIN_SCORE - 1;
+		int nodeBestMove = -1;
+		for (int i = 0; i < count; i++) {
+			int move = pickNextMove(ply, i, count);
+			int score = searchMove(move, depth, alpha, beta, side, ply);
+			if (aborted) {
+				return 0;
+			}
+			if (score > best) {
+				best = score;
+				nodeBestMove = move;
+				if (score > alpha) {
+					alpha = score;
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+		if (transpositionTable != null) {
+			int flag = best <= originalAlpha ? TranspositionTable.UPPER_BOUND
+					: best >= beta ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+			transpositionTable.store(key, nodeBestMove, toHashScore(best, ply), depth, flag);
+		}
+		return best;
+	}
+	// win scores depend on the ply, so they are stored as the distance from the position instead of the root
+	private static int toHashScore(int score, int ply) {
+		if (score > WIN_SCORE - MAX_PLY) {
+			return score + ply;
+		} else if (score < -WIN_SCORE + MAX_PLY) {
+			return score - ply;
+		}
+		return score;
+	}
+
+	private static int fromHashScore(int score, int ply) {
+		if (score > WIN_SCORE - MAX_PLY) {
+			return score - ply;
+		} else if (score < -WIN_SCORE + MAX_PLY) {
+			return score + ply;
+		}
+		return score;
+	}
+	// making move, searching the child position and undoing move
+	private int searchMove(int move, int depth, int alpha, int beta, CellValue side, int ply) {
+		nodes++;
+		if (++uncheckedNodes == budgetChunk) {
+			uncheckedNodes = 0;
+			if (!budget.addNodes(budgetChunk)) {
+				aborted = true;
+			}
+		}
+		int row = move / size;
+		int col = move % size;
+		board.makeMove(row, col, side);
+		int score;
+		if (evaluator.hasFive(side)) {
+			score = WIN_SCORE - ply;
+		} else {
+			score = -negamax(depth - 1, -beta, -alpha, opposite(side), ply + 1);
+		}
+		board.undoMove();
+		return score;
+	}
+
+	// filling the move list of the ply by candidate moves, every move gets a threat score for ordering
+	private int generateMoves(int ply, CellValue side) {
+		if (moves[ply] == null) {
+			moves[ply] = new int[size * size];
+			moveScores[ply] = new int[size * size];
+		}
+		int[] plyMoves = moves[ply];
+		int[] plyScores = moveScores[ply];
+		int count = candidates.getCandidates(plyMoves);
+		for (int i = 0; i < count; i++) {
+			plyScores[i] = evaluator.getCellThreat(plyMoves[i] / size, plyMoves[i] % size, side, WIN_SCORE);
+		}
+		if (count == 0 && board.emptyCellExists()) {
+			// all cells near stones are filled, but the other cells are possible moves too
+			for (int cell = 0; cell < size * size; cell++) {
+				if (board.isCellFree(cell / size, cell % size)) {
+					plyMoves[count] = cell;
+					plyScores[count] = 0;
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	// selection sort step: moving the best of the remaining moves to the index
+	private int pickNextMove(int ply, int index, int count) {
+		int[] plyMoves = moves[ply];
+		int[] plyScores = moveScores[ply];
+		int best = index;
+		for (int i = index + 1; i < count; i++) {
+			if (plyScores[i] > plyScores[best]) {
+				best = i;
+			}
+		}
+		int move = plyMoves[best];
+		int score = plyScores[best];
+		plyMoves[best] = plyMoves[index];
+		plyScores[best] = plyScores[index];
+		plyMoves[index] = move;
+		plyScores[index] = score;
+		return move;
+	}
+
+	static CellValue opposite(CellValue side) {
+		return side == CellValue.COMPUTER ? CellValue.HUMAN : CellValue.COMPUTER;
+	}
+
+	int getBestMove() {
+		return bestMove;
+	}
+
+	int getBestScore() {
+		return bestScore;
+	}
+
+	long getNodes() {
+		return nodes;
+	}
+	// resetting the best move before a new search
+	void resetBestMove() {
+		bestMove = -1;
+		bestScore = 0;
+	}
+	// starting the search from the move known before it, e.g. by a previous search of the position
+	void setBestMove(int bestMove, int bestScore) {
+		this.bestMove = bestMove;
+		this.bestScore = bestScore;
+	}
+	// making move on the position set to the searcher, e.g. the expected move of the opponent, returns true if it wins
+	boolean makeMove(int move, CellValue side) {
+		board.makeMove(move / size, move % size, side);
+		return evaluator.hasFive(side);
+	}
+	// key of the position set to the searcher with the side to move, as it's stored in the transposition table
+	long getHashKey(CellValue side) {
+		return board.getHashKey() ^ zobristKeys.getSideKey(side);
+	}
+}
@@ -0,0 +1,117 @@
+package ru.evgs.impl;
+
+import ru.evgs.CellValue;
+// implementation of game table which keeps one bitset per player in long words
+// cell (row, col) is stored in bit row * stride + col, where stride = size + 1:
+// the extra guard column is never set, so shifted lines can't wrap to the next row
+public class BitBoardGameTable extends AbstractGameTable {
+	private final int stride;
+	private final long[] humanBits;
+	private final long[] computerBits;
+	// scratch buffers for line search, reused to avoid allocation
+	private final long[] lineBits;
+	private final long[] shiftedBits;
+
+	public BitBoardGameTable() {
+		// setting a size of game table by default values
+		this(DefaultConstants.SIZE);
+	}
+
+	public BitBoardGameTable(int size) {
+		super(size);
+		stride = size + 1;
+		int words = (size * stride + 63) >>> 6;
+		humanBits = new long[words];
+		computerBits = new long[words];
+		lineBits = new long[words];
+		shiftedBits = new long[words];
+	}
+
+	@Override
+	protected CellValue readCell(int row, int col) {
+		int index = row * stride + col;
+		long mask = 1L << index;
+		if ((humanBits[index >>> 6] & mask) != 0) {
+			return CellValue.HUMAN;
+		} else if ((computerBits[index >>> 6] & mask) != 0) {
+			return CellValue.COMPUTER;
+		} else {
+			return CellValue.EMPTY;
+		}
+	}
+
+	@Override
+	protected void writeCell(int row, int col, CellValue cellValue) {
+		int index = row * stride + col;
+		int word = index >>> 6;
+		long mask = 1L << index;
+		humanBits[word] &= ~mask;
+		computerBits[word] &= ~mask;
+		if (cellValue == CellValue.HUMAN) {
+			humanBits[word] |= mask;
+		} else if (cellValue == CellValue.COMPUTER) {
+			computerBits[word] |= mask;
+		}
+	}
+
+	@Override
+	protected void clearCells() {
+		for (int i = 0; i < humanBits.length; i++) {
+			humanBits[i] = 0;
+			computerBits[i] = 0;
+		}
+	}
+	// checking is cell free by both bitsets at once
+	@Override
+	public boolean isCellFree(int row, int col) {
+		checkIndexes(row, col);
+		int index = row * stride + col;
+		return ((humanBits[index >>> 6] | computerBits[index >>> 6]) & (1L << index)) == 0;
+	}
+	// checking that there are length stones of cellValue in a row in any direction
+	// every direction is just a shift: 1 by row, stride by col, stride + 1 and stride - 1 by diagonals
+	public boolean hasLine(CellValue cellValue, int length) {
+		long[] bits = getBits(cellValue);
+		return hasLine(bits, 1, length) || hasLine(bits, stride, length)
+				|| hasLine(bits, stride + 1, length) || hasLine(bits, stride - 1, length);
+	}
+	// and-ing the bitset with itself shifted by step, length - 1 times
+	private boolean hasLine(long[] bits, int step, int length) {
+		System.arraycopy(bits, 0, lineBits, 0, bits.length);
+		for (int k = 1; k < length; k++) {
+			shiftRight(bits, step * k, shiftedBits);
+			boolean notEmpty = false;
+			for (int i = 0; i < lineBits.length; i++) {
+				lineBits[i] &= shiftedBits[i];
+				notEmpty |= lineBits[i] != 0;
+			}
+			if (!notEmpty) {
+				return false;
+			}
+		}
+		return true;
+	}
+	// multi-word logical shift to the lower bits
+	private static void shiftRight(long[] source, int shift, long[] target) {
+		int wordShift = shift >>> 6;
+		int bitShift = shift & 63;
+		for (int i = 0; i < target.length; i++) {
+			int from = i + wordShift;
+			long value = from < source.length ? source[from] >>> bitShift : 0;
+			if (bitShift != 0 && from + 1 < source.length) {
+				value |= source[from + 1] << (64 - bitShift);
+			}
+			target[i] = value;
+		}
+	}
+
+	private long[] getBits(CellValue cellValue) {
+		if (cellValue == CellValue.HUMAN) {
+			return humanBits;
+		} else if (cellValue == CellValue.COMPUTER) {
+			return computerBits;
+		} else {
+			throw new IllegalArgumentException("Lines can be found only for stones: " + cellValue);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package ru.evgs.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.ComputerTurn;
+import ru.evgs.GameTable;
+// computer turn which plays moves of the opening book while the position is in it, then the wrapped computer turn
+// closing closes the wrapped computer turn if it's closeable
+public class BookComputerTurn implements ComputerTurn, Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(BookComputerTurn.class);
+	private final OpeningBook openingBook;
+	private final ComputerTurn computerTurn;
+	private GameTable gameTable;
+	private SymmetricKeys symmetricKeys;
+
+	public BookComputerTurn(OpeningBook openingBook, ComputerTurn computerTurn) {
+		Objects.requireNonNull(openingBook, "Opening book can't be null");
+		Objects.requireNonNull(computerTurn, "Computer turn can't be null");
+		this.openingBook = openingBook;
+		this.computerTurn = computerTurn;
+	}
+
+	@Override
+	public void setGameTable(GameTable gameTable) {
+		Objects.requireNonNull(gameTable, "Game table can't be null");
+		if (gameTable.getSize() != openingBook.getSize()) {
+			throw new IllegalArgumentException("Opening book is built for another size: size=" + gameTable.getSize() + ", book size=" + openingBook.getSize());
+		}
+		computerTurn.setGameTable(gameTable);
+		this.gameTable = gameTable;
+		symmetricKeys = new SymmetricKeys(gameTable.getSize());
+	}
+
+	@Override
+	public Cell makeTurn() {
+		Cell cell = makeBookTurn();
+		return cell != null ? cell : computerTurn.makeTurn();
+	}
+
+	@Override
+	public Cell makeFirstTurn() {
+		Cell cell = makeBookTurn();
+		return cell != null ? cell : computerTurn.makeFirstTurn();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (computerTurn instanceof Closeable) {
+			((Closeable) computerTurn).close();
+		}
+	}
+	// playing the move of the book, returns null if the position isn't in the book; the book has the move of
+	// the canonical position, it's moved back to the position of the table
+	private Cell makeBookTurn() {
+		symmetricKeys.setPosition(gameTable);
+		int move = openingBook.getMove(symmetricKeys.getCanonicalKey());
+		int size = gameTable.getSize();
+		if (move >= 0 && move < size * size) {
+			move = SymmetricKeys.inverse(size, symmetricKeys.getCanonicalSymmetry(), move);
+		}
+		boolean found = move >= 0 && move < size * size && gameTable.isCellFree(move / size, move % size);
+		if (EngineMetrics.isMetricsEnabled()) {
+			EngineMetrics.getInstance().recordOpeningBookProbe(found);
+		}
+		if (!found) {
+			return null;
+		}
+		gameTable.makeMove(move / size, move % size, CellValue.COMPUTER);
+		Cell cell = new Cell(move / size, move % size);
+		LOGGER.info("Computer book turn is {}", cell);
+		return cell;
+	}
+}
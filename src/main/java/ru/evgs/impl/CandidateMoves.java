@@ -0,0 +1,135 @@
+package ru.evgs.impl;
+
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.MoveListener;
+// incrementally maintained set of candidate moves: empty cells which are not farther than radius from any stone
+// cells are encoded as row * size + col; the set is an array of cells plus positions of cells in it,
+// so adding, removing and listing don't allocate anything
+public class CandidateMoves implements MoveListener {
+	// default radius, 2 keeps almost all sensible moves on the field
+	public static final int DEFAULT_RADIUS = 2;
+	private final int size;
+	private final int radius;
+	// count of stones near every cell
+	private final int[] nearStones;
+	private final boolean[] occupied;
+	private final int[] cells;
+	// position of the cell in cells, -1 if the cell isn't a candidate
+	private final int[] positions;
+	private int count;
+	private int stoneCount;
+
+	public CandidateMoves(int size) {
+		this(size, DEFAULT_RADIUS);
+	}
+
+	public CandidateMoves(int size, int radius) {
+		if (radius <= 0) {
+			throw new IllegalArgumentException("Radius of candidate moves must be positive: " + radius);
+		}
+		this.size = size;
+		this.radius = radius;
+		nearStones = new int[size * size];
+		occupied = new boolean[size * size];
+		cells = new int[size * size];
+		positions = new int[size * size];
+		reset();
+	}
+	// removing all stones
+	@Override
+	public void reset() {
+		for (int i = 0; i < positions.length; i++) {
+			nearStones[i] = 0;
+			occupied[i] = false;
+			positions[i] = -1;
+		}
+		count = 0;
+		stoneCount = 0;
+	}
+	// initialization by the position of the game table
+	public void setPosition(GameTable gameTable) {
+		reset();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (!gameTable.isCellFree(i, j)) {
+					makeMove(i, j, gameTable.getValue(i, j));
+				}
+			}
+		}
+	}
+	// the cell isn't a candidate anymore, but the empty cells around it become candidates
+	@Override
+	public void makeMove(int row, int col, CellValue cellValue) {
+		int cell = row * size + col;
+		occupied[cell] = true;
+		stoneCount++;
+		remove(cell);
+		for (int i = Math.max(0, row - radius); i <= Math.min(size - 1, row + radius); i++) {
+			for (int j = Math.max(0, col - radius); j <= Math.min(size - 1, col + radius); j++) {
+				int near = i * size + j;
+				if (++nearStones[near] == 1 && !occupied[near]) {
+					add(near);
+				}
+			}
+		}
+	}
+	// reverting of makeMove
+	@Override
+	public void undoMove(int row, int col, CellValue cellValue) {
+		int cell = row * size + col;
+		for (int i = Math.max(0, row - radius); i <= Math.min(size - 1, row + radius); i++) {
+			for (int j = Math.max(0, col - radius); j <= Math.min(size - 1, col + radius); j++) {
+				int near = i * size + j;
+				if (--nearStones[near] == 0) {
+					remove(near);
+				}
+			}
+		}
+		occupied[cell] = false;
+		stoneCount--;
+		if (nearStones[cell] > 0) {
+			add(cell);
+		}
+	}
+
+	private void add(int cell) {
+		if (positions[cell] < 0) {
+			positions[cell] = count;
+			cells[count++] = cell;
+		}
+	}
+	// the last cell takes the place of the removed one
+	private void remove(int cell) {
+		int position = positions[cell];
+		if (position >= 0) {
+			int last = cells[--count];
+			cells[position] = last;
+			positions[last] = position;
+			positions[cell] = -1;
+		}
+	}
+	// copying candidates to the buffer, returns their count
+	// on the empty field the only candidate is the middle of the field
+	public int getCandidates(int[] buffer) {
+		if (stoneCount == 0) {
+			buffer[0] = (size / 2) * size + size / 2;
+			return 1;
+		}
+		System.arraycopy(cells, 0, buffer, 0, count);
+		return count;
+	}
+
+	// the candidate by its index 0..size() - 1, indexes of candidates change with moves
+	public int getCandidate(int index) {
+		return cells[index];
+	}
+
+	public boolean isCandidate(int row, int col) {
+		return positions[row * size + col] >= 0;
+	}
+
+	public int size() {
+		return count;
+	}
+}
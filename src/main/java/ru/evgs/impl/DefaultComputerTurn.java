@@ -14,8 +14,34 @@ import ru.evgs.GameTable;
 // computer turn class
 public class DefaultComputerTurn implements ComputerTurn {
 	private static final Logger LOGGER = LoggerFactory.getLogger(DefaultComputerTurn.class);
+	// the field values in the order of search
+	private static final CellValue[] FIGURES = { CellValue.COMPUTER, CellValue.HUMAN };
 	private GameTable gameTable;
-	private int winCount = DefaultConstants.WIN_COUNT;
+	private final int winCount;
+	// cells of the inspected pattern encoded as row * size + col, it's reused by every pattern
+	private final int[] pattern;
+	private final Random random;
+	// cells of stones for the search by stones, reused between turns
+	private int[] stones = new int[0];
+	// patterns inspected by all turns, it's a plain counter, EngineMetrics takes its change per turn
+	private long patternsScanned;
+
+	public DefaultComputerTurn() {
+		this(DefaultConstants.WIN_COUNT);
+	}
+
+	public DefaultComputerTurn(int winCount) {
+		this(winCount, new Random());
+	}
+	// random is given by tests to repeat turns
+	DefaultComputerTurn(int winCount, Random random) {
+		if (winCount <= 1) {
+			throw new IllegalArgumentException("Win count must be greater than 1: winCount=" + winCount);
+		}
+		this.winCount = winCount;
+		this.pattern = new int[winCount];
+		this.random = random;
+	}
 	// remember the playing field
 	@Override
 	public void setGameTable(GameTable gameTable) {
@@ -27,11 +53,23 @@ public class DefaultComputerTurn implements ComputerTurn {
 		}
 		this.gameTable = gameTable;
 	}
-	// making turn
+	// making turn, it's measured while EngineMetrics is enabled
 	@Override
 	public Cell makeTurn() {
-		// remember the field values
-		CellValue[] figures = { CellValue.COMPUTER, CellValue.HUMAN };
+		if (!EngineMetrics.isMetricsEnabled()) {
+			return searchTurn(false);
+		}
+		long startTime = System.nanoTime();
+		long patterns = patternsScanned;
+		Object event = EngineEvents.beginTurn();
+		Cell turn = searchTurn(true);
+		patterns = patternsScanned - patterns;
+		EngineMetrics.getInstance().recordTurn(System.nanoTime() - startTime, 0, patterns);
+		EngineEvents.commitTurn(event, "default", turn.getRowIndex() * gameTable.getSize() + turn.getColIndex(), 0, patterns);
+		return turn;
+	}
+
+	private Cell searchTurn(boolean instrumented) {
 		/*	At each iteration, the following combinations are searched:
 			4 zero and empty cell;
 			4 crosses and empty cell;
@@ -43,11 +81,11 @@ public class DefaultComputerTurn implements ComputerTurn {
 			1 cross and 4 empty cells;
 		*/
 		for (int i = winCount - 1; i > 0; i--) {
-			for (CellValue cellValue : figures) {
-				Cell cell = tryMakeTurn(cellValue, i);
-				if (cell != null) {
-					LOGGER.info("Computer turn is {}", cell);
-					return cell;
+			for (CellValue cellValue : FIGURES) {
+				Cell turn = instrumented ? tryMakeTurnWithEvent(cellValue, i) : tryMakeTurn(cellValue, i);
+				if (turn != null) {
+					LOGGER.info("Computer turn is {}", turn);
+					return turn;
 				}
 			}
 		}
@@ -59,21 +97,35 @@ public class DefaultComputerTurn implements ComputerTurn {
 	public Cell makeFirstTurn() {
 		// just making a turn in the middle of the field
 		Cell cell = new Cell(gameTable.getSize() / 2, gameTable.getSize() / 2);
-		gameTable.setValue(cell.getRowIndex(), cell.getColIndex(), CellValue.COMPUTER);
+		gameTable.makeMove(cell.getRowIndex(), cell.getColIndex(), CellValue.COMPUTER);
 		LOGGER.info("Computer first turn is {}", cell);
 		return cell;
 	}
 	// random turn on set of empty cells
+	// on the mostly empty field random cells are just tried until a free one, it doesn't depend on the area,
+	// so the set of empty cells is built only when at least half of the field is taken
 	protected Cell makeRandomTurn() {
+		int size = gameTable.getSize();
+		if ((long) gameTable.getStoneCount() * 2 < (long) size * size) {
+			while (true) {
+				int row = random.nextInt(size);
+				int col = random.nextInt(size);
+				if (gameTable.isCellFree(row, col)) {
+					gameTable.makeMove(row, col, CellValue.COMPUTER);
+					Cell randomCell = new Cell(row, col);
+					LOGGER.info("Computer random turn is {}", randomCell);
+					return randomCell;
+				}
+			}
+		}
 		List<Cell> emptyCells = getAllEmptyCells();
 		if (emptyCells.size() > 0) {
-			Cell randomCell = emptyCells.get(new Random().nextInt(emptyCells.size()));
-			gameTable.setValue(randomCell.getRowIndex(), randomCell.getColIndex(), CellValue.COMPUTER);
+			Cell randomCell = emptyCells.get(random.nextInt(emptyCells.size()));
+			gameTable.makeMove(randomCell.getRowIndex(), randomCell.getColIndex(), CellValue.COMPUTER);
 			LOGGER.info("Computer random turn is {}", randomCell);
 			return randomCell;
-		} else {
-			throw new ComputerCantMakeTurnException("All cells are filled! Have you checked draw state before call of computer turn?");
 		}
+		throw new ComputerCantMakeTurnException("All cells are filled! Have you checked draw state before call of computer turn?");
 	}
 	// getting set of empty cells
 	protected List<Cell> getAllEmptyCells(){
@@ -87,152 +139,203 @@ public class DefaultComputerTurn implements ComputerTurn {
 		}
 		return emptyCells;
 	}
+	// the scan phase of tryMakeTurn as a JFR event
+	private Cell tryMakeTurnWithEvent(CellValue cellValue, int notBlankCount) {
+		Object event = EngineEvents.beginBoardScan();
+		long patterns = patternsScanned;
+		Cell cell = tryMakeTurn(cellValue, notBlankCount);
+		EngineEvents.commitBoardScan(event, cellValue.name(), notBlankCount, patternsScanned - patterns, cell != null);
+		return cell;
+	}
 	// check the opportunity to make a move by the pattern
 	// create a pattern of 5 cells and start sequentially moving it from left to right.
+	// the scan works on cells encoded as row * size + col, the cell object is created only for the turn
 	protected Cell tryMakeTurn(CellValue cellValue, int notBlankCount) {
-		LOGGER.trace("Try to make turn by row for pattern: {} empty and {} not empty cells for {}", winCount - notBlankCount, notBlankCount, cellValue);
+		if (isScanByStones()) {
+			return toCell(findTurnByStones(cellValue, notBlankCount));
+		}
 		Cell cell = tryMakeTurnByRow(cellValue, notBlankCount);
 		if (cell != null) {
 			return cell;
 		}
-		LOGGER.trace("Try to make turn by col for pattern: {} empty and {} not empty cells for {}", winCount - notBlankCount, notBlankCount, cellValue);
 		cell = tryMakeTurnByCol(cellValue, notBlankCount);
 		if (cell != null) {
 			return cell;
 		}
-		LOGGER.trace("Try to make turn by main diagonal for pattern: {} empty and {} not empty cells for {}", winCount - notBlankCount, notBlankCount, cellValue);
 		cell = tryMakeTurnByMainDiagonal(cellValue, notBlankCount);
 		if (cell != null) {
 			return cell;
 		}
-		LOGGER.trace("Try to make turn by not main diagonal for pattern: {} empty and {} not empty cells for {}", winCount - notBlankCount, notBlankCount, cellValue);
-		cell = tryMakeTurnByNotMainDiagonal(cellValue, notBlankCount);
-		if (cell != null) {
-			return cell;
-		}
-		return null;
+		return tryMakeTurnByNotMainDiagonal(cellValue, notBlankCount);
 	}
 
 	protected Cell tryMakeTurnByRow(CellValue cellValue, int notBlankCount) {
+		return toCell(findTurnByRow(cellValue, notBlankCount));
+	}
+
+	protected Cell tryMakeTurnByCol(CellValue cellValue, int notBlankCount) {
+		return toCell(findTurnByCol(cellValue, notBlankCount));
+	}
+
+	protected Cell tryMakeTurnByMainDiagonal(CellValue cellValue, int notBlankCount) {
+		return toCell(findTurnByMainDiagonal(cellValue, notBlankCount));
+	}
+
+	protected Cell tryMakeTurnByNotMainDiagonal(CellValue cellValue, int notBlankCount) {
+		return toCell(findTurnByNotMainDiagonal(cellValue, notBlankCount));
+	}
+	// the cell object of the encoded cell, null for -1
+	private Cell toCell(int cell) {
+		return cell >= 0 ? new Cell(cell / gameTable.getSize(), cell % gameTable.getSize()) : null;
+	}
+	// making the turn by the pattern of rows, returns the cell encoded as row * size + col, or -1
+	private int findTurnByRow(CellValue cellValue, int notBlankCount) {
 		for (int i = 0; i < gameTable.getSize(); i++) {
 			for (int j = 0; j < gameTable.getSize() - winCount - 1; j++) {
-				boolean hasEmptyCells = false;
-				int count = 0;
-				List<Cell> inspectedCells = new ArrayList<>(winCount);
-				// pattern
-				for (int k = 0; k < winCount; k++) {
-					inspectedCells.add(new Cell(i, j + k));
-					if (gameTable.getValue(i, j + k) == cellValue) {
-						count++;
-					} else if (gameTable.getValue(i, j + k) == CellValue.EMPTY) {
-						hasEmptyCells = true;
-					} else {
-						hasEmptyCells = false;
-						break;
-					}
-				}
-				// checking that count of found cells equals to transmitted
-				if (count == notBlankCount && hasEmptyCells) {
-					LOGGER.debug("Found {} empty and {} not empty cells by row: {} {}", winCount - count, count, inspectedCells, new LoggerPattern(inspectedCells));
-					return makeTurnToOneCellFromDataSet(inspectedCells);
+				if (matchPattern(i, j, LineDirection.ROW, cellValue, notBlankCount)) {
+					return makeTurnToOneCellFromDataSet(LineDirection.ROW);
 				}
 			}
 		}
-		return null;
+		return -1;
 	}
 
-	protected Cell tryMakeTurnByCol(CellValue cellValue, int notBlankCount) {
+	private int findTurnByCol(CellValue cellValue, int notBlankCount) {
 		for (int i = 0; i < gameTable.getSize(); i++) {
 			for (int j = 0; j < gameTable.getSize() - winCount - 1; j++) {
-				boolean hasEmptyCells = false;
-				int count = 0;
-				List<Cell> inspectedCells = new ArrayList<>(winCount);
-				for (int k = 0; k < winCount; k++) {
-					inspectedCells.add(new Cell(j + k, i));
-					if (gameTable.getValue(j + k, i) == cellValue) {
-						count++;
-					} else if (gameTable.getValue(j + k, i) == CellValue.EMPTY) {
-						hasEmptyCells = true;
-					} else {
-						hasEmptyCells = false;
-						break;
-					}
-				}
-				if (count == notBlankCount && hasEmptyCells) {
-					LOGGER.debug("Found {} empty and {} not empty cells by col: {} {}", winCount - count, count, inspectedCells, new LoggerPattern(inspectedCells));
-					return makeTurnToOneCellFromDataSet(inspectedCells);
+				if (matchPattern(j, i, LineDirection.COL, cellValue, notBlankCount)) {
+					return makeTurnToOneCellFromDataSet(LineDirection.COL);
 				}
 			}
 		}
-		return null;
+		return -1;
 	}
 
-	protected Cell tryMakeTurnByMainDiagonal(CellValue cellValue, int notBlankCount) {
+	private int findTurnByMainDiagonal(CellValue cellValue, int notBlankCount) {
 		for (int i = 0; i < gameTable.getSize() - winCount - 1; i++) {
 			for (int j = 0; j < gameTable.getSize() - winCount - 1; j++) {
-				boolean hasEmptyCells = false;
-				int count = 0;
-				List<Cell> inspectedCells = new ArrayList<>(winCount);
-				for (int k = 0; k < winCount; k++) {
-					inspectedCells.add(new Cell(i + k, j + k));
-					if (gameTable.getValue(i + k, j + k) == cellValue) {
-						count++;
-					} else if (gameTable.getValue(i + k, j + k) == CellValue.EMPTY) {
-						hasEmptyCells = true;
-					} else {
-						hasEmptyCells = false;
-						break;
-					}
-				}
-				if (count == notBlankCount && hasEmptyCells) {
-					LOGGER.debug("Found {} empty and {} not empty cells by main diagonal: {} {}", winCount - count, count, inspectedCells, new LoggerPattern(inspectedCells));
-					return makeTurnToOneCellFromDataSet(inspectedCells);
+				if (matchPattern(i, j, LineDirection.MAIN_DIAGONAL, cellValue, notBlankCount)) {
+					return makeTurnToOneCellFromDataSet(LineDirection.MAIN_DIAGONAL);
 				}
 			}
 		}
-		return null;
+		return -1;
 	}
 
-	protected Cell tryMakeTurnByNotMainDiagonal(CellValue cellValue, int notBlankCount) {
+	private int findTurnByNotMainDiagonal(CellValue cellValue, int notBlankCount) {
 		for (int i = 0; i < gameTable.getSize() - winCount - 1; i++) {
 			for (int j = winCount - 1; j < gameTable.getSize(); j++) {
-				boolean hasEmptyCells = false;
-				int count = 0;
-				List<Cell> inspectedCells = new ArrayList<>(winCount);
+				if (matchPattern(i, j, LineDirection.NOT_MAIN_DIAGONAL, cellValue, notBlankCount)) {
+					return makeTurnToOneCellFromDataSet(LineDirection.NOT_MAIN_DIAGONAL);
+				}
+			}
+		}
+		return -1;
+	}
+	// the full scan inspects about 4 * area patterns, the search by stones inspects 4 * winCount patterns per stone
+	boolean isScanByStones() {
+		return (long) gameTable.getStoneCount() * winCount < (long) gameTable.getSize() * gameTable.getSize();
+	}
+	// the same search as by rows, cols and diagonals, but only patterns through stones of cellValue are inspected
+	// (a pattern with notBlankCount > 0 always has one), so it depends on the count of stones, not on the area;
+	// of all found patterns the one which the full scan meets first is chosen, so the turn is the same
+	private int findTurnByStones(CellValue cellValue, int notBlankCount) {
+		if (stones.length < gameTable.getStoneCount()) {
+			stones = new int[gameTable.getStoneCount() * 2];
+		}
+		int count = gameTable.getStoneCells(stones);
+		int size = gameTable.getSize();
+		for (LineDirection direction : LineDirection.ALL) {
+			long firstKey = Long.MAX_VALUE;
+			int firstRow = -1;
+			int firstCol = -1;
+			for (int i = 0; i < count; i++) {
+				int row = stones[i] / size;
+				int col = stones[i] % size;
+				if (gameTable.getValue(row, col) != cellValue) {
+					continue;
+				}
 				for (int k = 0; k < winCount; k++) {
-					inspectedCells.add(new Cell(i + k, j - k));
-					if (gameTable.getValue(i + k, j - k) == cellValue) {
-						count++;
-					} else if (gameTable.getValue(i + k, j - k) == CellValue.EMPTY) {
-						hasEmptyCells = true;
-					} else {
-						hasEmptyCells = false;
-						break;
+					int r = row - k * direction.rowStep;
+					int c = col - k * direction.colStep;
+					// the order of the full scan: by cols it goes col by col, otherwise row by row
+					long key = direction == LineDirection.COL ? (long) c * size + r : (long) r * size + c;
+					if (key < firstKey && isScannedPattern(r, c, direction) && matchPattern(r, c, direction, cellValue, notBlankCount)) {
+						firstKey = key;
+						firstRow = r;
+						firstCol = c;
 					}
 				}
-				if (count == notBlankCount && hasEmptyCells) {
-					LOGGER.debug("Found {} empty and {} not empty cells by not main diagonal: {} {}", winCount - count, count, inspectedCells, new LoggerPattern(inspectedCells));
-					return makeTurnToOneCellFromDataSet(inspectedCells);
-				}
+			}
+			if (firstRow >= 0) {
+				// filling the pattern buffer by the chosen pattern again
+				matchPattern(firstRow, firstCol, direction, cellValue, notBlankCount);
+				return makeTurnToOneCellFromDataSet(direction);
+			}
+		}
+		return -1;
+	}
+	// checking that the full scan by the direction inspects the pattern from (row, col)
+	private boolean isScannedPattern(int row, int col, LineDirection direction) {
+		int size = gameTable.getSize();
+		int limit = size - winCount - 1;
+		switch (direction) {
+		case ROW:
+			return row >= 0 && row < size && col >= 0 && col < limit;
+		case COL:
+			return col >= 0 && col < size && row >= 0 && row < limit;
+		case MAIN_DIAGONAL:
+			return row >= 0 && row < limit && col >= 0 && col < limit;
+		default:
+			return row >= 0 && row < limit && col >= winCount - 1 && col < size;
+		}
+	}
+	// checking the pattern of winCount cells from (row, col) by the direction, its cells are kept in the pattern buffer
+	// the pattern matches if it has notBlankCount stones of cellValue, empty cells and no other stones
+	private boolean matchPattern(int row, int col, LineDirection direction, CellValue cellValue, int notBlankCount) {
+		patternsScanned++;
+		int size = gameTable.getSize();
+		int count = 0;
+		for (int k = 0; k < winCount; k++) {
+			int r = row + k * direction.rowStep;
+			int c = col + k * direction.colStep;
+			pattern[k] = r * size + c;
+			CellValue value = gameTable.getValue(r, c);
+			if (value == cellValue) {
+				count++;
+			} else if (value != CellValue.EMPTY) {
+				return false;
 			}
 		}
-		return null;
+		// checking that count of found cells equals to transmitted
+		return count == notBlankCount && count < winCount;
 	}
 	// making turn in found pattern
 	protected Cell makeTurnToOneCellFromDataSet(List<Cell> inspectedCells) {
 		Cell cell = findEmptyCellForComputerTurn(inspectedCells);
-		gameTable.setValue(cell.getRowIndex(), cell.getColIndex(), CellValue.COMPUTER);
-		LOGGER.trace("The best cell is {} for pattern {} {}", cell, inspectedCells, new LoggerPattern(inspectedCells));
+		gameTable.makeMove(cell.getRowIndex(), cell.getColIndex(), CellValue.COMPUTER);
 		return cell;
 	}
+	// making turn in the pattern buffer: cells are created only for the found pattern, so the scan doesn't allocate,
+	// and the turn is made by the protected methods of cells, so subclasses can change it
+	private int makeTurnToOneCellFromDataSet(LineDirection direction) {
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Found pattern by {}: {}", direction, new LoggerPattern());
+		}
+		int size = gameTable.getSize();
+		List<Cell> inspectedCells = new ArrayList<>(winCount);
+		for (int i = 0; i < winCount; i++) {
+			inspectedCells.add(new Cell(pattern[i] / size, pattern[i] % size));
+		}
+		Cell cell = makeTurnToOneCellFromDataSet(inspectedCells);
+		return cell.getRowIndex() * size + cell.getColIndex();
+	}
 	// finding the best move in transmitted pattern
 	protected Cell findEmptyCellForComputerTurn(List<Cell> cells) {
-		LOGGER.trace("Try to find the best turn by pattern {} {}", cells, new LoggerPattern(cells));
 		for (int i = 0; i < cells.size(); i++) {
-			Cell currentCell = cells.get(i);
 			// if current cell is not empty,
 			// we must find her neighbour that is not empty to and fill it by computer value
-			if (gameTable.getValue(currentCell.getRowIndex(), currentCell.getColIndex()) != CellValue.EMPTY) {
+			if (!isCellEmpty(cells.get(i))) {
 				if (i == 0) {
 					// have no neighbour, just fill it
 					if (isCellEmpty(cells.get(i + 1))) {
@@ -245,7 +348,7 @@ public class DefaultComputerTurn implements ComputerTurn {
 					}
 				} else {
 					// if it has next of previous neighbour, randomly choose a neighbour and returning it
-					boolean searchDirectionAsc = new Random().nextBoolean();
+					boolean searchDirectionAsc = random.nextBoolean();
 					int first = searchDirectionAsc ? i + 1 : i - 1;
 					int second = searchDirectionAsc ? i - 1 : i + 1;
 					if(isCellEmpty(cells.get(first))) {
@@ -257,28 +360,25 @@ public class DefaultComputerTurn implements ComputerTurn {
 			}
 		}
 		// if we don't find anything it's an error
-		throw new ComputerCantMakeTurnException("All cells are filled: "+cells);
+		throw new ComputerCantMakeTurnException("All cells are filled: " + cells);
 	}
-	
 	protected boolean isCellEmpty(Cell cell) {
 		return gameTable.getValue(cell.getRowIndex(), cell.getColIndex()) == CellValue.EMPTY;
 	}
 
+	// lazy description of the pattern buffer for logging, e.g. 7:3 [*XX**]
 	private class LoggerPattern {
-		private final List<Cell> cells;
-		LoggerPattern(List<Cell> cells) {
-			super();
-			this.cells = cells;
-		}
 		@Override
 		public String toString() {
-			StringBuilder pattern = new StringBuilder("[");
-			for(Cell cell : cells) {
-				CellValue cellValue = gameTable.getValue(cell.getRowIndex(), cell.getColIndex());
-				pattern.append(cellValue == CellValue.EMPTY ? "*" : cellValue.getValue());
+			int size = gameTable.getSize();
+			StringBuilder description = new StringBuilder();
+			description.append(pattern[0] / size).append(':').append(pattern[0] % size).append(" [");
+			for (int i = 0; i < winCount; i++) {
+				CellValue cellValue = gameTable.getValue(pattern[i] / size, pattern[i] % size);
+				description.append(cellValue == CellValue.EMPTY ? "*" : cellValue.getValue());
 			}
-			pattern.append("]");
-			return pattern.toString();
+			description.append("]");
+			return description.toString();
 		}
 	}
 }
@@ -23,7 +23,7 @@ public class DefaultHumanTurn implements HumanTurn {
 	@Override
 	public Cell makeTurn(int row, int col) {
 		// setting human cell on game table
-		gameTable.setValue(row, col, CellValue.HUMAN);
+		gameTable.makeMove(row, col, CellValue.HUMAN);
 		Cell cell = new Cell(row, col);
 		LOGGER.info("Human turn is {}", cell);
 		return cell;
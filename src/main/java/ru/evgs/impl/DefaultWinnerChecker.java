@@ -11,9 +11,24 @@ import ru.evgs.*;
 
 public class DefaultWinnerChecker implements WinnerChecker {
 	private static final Logger LOGGER = LoggerFactory.getLogger(DefaultWinnerChecker.class); 
+	// shared result for the common case, when there is no winner
+	private static final WinnerResult NO_WINNER = new DefaultWinnerResult(null);
 	private GameTable gameTable;
-	private int winCount = DefaultConstants.WIN_COUNT;
-	
+	private final int winCount;
+	// cells of stones for the scan by stones, reused between checks
+	private int[] stones = new int[0];
+
+	public DefaultWinnerChecker() {
+		this(DefaultConstants.WIN_COUNT);
+	}
+
+	public DefaultWinnerChecker(int winCount) {
+		if (winCount <= 0) {
+			throw new IllegalArgumentException("Win count must be positive: winCount=" + winCount);
+		}
+		this.winCount = winCount;
+	}
+
 	@Override
 	public void setGameTable(GameTable gameTable) {
 		// checking that game table is not null
@@ -25,11 +40,26 @@ public class DefaultWinnerChecker implements WinnerChecker {
 		// setting game table
 		this.gameTable = gameTable;
 	}
-	// searching winner pattern by cell value
+	// searching winner pattern by cell value, the check is measured while EngineMetrics is enabled
 	@Override
 	public WinnerResult isWinnerFound(CellValue cellValue) {
 		// checking that value of cell is not null
 		Objects.requireNonNull(cellValue, "cellValue can't be null");
+		if (!EngineMetrics.isMetricsEnabled()) {
+			return findWinner(cellValue);
+		}
+		long startTime = System.nanoTime();
+		Object event = EngineEvents.beginWinCheck();
+		WinnerResult result = findWinner(cellValue);
+		EngineMetrics.getInstance().recordWinCheck(System.nanoTime() - startTime);
+		EngineEvents.commitWinCheck(event, false, result.winnerExists());
+		return result;
+	}
+
+	private WinnerResult findWinner(CellValue cellValue) {
+		if (isScanByStones()) {
+			return isWinnerFoundByStones(cellValue);
+		}
 		LOGGER.trace("Try to find winner by row: is {} winner?", cellValue);
 		// by row
 		List<Cell> result = isWinnerByRow(cellValue);
@@ -60,7 +90,91 @@ public class DefaultWinnerChecker implements WinnerChecker {
 		}
 		LOGGER.trace("Winner not found");
 		// if pattern not found
-		return new DefaultWinnerResult(null);
+		return NO_WINNER;
+	}
+
+	// searching winner pattern only on the lines through the last turn: O(winCount) for any size of game table
+	// returns the same cells as the full scan, i.e. the first winCount cells of the line in the scan order
+	@Override
+	public WinnerResult isWinnerFoundByLastTurn(Cell lastTurn) {
+		// checking that last turn is not null
+		Objects.requireNonNull(lastTurn, "lastTurn can't be null");
+		if (!EngineMetrics.isMetricsEnabled()) {
+			return findWinnerByLastTurn(lastTurn);
+		}
+		long startTime = System.nanoTime();
+		Object event = EngineEvents.beginWinCheck();
+		WinnerResult result = findWinnerByLastTurn(lastTurn);
+		EngineMetrics.getInstance().recordWinCheck(System.nanoTime() - startTime);
+		EngineEvents.commitWinCheck(event, true, result.winnerExists());
+		return result;
+	}
+
+	private WinnerResult findWinnerByLastTurn(Cell lastTurn) {
+		int row = lastTurn.getRowIndex();
+		int col = lastTurn.getColIndex();
+		CellValue cellValue = gameTable.getValue(row, col);
+		if (cellValue == CellValue.EMPTY) {
+			return NO_WINNER;
+		}
+		for (LineDirection direction : LineDirection.ALL) {
+			// stones before and after the last turn, more than winCount - 1 on each side are never needed
+			int before = direction.countStones(gameTable, row, col, cellValue, -1, winCount - 1);
+			int after = direction.countStones(gameTable, row, col, cellValue, 1, winCount - 1 - before);
+			if (before + after + 1 >= winCount) {
+				List<Cell> cells = new ArrayList<>(winCount);
+				for (int k = -before; k < winCount - before; k++) {
+					cells.add(new Cell(row + k * direction.rowStep, col + k * direction.colStep));
+				}
+				LOGGER.debug("Winner is {}. By {}: {}", cellValue, direction, cells);
+				return new DefaultWinnerResult(cells);
+			}
+		}
+		LOGGER.trace("Winner not found by last turn {}", lastTurn);
+		return NO_WINNER;
+	}
+
+	// the full scan costs the area of the field, the scan by stones costs stones * winCount,
+	// so stones are scanned when there are few of them, e.g. always on large sparse fields
+	boolean isScanByStones() {
+		return (long) gameTable.getStoneCount() * winCount < (long) gameTable.getSize() * gameTable.getSize();
+	}
+	// searching winner pattern only from stones which start lines of cellValue
+	// returns the same cells as the full scan: directions are checked in the same order
+	// and the line which is met first by the scan of the direction is chosen
+	private WinnerResult isWinnerFoundByStones(CellValue cellValue) {
+		if (stones.length < gameTable.getStoneCount()) {
+			stones = new int[gameTable.getStoneCount() * 2];
+		}
+		int count = gameTable.getStoneCells(stones);
+		int size = gameTable.getSize();
+		for (LineDirection direction : LineDirection.ALL) {
+			long firstKey = Long.MAX_VALUE;
+			int first = -1;
+			for (int i = 0; i < count; i++) {
+				int row = stones[i] / size;
+				int col = stones[i] % size;
+				// only the first stone of the line is checked
+				if (gameTable.getValue(row, col) != cellValue || direction.countStones(gameTable, row, col, cellValue, -1, 1) > 0) {
+					continue;
+				}
+				long key = direction == LineDirection.COL ? (long) col * size + row : (long) row * size + col;
+				if (key < firstKey && direction.countStones(gameTable, row, col, cellValue, 1, winCount - 1) == winCount - 1) {
+					firstKey = key;
+					first = stones[i];
+				}
+			}
+			if (first >= 0) {
+				List<Cell> cells = new ArrayList<>(winCount);
+				for (int k = 0; k < winCount; k++) {
+					cells.add(new Cell(first / size + k * direction.rowStep, first % size + k * direction.colStep));
+				}
+				LOGGER.debug("Winner is {}. By {}: {}", cellValue, direction, cells);
+				return new DefaultWinnerResult(cells);
+			}
+		}
+		LOGGER.trace("Winner not found");
+		return NO_WINNER;
 	}
 
 	protected List<Cell> isWinnerByRow(CellValue cellValue) {
@@ -0,0 +1,66 @@
+package ru.evgs.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+// JFR events of engines for a runtime that may have no jdk.jfr: the project targets Java 7, so JfrEngineEvents is
+// built only by JDK 11+ (the jfr profile) and it's created by reflection if it's built and jdk.jfr.Event is found;
+// begin methods return null if JFR isn't available or the event isn't enabled in a recording, commit methods ignore null
+// callers begin events only while EngineMetrics is enabled
+final class EngineEvents {
+	private static final Logger LOGGER = LoggerFactory.getLogger(EngineEvents.class);
+	private static final String JFR_EVENTS_CLASS = "ru.evgs.impl.JfrEngineEvents";
+	// null if JFR isn't available
+	private static final Events EVENTS = createEvents();
+	// events of a recorder, an event is begun by the engine and committed with its results
+	interface Events {
+		Object beginTurn();
+		void commitTurn(Object event, String engine, int cell, long nodes, long patterns);
+		Object beginWinCheck();
+		void commitWinCheck(Object event, boolean byLastTurn, boolean winnerFound);
+		Object beginBoardScan();
+		void commitBoardScan(Object event, String side, int stones, long patterns, boolean found);
+	}
+
+	private EngineEvents() {
+	}
+
+	private static Events createEvents() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return (Events) Class.forName(JFR_EVENTS_CLASS).getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			LOGGER.debug("JFR isn't available, events of engines are disabled: {}", e.toString());
+			return null;
+		}
+	}
+
+	static Object beginTurn() {
+		return EVENTS != null ? EVENTS.beginTurn() : null;
+	}
+
+	static void commitTurn(Object event, String engine, int cell, long nodes, long patterns) {
+		if (event != null) {
+			EVENTS.commitTurn(event, engine, cell, nodes, patterns);
+		}
+	}
+
+	static Object beginWinCheck() {
+		return EVENTS != null ? EVENTS.beginWinCheck() : null;
+	}
+
+	static void commitWinCheck(Object event, boolean byLastTurn, boolean winnerFound) {
+		if (event != null) {
+			EVENTS.commitWinCheck(event, byLastTurn, winnerFound);
+		}
+	}
+
+	static Object beginBoardScan() {
+		return EVENTS != null ? EVENTS.beginBoardScan() : null;
+	}
+
+	static void commitBoardScan(Object event, String side, int stones, long patterns, boolean found) {
+		if (event != null) {
+			EVENTS.commitBoardScan(event, side, stones, patterns, found);
+		}
+	}
+}
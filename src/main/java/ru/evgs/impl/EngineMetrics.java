@@ -0,0 +1,225 @@
+package ru.evgs.impl;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+// metrics of engines shared by all computer turns and winner checkers of the JVM, published as a JMX MBean
+// instrumented code checks isMetricsEnabled() first, so a disabled engine pays one read of a volatile flag per turn,
+// check or scan phase; counters of scans are plain fields of the engines, they are added here once per turn
+// it's enabled by -Dgomoku.metrics=true or by the Enabled attribute of the MBean, JFR events are emitted only while
+// it's enabled too (see EngineEvents)
+public class EngineMetrics implements EngineMetricsMBean {
+	private static final Logger LOGGER = LoggerFactory.getLogger(EngineMetrics.class);
+	public static final String OBJECT_NAME = "ru.evgs:type=EngineMetrics";
+	private static final EngineMetrics INSTANCE = new EngineMetrics();
+	private static volatile boolean enabled = Boolean.getBoolean("gomoku.metrics");
+	// counters are replaced by reset, so recording threads never see them half-zeroed
+	private volatile Counters counters = new Counters();
+
+	private EngineMetrics() {
+	}
+
+	public static EngineMetrics getInstance() {
+		return INSTANCE;
+	}
+	// the check of instrumented code, it's static, so the hot path doesn't load the instance
+	public static boolean isMetricsEnabled() {
+		return enabled;
+	}
+	// registering the MBean in the platform MBean server, once per JVM
+	public static synchronized void registerMBean() {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(INSTANCE, name);
+				LOGGER.debug("Engine metrics are registered as {}, enabled: {}", OBJECT_NAME, enabled);
+			}
+		} catch (JMException e) {
+			LOGGER.warn("Engine metrics are not registered: " + e.getMessage(), e);
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled) {
+		EngineMetrics.enabled = enabled;
+		LOGGER.info("Engine metrics are {}", enabled ? "enabled" : "disabled");
+	}
+	// the turn of a computer turn: nodes of the alpha-beta search (0 if it wasn't searched), patterns of the default one
+	public void recordTurn(long nanos, long nodes, long patterns) {
+		Counters current = counters;
+		current.turnLatencies.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+		if (nodes > 0) {
+			current.nodes.addAndGet(nodes);
+			current.searchNanos.addAndGet(nanos);
+		}
+		if (patterns > 0) {
+			current.patterns.addAndGet(patterns);
+		}
+	}
+	// playouts of the Monte Carlo tree search made by the turn of the time, they aren't nodes of the alpha-beta search
+	public void recordPlayouts(long nanos, long playouts) {
+		if (playouts > 0) {
+			Counters current = counters;
+			current.playouts.addAndGet(playouts);
+			current.playoutNanos.addAndGet(nanos);
+		}
+	}
+	// counts of probes of the transposition table made by the turn
+	public void recordTranspositionProbes(long hits, long misses) {
+		Counters current = counters;
+		current.transpositionHits.addAndGet(hits);
+		current.transpositionProbes.addAndGet(hits + misses);
+	}
+
+	public void recordPositionCacheProbe(boolean hit) {
+		Counters current = counters;
+		if (hit) {
+			current.positionCacheHits.incrementAndGet();
+		}
+		current.positionCacheProbes.incrementAndGet();
+	}
+
+	public void recordOpeningBookProbe(boolean hit) {
+		Counters current = counters;
+		if (hit) {
+			current.openingBookHits.incrementAndGet();
+		}
+		current.openingBookProbes.incrementAndGet();
+	}
+
+	public void recordWinCheck(long nanos) {
+		counters.winCheckLatencies.record(nanos);
+	}
+
+	@Override
+	public long getTurns() {
+		return counters.turnLatencies.getCount();
+	}
+
+	@Override
+	public long getTurnLatencyP50Micros() {
+		return counters.turnLatencies.getPercentile(50);
+	}
+
+	@Override
+	public long getTurnLatencyP99Micros() {
+		return counters.turnLatencies.getPercentile(99);
+	}
+
+	@Override
+	public long getTurnLatencyMaxMicros() {
+		return counters.turnLatencies.getMax();
+	}
+
+	@Override
+	public long getNodes() {
+		return counters.nodes.get();
+	}
+
+	@Override
+	public double getNodesPerSecond() {
+		Counters current = counters;
+		long nanos = current.searchNanos.get();
+		return nanos == 0 ? 0 : current.nodes.get() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+	}
+
+	@Override
+	public long getPlayouts() {
+		return counters.playouts.get();
+	}
+
+	@Override
+	public double getPlayoutsPerSecond() {
+		Counters current = counters;
+		long nanos = current.playoutNanos.get();
+		return nanos == 0 ? 0 : current.playouts.get() * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+	}
+
+	@Override
+	public long getPatternsScanned() {
+		return counters.patterns.get();
+	}
+
+	@Override
+	public double getTranspositionTableHitRate() {
+		return rate(counters.transpositionHits, counters.transpositionProbes);
+	}
+
+	@Override
+	public double getPositionCacheHitRate() {
+		return rate(counters.positionCacheHits, counters.positionCacheProbes);
+	}
+
+	@Override
+	public double getOpeningBookHitRate() {
+		return rate(counters.openingBookHits, counters.openingBookProbes);
+	}
+
+	private static double rate(AtomicLong hits, AtomicLong probes) {
+		long count = probes.get();
+		return count == 0 ? 0 : (double) hits.get() / count;
+	}
+
+	@Override
+	public long getWinChecks() {
+		return counters.winCheckLatencies.getCount();
+	}
+
+	@Override
+	public long getWinCheckP50Nanos() {
+		return counters.winCheckLatencies.getPercentile(50);
+	}
+
+	@Override
+	public long getWinCheckP99Nanos() {
+		return counters.winCheckLatencies.getPercentile(99);
+	}
+
+	@Override
+	public long getWinCheckMaxNanos() {
+		return counters.winCheckLatencies.getMax();
+	}
+
+	@Override
+	public void reset() {
+		counters = new Counters();
+	}
+
+	@Override
+	public String toString() {
+		return String.format("EngineMetrics[turns=%d, turnP50=%dus, turnP99=%dus, nodes=%d, nodes/s=%.0f, playouts=%d, playouts/s=%.0f, "
+				+ "patterns=%d, ttHitRate=%.3f, cacheHitRate=%.3f, bookHitRate=%.3f, winChecks=%d, winCheckP50=%dns, winCheckP99=%dns]", getTurns(),
+				getTurnLatencyP50Micros(), getTurnLatencyP99Micros(), getNodes(), getNodesPerSecond(), getPlayouts(), getPlayoutsPerSecond(),
+				getPatternsScanned(), getTranspositionTableHitRate(),
+				getPositionCacheHitRate(), getOpeningBookHitRate(), getWinChecks(), getWinCheckP50Nanos(), getWinCheckP99Nanos());
+	}
+
+	private static class Counters {
+		private final LatencyHistogram turnLatencies = new LatencyHistogram();
+		private final LatencyHistogram winCheckLatencies = new LatencyHistogram();
+		private final AtomicLong nodes = new AtomicLong();
+		private final AtomicLong searchNanos = new AtomicLong();
+		private final AtomicLong playouts = new AtomicLong();
+		private final AtomicLong playoutNanos = new AtomicLong();
+		private final AtomicLong patterns = new AtomicLong();
+		private final AtomicLong transpositionHits = new AtomicLong();
+		private final AtomicLong transpositionProbes = new AtomicLong();
+		private final AtomicLong positionCacheHits = new AtomicLong();
+		private final AtomicLong positionCacheProbes = new AtomicLong();
+		private final AtomicLong openingBookHits = new AtomicLong();
+		private final AtomicLong openingBookProbes = new AtomicLong();
+	}
+}
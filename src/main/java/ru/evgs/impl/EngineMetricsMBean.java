@@ -0,0 +1,42 @@
+package ru.evgs.impl;
+// JMX view of EngineMetrics, registered as ru.evgs:type=EngineMetrics
+public interface EngineMetricsMBean {
+	// metrics and JFR events are recorded only while it's enabled
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+	// turns of all computer turns and their latencies in microseconds
+	long getTurns();
+
+	long getTurnLatencyP50Micros();
+
+	long getTurnLatencyP99Micros();
+
+	long getTurnLatencyMaxMicros();
+	// nodes of the alpha-beta search and their rate over the time of searched turns
+	long getNodes();
+
+	double getNodesPerSecond();
+	// playouts of the Monte Carlo tree search and their rate over the time of its turns
+	long getPlayouts();
+
+	double getPlayoutsPerSecond();
+	// patterns inspected by scans of the default computer turn
+	long getPatternsScanned();
+	// part of probes that found the position, 0 if there were no probes
+	double getTranspositionTableHitRate();
+
+	double getPositionCacheHitRate();
+
+	double getOpeningBookHitRate();
+	// checks of the winner and their latencies in nanoseconds
+	long getWinChecks();
+
+	long getWinCheckP50Nanos();
+
+	long getWinCheckP99Nanos();
+
+	long getWinCheckMaxNanos();
+	// zeroing all metrics
+	void reset();
+}
@@ -0,0 +1,419 @@
+package ru.evgs.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+// offline tuning of weights of PatternEvaluator by finished games of record files, e.g. of self-play recorded
+// by TournamentRunner --record: Texel-style logistic regression of results by evaluations of positions
+// positions are streamed: features of every position (see PatternEvaluator.getFeatures) are extracted once to
+// a temporary file of fixed-size entries, every pass of the fit reads it by blocks, and the gradient of a block is
+// computed by all threads while the next block is read, so the heap is two blocks for any count of positions
+// the evaluation is linear in weights, so the scale of the sigmoid is fitted first with the initial weights and
+// then it's fixed: tuned weights keep the scale of the search; weights are fitted by Adam on their logarithms,
+// so they stay positive
+// usage: EvaluationTuner --weights OUT [--initial FILE] [--win N] [--epochs N] [--threads N] [--skip N] RECORDS...
+public class EvaluationTuner implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(EvaluationTuner.class);
+	private static final String USAGE = "Usage: EvaluationTuner --weights OUT [--initial FILE] [--win N] [--epochs N] [--threads N] [--skip N] RECORDS...";
+	public static final int DEFAULT_EPOCHS = 100;
+	// first moves of games are rather the choice of openings than the evaluation
+	public static final int DEFAULT_SKIPPED_MOVES = 4;
+	// positions of one block of the feature file
+	private static final int BLOCK_POSITIONS = 1 << 16;
+	private static final double LEARNING_RATE = 0.05;
+	private static final double ADAM_BETA1 = 0.9;
+	private static final double ADAM_BETA2 = 0.999;
+	private static final double ADAM_EPSILON = 1e-8;
+	// iterations of the golden section search of the scale, log10 of the scale is searched in the range
+	private static final int SCALE_ITERATIONS = 40;
+	private static final double MIN_LOG_SCALE = -8;
+	private static final double MAX_LOG_SCALE = 0;
+	// the sum of patterns of the evaluation must stay far from the score of the win
+	static final int MAX_WEIGHT = AlphaBetaSearcher.WIN_SCORE / 100;
+	private final int winCount;
+	private final int threads;
+	// an entry is features 1..winCount - 1 as ints and the result for the side to move in half points
+	private final int entrySize;
+	private final ExecutorService executor;
+	private final Path featureFile;
+	// a block is read to one buffer while threads compute the other one
+	private final ByteBuffer[] buffers;
+	private int skippedMoves = DEFAULT_SKIPPED_MOVES;
+	private long positionCount;
+	private double scale;
+	private double initialError;
+	private double lastError;
+
+	public EvaluationTuner(int winCount, int threads) throws IOException {
+		if (winCount <= 1) {
+			throw new IllegalArgumentException("Win count must be greater than 1: winCount=" + winCount);
+		}
+		if (threads <= 0) {
+			throw new IllegalArgumentException("Count of threads must be positive: " + threads);
+		}
+		this.winCount = winCount;
+		this.threads = threads;
+		entrySize = 4 * (winCount - 1) + 1;
+		executor = Executors.newFixedThreadPool(threads, new TunerThreadFactory());
+		featureFile = Files.createTempFile("gomoku-features", ".bin");
+		buffers = new ByteBuffer[] { ByteBuffer.allocateDirect(BLOCK_POSITIONS * entrySize), ByteBuffer.allocateDirect(BLOCK_POSITIONS * entrySize) };
+	}
+	// setting count of first moves of every game whose positions aren't used
+	public void setSkippedMoves(int skippedMoves) {
+		if (skippedMoves < 0) {
+			throw new IllegalArgumentException("Count of skipped moves must be non-negative: " + skippedMoves);
+		}
+		this.skippedMoves = skippedMoves;
+	}
+	// extracting positions of finished games of the win count from record files, returns the count of positions;
+	// positions after the end of a game are not used
+	public long extract(List<Path> records) throws IOException {
+		positionCount = 0;
+		long games = 0;
+		long skippedGames = 0;
+		int[] features = new int[winCount];
+		GameRecord record = new GameRecord();
+		GameTable gameTable = null;
+		PatternEvaluator evaluator = null;
+		try (FileChannel channel = FileChannel.open(featureFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = buffers[0];
+			buffer.clear();
+			for (Path path : records) {
+				try (GameRecordReader reader = GameRecordReader.open(path)) {
+					while (reader.next(record)) {
+						if (record.getResult() == GameRecord.UNFINISHED || record.getWinCount() != winCount) {
+							skippedGames++;
+							continue;
+						}
+						if (gameTable == null || gameTable.getSize() != record.getSize()) {
+							gameTable = new DefaultGameTable(record.getSize());
+							evaluator = new PatternEvaluator(record.getSize(), winCount);
+							gameTable.addMoveListener(evaluator);
+						}
+						games++;
+						gameTable.reInit();
+						int size = record.getSize();
+						for (int i = 0; i < record.getMoveCount(); i++) {
+							CellValue side = record.getSide(i);
+							gameTable.makeMove(record.getMove(i) / size, record.getMove(i) % size, side);
+							if (evaluator.hasFive(side)) {
+								break;
+							}
+							if (i + 1 <= skippedMoves) {
+								continue;
+							}
+							CellValue sideToMove = side == CellValue.COMPUTER ? CellValue.HUMAN : CellValue.COMPUTER;
+							evaluator.getFeatures(sideToMove, features);
+							if (buffer.remaining() < entrySize) {
+								writeBlock(channel, buffer);
+							}
+							for (int k = 1; k < winCount; k++) {
+								buffer.putInt(features[k]);
+							}
+							buffer.put(getResult(record.getResult(), sideToMove));
+							positionCount++;
+						}
+					}
+				}
+			}
+			writeBlock(channel, buffer);
+		}
+		LOGGER.info("Positions are extracted: {} positions of {} games, {} games are skipped", positionCount, games, skippedGames);
+		return positionCount;
+	}
+	// result of the game for the side in half points
+	private static byte getResult(int result, CellValue side) {
+		if (result == GameRecord.DRAW) {
+			return 1;
+		}
+		boolean humanWins = result == GameRecord.HUMAN_WINS;
+		return (byte) (humanWins == (side == CellValue.HUMAN) ? 2 : 0);
+	}
+
+	private static void writeBlock(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+	// fitting weights to extracted positions, returns the tuned weights
+	public int[] tune(int[] initialWeights, int epochs) throws IOException {
+		if (initialWeights.length != winCount) {
+			throw new IllegalArgumentException("Count of weights must be equal to win count: weights=" + initialWeights.length + ", winCount=" + winCount);
+		}
+		if (positionCount == 0) {
+			throw new IllegalStateException("There are no positions, extract them first");
+		}
+		double[] weights = new double[winCount];
+		// logarithms of weights 1..winCount - 1 are fitted
+		double[] logWeights = new double[winCount];
+		for (int k = 1; k < winCount; k++) {
+			weights[k] = Math.min(Math.max(initialWeights[k], 1), MAX_WEIGHT);
+			logWeights[k] = Math.log(weights[k]);
+		}
+		scale = fitScale(weights);
+		initialError = pass(weights, scale, false)[0] / positionCount;
+		LOGGER.info("Scale is fitted: scale {}, error {}", scale, initialError);
+		double[] moments = new double[winCount];
+		double[] squares = new double[winCount];
+		lastError = initialError;
+		for (int epoch = 1; epoch <= epochs; epoch++) {
+			double[] sums = pass(weights, scale, true);
+			lastError = sums[0] / positionCount;
+			for (int k = 1; k < winCount; k++) {
+				// the derivative by the logarithm of the weight
+				double gradient = sums[k] / positionCount * weights[k];
+				moments[k] = ADAM_BETA1 * moments[k] + (1 - ADAM_BETA1) * gradient;
+				squares[k] = ADAM_BETA2 * squares[k] + (1 - ADAM_BETA2) * gradient * gradient;
+				double moment = moments[k] / (1 - Math.pow(ADAM_BETA1, epoch));
+				double square = squares[k] / (1 - Math.pow(ADAM_BETA2, epoch));
+				logWeights[k] = Math.min(logWeights[k] - LEARNING_RATE * moment / (Math.sqrt(square) + ADAM_EPSILON), Math.log(MAX_WEIGHT));
+				weights[k] = Math.exp(logWeights[k]);
+			}
+			LOGGER.debug("Epoch {}: error {}, weights {}", epoch, lastError, weights);
+		}
+		lastError = pass(weights, scale, false)[0] / positionCount;
+		int[] tuned = new int[winCount];
+		for (int k = 1; k < winCount; k++) {
+			tuned[k] = (int) Math.max(1, Math.round(weights[k]));
+		}
+		LOGGER.info("Weights are tuned: error {} -> {}, weights {}", initialError, lastError, Arrays.toString(tuned));
+		return tuned;
+	}
+	// the golden section search of the scale with the min error, the error is unimodal by the scale
+	private double fitScale(double[] weights) throws IOException {
+		double ratio = (Math.sqrt(5) - 1) / 2;
+		double low = MIN_LOG_SCALE;
+		double high = MAX_LOG_SCALE;
+		double left = high - ratio * (high - low);
+		double right = low + ratio * (high - low);
+		double leftError = getError(weights, Math.pow(10, left));
+		double rightError = getError(weights, Math.pow(10, right));
+		for (int i = 0; i < SCALE_ITERATIONS; i++) {
+			if (leftError < rightError) {
+				high = right;
+				right = left;
+				rightError = leftError;
+				left = high - ratio * (high - low);
+				leftError = getError(weights, Math.pow(10, left));
+			} else {
+				low = left;
+				left = right;
+				leftError = rightError;
+				right = low + ratio * (high - low);
+				rightError = getError(weights, Math.pow(10, right));
+			}
+		}
+		return Math.pow(10, (low + high) / 2);
+	}
+
+	private double getError(double[] weights, double scale) throws IOException {
+		return pass(weights, scale, false)[0] / positionCount;
+	}
+	// one pass over positions: sums[0] is the sum of squared errors, sums[k] is the sum of derivatives by weights[k]
+	// the block is read while threads compute the previous one
+	private double[] pass(double[] weights, double scale, boolean gradient) throws IOException {
+		double[] sums = new double[winCount];
+		int current = 0;
+		List<Future<double[]>> pending = null;
+		try (FileChannel channel = FileChannel.open(featureFile, StandardOpenOption.READ)) {
+			while (true) {
+				ByteBuffer buffer = buffers[current];
+				buffer.clear();
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+					// reading the whole block
+				}
+				buffer.flip();
+				if (pending != null) {
+					addResults(pending, sums);
+				}
+				if (!buffer.hasRemaining()) {
+					return sums;
+				}
+				pending = submitBlock(buffer, weights, scale, gradient);
+				current = 1 - current;
+			}
+		}
+	}
+	// the block is split to a part per thread
+	private List<Future<double[]>> submitBlock(ByteBuffer buffer, final double[] weights, final double scale, final boolean gradient) {
+		int positions = buffer.remaining() / entrySize;
+		List<Future<double[]>> futures = new ArrayList<>(threads);
+		for (int i = 0; i < threads; i++) {
+			final int from = (int) ((long) positions * i / threads);
+			final int to = (int) ((long) positions * (i + 1) / threads);
+			// every part reads its own view by absolute indexes
+			final ByteBuffer part = buffer.duplicate();
+			futures.add(executor.submit(new Callable<double[]>() {
+				@Override
+				public double[] call() {
+					return computePart(part, from, to, weights, scale, gradient);
+				}
+			}));
+		}
+		return futures;
+	}
+
+	private double[] computePart(ByteBuffer buffer, int from, int to, double[] weights, double scale, boolean gradient) {
+		double[] sums = new double[winCount];
+		for (int position = from; position < to; position++) {
+			int entry = position * entrySize;
+			double evaluation = 0;
+			for (int k = 1; k < winCount; k++) {
+				evaluation += weights[k] * buffer.getInt(entry + 4 * (k - 1));
+			}
+			double expected = buffer.get(entry + entrySize - 1) / 2.0;
+			double predicted = 1 / (1 + Math.exp(-scale * evaluation));
+			double error = predicted - expected;
+			sums[0] += error * error;
+			if (gradient) {
+				double derivative = 2 * error * predicted * (1 - predicted) * scale;
+				for (int k = 1; k < winCount; k++) {
+					sums[k] += derivative * buffer.getInt(entry + 4 * (k - 1));
+				}
+			}
+		}
+		return sums;
+	}
+
+	private static void addResults(List<Future<double[]>> futures, double[] sums) throws IOException {
+		for (Future<double[]> future : futures) {
+			try {
+				double[] part = future.get();
+				for (int i = 0; i < sums.length; i++) {
+					sums[i] += part[i];
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Tuning is interrupted", e);
+			} catch (ExecutionException e) {
+				throw new IOException("Error of the pass over positions: " + e.getCause().getMessage(), e.getCause());
+			}
+		}
+	}
+
+	public long getPositionCount() {
+		return positionCount;
+	}
+	// scale of the sigmoid of evaluations fitted by the last tuning
+	public double getScale() {
+		return scale;
+	}
+	// mean squared errors of predicted results with the initial and the tuned weights
+	public double getInitialError() {
+		return initialError;
+	}
+
+	public double getLastError() {
+		return lastError;
+	}
+	// writing weights in the format of PatternEvaluator.readWeights with the comment
+	public static void writeWeights(Path path, int[] weights, String comment) throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (String line : comment.split("\n")) {
+			text.append("# ").append(line).append('\n');
+		}
+		for (int i = 0; i < weights.length; i++) {
+			text.append(i == 0 ? "" : " ").append(weights[i]);
+		}
+		text.append('\n');
+		Files.write(path, text.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public void close() throws IOException {
+		executor.shutdownNow();
+		Files.deleteIfExists(featureFile);
+	}
+
+	public static void main(String[] args) throws IOException {
+		Path output = null;
+		Path initial = null;
+		int winCount = DefaultConstants.WIN_COUNT;
+		int epochs = DEFAULT_EPOCHS;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int skip = DEFAULT_SKIPPED_MOVES;
+		List<Path> records = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--weights":
+				output = Paths.get(args[++i]);
+				break;
+			case "--initial":
+				initial = Paths.get(args[++i]);
+				break;
+			case "--win":
+				winCount = Integer.parseInt(args[++i]);
+				break;
+			case "--epochs":
+				epochs = Integer.parseInt(args[++i]);
+				break;
+			case "--threads":
+				threads = Integer.parseInt(args[++i]);
+				break;
+			case "--skip":
+				skip = Integer.parseInt(args[++i]);
+				break;
+			default:
+				if (args[i].startsWith("--")) {
+					System.err.println("Unknown option: " + args[i]);
+					System.err.println(USAGE);
+					System.exit(1);
+				}
+				records.add(Paths.get(args[i]));
+			}
+		}
+		if (output == null || records.isEmpty()) {
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+		int[] initialWeights = initial != null ? PatternEvaluator.readWeights(initial) : PatternEvaluator.defaultWeights(winCount);
+		long startTime = System.nanoTime();
+		try (EvaluationTuner tuner = new EvaluationTuner(winCount, threads)) {
+			tuner.setSkippedMoves(skip);
+			if (tuner.extract(records) == 0) {
+				System.err.println("There are no positions of finished games with win count " + winCount + " in records");
+				System.exit(1);
+			}
+			int[] weights = tuner.tune(initialWeights, epochs);
+			writeWeights(output, weights, String.format("weights of PatternEvaluator tuned by %d positions, %d epochs\nerror %.6f -> %.6f, scale %.6g",
+					tuner.getPositionCount(), epochs, tuner.getInitialError(), tuner.getLastError(), tuner.getScale()));
+			System.out.printf("positions: %d, error: %.6f -> %.6f, weights: %s, time: %d ms%n", tuner.getPositionCount(), tuner.getInitialError(),
+					tuner.getLastError(), Arrays.toString(weights), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+		}
+	}
+	// threads of passes are daemons, so they don't prevent exit of the application
+	private static class TunerThreadFactory implements ThreadFactory {
+		private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "evaluation-tuner-" + THREAD_NUMBER.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,190 @@
+package ru.evgs.impl;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+// record of one game: the field, the side of the first move and moves encoded as row * size + col,
+// sides alternate from the first move; a move may have the score of the mover and the time spent on it
+// records are written by GameRecordWriter and read by GameRecordReader
+public class GameRecord {
+	// results of the game
+	public static final int UNFINISHED = 0;
+	public static final int HUMAN_WINS = 1;
+	public static final int COMPUTER_WINS = 2;
+	public static final int DRAW = 3;
+	// score of a move made without evaluation, e.g. by the human
+	public static final int NO_SCORE = Integer.MIN_VALUE;
+	private int size;
+	private int winCount;
+	private CellValue firstSide;
+	private int result;
+	private int moveCount;
+	private int[] moves = new int[64];
+	private int[] scores = new int[64];
+	private long[] micros = new long[64];
+	private boolean hasScores;
+	private boolean hasTimes;
+
+	// empty record of the standard field, e.g. to be filled by the reader
+	public GameRecord() {
+		this(DefaultConstants.SIZE, DefaultConstants.WIN_COUNT, CellValue.HUMAN);
+	}
+
+	public GameRecord(int size, int winCount, CellValue firstSide) {
+		reset(size, winCount, firstSide);
+	}
+	// clearing the record for a new game, so one record can be reused by the reader or by the game loop
+	public void reset(int size, int winCount, CellValue firstSide) {
+		if (size <= 0 || winCount <= 1 || size < winCount) {
+			throw new IllegalArgumentException("Invalid board: size=" + size + ", winCount=" + winCount);
+		}
+		Objects.requireNonNull(firstSide, "First side can't be null");
+		if (firstSide == CellValue.EMPTY) {
+			throw new IllegalArgumentException("Invalid first side: " + firstSide);
+		}
+		this.size = size;
+		this.winCount = winCount;
+		this.firstSide = firstSide;
+		result = UNFINISHED;
+		moveCount = 0;
+		hasScores = false;
+		hasTimes = false;
+	}
+
+	public void addMove(int row, int col) {
+		addMove(row * size + col, NO_SCORE, 0);
+	}
+	// adding the move with the score of the mover (NO_SCORE if it isn't known) and the time of the move
+	public void addMove(int move, int score, long micros) {
+		if (move < 0 || move >= size * size || micros < 0) {
+			throw new IllegalArgumentException("Invalid move: move=" + move + ", micros=" + micros);
+		}
+		if (moveCount == moves.length) {
+			moves = Arrays.copyOf(moves, moveCount * 2);
+			scores = Arrays.copyOf(scores, moveCount * 2);
+			this.micros = Arrays.copyOf(this.micros, moveCount * 2);
+		}
+		moves[moveCount] = move;
+		scores[moveCount] = score;
+		this.micros[moveCount] = micros;
+		moveCount++;
+		hasScores |= score != NO_SCORE;
+		hasTimes |= micros != 0;
+	}
+	// playing moves from the first to the given count on the empty game table, stones are put by makeMove,
+	// so the journal of the table has the moves of the record
+	public void replay(GameTable gameTable, int count) {
+		if (gameTable.getSize() != size) {
+			throw new IllegalArgumentException("Invalid game table: size=" + gameTable.getSize() + ", required " + size);
+		}
+		if (count < 0 || count > moveCount) {
+			throw new IllegalArgumentException("Invalid count of moves: count=" + count + ", moves=" + moveCount);
+		}
+		gameTable.reInit();
+		for (int i = 0; i < count; i++) {
+			gameTable.makeMove(moves[i] / size, moves[i] % size, getSide(i));
+		}
+	}
+
+	// removing the last move, e.g. taken back by the player
+	public void removeLastMove() {
+		if (moveCount == 0) {
+			throw new IllegalStateException("There are no moves to remove");
+		}
+		moveCount--;
+		hasScores = false;
+		hasTimes = false;
+		for (int i = 0; i < moveCount; i++) {
+			hasScores |= scores[i] != NO_SCORE;
+			hasTimes |= micros[i] != 0;
+		}
+	}
+
+	public void replay(GameTable gameTable) {
+		replay(gameTable, moveCount);
+	}
+	// side of the move with the index
+	public CellValue getSide(int index) {
+		return index % 2 == 0 ? firstSide : (firstSide == CellValue.HUMAN ? CellValue.COMPUTER : CellValue.HUMAN);
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getWinCount() {
+		return winCount;
+	}
+
+	public CellValue getFirstSide() {
+		return firstSide;
+	}
+
+	public int getResult() {
+		return result;
+	}
+
+	public void setResult(int result) {
+		if (result < UNFINISHED || result > DRAW) {
+			throw new IllegalArgumentException("Invalid result: " + result);
+		}
+		this.result = result;
+	}
+
+	public int getMoveCount() {
+		return moveCount;
+	}
+
+	public int getMove(int index) {
+		checkIndex(index);
+		return moves[index];
+	}
+
+	public int getScore(int index) {
+		checkIndex(index);
+		return scores[index];
+	}
+
+	public long getMicros(int index) {
+		checkIndex(index);
+		return micros[index];
+	}
+	// scores and times are set by the reader after moves
+	void setScore(int index, int score) {
+		checkIndex(index);
+		scores[index] = score;
+		hasScores |= score != NO_SCORE;
+	}
+
+	void setMicros(int index, long micros) {
+		checkIndex(index);
+		this.micros[index] = micros;
+		hasTimes |= micros != 0;
+	}
+	// the record has a score of at least one move
+	public boolean hasScores() {
+		return hasScores;
+	}
+	// the record has a time of at least one move
+	public boolean hasTimes() {
+		return hasTimes;
+	}
+
+	private void checkIndex(int index) {
+		if (index < 0 || index >= moveCount) {
+			throw new IndexOutOfBoundsException("Invalid move index: index=" + index + ", moves=" + moveCount);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("GameRecord[size=").append(size).append(", winCount=").append(winCount)
+				.append(", first=").append(firstSide).append(", result=").append(result).append(", moves=");
+		for (int i = 0; i < moveCount; i++) {
+			builder.append(i == 0 ? "" : " ").append(moves[i] / size).append(':').append(moves[i] % size);
+		}
+		return builder.append(']').toString();
+	}
+}
@@ -0,0 +1,132 @@
+package ru.evgs.impl;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import ru.evgs.CellValue;
+// binary format of files of game records, they are only appended, so a file is a header and a sequence of records
+// - header: int MAGIC, int VERSION (big endian)
+// - record: varint length of the body, body:
+//   byte flags (FLAG_SCORES, FLAG_TIMES), varint size, varint win count, byte first side (1 - human, 2 - computer),
+//   byte result, varint count of moves, moves as zigzag varints of the difference with the previous move (the first
+//   one with the middle of the field), then if FLAG_SCORES a varint per move: 0 for NO_SCORE or zigzag score + 1,
+//   then if FLAG_TIMES a varint of microseconds per move
+// moves of a game are close to each other, so a move takes one byte on the standard field
+final class GameRecordFormat {
+	static final int MAGIC = 0x474D4B52;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 8;
+	static final int FLAG_SCORES = 1;
+	static final int FLAG_TIMES = 2;
+	// a varint of long takes up to 10 bytes
+	static final int MAX_VARINT_SIZE = 10;
+
+	private GameRecordFormat() {
+	}
+	// the largest size of the encoded body of the record
+	static int getMaxBodySize(GameRecord record) {
+		return 5 * MAX_VARINT_SIZE + record.getMoveCount() * 3 * MAX_VARINT_SIZE;
+	}
+	// writing the body of the record to the buffer, it must have getMaxBodySize bytes remaining
+	static void writeBody(GameRecord record, ByteBuffer buffer) {
+		int size = record.getSize();
+		buffer.put((byte) ((record.hasScores() ? FLAG_SCORES : 0) | (record.hasTimes() ? FLAG_TIMES : 0)));
+		writeVarint(buffer, size);
+		writeVarint(buffer, record.getWinCount());
+		buffer.put((byte) (record.getFirstSide() == CellValue.HUMAN ? 1 : 2));
+		buffer.put((byte) record.getResult());
+		writeVarint(buffer, record.getMoveCount());
+		int previous = getMiddle(size);
+		for (int i = 0; i < record.getMoveCount(); i++) {
+			int move = record.getMove(i);
+			writeVarint(buffer, zigzag(move - previous));
+			previous = move;
+		}
+		if (record.hasScores()) {
+			for (int i = 0; i < record.getMoveCount(); i++) {
+				int score = record.getScore(i);
+				writeVarint(buffer, score == GameRecord.NO_SCORE ? 0 : zigzag(score) + 1);
+			}
+		}
+		if (record.hasTimes()) {
+			for (int i = 0; i < record.getMoveCount(); i++) {
+				writeVarint(buffer, record.getMicros(i));
+			}
+		}
+	}
+	// reading the body from the buffer to the record, throws IllegalArgumentException if the body is corrupt
+	static void readBody(ByteBuffer buffer, GameRecord record) {
+		try {
+			int flags = buffer.get();
+			int size = (int) readVarint(buffer);
+			int winCount = (int) readVarint(buffer);
+			int firstSide = buffer.get();
+			int result = buffer.get();
+			int moveCount = (int) readVarint(buffer);
+			if ((flags & ~(FLAG_SCORES | FLAG_TIMES)) != 0 || (firstSide != 1 && firstSide != 2) || moveCount < 0) {
+				throw new IllegalArgumentException("Invalid record: flags=" + flags + ", first=" + firstSide + ", moves=" + moveCount);
+			}
+			record.reset(size, winCount, firstSide == 1 ? CellValue.HUMAN : CellValue.COMPUTER);
+			record.setResult(result);
+			int move = getMiddle(size);
+			for (int i = 0; i < moveCount; i++) {
+				move += unzigzag(readVarint(buffer));
+				record.addMove(move, GameRecord.NO_SCORE, 0);
+			}
+			if ((flags & FLAG_SCORES) != 0) {
+				for (int i = 0; i < moveCount; i++) {
+					long value = readVarint(buffer);
+					record.setScore(i, value == 0 ? GameRecord.NO_SCORE : unzigzag(value - 1));
+				}
+			}
+			if ((flags & FLAG_TIMES) != 0) {
+				for (int i = 0; i < moveCount; i++) {
+					record.setMicros(i, readVarint(buffer));
+				}
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IllegalArgumentException("Record is truncated", e);
+		}
+	}
+
+	private static int getMiddle(int size) {
+		return size / 2 * size + size / 2;
+	}
+
+	static void writeVarint(ByteBuffer buffer, long value) {
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	static int getVarintSize(long value) {
+		int size = 1;
+		while ((value >>>= 7) != 0) {
+			size++;
+		}
+		return size;
+	}
+
+	static long readVarint(ByteBuffer buffer) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Varint is too long");
+	}
+	// small differences of both signs become small unsigned numbers
+	private static long zigzag(int value) {
+		return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+	}
+
+	private static int unzigzag(long value) {
+		int bits = (int) value;
+		return (bits >>> 1) ^ -(bits & 1);
+	}
+}
@@ -0,0 +1,172 @@
+package ru.evgs.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.GameTable;
+// sequential reader of a file of game records (see GameRecordFormat): the file is read by large blocks and records
+// are decoded from the buffer, a record can be reused for every game, so a scan of millions of games allocates nothing
+// a record torn at the end of the file (e.g. by a crash of the writer) is skipped with a warning
+// usage: GameRecordReader FILE [--print] - prints every game or statistics of the file
+public class GameRecordReader implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(GameRecordReader.class);
+	static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+	// a longer record is a corrupt length
+	static final int MAX_RECORD_SIZE = 1 << 28;
+	private final Path path;
+	private final FileChannel channel;
+	private ByteBuffer buffer;
+	// position in the file of the end of the last complete record
+	private long position = GameRecordFormat.HEADER_SIZE;
+	private boolean endOfFile;
+	private long recordCount;
+
+	private GameRecordReader(Path path, FileChannel channel) throws IOException {
+		this.path = path;
+		this.channel = channel;
+		buffer = ByteBuffer.allocateDirect(DEFAULT_BUFFER_SIZE);
+		buffer.limit(0);
+		if (!fill(GameRecordFormat.HEADER_SIZE) || buffer.getInt() != GameRecordFormat.MAGIC || buffer.getInt() != GameRecordFormat.VERSION) {
+			throw new IOException("File " + path + " is not a file of game records of version " + GameRecordFormat.VERSION);
+		}
+	}
+
+	public static GameRecordReader open(Path path) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new GameRecordReader(path, channel);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	// reading the next game to the record, returns false at the end of the file
+	public boolean next(GameRecord record) throws IOException {
+		if (!fill(1)) {
+			return false;
+		}
+		long length = -1;
+		// the length takes up to 5 bytes, the buffer may end in the middle of it
+		for (int i = 1; i <= 5 && length < 0 && fill(i); i++) {
+			int start = buffer.position();
+			length = readLength(i);
+			if (length < 0) {
+				buffer.position(start);
+			}
+		}
+		if (length > MAX_RECORD_SIZE) {
+			throw new IOException("Game record at " + position + " of " + path + " is corrupt: length=" + length);
+		}
+		if (length < 0 || !fill((int) length)) {
+			LOGGER.warn("Game record at {} of {} is truncated, it's skipped", position, path);
+			endOfFile = true;
+			buffer.limit(buffer.position());
+			return false;
+		}
+		int lengthSize = GameRecordFormat.getVarintSize(length);
+		ByteBuffer body = buffer.duplicate();
+		body.limit(buffer.position() + (int) length);
+		try {
+			GameRecordFormat.readBody(body, record);
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Game record at " + position + " of " + path + " is corrupt: " + e.getMessage(), e);
+		}
+		buffer.position(buffer.position() + (int) length);
+		position += lengthSize + length;
+		recordCount++;
+		return true;
+	}
+	// reading the next game to a new record, returns null at the end of the file
+	public GameRecord next() throws IOException {
+		GameRecord record = new GameRecord();
+		return next(record) ? record : null;
+	}
+	// the varint of the length, -1 if it has more bytes than available
+	private long readLength(int available) {
+		long value = 0;
+		for (int i = 0; i < available; i++) {
+			byte b = buffer.get();
+			value |= (long) (b & 0x7F) << (7 * i);
+			if (b >= 0) {
+				return value;
+			}
+		}
+		return -1;
+	}
+
+	// making the count of bytes available in the buffer from its position, false if the file ends before them;
+	// the buffer grows for a record larger than it
+	private boolean fill(int count) throws IOException {
+		if (buffer.remaining() >= count) {
+			return true;
+		}
+		if (count > buffer.capacity()) {
+			ByteBuffer larger = ByteBuffer.allocateDirect(Integer.highestOneBit(count) * 2);
+			larger.put(buffer);
+			larger.flip();
+			buffer = larger;
+		}
+		buffer.compact();
+		while (!endOfFile && buffer.position() < count) {
+			if (channel.read(buffer) < 0) {
+				endOfFile = true;
+			}
+		}
+		buffer.flip();
+		return buffer.remaining() >= count;
+	}
+	// position in the file after the last record read, the end of complete records if the reader is at the end
+	public long getPosition() {
+		return position;
+	}
+
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0 || (args.length > 1 && !"--print".equals(args[1]))) {
+			System.err.println("Usage: GameRecordReader FILE [--print]");
+			System.exit(1);
+		}
+		boolean print = args.length > 1;
+		long startTime = System.nanoTime();
+		long moves = 0;
+		long[] results = new long[GameRecord.DRAW + 1];
+		GameRecord record = new GameRecord();
+		GameTable gameTable = null;
+		try (GameRecordReader reader = open(Paths.get(args[0]))) {
+			while (reader.next(record)) {
+				moves += record.getMoveCount();
+				results[record.getResult()]++;
+				if (print) {
+					System.out.println(record);
+				} else {
+					// the replay checks that moves are legal
+					if (gameTable == null || gameTable.getSize() != record.getSize()) {
+						gameTable = new DefaultGameTable(record.getSize());
+					}
+					record.replay(gameTable);
+				}
+			}
+			long millis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), 1);
+			System.out.printf("games: %d, moves: %d, human wins: %d, computer wins: %d, draws: %d, unfinished: %d%n", reader.getRecordCount(),
+					moves, results[GameRecord.HUMAN_WINS], results[GameRecord.COMPUTER_WINS], results[GameRecord.DRAW], results[GameRecord.UNFINISHED]);
+			System.out.printf("bytes: %d, bytes/game: %.1f, time: %d ms, games/s: %d%n", reader.getPosition(),
+					reader.getPosition() / (double) Math.max(reader.getRecordCount(), 1), millis, reader.getRecordCount() * 1000 / millis);
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package ru.evgs.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+// append-only writer of game records (see GameRecordFormat): a record is encoded by the caller, so it can be reused
+// right away, and is passed to the writer thread by a bounded queue; the thread appends queued records by batches,
+// so the game loop never waits for the disk; if the queue is full the record is dropped and counted
+// a record torn at the end of the file by a crash is cut off when the file is opened again
+public class GameRecordWriter implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(GameRecordWriter.class);
+	public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+	private static final int BATCH_SIZE = 64 * 1024;
+	// the end of the queue
+	private static final byte[] CLOSE = new byte[0];
+	private static final long CLOSE_WAIT_MILLIS = 100;
+	private final Path path;
+	private final FileChannel channel;
+	private final BlockingQueue<byte[]> queue;
+	private final Thread writerThread;
+	private final AtomicLong writtenRecords = new AtomicLong();
+	private final AtomicLong droppedRecords = new AtomicLong();
+	private volatile boolean closed;
+	// buffer of the caller to encode bodies
+	private final ThreadLocal<ByteBuffer> bodyBuffers = new ThreadLocal<ByteBuffer>() {
+		@Override
+		protected ByteBuffer initialValue() {
+			return ByteBuffer.allocate(1024);
+		}
+	};
+
+	private GameRecordWriter(Path path, FileChannel channel, int queueCapacity) {
+		this.path = path;
+		this.channel = channel;
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		writerThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeQueue();
+			}
+		}, "game-record-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+	// opening the file to append records or creating it
+	public static GameRecordWriter open(Path path) throws IOException {
+		return open(path, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	public static GameRecordWriter open(Path path, int queueCapacity) throws IOException {
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			if (channel.size() == 0) {
+				ByteBuffer header = ByteBuffer.allocate(GameRecordFormat.HEADER_SIZE);
+				header.putInt(GameRecordFormat.MAGIC).putInt(GameRecordFormat.VERSION).flip();
+				writeFully(channel, header);
+			} else {
+				cutTornRecord(path, channel);
+			}
+			channel.position(channel.size());
+			return new GameRecordWriter(path, channel, queueCapacity);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	// scanning complete records, the rest of the file is a record torn by a crash
+	private static void cutTornRecord(Path path, FileChannel channel) throws IOException {
+		try (GameRecordReader reader = GameRecordReader.open(path)) {
+			GameRecord record = new GameRecord();
+			while (reader.next(record)) {
+				// skipping complete records
+			}
+			if (reader.getPosition() < channel.size()) {
+				LOGGER.warn("Torn game record is cut off from {}: {} bytes", path, channel.size() - reader.getPosition());
+				channel.truncate(reader.getPosition());
+			}
+		}
+	}
+	// queueing the record, returns false if it's dropped because the queue is full or the writer is closed;
+	// records queued by other threads while the writer is closed may be lost
+	public boolean write(GameRecord record) {
+		if (closed) {
+			droppedRecords.incrementAndGet();
+			return false;
+		}
+		ByteBuffer body = bodyBuffers.get();
+		int maxSize = GameRecordFormat.getMaxBodySize(record);
+		if (body.capacity() < maxSize) {
+			body = ByteBuffer.allocate(Integer.highestOneBit(maxSize) * 2);
+			bodyBuffers.set(body);
+		}
+		body.clear();
+		GameRecordFormat.writeBody(record, body);
+		body.flip();
+		byte[] bytes = new byte[GameRecordFormat.getVarintSize(body.remaining()) + body.remaining()];
+		ByteBuffer encoded = ByteBuffer.wrap(bytes);
+		GameRecordFormat.writeVarint(encoded, body.remaining());
+		encoded.put(body);
+		if (!queue.offer(bytes)) {
+			if (droppedRecords.incrementAndGet() == 1) {
+				LOGGER.warn("Game record is dropped: the queue of {} is full", path);
+			}
+			return false;
+		}
+		return true;
+	}
+	// the writer thread: a batch is written when the queue is empty or the batch is full, records are counted
+	// as written when they are on the disk
+	private void writeQueue() {
+		ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_SIZE);
+		int batchRecords = 0;
+		// the record taken from the queue, but not put to the batch yet
+		byte[] bytes = null;
+		try {
+			while (true) {
+				bytes = queue.take();
+				while (bytes != null && bytes != CLOSE) {
+					if (batch.remaining() < bytes.length) {
+						writeBatch(batch, batchRecords);
+						batchRecords = 0;
+					}
+					if (bytes.length > batch.capacity()) {
+						writeFully(channel, ByteBuffer.wrap(bytes));
+						writtenRecords.incrementAndGet();
+					} else {
+						batch.put(bytes);
+						batchRecords++;
+					}
+					bytes = queue.poll();
+				}
+				writeBatch(batch, batchRecords);
+				batchRecords = 0;
+				if (bytes == CLOSE) {
+					return;
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException | RuntimeException e) {
+			// later records are dropped by write, and close doesn't wait for the thread
+			LOGGER.error("Error of write of game records to " + path + ": " + e.getMessage(), e);
+			closed = true;
+			// the unwritten batch, the failed record and the queued ones aren't written
+			droppedRecords.addAndGet(batchRecords);
+			if (bytes != null && bytes != CLOSE) {
+				droppedRecords.incrementAndGet();
+			}
+			while ((bytes = queue.poll()) != null) {
+				if (bytes != CLOSE) {
+					droppedRecords.incrementAndGet();
+				}
+			}
+		}
+	}
+
+	private void writeBatch(ByteBuffer batch, int batchRecords) throws IOException {
+		batch.flip();
+		writeFully(channel, batch);
+		batch.clear();
+		writtenRecords.addAndGet(batchRecords);
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+	// writing all queued records and closing the file; the end of the queue is offered while the writer thread
+	// is alive, so close doesn't block on the full queue of the failed thread
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			channel.close();
+			return;
+		}
+		closed = true;
+		try {
+			while (writerThread.isAlive() && !queue.offer(CLOSE, CLOSE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+				LOGGER.debug("Writer of {} is busy, the end of the queue is offered again", path);
+			}
+			writerThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			channel.force(false);
+			channel.close();
+		}
+		LOGGER.debug("Game records are written to {}: written {}, dropped {}", path, writtenRecords.get(), droppedRecords.get());
+	}
+
+	public long getWrittenRecords() {
+		return writtenRecords.get();
+	}
+	// records not written because the queue was full or the writer thread has failed
+	public long getDroppedRecords() {
+		return droppedRecords.get();
+	}
+}
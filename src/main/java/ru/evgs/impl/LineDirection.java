@@ -0,0 +1,39 @@
+package ru.evgs.impl;
+
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+// directions of lines on the game field, in the order they are scanned: by row, by col, by main and not main diagonal
+enum LineDirection {
+
+	ROW(0, 1),
+
+	COL(1, 0),
+
+	MAIN_DIAGONAL(1, 1),
+
+	NOT_MAIN_DIAGONAL(1, -1);
+	// cached copy of values() to avoid array allocation in hot loops
+	static final LineDirection[] ALL = values();
+
+	final int rowStep;
+	final int colStep;
+
+	private LineDirection(int rowStep, int colStep) {
+		this.rowStep = rowStep;
+		this.colStep = colStep;
+	}
+	// counting stones of cellValue next to (row, col) going forward (sign = 1) or backward (sign = -1),
+	// but not more than limit
+	int countStones(GameTable gameTable, int row, int col, CellValue cellValue, int sign, int limit) {
+		int size = gameTable.getSize();
+		int count = 0;
+		int r = row + sign * rowStep;
+		int c = col + sign * colStep;
+		while (count < limit && r >= 0 && r < size && c >= 0 && c < size && gameTable.getValue(r, c) == cellValue) {
+			count++;
+			r += sign * rowStep;
+			c += sign * colStep;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,758 @@
+package ru.evgs.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.ComputerTurn;
+import ru.evgs.GameTable;
+// computer turn by Monte Carlo tree search: UCT selection, expansion of candidate moves and random playouts
+// the tree is kept in primitive arrays of the capacity given by the memory cap, children of a node are a contiguous
+// block of nodes, so a node is only its move, the first child, the count of children, the stats and the state
+// several threads search the same tree: the visit of a node is counted on the way down (virtual loss), so other
+// threads choose other paths, and the result is added on the way back; visits and score are one long, so they are
+// updated by one atomic add
+// the subtree of the human's reply to the last turn is reused: it's moved to the beginning of the arrays,
+// all other nodes are recycled; when the arrays are full the tree stops growing and playouts start from its leaves
+// playouts are allocation-free: a win is checked only through the last move, and the playout policy completes
+// its own four or blocks the four of the opponent, otherwise it plays a random candidate move
+// helper threads are released by close, the turn can't be used after it
+public class MctsComputerTurn implements ComputerTurn, Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(MctsComputerTurn.class);
+	// default budget of one turn
+	public static final long DEFAULT_TIME_LIMIT_MILLIS = 1000;
+	// default memory of the tree
+	public static final long DEFAULT_TREE_MEMORY_BYTES = 64L * 1024 * 1024;
+	// memory of one node: move, first child, count of children, state, forwarding of the compaction and the stats
+	static final int BYTES_PER_NODE = 4 * 5 + 8;
+	private static final int MIN_CAPACITY = 1024;
+	// candidates are closer to stones than by the alpha-beta search, a wider radius only dilutes visits
+	public static final int DEFAULT_CANDIDATE_RADIUS = 1;
+	// a longer playout is a draw, it keeps playouts short on large fields
+	public static final int DEFAULT_MAX_PLAYOUT_MOVES = 256;
+	// exploration constant of UCT for scores 0..1
+	private static final double EXPLORATION = 0.4;
+	// a node is expanded on its second visit, so leaves visited once don't take memory
+	private static final int EXPANSION_VISITS = 2;
+	// the reused subtree is dropped if it leaves less free nodes than this part of the capacity
+	private static final int MIN_FREE_CAPACITY_PART = 4;
+	// playouts reported to the budget at once
+	private static final int BUDGET_CHUNK = 16;
+	// states of nodes
+	private static final int UNEXPANDED = 0;
+	private static final int EXPANDING = 1;
+	private static final int EXPANDED = 2;
+	// the move of the node wins
+	private static final int TERMINAL = 3;
+	// sides of the board of workers
+	private static final byte EMPTY = 0;
+	private static final byte COMPUTER = 1;
+	private static final byte HUMAN = 2;
+	private static final CellValue[] CELL_VALUES = { CellValue.EMPTY, CellValue.COMPUTER, CellValue.HUMAN };
+	private final long timeLimitMillis;
+	private final long playoutLimit;
+	private final int capacity;
+	private GameTable gameTable;
+	private int winCount = DefaultConstants.WIN_COUNT;
+	private int candidateRadius = DEFAULT_CANDIDATE_RADIUS;
+	private int maxPlayoutMoves = DEFAULT_MAX_PLAYOUT_MOVES;
+	private int threadCount = 1;
+	private ExecutorService helperExecutor;
+	// the pool of helper threads is created by this turn, so it's shut down by close and by a new count of threads
+	private boolean ownHelperExecutor;
+	private long seed = System.nanoTime();
+	// the tree, arrays are allocated by the first turn
+	private int[] moves;
+	private int[] firstChildren;
+	private int[] childCounts;
+	private int[] forwards;
+	private AtomicLongArray stats;
+	private AtomicIntegerArray states;
+	private final AtomicInteger nodeCount = new AtomicInteger();
+	// the tree has no room for children, nodes aren't expanded until the next turn
+	private volatile boolean treeFull;
+	// the root of the next search, the node of the last turn after it's made, -1 if there is no tree to reuse
+	private int root = -1;
+	// position of the root, stones are the values of sides
+	private byte[] rootBoard;
+	private Worker[] workers;
+	private long lastPlayouts;
+	private int lastReusedNodes;
+
+	public MctsComputerTurn() {
+		this(DEFAULT_TIME_LIMIT_MILLIS, Long.MAX_VALUE, DEFAULT_TREE_MEMORY_BYTES);
+	}
+
+	public MctsComputerTurn(long timeLimitMillis, long playoutLimit, long memoryBytes) {
+		if (timeLimitMillis <= 0 || playoutLimit <= 0) {
+			throw new IllegalArgumentException("Budget of turn must be positive: timeLimitMillis=" + timeLimitMillis + ", playoutLimit=" + playoutLimit);
+		}
+		if (memoryBytes / BYTES_PER_NODE < MIN_CAPACITY) {
+			throw new IllegalArgumentException("Memory of tree is small: memoryBytes=" + memoryBytes + ". Required >= " + MIN_CAPACITY * BYTES_PER_NODE);
+		}
+		this.timeLimitMillis = timeLimitMillis;
+		this.playoutLimit = playoutLimit;
+		this.capacity = (int) Math.min(memoryBytes / BYTES_PER_NODE, Integer.MAX_VALUE - 8);
+	}
+	// setting count of stones in a line for the win
+	public void setWinCount(int winCount) {
+		if (winCount <= 1) {
+			throw new IllegalArgumentException("Win count must be greater than 1: winCount=" + winCount);
+		}
+		this.winCount = winCount;
+		root = -1;
+	}
+
+	public int getWinCount() {
+		return winCount;
+	}
+	// setting the max distance from stones of the cells which are children of nodes and moves of playouts
+	public void setCandidateRadius(int candidateRadius) {
+		if (candidateRadius <= 0) {
+			throw new IllegalArgumentException("Radius of candidate moves must be positive: " + candidateRadius);
+		}
+		this.candidateRadius = candidateRadius;
+		workers = null;
+		root = -1;
+	}
+	// setting the length of playouts after which they are draws
+	public void setMaxPlayoutMoves(int maxPlayoutMoves) {
+		if (maxPlayoutMoves <= 0) {
+			throw new IllegalArgumentException("Max playout moves must be positive: " + maxPlayoutMoves);
+		}
+		this.maxPlayoutMoves = maxPlayoutMoves;
+	}
+	// setting count of search threads, 1 searches only in the calling thread and gives reproducible results
+	// with the playout budget; helper threads are started by the first turn
+	public void setThreadCount(int threadCount) {
+		if (threadCount <= 0) {
+			throw new IllegalArgumentException("Count of threads must be positive: " + threadCount);
+		}
+		shutdownHelperExecutor();
+		this.threadCount = threadCount;
+		workers = null;
+	}
+
+	// replacing helper threads by a pool shared by computer turns, e.g. of sessions of a server, or null for own threads
+	public void setHelperExecutor(ExecutorService helperExecutor) {
+		shutdownHelperExecutor();
+		this.helperExecutor = helperExecutor;
+	}
+
+	public int getThreadCount() {
+		return threadCount;
+	}
+	// seed of random playouts, given by tests to repeat turns
+	void setSeed(long seed) {
+		this.seed = seed;
+		workers = null;
+	}
+	// count of playouts made by all threads on the last turn
+	public long getLastPlayouts() {
+		return lastPlayouts;
+	}
+	// count of nodes of the tree reused by the last turn
+	public int getLastReusedNodes() {
+		return lastReusedNodes;
+	}
+	// count of nodes of the tree, it's never greater than the capacity
+	public int getNodeCount() {
+		return nodeCount.get();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+	// remember the playing field
+	@Override
+	public void setGameTable(GameTable gameTable) {
+		// checking that game field not null
+		Objects.requireNonNull(gameTable, "Game table can't be null");
+		// checking that game field size not smaller than winner count
+		if (gameTable.getSize() < winCount) {
+			throw new IllegalArgumentException("Size of gameTable is small: size=" + gameTable.getSize() + ". Required >= " + winCount);
+		}
+		this.gameTable = gameTable;
+		workers = null;
+		root = -1;
+	}
+	// making turn, it's measured while EngineMetrics is enabled
+	@Override
+	public Cell makeTurn() {
+		if (!EngineMetrics.isMetricsEnabled()) {
+			return searchTurn();
+		}
+		long startTime = System.nanoTime();
+		Object event = EngineEvents.beginTurn();
+		Cell cell = searchTurn();
+		long time = System.nanoTime() - startTime;
+		EngineMetrics metrics = EngineMetrics.getInstance();
+		metrics.recordTurn(time, 0, 0);
+		metrics.recordPlayouts(time, lastPlayouts);
+		EngineEvents.commitTurn(event, "mcts", cell.getRowIndex() * gameTable.getSize() + cell.getColIndex(), lastPlayouts, 0);
+		return cell;
+	}
+	// searching until the budget is over, the most visited move of the root is made
+	private Cell searchTurn() {
+		if (!gameTable.emptyCellExists()) {
+			throw new ComputerCantMakeTurnException("All cells are filled! Have you checked draw state before call of computer turn?");
+		}
+		long startTime = System.nanoTime();
+		SearchBudget budget = new SearchBudget(playoutLimit, SearchBudget.getDeadline(startTime, timeLimitMillis));
+		createTree();
+		setRoot(readBoard());
+		for (Worker worker : workers) {
+			worker.setPosition(rootBoard);
+		}
+		lastPlayouts = 0;
+		if (states.get(root) != EXPANDED) {
+			expand(workers[0], root, COMPUTER);
+		}
+		// a win or the only defence is made without the search
+		if (childCounts[root] > 1) {
+			List<Future<?>> helpers = startHelpers(budget);
+			search(workers[0], budget);
+			// helpers are needed only while the main thread is searching
+			budget.stop();
+			waitHelpers(helpers);
+			for (Worker worker : workers) {
+				lastPlayouts += worker.playouts;
+			}
+		}
+		int best = getBestChild(root);
+		int move = moves[best];
+		int size = gameTable.getSize();
+		Cell cell = new Cell(move / size, move % size);
+		gameTable.makeMove(cell.getRowIndex(), cell.getColIndex(), CellValue.COMPUTER);
+		// the node of the turn is the root of the next turn
+		root = best;
+		rootBoard[move] = COMPUTER;
+		long time = System.nanoTime() - startTime;
+		long bestStats = stats.get(best);
+		LOGGER.info("Computer turn is {}: visits {}, score {}, playouts {}, nodes {}, reused {}, threads {}, time {} ms, {} playouts/s", cell,
+				getVisits(bestStats), getScore(bestStats), lastPlayouts, nodeCount.get(), lastReusedNodes, threadCount,
+				TimeUnit.NANOSECONDS.toMillis(time), lastPlayouts * TimeUnit.SECONDS.toNanos(1) / Math.max(time, 1));
+		return cell;
+	}
+
+	private void createTree() {
+		if (moves == null) {
+			moves = new int[capacity];
+			firstChildren = new int[capacity];
+			childCounts = new int[capacity];
+			forwards = new int[capacity];
+			stats = new AtomicLongArray(capacity);
+			states = new AtomicIntegerArray(capacity);
+		}
+		if (workers == null) {
+			workers = new Worker[threadCount];
+			for (int i = 0; i < threadCount; i++) {
+				workers[i] = new Worker(gameTable.getSize(), seed + i);
+			}
+			root = -1;
+		}
+	}
+
+	private byte[] readBoard() {
+		int size = gameTable.getSize();
+		byte[] board = new byte[size * size];
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				CellValue value = gameTable.getValue(i, j);
+				board[i * size + j] = value == CellValue.COMPUTER ? COMPUTER : value == CellValue.HUMAN ? HUMAN : EMPTY;
+			}
+		}
+		return board;
+	}
+	// the subtree of the human's reply becomes the root if the position is the position of the last turn
+	// plus the reply, otherwise the tree is built again
+	private void setRoot(byte[] board) {
+		int reply = -1;
+		if (root >= 0 && rootBoard != null && rootBoard.length == board.length) {
+			for (int i = 0; i < board.length; i++) {
+				if (board[i] != rootBoard[i]) {
+					if (reply >= 0 || rootBoard[i] != EMPTY || board[i] != HUMAN) {
+						reply = -1;
+						break;
+					}
+					reply = i;
+				}
+			}
+		}
+		int newRoot = reply >= 0 ? findChild(root, reply) : -1;
+		rootBoard = board;
+		lastReusedNodes = 0;
+		treeFull = false;
+		if (newRoot >= 0) {
+			compact(newRoot);
+			if (nodeCount.get() <= capacity - capacity / MIN_FREE_CAPACITY_PART) {
+				lastReusedNodes = nodeCount.get();
+				root = 0;
+				LOGGER.debug("Tree is reused: {} nodes, {} visits of the root", lastReusedNodes, getVisits(stats.get(0)));
+				return;
+			}
+		}
+		root = 0;
+		nodeCount.set(1);
+		initNode(0, -1, UNEXPANDED);
+	}
+
+	private int findChild(int node, int move) {
+		if (states.get(node) != EXPANDED) {
+			return -1;
+		}
+		for (int child = firstChildren[node]; child < firstChildren[node] + childCounts[node]; child++) {
+			if (moves[child] == move) {
+				return child;
+			}
+		}
+		return -1;
+	}
+	// moving the subtree of the node to the beginning of the arrays, nodes out of it are recycled
+	// children are always allocated after their parent, so one pass in the order of indexes finds the subtree
+	// and gives new indexes, which are not greater than old ones, and the second pass moves nodes in place
+	private void compact(int newRoot) {
+		int count = nodeCount.get();
+		for (int i = newRoot; i < count; i++) {
+			forwards[i] = -1;
+		}
+		forwards[newRoot] = 0;
+		int next = 0;
+		for (int i = newRoot; i < count; i++) {
+			if (forwards[i] < 0) {
+				continue;
+			}
+			forwards[i] = next++;
+			if (states.get(i) == EXPANDED) {
+				for (int child = firstChildren[i]; child < firstChildren[i] + childCounts[i]; child++) {
+					// marking the child, its index is given when the pass reaches it
+					forwards[child] = 0;
+				}
+			}
+		}
+		for (int i = newRoot; i < count; i++) {
+			if (forwards[i] < 0) {
+				continue;
+			}
+			int j = forwards[i];
+			moves[j] = moves[i];
+			stats.set(j, stats.get(i));
+			states.set(j, states.get(i));
+			childCounts[j] = childCounts[i];
+			firstChildren[j] = states.get(i) == EXPANDED && childCounts[i] > 0 ? forwards[firstChildren[i]] : -1;
+		}
+		nodeCount.set(next);
+	}
+
+	private void initNode(int node, int move, int state) {
+		moves[node] = move;
+		firstChildren[node] = -1;
+		childCounts[node] = 0;
+		stats.set(node, 0);
+		states.set(node, state);
+	}
+	// allocating a block of nodes, returns -1 if the tree is full
+	private int allocate(int count) {
+		while (true) {
+			int first = nodeCount.get();
+			if (first > capacity - count) {
+				return -1;
+			}
+			if (nodeCount.compareAndSet(first, first + count)) {
+				return first;
+			}
+		}
+	}
+	// adding candidate moves of the side as children of the node, the position of the node is on the board of
+	// the worker; if the side wins by a move or has to block the win of the opponent, the move is the only child
+	// returns false if the tree is full
+	private boolean expand(Worker worker, int node, byte side) {
+		int[] candidates = worker.buffer;
+		int count = worker.getCandidates(candidates);
+		int forced = -1;
+		boolean winning = false;
+		for (int i = 0; i < count && forced < 0; i++) {
+			if (worker.isWinningMove(candidates[i], side)) {
+				forced = candidates[i];
+				winning = true;
+			}
+		}
+		for (int i = 0; i < count && forced < 0; i++) {
+			if (worker.isWinningMove(candidates[i], opponent(side))) {
+				forced = candidates[i];
+			}
+		}
+		if (forced >= 0) {
+			candidates[0] = forced;
+			count = 1;
+		}
+		int first = allocate(count);
+		if (first < 0) {
+			if (!treeFull) {
+				treeFull = true;
+				LOGGER.debug("Tree is full: {} nodes", nodeCount.get());
+			}
+			states.set(node, UNEXPANDED);
+			return false;
+		}
+		for (int i = 0; i < count; i++) {
+			initNode(first + i, candidates[i], winning ? TERMINAL : UNEXPANDED);
+		}
+		firstChildren[node] = first;
+		childCounts[node] = count;
+		// the volatile write publishes children to other threads
+		states.set(node, EXPANDED);
+		return true;
+	}
+
+	private static byte opponent(byte side) {
+		return side == COMPUTER ? HUMAN : COMPUTER;
+	}
+	// playouts until the budget is over
+	private void search(Worker worker, SearchBudget budget) {
+		worker.playouts = 0;
+		int chunk = budget.getChunkSize(BUDGET_CHUNK);
+		while (!budget.isStopped()) {
+			playout(worker);
+			if (++worker.playouts % chunk == 0 && !budget.addNodes(chunk)) {
+				break;
+			}
+		}
+	}
+	// one iteration: selection down to a leaf, expansion, the random playout and the update of visited nodes
+	private void playout(Worker worker) {
+		int node = root;
+		byte side = COMPUTER;
+		int pathLength = 0;
+		worker.path[pathLength++] = node;
+		stats.addAndGet(node, 1L << 32);
+		byte winner;
+		while (true) {
+			int state = states.get(node);
+			if (state == TERMINAL) {
+				// the side which has made the move of the node wins
+				winner = opponent(side);
+				break;
+			}
+			if (state == UNEXPANDED && !treeFull && getVisits(stats.get(node)) >= EXPANSION_VISITS && states.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+				expand(worker, node, side);
+				state = states.get(node);
+			}
+			if (state != EXPANDED) {
+				winner = worker.playRandomly(side, maxPlayoutMoves);
+				break;
+			}
+			if (childCounts[node] == 0) {
+				winner = EMPTY;
+				break;
+			}
+			node = selectChild(node);
+			stats.addAndGet(node, 1L << 32);
+			worker.path[pathLength++] = node;
+			worker.play(moves[node], side);
+			side = opponent(side);
+		}
+		worker.undoAll();
+		// the score of a node is the score of the side which has made its move, the human makes the move of the root
+		byte mover = HUMAN;
+		for (int i = 0; i < pathLength; i++) {
+			if (winner == mover) {
+				stats.addAndGet(worker.path[i], 2);
+			} else if (winner == EMPTY) {
+				stats.addAndGet(worker.path[i], 1);
+			}
+			mover = opponent(mover);
+		}
+	}
+	// UCT: the child with the max sum of the score and the exploration bonus, an unvisited child is chosen first
+	private int selectChild(int node) {
+		int first = firstChildren[node];
+		int count = childCounts[node];
+		double logVisits = Math.log(Math.max(getVisits(stats.get(node)), 1));
+		int best = first;
+		double bestValue = Double.NEGATIVE_INFINITY;
+		for (int child = first; child < first + count; child++) {
+			long childStats = stats.get(child);
+			int visits = getVisits(childStats);
+			if (visits == 0) {
+				return child;
+			}
+			double value = getScore(childStats) + EXPLORATION * Math.sqrt(logVisits / visits);
+			if (value > bestValue) {
+				bestValue = value;
+				best = child;
+			}
+		}
+		return best;
+	}
+	// the most visited child, the score breaks ties
+	private int getBestChild(int node) {
+		int best = firstChildren[node];
+		for (int child = best + 1; child < firstChildren[node] + childCounts[node]; child++) {
+			long childStats = stats.get(child);
+			long bestStats = stats.get(best);
+			if (getVisits(childStats) > getVisits(bestStats) || (getVisits(childStats) == getVisits(bestStats)
+					&& getScore(childStats) > getScore(bestStats))) {
+				best = child;
+			}
+		}
+		return best;
+	}
+	// visits are the high half of the stats, the low half is the sum of results: 2 for a win, 1 for a draw
+	private static int getVisits(long nodeStats) {
+		return (int) (nodeStats >>> 32);
+	}
+
+	private static double getScore(long nodeStats) {
+		int visits = getVisits(nodeStats);
+		return visits == 0 ? 0 : (nodeStats & 0xFFFFFFFFL) / (2.0 * visits);
+	}
+
+	private List<Future<?>> startHelpers(final SearchBudget budget) {
+		if (helperExecutor == null && threadCount > 1) {
+			helperExecutor = Executors.newFixedThreadPool(threadCount - 1, new HelperThreadFactory());
+			ownHelperExecutor = true;
+		}
+		List<Future<?>> helpers = new ArrayList<>(threadCount - 1);
+		for (int i = 1; i < threadCount; i++) {
+			final Worker helper = workers[i];
+			helpers.add(helperExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+					search(helper, budget);
+				}
+			}));
+		}
+		return helpers;
+	}
+
+	private void waitHelpers(List<Future<?>> helpers) {
+		for (Future<?> helper : helpers) {
+			try {
+				helper.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (ExecutionException e) {
+				LOGGER.error("Error in the search helper: " + e.getCause().getMessage(), e.getCause());
+			}
+		}
+	}
+
+	@Override
+	public Cell makeFirstTurn() {
+		// just making a turn in the middle of the field
+		Cell cell = new Cell(gameTable.getSize() / 2, gameTable.getSize() / 2);
+		gameTable.makeMove(cell.getRowIndex(), cell.getColIndex(), CellValue.COMPUTER);
+		root = -1;
+		LOGGER.info("Computer first turn is {}", cell);
+		return cell;
+	}
+	// the board of one search thread: the position of the root plus moves of the current playout,
+	// which are undone after it
+	private class Worker {
+		private final int size;
+		private final byte[] board;
+		private final CandidateMoves candidates;
+		// nodes of the current path from the root
+		private final int[] path;
+		// moves of the current path and playout
+		private final int[] played;
+		private int playedCount;
+		private final int[] buffer;
+		// a cell which completes the line of the side (by its value), -1 if it isn't known
+		private final int[] winningCells = new int[3];
+		private long random;
+		private long playouts;
+
+		Worker(int size, long seed) {
+			this.size = size;
+			board = new byte[size * size];
+			candidates = new CandidateMoves(size, candidateRadius);
+			path = new int[size * size + 1];
+			played = new int[size * size];
+			buffer = new int[size * size];
+			// xorshift needs a state which isn't 0
+			random = seed * 0x9E3779B97F4A7C15L | 1;
+		}
+
+		void setPosition(byte[] position) {
+			candidates.reset();
+			for (int i = 0; i < position.length; i++) {
+				board[i] = position[i];
+				if (position[i] != EMPTY) {
+					candidates.makeMove(i / size, i % size, CELL_VALUES[position[i]]);
+				}
+			}
+			playedCount = 0;
+		}
+		// candidates of the position, the middle of the field if it's empty
+		int getCandidates(int[] cells) {
+			return candidates.getCandidates(cells);
+		}
+
+		void play(int cell, byte side) {
+			board[cell] = side;
+			candidates.makeMove(cell / size, cell % size, CELL_VALUES[side]);
+			played[playedCount++] = cell;
+		}
+
+		void undoAll() {
+			while (playedCount > 0) {
+				int cell = played[--playedCount];
+				candidates.undoMove(cell / size, cell % size, CELL_VALUES[board[cell]]);
+				board[cell] = EMPTY;
+			}
+		}
+		// playing random moves from the position, returns the side which wins or EMPTY for a draw
+		byte playRandomly(byte side, int maxMoves) {
+			winningCells[COMPUTER] = -1;
+			winningCells[HUMAN] = -1;
+			// threats of the last two moves of the path
+			for (int i = Math.max(0, playedCount - 2); i < playedCount; i++) {
+				int cell = played[i];
+				winningCells[board[cell]] = findWinningCell(cell, board[cell]);
+			}
+			for (int moveCount = 0; moveCount < maxMoves; moveCount++) {
+				int own = winningCells[side];
+				if (own >= 0 && board[own] == EMPTY) {
+					return side;
+				}
+				int cell = winningCells[opponent(side)];
+				if (cell < 0 || board[cell] != EMPTY) {
+					if (candidates.size() == 0) {
+						return EMPTY;
+					}
+					cell = playedCount > 0 ? getNearCell(played[playedCount - 1]) : -1;
+					if (cell < 0) {
+						cell = candidates.getCandidate(nextInt(candidates.size()));
+					}
+				}
+				play(cell, side);
+				// the win is checked only through the last move
+				if (isWinningMove(cell, side)) {
+					return side;
+				}
+				int winningCell = findWinningCell(cell, side);
+				if (winningCell >= 0) {
+					winningCells[side] = winningCell;
+				}
+				side = opponent(side);
+			}
+			return EMPTY;
+		}
+		// the stone of the side on the cell makes the line of winCount, the cell itself isn't read
+		boolean isWinningMove(int cell, byte side) {
+			int row = cell / size;
+			int col = cell % size;
+			for (LineDirection direction : LineDirection.ALL) {
+				if (countStones(row, col, direction, side, 1) + countStones(row, col, direction, side, -1) >= winCount - 1) {
+					return true;
+				}
+			}
+			return false;
+		}
+		private int countStones(int row, int col, LineDirection direction, byte side, int sign) {
+			int count = 0;
+			int r = row + sign * direction.rowStep;
+			int c = col + sign * direction.colStep;
+			while (count < winCount && r >= 0 && r < size && c >= 0 && c < size && board[r * size + c] == side) {
+				count++;
+				r += sign * direction.rowStep;
+				c += sign * direction.colStep;
+			}
+			return count;
+		}
+		// the empty cell of a pattern through the cell which has winCount - 1 stones of the side, -1 if there is none
+		private int findWinningCell(int cell, byte side) {
+			int row = cell / size;
+			int col = cell % size;
+			for (LineDirection direction : LineDirection.ALL) {
+				for (int start = -(winCount - 1); start <= 0; start++) {
+					int r = row + start * direction.rowStep;
+					int c = col + start * direction.colStep;
+					int endRow = r + (winCount - 1) * direction.rowStep;
+					int endCol = c + (winCount - 1) * direction.colStep;
+					if (r < 0 || r >= size || c < 0 || c >= size || endRow < 0 || endRow >= size || endCol < 0 || endCol >= size) {
+						continue;
+					}
+					int empty = -1;
+					int k = 0;
+					for (; k < winCount; k++) {
+						int patternCell = (r + k * direction.rowStep) * size + c + k * direction.colStep;
+						byte value = board[patternCell];
+						if (value == EMPTY && empty < 0) {
+							empty = patternCell;
+						} else if (value != side) {
+							break;
+						}
+					}
+					if (k == winCount && empty >= 0) {
+						return empty;
+					}
+				}
+			}
+			return -1;
+		}
+		// a random empty cell next to the last move, it's tried once, -1 if it isn't empty or it's out of the field
+		private int getNearCell(int cell) {
+			int random = nextInt(16);
+			if (random >= 8) {
+				return -1;
+			}
+			LineDirection direction = LineDirection.ALL[random / 2];
+			int sign = random % 2 == 0 ? 1 : -1;
+			int row = cell / size + sign * direction.rowStep;
+			int col = cell % size + sign * direction.colStep;
+			if (row < 0 || row >= size || col < 0 || col >= size || board[row * size + col] != EMPTY) {
+				return -1;
+			}
+			return row * size + col;
+		}
+		// xorshift, it's enough for random moves and doesn't share state between threads
+		private int nextInt(int bound) {
+			random ^= random << 13;
+			random ^= random >>> 7;
+			random ^= random << 17;
+			return (int) ((random >>> 33) % bound);
+		}
+	}
+	// shutting down own helper threads, a shared pool is left to its owner
+	@Override
+	public void close() {
+		shutdownHelperExecutor();
+	}
+
+	private void shutdownHelperExecutor() {
+		if (ownHelperExecutor) {
+			helperExecutor.shutdownNow();
+			ownHelperExecutor = false;
+		}
+		helperExecutor = null;
+	}
+	// helper threads are daemons, so they don't prevent exit of the application
+	private static class HelperThreadFactory implements ThreadFactory {
+		private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "mcts-helper-" + THREAD_NUMBER.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
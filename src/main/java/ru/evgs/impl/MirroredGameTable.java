@@ -0,0 +1,146 @@
+package ru.evgs.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.MoveListener;
+// view of the game table with swapped human and computer stones
+// it lets a computer turn play for the human side, e.g. when two computer turns play against each other
+public class MirroredGameTable implements GameTable {
+	private final GameTable gameTable;
+	private final ZobristKeys zobristKeys;
+	private final List<MirroredMoveListener> listeners = new ArrayList<>();
+	private int[] stones = new int[0];
+
+	public MirroredGameTable(GameTable gameTable) {
+		Objects.requireNonNull(gameTable, "Game table can't be null");
+		this.gameTable = gameTable;
+		this.zobristKeys = new ZobristKeys(gameTable.getSize());
+	}
+
+	static CellValue mirror(CellValue cellValue) {
+		if (cellValue == CellValue.HUMAN) {
+			return CellValue.COMPUTER;
+		} else if (cellValue == CellValue.COMPUTER) {
+			return CellValue.HUMAN;
+		}
+		return cellValue;
+	}
+
+	@Override
+	public CellValue getValue(int row, int col) {
+		return mirror(gameTable.getValue(row, col));
+	}
+
+	@Override
+	public void setValue(int row, int col, CellValue cellValue) {
+		gameTable.setValue(row, col, mirror(cellValue));
+	}
+
+	@Override
+	public void reInit() {
+		gameTable.reInit();
+	}
+
+	@Override
+	public int getSize() {
+		return gameTable.getSize();
+	}
+
+	@Override
+	public boolean isCellFree(int row, int col) {
+		return gameTable.isCellFree(row, col);
+	}
+
+	@Override
+	public boolean emptyCellExists() {
+		return gameTable.emptyCellExists();
+	}
+	// the hash of the mirrored position can't be derived from the original one, so it's computed by stones
+	@Override
+	public long getHashKey() {
+		if (stones.length < getStoneCount()) {
+			stones = new int[getStoneCount() * 2];
+		}
+		int count = getStoneCells(stones);
+		long hashKey = 0;
+		for (int i = 0; i < count; i++) {
+			int row = stones[i] / getSize();
+			int col = stones[i] % getSize();
+			hashKey ^= zobristKeys.getKey(row, col, getValue(row, col));
+		}
+		return hashKey;
+	}
+
+	@Override
+	public void makeMove(int row, int col, CellValue cellValue) {
+		gameTable.makeMove(row, col, mirror(cellValue));
+	}
+
+	@Override
+	public void undoMove() {
+		gameTable.undoMove();
+	}
+
+	@Override
+	public int getMoveCount() {
+		return gameTable.getMoveCount();
+	}
+
+	@Override
+	public int getLastMove() {
+		return gameTable.getLastMove();
+	}
+
+	@Override
+	public int getStoneCount() {
+		return gameTable.getStoneCount();
+	}
+	@Override
+	public int getStoneCells(int[] buffer) {
+		return gameTable.getStoneCells(buffer);
+	}
+	// listeners of the view get mirrored stones too
+	@Override
+	public void addMoveListener(MoveListener listener) {
+		MirroredMoveListener mirroredListener = new MirroredMoveListener(listener);
+		listeners.add(mirroredListener);
+		gameTable.addMoveListener(mirroredListener);
+	}
+
+	@Override
+	public void removeMoveListener(MoveListener listener) {
+		for (int i = 0; i < listeners.size(); i++) {
+			if (listeners.get(i).listener == listener) {
+				gameTable.removeMoveListener(listeners.remove(i));
+				return;
+			}
+		}
+	}
+
+	private static class MirroredMoveListener implements MoveListener {
+		private final MoveListener listener;
+
+		MirroredMoveListener(MoveListener listener) {
+			this.listener = listener;
+		}
+
+		@Override
+		public void makeMove(int row, int col, CellValue cellValue) {
+			listener.makeMove(row, col, mirror(cellValue));
+		}
+
+		@Override
+		public void undoMove(int row, int col, CellValue cellValue) {
+			listener.undoMove(row, col, mirror(cellValue));
+		}
+
+		@Override
+		public void reset() {
+			listener.reset();
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package ru.evgs.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// read-only opening book: a file of entries sorted by position key, mapped to memory and searched in place
+// nothing is deserialized to the heap, a lookup is a binary search over the mapped pages, so it takes microseconds
+// and JVMs which map the same file share its pages in the page cache
+// file format (big endian):
+// - header: int MAGIC, int VERSION, int size of field, int count of entries
+// - entries: long key, int move (row * size + col), int weight; sorted by key, then by weight descending
+// the key is the canonical key (see SymmetricKeys) of the position as the player to move sees it, i.e. with own
+// stones as COMPUTER, and the move is made in the canonical position, so symmetric positions share one entry
+public class OpeningBook {
+	public static final int MAGIC = 0x474D4B42;
+	public static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int ENTRY_SIZE = 16;
+	// result of lookup when position isn't in the book
+	public static final int NO_MOVE = -1;
+	private final ByteBuffer entries;
+	private final int size;
+	private final int entryCount;
+
+	private OpeningBook(ByteBuffer buffer) throws IOException {
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+			throw new IOException("File is not an opening book of version " + VERSION);
+		}
+		size = buffer.getInt(8);
+		entryCount = buffer.getInt(12);
+		if (entryCount < 0 || (long) HEADER_SIZE + (long) entryCount * ENTRY_SIZE > buffer.capacity()) {
+			throw new IOException("Opening book is truncated: entries=" + entryCount + ", bytes=" + buffer.capacity());
+		}
+		entries = buffer;
+	}
+	// mapping the book file, the file can be closed by the channel right away, the mapping stays valid
+	public static OpeningBook open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new OpeningBook(buffer);
+		}
+	}
+	// finding the best move of the position, returns NO_MOVE if the position isn't in the book
+	// only absolute reads are used, so the book can be shared by threads
+	public int getMove(long key) {
+		int low = 0;
+		int high = entryCount - 1;
+		int found = -1;
+		// the leftmost entry of the key has the largest weight
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			long middleKey = entries.getLong(HEADER_SIZE + middle * ENTRY_SIZE);
+			if (middleKey < key) {
+				low = middle + 1;
+			} else {
+				if (middleKey == key) {
+					found = middle;
+				}
+				high = middle - 1;
+			}
+		}
+		return found < 0 ? NO_MOVE : entries.getInt(HEADER_SIZE + found * ENTRY_SIZE + 8);
+	}
+	// size of the field the book is built for
+	public int getSize() {
+		return size;
+	}
+
+	public int getEntryCount() {
+		return entryCount;
+	}
+}
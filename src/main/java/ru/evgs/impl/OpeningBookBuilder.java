@@ -0,0 +1,197 @@
+package ru.evgs.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.WinnerChecker;
+// offline builder of the opening book: walks the tree of openings from the empty field and stores the move
+// of the alpha-beta search for every position; the tree branches by the search move and the next best moves
+// by the pattern threat, so the book covers replies which a player is likely to make
+// usage: OpeningBookBuilder FILE [--plies N] [--width N] [--nodes N] [--size N] [--win N]
+public class OpeningBookBuilder {
+	private static final Logger LOGGER = LoggerFactory.getLogger(OpeningBookBuilder.class);
+	public static final int DEFAULT_PLIES = 6;
+	public static final int DEFAULT_WIDTH = 3;
+	public static final long DEFAULT_NODE_LIMIT = 20000;
+	private final int size;
+	private final int plies;
+	private final int width;
+	private final GameTable gameTable;
+	private final GameTable mirroredGameTable;
+	// canonical keys of the position as the computer and as the human sees it
+	private final SymmetricKeys computerKeys;
+	private final SymmetricKeys humanKeys;
+	private final WinnerChecker winnerChecker;
+	// the search plays for the computer on the table and for the human on its mirrored view
+	private final AlphaBetaComputerTurn computerSearch;
+	private final AlphaBetaComputerTurn humanSearch;
+	private final PatternEvaluator evaluator;
+	private final CandidateMoves candidates;
+	private final int[][] plyMoves;
+	// positions by keys, sorted as in the file
+	private final Map<Long, Integer> moves = new TreeMap<>();
+
+	public OpeningBookBuilder(int size, int winCount, int plies, int width, long nodeLimit) {
+		if (plies <= 0 || width <= 0 || nodeLimit <= 0) {
+			throw new IllegalArgumentException("Invalid opening book: plies=" + plies + ", width=" + width + ", nodes=" + nodeLimit);
+		}
+		this.size = size;
+		this.plies = plies;
+		this.width = width;
+		gameTable = new DefaultGameTable(size);
+		winnerChecker = new DefaultWinnerChecker(winCount);
+		winnerChecker.setGameTable(gameTable);
+		// the node limit and one thread make the search and so the book reproducible, the threat search is off
+		// because its limit is the time; the search has no time limit
+		computerSearch = new AlphaBetaComputerTurn(Long.MAX_VALUE, nodeLimit, AlphaBetaComputerTurn.DEFAULT_MAX_DEPTH);
+		computerSearch.setWinCount(winCount);
+		computerSearch.setThreatSpaceSearch(null);
+		computerSearch.setGameTable(gameTable);
+		humanSearch = new AlphaBetaComputerTurn(Long.MAX_VALUE, nodeLimit, AlphaBetaComputerTurn.DEFAULT_MAX_DEPTH);
+		humanSearch.setWinCount(winCount);
+		humanSearch.setThreatSpaceSearch(null);
+		mirroredGameTable = new MirroredGameTable(gameTable);
+		humanSearch.setGameTable(mirroredGameTable);
+		evaluator = new PatternEvaluator(size, winCount);
+		candidates = new CandidateMoves(size);
+		gameTable.addMoveListener(evaluator);
+		gameTable.addMoveListener(candidates);
+		computerKeys = new SymmetricKeys(size);
+		humanKeys = new SymmetricKeys(size);
+		gameTable.addMoveListener(computerKeys);
+		mirroredGameTable.addMoveListener(humanKeys);
+		plyMoves = new int[plies][size * size];
+	}
+	// building the tree of openings, returns count of positions
+	public int build() {
+		moves.clear();
+		gameTable.reInit();
+		expand(CellValue.HUMAN, 0);
+		return moves.size();
+	}
+
+	private void expand(CellValue side, int ply) {
+		if (ply == plies) {
+			return;
+		}
+		// the key is the position as the side sees it: own stones are computer ones; a position symmetric to
+		// a stored one isn't expanded, its subtree is symmetric to the stored subtree
+		SymmetricKeys keys = side == CellValue.COMPUTER ? computerKeys : humanKeys;
+		long key = keys.getCanonicalKey();
+		if (moves.containsKey(key)) {
+			return;
+		}
+		int best = search(side);
+		moves.put(key, SymmetricKeys.transform(size, keys.getCanonicalSymmetry(), best));
+		int count = chooseMoves(side, best, plyMoves[ply]);
+		for (int i = 0; i < count; i++) {
+			int row = plyMoves[ply][i] / size;
+			int col = plyMoves[ply][i] % size;
+			gameTable.makeMove(row, col, side);
+			if (!winnerChecker.isWinnerFoundByLastTurn(new Cell(row, col)).winnerExists()) {
+				expand(AlphaBetaSearcher.opposite(side), ply + 1);
+			}
+			gameTable.undoMove();
+		}
+		if (ply <= 1) {
+			LOGGER.info("Opening book: {} positions after the position of move {} at ply {}", moves.size(), best, ply);
+		}
+	}
+	// the move of the search, the position is restored after it
+	private int search(CellValue side) {
+		Cell cell = side == CellValue.COMPUTER ? computerSearch.makeTurn() : humanSearch.makeTurn();
+		gameTable.setValue(cell.getRowIndex(), cell.getColIndex(), CellValue.EMPTY);
+		return cell.getRowIndex() * size + cell.getColIndex();
+	}
+	// the search move and width - 1 other candidates with the largest threat for the side
+	private int chooseMoves(CellValue side, int best, int[] buffer) {
+		int count = candidates.getCandidates(buffer);
+		for (int i = 0; i < count; i++) {
+			if (buffer[i] == best) {
+				buffer[i] = buffer[0];
+				buffer[0] = best;
+			}
+		}
+		int chosen = Math.min(width, count);
+		// selection of the largest threats after the search move
+		for (int i = 1; i < chosen; i++) {
+			int maxIndex = i;
+			int maxThreat = Integer.MIN_VALUE;
+			for (int j = i; j < count; j++) {
+				int threat = evaluator.getCellThreat(buffer[j] / size, buffer[j] % size, side, AlphaBetaSearcher.WIN_SCORE);
+				if (threat > maxThreat || (threat == maxThreat && buffer[j] < buffer[maxIndex])) {
+					maxThreat = threat;
+					maxIndex = j;
+				}
+			}
+			int cell = buffer[i];
+			buffer[i] = buffer[maxIndex];
+			buffer[maxIndex] = cell;
+		}
+		return chosen;
+	}
+	// writing the book sorted by keys, one move of weight 1 per position
+	public void write(Path path) throws IOException {
+		try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+			output.writeInt(OpeningBook.MAGIC);
+			output.writeInt(OpeningBook.VERSION);
+			output.writeInt(size);
+			output.writeInt(moves.size());
+			for (Map.Entry<Long, Integer> entry : moves.entrySet()) {
+				output.writeLong(entry.getKey());
+				output.writeInt(entry.getValue());
+				output.writeInt(1);
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: OpeningBookBuilder FILE [--plies N] [--width N] [--nodes N] [--size N] [--win N]");
+			System.exit(1);
+		}
+		int plies = DEFAULT_PLIES;
+		int width = DEFAULT_WIDTH;
+		long nodes = DEFAULT_NODE_LIMIT;
+		int size = DefaultConstants.SIZE;
+		int winCount = DefaultConstants.WIN_COUNT;
+		for (int i = 1; i < args.length; i++) {
+			switch (args[i]) {
+			case "--plies":
+				plies = Integer.parseInt(args[++i]);
+				break;
+			case "--width":
+				width = Integer.parseInt(args[++i]);
+				break;
+			case "--nodes":
+				nodes = Long.parseLong(args[++i]);
+				break;
+			case "--size":
+				size = Integer.parseInt(args[++i]);
+				break;
+			case "--win":
+				winCount = Integer.parseInt(args[++i]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+		long startTime = System.currentTimeMillis();
+		OpeningBookBuilder builder = new OpeningBookBuilder(size, winCount, plies, width, nodes);
+		int positions = builder.build();
+		Path path = Paths.get(args[0]);
+		builder.write(path);
+		LOGGER.info("Opening book {} is built: {} positions, {} ms", path, positions, System.currentTimeMillis() - startTime);
+	}
+}
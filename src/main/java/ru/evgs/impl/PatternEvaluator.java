@@ -0,0 +1,220 @@
+package ru.evgs.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.MoveListener;
+// incremental static evaluation of the position by patterns of winCount cells by row, col and both diagonals
+// every pattern has a code made of counts of computer and human stones in it, the code is a key of precomputed
+// score tables; a turn changes only patterns through its cell (at most 4 * winCount), so the evaluation costs O(1)
+public class PatternEvaluator implements MoveListener {
+	// score of the pattern which can't be completed anymore or has no stones
+	private static final int NO_SCORE = 0;
+	private final int size;
+	private final int winCount;
+	private final int[] weights;
+	// stone counts of every pattern, pattern index is direction * size * size + first cell
+	private final byte[] computerCounts;
+	private final byte[] humanCounts;
+	// patterns through every cell: cell * 4 * winCount + i, -1 if the pattern doesn't fit the field
+	private final int[] cellPatterns;
+	// precomputed scores by pattern code = computerCount * (winCount + 1) + humanCount
+	private final int[] computerScores;
+	private final int[] humanScores;
+	private int computerScore;
+	private int humanScore;
+	// count of completed patterns, i.e. lines of winCount stones
+	private int computerFives;
+	private int humanFives;
+
+	public PatternEvaluator(int size, int winCount) {
+		this(size, winCount, defaultWeights(winCount));
+	}
+	// weights[k] is the score of the pattern with k stones of one player and no stones of another, k < winCount
+	public PatternEvaluator(int size, int winCount, int[] weights) {
+		if (weights.length != winCount) {
+			throw new IllegalArgumentException("Count of weights must be equal to win count: weights=" + weights.length + ", winCount=" + winCount);
+		}
+		this.size = size;
+		this.winCount = winCount;
+		this.weights = weights.clone();
+		int patternCount = LineDirection.ALL.length * size * size;
+		computerCounts = new byte[patternCount];
+		humanCounts = new byte[patternCount];
+		cellPatterns = new int[size * size * LineDirection.ALL.length * winCount];
+		Arrays.fill(cellPatterns, -1);
+		for (int d = 0; d < LineDirection.ALL.length; d++) {
+			LineDirection direction = LineDirection.ALL[d];
+			for (int row = 0; row < size; row++) {
+				for (int col = 0; col < size; col++) {
+					// patterns which contain the cell as k-th cell
+					for (int k = 0; k < winCount; k++) {
+						int firstRow = row - k * direction.rowStep;
+						int firstCol = col - k * direction.colStep;
+						int lastRow = firstRow + (winCount - 1) * direction.rowStep;
+						int lastCol = firstCol + (winCount - 1) * direction.colStep;
+						if (firstRow >= 0 && firstCol >= 0 && firstCol < size && lastRow < size && lastCol >= 0 && lastCol < size) {
+							cellPatterns[((row * size + col) * LineDirection.ALL.length + d) * winCount + k] = d * size * size + firstRow * size + firstCol;
+						}
+					}
+				}
+			}
+		}
+		int codes = (winCount + 1) * (winCount + 1);
+		computerScores = new int[codes];
+		humanScores = new int[codes];
+		for (int computer = 0; computer < winCount; computer++) {
+			computerScores[code(computer, 0)] = this.weights[computer];
+			humanScores[code(0, computer)] = this.weights[computer];
+		}
+	}
+	// default weights grow 8 times by each stone
+	public static int[] defaultWeights(int winCount) {
+		int[] weights = new int[winCount];
+		for (int i = 1; i < winCount; i++) {
+			weights[i] = 1 << (3 * (i - 1));
+		}
+		return weights;
+	}
+
+	// reading weights written by EvaluationTuner: numbers separated by spaces, lines starting with # are comments
+	public static int[] readWeights(Path path) throws IOException {
+		StringBuilder text = new StringBuilder();
+		for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+			if (!line.trim().startsWith("#")) {
+				text.append(line).append(' ');
+			}
+		}
+		String trimmed = text.toString().trim();
+		if (trimmed.isEmpty()) {
+			throw new IOException("File " + path + " has no weights");
+		}
+		String[] values = trimmed.split("\\s+");
+		int[] weights = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			try {
+				weights[i] = Integer.parseInt(values[i]);
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid weight in " + path + ": " + values[i], e);
+			}
+			if (weights[i] < 0) {
+				throw new IOException("Invalid weight in " + path + ": " + values[i] + ". Required >= 0");
+			}
+		}
+		return weights;
+	}
+
+	private int code(int computerCount, int humanCount) {
+		return computerCount * (winCount + 1) + humanCount;
+	}
+	// removing all stones
+	@Override
+	public void reset() {
+		Arrays.fill(computerCounts, (byte) 0);
+		Arrays.fill(humanCounts, (byte) 0);
+		computerScore = 0;
+		humanScore = 0;
+		computerFives = 0;
+		humanFives = 0;
+	}
+	// initialization by the position of the game table
+	public void setPosition(GameTable gameTable) {
+		reset();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				CellValue cellValue = gameTable.getValue(i, j);
+				if (cellValue != CellValue.EMPTY) {
+					makeMove(i, j, cellValue);
+				}
+			}
+		}
+	}
+	// updating patterns through the cell after the stone is put on it
+	@Override
+	public void makeMove(int row, int col, CellValue cellValue) {
+		update(row, col, cellValue, 1);
+	}
+	// updating patterns through the cell after the stone is removed from it
+	@Override
+	public void undoMove(int row, int col, CellValue cellValue) {
+		update(row, col, cellValue, -1);
+	}
+
+	private void update(int row, int col, CellValue cellValue, int delta) {
+		boolean computer = cellValue == CellValue.COMPUTER;
+		byte[] counts = computer ? computerCounts : humanCounts;
+		int first = (row * size + col) * LineDirection.ALL.length * winCount;
+		for (int i = first; i < first + LineDirection.ALL.length * winCount; i++) {
+			int pattern = cellPatterns[i];
+			if (pattern < 0) {
+				continue;
+			}
+			int oldCode = code(computerCounts[pattern], humanCounts[pattern]);
+			counts[pattern] += delta;
+			int newCode = code(computerCounts[pattern], humanCounts[pattern]);
+			computerScore += computerScores[newCode] - computerScores[oldCode];
+			humanScore += humanScores[newCode] - humanScores[oldCode];
+			if (counts[pattern] == winCount || counts[pattern] - delta == winCount) {
+				if (computer) {
+					computerFives += delta;
+				} else {
+					humanFives += delta;
+				}
+			}
+		}
+	}
+	// evaluation of the position for the side to move
+	public int evaluate(CellValue side) {
+		return side == CellValue.COMPUTER ? computerScore - humanScore : humanScore - computerScore;
+	}
+	// features of the position for the side to move: features[k] is the count of own patterns with k stones and
+	// no stones of the opponent minus the same count of the opponent, so evaluate(side) is the sum of
+	// weights[k] * features[k]; it scans all patterns, it's for tuning of weights, not for the search
+	public void getFeatures(CellValue side, int[] features) {
+		Arrays.fill(features, 0, winCount, 0);
+		for (int pattern = 0; pattern < computerCounts.length; pattern++) {
+			int computer = computerCounts[pattern];
+			int human = humanCounts[pattern];
+			if (human == 0 && computer > 0 && computer < winCount) {
+				features[computer]++;
+			} else if (computer == 0 && human > 0 && human < winCount) {
+				features[human]--;
+			}
+		}
+		if (side != CellValue.COMPUTER) {
+			for (int k = 0; k < winCount; k++) {
+				features[k] = -features[k];
+			}
+		}
+	}
+	// checking that the side has a line of winCount stones
+	public boolean hasFive(CellValue side) {
+		return (side == CellValue.COMPUTER ? computerFives : humanFives) > 0;
+	}
+	// ordering hook: how much the turn of the side on the empty cell builds own patterns and breaks patterns of
+	// the opponent, the four made or blocked gets the score of the win or a half of it
+	public int getCellThreat(int row, int col, CellValue side, int winScore) {
+		boolean computer = side == CellValue.COMPUTER;
+		int score = NO_SCORE;
+		int first = (row * size + col) * LineDirection.ALL.length * winCount;
+		for (int i = first; i < first + LineDirection.ALL.length * winCount; i++) {
+			int pattern = cellPatterns[i];
+			if (pattern < 0) {
+				continue;
+			}
+			int own = computer ? computerCounts[pattern] : humanCounts[pattern];
+			int opponent = computer ? humanCounts[pattern] : computerCounts[pattern];
+			if (opponent == 0) {
+				score += own + 1 < winCount ? weights[own + 1] : winScore;
+			} else if (own == 0) {
+				score += opponent + 1 < winCount ? weights[opponent] : winScore / 2;
+			}
+		}
+		return score;
+	}
+}
@@ -0,0 +1,48 @@
+package ru.evgs.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+// budget of pondering: it's over when it's stopped or its nodes or time are over, and it limits the share of CPU used
+// by the search
+// the search works by slices, after every slice it sleeps for the time which keeps the share
+class PonderBudget extends SearchBudget {
+	private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+	private final int cpuShare;
+	private volatile Thread searchThread;
+	private long sliceStart = System.nanoTime();
+
+	PonderBudget(int cpuShare, long nodeLimit, long deadlineNanos) {
+		super(nodeLimit, deadlineNanos);
+		this.cpuShare = cpuShare;
+	}
+
+	@Override
+	boolean addNodes(long count) {
+		// the thread of pondering can be interrupted by shutdown of its pool
+		if (Thread.currentThread().isInterrupted()) {
+			stop();
+		}
+		if (!super.addNodes(count)) {
+			return false;
+		}
+		long busy = System.nanoTime() - sliceStart;
+		if (cpuShare < 100 && busy >= SLICE_NANOS) {
+			searchThread = Thread.currentThread();
+			long sleepDeadline = System.nanoTime() + busy * (100 - cpuShare) / cpuShare;
+			while (!isStopped() && System.nanoTime() < sleepDeadline) {
+				LockSupport.parkNanos(this, sleepDeadline - System.nanoTime());
+			}
+			sliceStart = System.nanoTime();
+		}
+		return !isStopped();
+	}
+	// the sleeping search is woken up, so stopping doesn't wait for the end of the sleep
+	@Override
+	void stop() {
+		super.stop();
+		Thread thread = searchThread;
+		if (thread != null) {
+			LockSupport.unpark(thread);
+		}
+	}
+}
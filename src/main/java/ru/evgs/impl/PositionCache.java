@@ -0,0 +1,260 @@
+package ru.evgs.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+// persistent cache of searched positions: a fixed-size file mapped to memory, so analysis survives restarts of the JVM
+// keys are canonical keys of positions (see SymmetricKeys) and entries have the format of the transposition table
+// (see TranspositionTable.toEntry) with moves of canonical positions
+// file format (big endian):
+// - header: int MAGIC, int VERSION, int count of buckets, int entries in a bucket, long stamp of the last store,
+//   16 bytes reserved
+// - buckets of BUCKET_SIZE entries: long key, long entry, long stamp, long checksum of the first three
+// an entry torn by a crash or by a concurrent writer has a wrong checksum, so it's seen as an empty slot;
+// a new position replaces the same position if it's searched not shallower, then an empty slot, then the entry
+// with the smaller depth, then the entry stored earlier
+// stores only write to the mapped pages, a background thread flushes them to the disk, so the search never waits
+// for the disk
+public class PositionCache implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PositionCache.class);
+	public static final int MAGIC = 0x474D4B43;
+	public static final int VERSION = 1;
+	// bytes of the header and of one entry
+	public static final int HEADER_SIZE = 32;
+	public static final int ENTRY_SIZE = 32;
+	// entries of a bucket take two cache lines
+	public static final int BUCKET_SIZE = 4;
+	public static final long DEFAULT_MEMORY_BYTES = 64L * 1024 * 1024;
+	public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+	private static final long CHECKSUM_SEED = 0x2545F4914F6CDD1DL;
+	private final Path path;
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	private final int bucketMask;
+	private final ScheduledExecutorService flushExecutor;
+	private long stamp;
+	private volatile boolean dirty;
+	private long hits;
+	private long misses;
+	private long stores;
+	private long corruptEntries;
+
+	private PositionCache(Path path, FileChannel channel, int bucketCount, long flushIntervalMillis) throws IOException {
+		this.path = path;
+		this.channel = channel;
+		long fileSize = HEADER_SIZE + (long) bucketCount * BUCKET_SIZE * ENTRY_SIZE;
+		long existingSize = channel.size();
+		if (existingSize != 0 && existingSize != fileSize) {
+			throw new IOException("Position cache " + path + " has another size: " + existingSize + " bytes, required " + fileSize);
+		}
+		// mapping of a longer region extends the file by zeroes, i.e. by empty entries
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+		if (existingSize == 0) {
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(8, bucketCount);
+			buffer.putInt(12, BUCKET_SIZE);
+			buffer.force();
+		} else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != bucketCount
+				|| buffer.getInt(12) != BUCKET_SIZE) {
+			throw new IOException("File " + path + " is not a position cache of version " + VERSION + " with " + bucketCount + " buckets");
+		}
+		stamp = buffer.getLong(16);
+		bucketMask = bucketCount - 1;
+		flushExecutor = Executors.newSingleThreadScheduledExecutor(new FlushThreadFactory());
+		flushExecutor.scheduleWithFixedDelay(new Runnable() {
+			@Override
+			public void run() {
+				flushIfDirty();
+			}
+		}, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+	// opening the cache file or creating it, its memory is rounded down to a power of 2 of buckets
+	public static PositionCache open(Path path, long memoryBytes) throws IOException {
+		return open(path, memoryBytes, DEFAULT_FLUSH_INTERVAL_MILLIS);
+	}
+
+	public static PositionCache open(Path path, long memoryBytes, long flushIntervalMillis) throws IOException {
+		long buckets = Long.highestOneBit(Math.max(memoryBytes / (BUCKET_SIZE * ENTRY_SIZE), 1));
+		// a mapped buffer is limited by 2 GB
+		if (buckets > (1 << 23)) {
+			throw new IllegalArgumentException("Memory of position cache is too large: " + memoryBytes + " bytes");
+		}
+		if (flushIntervalMillis <= 0) {
+			throw new IllegalArgumentException("Flush interval must be positive: " + flushIntervalMillis);
+		}
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			return new PositionCache(path, channel, (int) buckets, flushIntervalMillis);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	// finding entry of the position, returns TranspositionTable.MISS if it isn't found
+	public synchronized long probe(long key) {
+		int bucket = bucketOffset(key);
+		for (int offset = bucket; offset < bucket + BUCKET_SIZE * ENTRY_SIZE; offset += ENTRY_SIZE) {
+			if (isValid(offset) && buffer.getLong(offset) == key) {
+				hits++;
+				return buffer.getLong(offset + 8);
+			}
+		}
+		misses++;
+		return TranspositionTable.MISS;
+	}
+	// storing result of the search of the position, move is -1 if there is no best move
+	public synchronized void store(long key, int move, int score, int depth, int flag) {
+		if (move < -1 || move >= TranspositionTable.MAX_MOVES || depth < 0 || depth > 127
+				|| flag < TranspositionTable.EXACT || flag > TranspositionTable.UPPER_BOUND) {
+			throw new IllegalArgumentException("Invalid entry: move=" + move + ", depth=" + depth + ", flag=" + flag);
+		}
+		int bucket = bucketOffset(key);
+		int victim = -1;
+		int victimDepth = Integer.MAX_VALUE;
+		long victimStamp = Long.MAX_VALUE;
+		for (int offset = bucket; offset < bucket + BUCKET_SIZE * ENTRY_SIZE; offset += ENTRY_SIZE) {
+			if (!isValid(offset)) {
+				// an empty slot is taken if the position isn't in the bucket, so the search goes on
+				if (victimDepth >= 0) {
+					victim = offset;
+					victimDepth = -1;
+				}
+				continue;
+			}
+			long entry = buffer.getLong(offset + 8);
+			if (buffer.getLong(offset) == key) {
+				if (TranspositionTable.getDepth(entry) > depth) {
+					// the deeper result is kept
+					return;
+				}
+				victim = offset;
+				break;
+			}
+			int entryDepth = TranspositionTable.getDepth(entry);
+			long entryStamp = buffer.getLong(offset + 16);
+			if (entryDepth < victimDepth || (entryDepth == victimDepth && entryStamp < victimStamp)) {
+				victim = offset;
+				victimDepth = entryDepth;
+				victimStamp = entryStamp;
+			}
+		}
+		long entry = TranspositionTable.toEntry(move, score, depth, flag, 0);
+		stamp++;
+		buffer.putLong(victim, key);
+		buffer.putLong(victim + 8, entry);
+		buffer.putLong(victim + 16, stamp);
+		buffer.putLong(victim + 24, checksum(key, entry, stamp));
+		stores++;
+		dirty = true;
+	}
+	// a slot is valid if its checksum is right, zeroed slots are empty, others are corrupt
+	private boolean isValid(int offset) {
+		long key = buffer.getLong(offset);
+		long entry = buffer.getLong(offset + 8);
+		long entryStamp = buffer.getLong(offset + 16);
+		long checksum = buffer.getLong(offset + 24);
+		if (checksum == checksum(key, entry, entryStamp)) {
+			return true;
+		}
+		if (key != 0 || entry != 0 || entryStamp != 0 || checksum != 0) {
+			corruptEntries++;
+		}
+		return false;
+	}
+
+	private int bucketOffset(long key) {
+		int bucket = (int) (key ^ (key >>> 32)) & bucketMask;
+		return HEADER_SIZE + bucket * BUCKET_SIZE * ENTRY_SIZE;
+	}
+	// splitmix64 finalizer over the fields, so a zeroed or partially written slot doesn't match
+	private static long checksum(long key, long entry, long entryStamp) {
+		return mix(mix(mix(CHECKSUM_SEED ^ key) ^ entry) ^ entryStamp);
+	}
+
+	private static long mix(long value) {
+		long z = value * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+	// writing changed pages to the disk; the lock is held only to write the header, not while the disk is written
+	public void flush() {
+		synchronized (this) {
+			buffer.putLong(16, stamp);
+			dirty = false;
+		}
+		buffer.force();
+	}
+
+	private void flushIfDirty() {
+		if (dirty) {
+			try {
+				flush();
+			} catch (RuntimeException e) {
+				LOGGER.error("Error of flush of position cache " + path + ": " + e.getMessage(), e);
+			}
+		}
+	}
+	// stopping the flush thread and flushing the last changes
+	@Override
+	public void close() throws IOException {
+		flushExecutor.shutdownNow();
+		try {
+			flushExecutor.awaitTermination(1, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flush();
+		channel.close();
+		LOGGER.debug("Position cache is closed: {}", this);
+	}
+	// count of entries
+	public int getCapacity() {
+		return (bucketMask + 1) * BUCKET_SIZE;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getStores() {
+		return stores;
+	}
+	// count of checks of slots which were found with a wrong checksum, e.g. after a crash
+	public synchronized long getCorruptEntries() {
+		return corruptEntries;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "PositionCache[path=" + path + ", capacity=" + getCapacity() + ", hits=" + hits + ", misses=" + misses
+				+ ", stores=" + stores + ", corrupt=" + corruptEntries + "]";
+	}
+	// the flush thread is a daemon, so it doesn't prevent exit of the application
+	private static class FlushThreadFactory implements ThreadFactory {
+		private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "position-cache-flush-" + THREAD_NUMBER.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
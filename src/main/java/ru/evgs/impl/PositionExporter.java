@@ -0,0 +1,338 @@
+package ru.evgs.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+// exporter of positions of finished games to chunks of training positions (see TrainingPositionFormat) in a directory:
+// the game loop queues the encoded record of the game, so it never waits for the disk, and the exporter thread replays
+// the game, skips positions exported before or symmetric to them and appends the others to the current chunk; a chunk is written to
+// a temporary file and renamed when it's complete, so PositionReader sees only complete chunks
+// the evaluation of a position is the score of the search of the move made in it or the static evaluation
+public class PositionExporter implements Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PositionExporter.class);
+	public static final int DEFAULT_CHUNK_POSITIONS = 1 << 16;
+	public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+	// keys of exported positions are forgotten when there are so many of them, the set of keys takes up to 64 MB
+	public static final int MAX_KEYS = 1 << 22;
+	static final String CHUNK_PREFIX = "positions-";
+	static final String CHUNK_SUFFIX = ".gkp";
+	private static final String TEMPORARY_SUFFIX = ".tmp";
+	private static final int BATCH_SIZE = 64 * 1024;
+	// the end of the queue
+	private static final byte[] CLOSE = new byte[0];
+	private static final long CLOSE_WAIT_MILLIS = 100;
+	private final Path directory;
+	private final int chunkPositions;
+	private final BlockingQueue<byte[]> queue;
+	private final Thread exporterThread;
+	private final AtomicLong exportedPositions = new AtomicLong();
+	private final AtomicLong duplicatePositions = new AtomicLong();
+	private final AtomicLong droppedGames = new AtomicLong();
+	private volatile boolean closed;
+	// the state of the exporter thread
+	private final ByteBuffer batch = ByteBuffer.allocateDirect(BATCH_SIZE);
+	private long[] seenKeys = new long[1 << 16];
+	private int keyCount;
+	private int chunkNumber;
+	private int chunkCount;
+	private FileChannel chunk;
+	private Path chunkPath;
+	private int chunkSize;
+	private int chunkWinCount;
+	private int chunkPositionCount;
+	private GameTable gameTable;
+	private PatternEvaluator evaluator;
+	private SymmetricKeys symmetricKeys;
+	private final TrainingPosition position = new TrainingPosition();
+
+	private PositionExporter(Path directory, int chunkPositions, int queueCapacity, int chunkNumber) {
+		this.directory = directory;
+		this.chunkPositions = chunkPositions;
+		this.chunkNumber = chunkNumber;
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		exporterThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				exportQueue();
+			}
+		}, "position-exporter");
+		exporterThread.setDaemon(true);
+		exporterThread.start();
+	}
+	// opening the directory to add chunks after existing ones or creating it
+	public static PositionExporter open(Path directory) throws IOException {
+		return open(directory, DEFAULT_CHUNK_POSITIONS, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	public static PositionExporter open(Path directory, int chunkPositions, int queueCapacity) throws IOException {
+		if (chunkPositions <= 0) {
+			throw new IllegalArgumentException("Count of positions of a chunk must be positive: " + chunkPositions);
+		}
+		if (queueCapacity <= 0) {
+			throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+		}
+		Files.createDirectories(directory);
+		int lastNumber = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, CHUNK_PREFIX + "*")) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				if (name.endsWith(TEMPORARY_SUFFIX)) {
+					// a chunk not completed by a crash of the exporter
+					LOGGER.warn("Incomplete chunk of positions is deleted: {}", file);
+					Files.delete(file);
+				} else if (name.endsWith(CHUNK_SUFFIX)) {
+					try {
+						lastNumber = Math.max(lastNumber, Integer.parseInt(name.substring(CHUNK_PREFIX.length(), name.length() - CHUNK_SUFFIX.length())));
+					} catch (NumberFormatException e) {
+						LOGGER.warn("File {} isn't a chunk of positions, it's ignored", file);
+					}
+				}
+			}
+		}
+		return new PositionExporter(directory, chunkPositions, queueCapacity, lastNumber);
+	}
+	// queueing positions of the finished game, returns false if the game is unfinished or it's dropped
+	// because the queue is full or the exporter is closed; the record can be reused right away
+	public boolean export(GameRecord record) {
+		if (record.getResult() == GameRecord.UNFINISHED) {
+			return false;
+		}
+		if (closed) {
+			droppedGames.incrementAndGet();
+			return false;
+		}
+		ByteBuffer body = ByteBuffer.allocate(GameRecordFormat.getMaxBodySize(record));
+		GameRecordFormat.writeBody(record, body);
+		if (!queue.offer(Arrays.copyOf(body.array(), body.position()))) {
+			if (droppedGames.incrementAndGet() == 1) {
+				LOGGER.warn("Game is dropped: the queue of the exporter to {} is full", directory);
+			}
+			return false;
+		}
+		return true;
+	}
+	// the exporter thread
+	private void exportQueue() {
+		GameRecord record = new GameRecord();
+		try {
+			while (true) {
+				byte[] bytes = queue.take();
+				if (bytes == CLOSE) {
+					finishChunk();
+					return;
+				}
+				try {
+					GameRecordFormat.readBody(ByteBuffer.wrap(bytes), record);
+					exportGame(record);
+				} catch (RuntimeException e) {
+					// a corrupt record, e.g. with a move to a taken cell, is dropped, positions before its error stay exported
+					droppedGames.incrementAndGet();
+					LOGGER.error("Game isn't exported to " + directory + ": " + e.getMessage(), e);
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (IOException e) {
+			// later games are dropped by export, and close doesn't wait for the thread
+			LOGGER.error("Error of export of positions to " + directory + ": " + e.getMessage(), e);
+			closed = true;
+			closeChunk();
+			// the failed game and the queued ones aren't exported
+			droppedGames.incrementAndGet();
+			while (queue.poll() != null) {
+				droppedGames.incrementAndGet();
+			}
+		}
+	}
+	// closing the incomplete chunk after an error of the disk, its temporary file is deleted by the next open
+	private void closeChunk() {
+		if (chunk == null) {
+			return;
+		}
+		try {
+			chunk.close();
+		} catch (IOException e) {
+			LOGGER.warn("Chunk {} isn't closed: {}", chunkPath, e.getMessage());
+		}
+		chunk = null;
+	}
+	// positions before every move of the game, the canonical key of a position includes the side to move
+	private void exportGame(GameRecord record) throws IOException {
+		int size = record.getSize();
+		if (gameTable == null || gameTable.getSize() != size || record.getWinCount() != chunkWinCount) {
+			// a chunk has positions of one field
+			finishChunk();
+			gameTable = new DefaultGameTable(size);
+			evaluator = new PatternEvaluator(size, record.getWinCount());
+			gameTable.addMoveListener(evaluator);
+			symmetricKeys = new SymmetricKeys(size);
+			gameTable.addMoveListener(symmetricKeys);
+			chunkSize = size;
+			chunkWinCount = record.getWinCount();
+		}
+		gameTable.reInit();
+		position.reset(size, record.getWinCount());
+		for (int i = 0; i < record.getMoveCount(); i++) {
+			CellValue side = record.getSide(i);
+			long key = symmetricKeys.getCanonicalKey(side);
+			if (addKey(key)) {
+				int score = record.getScore(i);
+				boolean searched = score != GameRecord.NO_SCORE;
+				position.setState(key, side, getResult(record.getResult(), side), searched ? score : evaluator.evaluate(side), searched);
+				appendPosition();
+			} else {
+				duplicatePositions.incrementAndGet();
+			}
+			int move = record.getMove(i);
+			gameTable.makeMove(move / size, move % size, side);
+			position.setStone(move / size, move % size, side);
+		}
+	}
+	// result of the game for the side in half points
+	private static int getResult(int result, CellValue side) {
+		if (result == GameRecord.DRAW) {
+			return TrainingPosition.DRAW;
+		}
+		return (result == GameRecord.HUMAN_WINS) == (side == CellValue.HUMAN) ? TrainingPosition.WIN : TrainingPosition.LOSS;
+	}
+	// adding the key to the open addressing set of exported keys, false if it's there already;
+	// the set grows up to MAX_KEYS and is cleared then, so a position can be exported again after millions of others
+	private boolean addKey(long key) {
+		// zero marks a free slot
+		long stored = key == 0 ? 1 : key;
+		int mask = seenKeys.length - 1;
+		int index = (int) (stored ^ (stored >>> 32)) & mask;
+		while (seenKeys[index] != 0) {
+			if (seenKeys[index] == stored) {
+				return false;
+			}
+			index = (index + 1) & mask;
+		}
+		seenKeys[index] = stored;
+		if (++keyCount > seenKeys.length / 2) {
+			growKeys();
+		}
+		return true;
+	}
+
+	private void growKeys() {
+		long[] oldKeys = seenKeys;
+		if (oldKeys.length >= 2 * MAX_KEYS) {
+			LOGGER.info("Keys of {} exported positions are forgotten", keyCount);
+			Arrays.fill(oldKeys, 0);
+			keyCount = 0;
+			return;
+		}
+		seenKeys = new long[oldKeys.length * 2];
+		keyCount = 0;
+		for (long key : oldKeys) {
+			if (key != 0) {
+				addKey(key);
+			}
+		}
+	}
+
+	private void appendPosition() throws IOException {
+		if (chunk == null) {
+			startChunk();
+		}
+		if (batch.remaining() < TrainingPositionFormat.getPositionSize(chunkSize)) {
+			writeBatch();
+		}
+		TrainingPositionFormat.writePosition(position, batch);
+		exportedPositions.incrementAndGet();
+		if (++chunkPositionCount == chunkPositions) {
+			finishChunk();
+		}
+	}
+
+	private void startChunk() throws IOException {
+		chunkNumber++;
+		chunkPath = directory.resolve(getChunkName(chunkNumber) + TEMPORARY_SUFFIX);
+		chunk = FileChannel.open(chunkPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+		chunk.position(TrainingPositionFormat.HEADER_SIZE);
+		chunkPositionCount = 0;
+	}
+	// writing the header with the count of positions and renaming the chunk to its final name
+	private void finishChunk() throws IOException {
+		if (chunk == null) {
+			return;
+		}
+		writeBatch();
+		ByteBuffer header = ByteBuffer.allocate(TrainingPositionFormat.HEADER_SIZE);
+		TrainingPositionFormat.writeHeader(header, chunkSize, chunkWinCount, chunkPositionCount);
+		header.flip();
+		while (header.hasRemaining()) {
+			chunk.write(header, header.position());
+		}
+		chunk.force(false);
+		chunk.close();
+		chunk = null;
+		Files.move(chunkPath, directory.resolve(getChunkName(chunkNumber)), StandardCopyOption.ATOMIC_MOVE);
+		chunkCount++;
+		LOGGER.debug("Chunk {} of {} positions is written to {}", chunkNumber, chunkPositionCount, directory);
+	}
+
+	private void writeBatch() throws IOException {
+		batch.flip();
+		while (batch.hasRemaining()) {
+			chunk.write(batch);
+		}
+		batch.clear();
+	}
+
+	static String getChunkName(int number) {
+		return String.format("%s%06d%s", CHUNK_PREFIX, number, CHUNK_SUFFIX);
+	}
+	// exporting all queued games and completing the last chunk; the end of the queue is offered while the exporter
+	// thread is alive, so close doesn't block on the full queue of the failed thread
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			while (exporterThread.isAlive() && !queue.offer(CLOSE, CLOSE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+				LOGGER.debug("Exporter to {} is busy, the end of the queue is offered again", directory);
+			}
+			exporterThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		LOGGER.debug("Positions are exported to {}: exported {}, duplicates {}, dropped games {}", directory,
+				exportedPositions.get(), duplicatePositions.get(), droppedGames.get());
+	}
+
+	public long getExportedPositions() {
+		return exportedPositions.get();
+	}
+	// positions skipped because they were exported before
+	public long getDuplicatePositions() {
+		return duplicatePositions.get();
+	}
+	// games not exported because the queue was full or the exporter has failed
+	public long getDroppedGames() {
+		return droppedGames.get();
+	}
+	// count of chunks completed by the exporter, it's read after close
+	public int getChunkCount() {
+		return chunkCount;
+	}
+}
@@ -0,0 +1,149 @@
+package ru.evgs.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+// random access reader of chunks of training positions written by PositionExporter: chunks are mapped to memory,
+// so a position is read by its index without reading of the file, e.g. for shuffled sampling of millions of positions;
+// positions are read by absolute gets, so threads can read at the same time, every one to its own TrainingPosition
+// chunks written after open aren't seen, mappings are released with the reader by the garbage collector
+// usage: PositionReader DIRECTORY [--print N] - prints statistics of positions or N random positions
+public class PositionReader {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PositionReader.class);
+	private final ByteBuffer[] chunks;
+	private final int[] sizes;
+	private final int[] winCounts;
+	// index of the first position of every chunk and the count of positions at the end
+	private final long[] firstIndexes;
+
+	private PositionReader(List<ByteBuffer> chunks, List<int[]> fields) {
+		this.chunks = chunks.toArray(new ByteBuffer[chunks.size()]);
+		sizes = new int[chunks.size()];
+		winCounts = new int[chunks.size()];
+		firstIndexes = new long[chunks.size() + 1];
+		for (int i = 0; i < chunks.size(); i++) {
+			sizes[i] = fields.get(i)[0];
+			winCounts[i] = fields.get(i)[1];
+			firstIndexes[i + 1] = firstIndexes[i] + fields.get(i)[2];
+		}
+	}
+	// mapping all complete chunks of the directory in order of their numbers
+	public static PositionReader open(Path directory) throws IOException {
+		List<Path> paths = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+				PositionExporter.CHUNK_PREFIX + "*" + PositionExporter.CHUNK_SUFFIX)) {
+			for (Path file : files) {
+				paths.add(file);
+			}
+		}
+		Collections.sort(paths);
+		List<ByteBuffer> chunks = new ArrayList<>();
+		List<int[]> fields = new ArrayList<>();
+		for (Path path : paths) {
+			try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				if (channel.size() > Integer.MAX_VALUE) {
+					throw new IOException("Chunk " + path + " is too large: " + channel.size() + " bytes");
+				}
+				ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				int[] field = readHeader(path, chunk);
+				if (field[2] > 0) {
+					chunks.add(chunk);
+					fields.add(field);
+				}
+			}
+		}
+		PositionReader reader = new PositionReader(chunks, fields);
+		LOGGER.debug("Positions are mapped from {}: {} chunks, {} positions", directory, chunks.size(), reader.getPositionCount());
+		return reader;
+	}
+	// size, win count and count of positions of the chunk
+	private static int[] readHeader(Path path, ByteBuffer chunk) throws IOException {
+		if (chunk.limit() < TrainingPositionFormat.HEADER_SIZE || chunk.getInt(0) != TrainingPositionFormat.MAGIC
+				|| chunk.getInt(4) != TrainingPositionFormat.VERSION) {
+			throw new IOException("File " + path + " is not a chunk of positions of version " + TrainingPositionFormat.VERSION);
+		}
+		int size = chunk.getShort(8);
+		int winCount = chunk.getShort(10);
+		int count = chunk.getInt(TrainingPositionFormat.COUNT_OFFSET);
+		if (size <= 0 || winCount <= 1 || count < 0
+				|| TrainingPositionFormat.HEADER_SIZE + (long) count * TrainingPositionFormat.getPositionSize(size) > chunk.limit()) {
+			throw new IOException("Chunk " + path + " is corrupt: size=" + size + ", winCount=" + winCount + ", count=" + count);
+		}
+		return new int[] {size, winCount, count};
+	}
+
+	public long getPositionCount() {
+		return firstIndexes[chunks.length];
+	}
+
+	public int getChunkCount() {
+		return chunks.length;
+	}
+	// reading the position with the index 0..getPositionCount() - 1 to the given one
+	public void read(long index, TrainingPosition position) {
+		if (index < 0 || index >= getPositionCount()) {
+			throw new IndexOutOfBoundsException("Invalid position index: index=" + index + ", positions=" + getPositionCount());
+		}
+		int chunk = Arrays.binarySearch(firstIndexes, index);
+		// chunks aren't empty, so an exact match is the first position of the chunk
+		chunk = chunk >= 0 ? chunk : -chunk - 2;
+		int size = sizes[chunk];
+		int offset = TrainingPositionFormat.HEADER_SIZE + (int) (index - firstIndexes[chunk]) * TrainingPositionFormat.getPositionSize(size);
+		TrainingPositionFormat.readPosition(chunks[chunk], offset, size, winCounts[chunk], position);
+	}
+	// reading a uniformly random position, a sample of positions of different games is shuffled
+	public void sample(Random random, TrainingPosition position) {
+		long count = getPositionCount();
+		if (count == 0) {
+			throw new IllegalStateException("There are no positions");
+		}
+		read(count <= Integer.MAX_VALUE ? random.nextInt((int) count) : (long) (random.nextDouble() * count), position);
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1 && (args.length != 3 || !"--print".equals(args[1]))) {
+			System.err.println("Usage: PositionReader DIRECTORY [--print N]");
+			System.exit(1);
+		}
+		long startTime = System.nanoTime();
+		PositionReader reader = open(Paths.get(args[0]));
+		TrainingPosition position = new TrainingPosition();
+		if (args.length == 3) {
+			Random random = new Random();
+			for (int i = Integer.parseInt(args[2]); i > 0 && reader.getPositionCount() > 0; i--) {
+				reader.sample(random, position);
+				System.out.println(position);
+			}
+			return;
+		}
+		long[] results = new long[TrainingPosition.WIN + 1];
+		long searched = 0;
+		long stones = 0;
+		for (long i = 0; i < reader.getPositionCount(); i++) {
+			reader.read(i, position);
+			results[position.getResult()]++;
+			searched += position.isSearched() ? 1 : 0;
+			stones += position.getStoneCount();
+		}
+		long count = Math.max(reader.getPositionCount(), 1);
+		long millis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), 1);
+		System.out.printf("chunks: %d, positions: %d, wins: %d, draws: %d, losses: %d (for the side to move)%n", reader.getChunkCount(),
+				reader.getPositionCount(), results[TrainingPosition.WIN], results[TrainingPosition.DRAW], results[TrainingPosition.LOSS]);
+		System.out.printf("searched evaluations: %.1f%%, stones/position: %.1f, time: %d ms, positions/s: %d%n", 100.0 * searched / count,
+				stones / (double) count, millis, reader.getPositionCount() * 1000 / millis);
+	}
+}
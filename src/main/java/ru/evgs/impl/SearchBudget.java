@@ -0,0 +1,44 @@
+package ru.evgs.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+// budget of one turn shared by all search threads: count of nodes and the deadline
+// searchers report their nodes by chunks, so the shared counter isn't touched on every node
+// the budget is also over when the thread which has created it is interrupted, e.g. when the turn is cancelled
+class SearchBudget {
+	private final long nodeLimit;
+	private final long deadline;
+	private final Thread owner = Thread.currentThread();
+	private final AtomicLong nodes = new AtomicLong();
+	private volatile boolean stopped;
+
+	SearchBudget(long nodeLimit, long deadlineNanos) {
+		this.nodeLimit = nodeLimit;
+		this.deadline = deadlineNanos;
+	}
+	// deadline of the time limit from the start time, it saturates, so a huge limit (e.g. Long.MAX_VALUE) means no deadline
+	static long getDeadline(long startNanos, long timeLimitMillis) {
+		long limitNanos = TimeUnit.MILLISECONDS.toNanos(timeLimitMillis);
+		return startNanos > 0 && limitNanos > Long.MAX_VALUE - startNanos ? Long.MAX_VALUE : startNanos + limitNanos;
+	}
+	// count of nodes of a chunk reported by a searcher: the preferred count, but not more than the node limit,
+	// so a small limit isn't overrun by a whole chunk
+	int getChunkSize(int preferredSize) {
+		return (int) Math.max(1, Math.min(preferredSize, nodeLimit));
+	}
+	// adding searched nodes, returns false if the budget is over
+	boolean addNodes(long count) {
+		if (!stopped && (nodes.addAndGet(count) >= nodeLimit || System.nanoTime() >= deadline || owner.isInterrupted())) {
+			stopped = true;
+		}
+		return !stopped;
+	}
+	// stopping all searches, e.g. when the main search thread has finished
+	void stop() {
+		stopped = true;
+	}
+
+	boolean isStopped() {
+		return stopped;
+	}
+}
@@ -0,0 +1,138 @@
+package ru.evgs.impl;
+
+import java.util.Arrays;
+
+import ru.evgs.CellValue;
+// game table which keeps only stones: an open addressing hash map (linear probing) from cell to stone
+// memory and scanning of stones depend on the count of stones, not on the area of the field,
+// so the field can be up to MAX_SIZE x MAX_SIZE, that's effectively infinite for the game
+public class SparseGameTable extends AbstractGameTable {
+	// the largest size, for which cell row * size + col fits int
+	public static final int MAX_SIZE = 46340;
+	private static final int FREE = -1;
+	private static final int INITIAL_CAPACITY = 64;
+	// cells of stones encoded as row * size + col, FREE for free slots
+	private int[] cells;
+	private CellValue[] values;
+	private int count;
+	private int mask;
+
+	public SparseGameTable() {
+		// setting a size of game table by default values
+		this(DefaultConstants.SIZE);
+	}
+
+	public SparseGameTable(int size) {
+		super(checkSize(size));
+		allocate(INITIAL_CAPACITY);
+	}
+
+	private static int checkSize(int size) {
+		if (size > MAX_SIZE) {
+			throw new IllegalArgumentException("Size of sparse game table is too large: size=" + size + ". Required <= " + MAX_SIZE);
+		}
+		return size;
+	}
+
+	private void allocate(int capacity) {
+		cells = new int[capacity];
+		Arrays.fill(cells, FREE);
+		values = new CellValue[capacity];
+		mask = capacity - 1;
+		count = 0;
+	}
+	// Fibonacci hashing spreads neighbouring cells over the table
+	private int slot(int cell) {
+		int hash = cell * 0x9E3779B9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+	// index of the slot of the cell, or of the free slot where it should be put
+	private int find(int cell) {
+		int index = slot(cell);
+		while (cells[index] != FREE && cells[index] != cell) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	@Override
+	protected CellValue readCell(int row, int col) {
+		int index = find(row * getSize() + col);
+		return cells[index] == FREE ? CellValue.EMPTY : values[index];
+	}
+
+	@Override
+	protected void writeCell(int row, int col, CellValue cellValue) {
+		int cell = row * getSize() + col;
+		int index = find(cell);
+		if (cellValue == CellValue.EMPTY) {
+			if (cells[index] != FREE) {
+				remove(index);
+			}
+		} else if (cells[index] == cell) {
+			values[index] = cellValue;
+		} else {
+			cells[index] = cell;
+			values[index] = cellValue;
+			// load factor is kept not more than 1/2, so probe sequences stay short
+			if (++count * 2 > cells.length) {
+				rehash(cells.length * 2);
+			}
+		}
+	}
+	// backward shift deletion: the following entries of the probe sequence are moved to the freed slot,
+	// so there are no tombstones and lookups never slow down
+	private void remove(int index) {
+		count--;
+		int free = index;
+		int next = (index + 1) & mask;
+		while (cells[next] != FREE) {
+			int home = slot(cells[next]);
+			// the entry can be moved if its home slot is not between the free slot and its current slot
+			if (((next - home) & mask) >= ((next - free) & mask)) {
+				cells[free] = cells[next];
+				values[free] = values[next];
+				free = next;
+			}
+			next = (next + 1) & mask;
+		}
+		cells[free] = FREE;
+		values[free] = null;
+	}
+
+	private void rehash(int capacity) {
+		int[] oldCells = cells;
+		CellValue[] oldValues = values;
+		allocate(capacity);
+		for (int i = 0; i < oldCells.length; i++) {
+			if (oldCells[i] != FREE) {
+				int index = find(oldCells[i]);
+				cells[index] = oldCells[i];
+				values[index] = oldValues[i];
+				count++;
+			}
+		}
+	}
+
+	@Override
+	protected void clearCells() {
+		if (cells.length > INITIAL_CAPACITY) {
+			allocate(INITIAL_CAPACITY);
+		} else {
+			Arrays.fill(cells, FREE);
+			Arrays.fill(values, null);
+			count = 0;
+		}
+	}
+	// only slots of the hash map are visited
+	@Override
+	public int getStoneCells(int[] buffer) {
+		int stones = 0;
+		for (int i = 0; i < cells.length; i++) {
+			if (cells[i] != FREE) {
+				buffer[stones++] = cells[i];
+			}
+		}
+		return stones;
+	}
+}
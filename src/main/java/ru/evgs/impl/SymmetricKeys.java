@@ -0,0 +1,132 @@
+package ru.evgs.impl;
+
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.MoveListener;
+// Zobrist keys of the position in all 8 symmetries of the square field (rotations and reflections): the key of
+// a symmetry is xor of keys of stones moved by it, so a move updates every key by one xor; the canonical key is
+// the smallest of them, so symmetric positions share one entry of a cache, a book or a set of exported positions
+// the canonical symmetry maps moves of the position to moves of the canonical position (transform) and back (inverse)
+// the key of IDENTITY is the hash of GameTable, so entries stored by plain keys are found for canonical positions
+public class SymmetricKeys implements MoveListener {
+	public static final int SYMMETRY_COUNT = 8;
+	// a symmetry is a set of the steps, they are made in this order: rows and columns are swapped, then rows
+	// are reversed, then columns are reversed
+	public static final int IDENTITY = 0;
+	public static final int TRANSPOSE = 1;
+	public static final int FLIP_ROWS = 2;
+	public static final int FLIP_COLS = 4;
+	private final int size;
+	private final ZobristKeys zobristKeys;
+	private final long[] keys = new long[SYMMETRY_COUNT];
+	private int[] stones = new int[64];
+
+	public SymmetricKeys(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Invalid size: size=" + size);
+		}
+		this.size = size;
+		zobristKeys = new ZobristKeys(size);
+	}
+	// initialization by the position of the game table, only its stones are read, so it's fast early in the game
+	public void setPosition(GameTable gameTable) {
+		if (gameTable.getSize() != size) {
+			throw new IllegalArgumentException("Invalid game table: size=" + gameTable.getSize() + ", required " + size);
+		}
+		reset();
+		if (stones.length < gameTable.getStoneCount()) {
+			stones = new int[gameTable.getStoneCount() * 2];
+		}
+		int count = gameTable.getStoneCells(stones);
+		for (int i = 0; i < count; i++) {
+			int row = stones[i] / size;
+			int col = stones[i] % size;
+			update(row, col, gameTable.getValue(row, col));
+		}
+	}
+
+	@Override
+	public void makeMove(int row, int col, CellValue cellValue) {
+		update(row, col, cellValue);
+	}
+	// xor removes the key of the stone
+	@Override
+	public void undoMove(int row, int col, CellValue cellValue) {
+		update(row, col, cellValue);
+	}
+
+	@Override
+	public void reset() {
+		for (int i = 0; i < SYMMETRY_COUNT; i++) {
+			keys[i] = 0;
+		}
+	}
+
+	private void update(int row, int col, CellValue cellValue) {
+		int last = size - 1;
+		keys[0] ^= zobristKeys.getKey(row, col, cellValue);
+		keys[1] ^= zobristKeys.getKey(col, row, cellValue);
+		keys[2] ^= zobristKeys.getKey(last - row, col, cellValue);
+		keys[3] ^= zobristKeys.getKey(last - col, row, cellValue);
+		keys[4] ^= zobristKeys.getKey(row, last - col, cellValue);
+		keys[5] ^= zobristKeys.getKey(col, last - row, cellValue);
+		keys[6] ^= zobristKeys.getKey(last - row, last - col, cellValue);
+		keys[7] ^= zobristKeys.getKey(last - col, last - row, cellValue);
+	}
+	// key of stones moved by the symmetry
+	public long getKey(int symmetry) {
+		return keys[symmetry];
+	}
+	// the symmetry with the smallest key, the smallest symmetry of equal keys, so IDENTITY if it's one of them
+	public int getCanonicalSymmetry() {
+		int symmetry = IDENTITY;
+		for (int i = 1; i < SYMMETRY_COUNT; i++) {
+			if (keys[i] < keys[symmetry]) {
+				symmetry = i;
+			}
+		}
+		return symmetry;
+	}
+
+	public long getCanonicalKey() {
+		return keys[getCanonicalSymmetry()];
+	}
+	// canonical key with the side to move, the side key doesn't depend on the symmetry
+	public long getCanonicalKey(CellValue sideToMove) {
+		return getCanonicalKey() ^ zobristKeys.getSideKey(sideToMove);
+	}
+	// the cell (row * size + col) moved by the symmetry
+	public static int transform(int size, int symmetry, int cell) {
+		int row = cell / size;
+		int col = cell % size;
+		if ((symmetry & TRANSPOSE) != 0) {
+			int swapped = row;
+			row = col;
+			col = swapped;
+		}
+		if ((symmetry & FLIP_ROWS) != 0) {
+			row = size - 1 - row;
+		}
+		if ((symmetry & FLIP_COLS) != 0) {
+			col = size - 1 - col;
+		}
+		return row * size + col;
+	}
+	// the cell moved back, the steps of the symmetry are reverted in the reverse order
+	public static int inverse(int size, int symmetry, int cell) {
+		int row = cell / size;
+		int col = cell % size;
+		if ((symmetry & FLIP_COLS) != 0) {
+			col = size - 1 - col;
+		}
+		if ((symmetry & FLIP_ROWS) != 0) {
+			row = size - 1 - row;
+		}
+		if ((symmetry & TRANSPOSE) != 0) {
+			int swapped = row;
+			row = col;
+			col = swapped;
+		}
+		return row * size + col;
+	}
+}
@@ -0,0 +1,348 @@
+package ru.evgs.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+// threat-space search of a forced win: the attacker makes only threats, so the defender has just a few replies
+// - VCF (victory by continuous fours): every attacker turn makes a four, the defender must block it
+// - VCT (victory by continuous threats): attacker turns are fours or open threes, the defender may block
+//   the three by any defence cell or answer by his own four
+// threats are found by the same patterns of winCount cells by row, col, main and not main diagonal as the computer turn uses:
+// a pattern without opponent stones and with one empty cell is a four, with two empty cells it's a candidate for a three
+public class ThreatSpaceSearch {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ThreatSpaceSearch.class);
+	// default limits of one search
+	public static final int DEFAULT_MAX_DEPTH = 8;
+	public static final long DEFAULT_TIME_LIMIT_MILLIS = 100;
+	// the smallest win count, for which a three differs from a two
+	public static final int MIN_WIN_COUNT = 4;
+	private final int maxDepth;
+	private final long timeLimitMillis;
+	private final int winCount;
+	private GameTable board;
+	private int size;
+	// buffers per ply: attacker threats and defender replies
+	private int[][] threats;
+	private int[][] replies;
+	private int[] completions;
+	// marks of cells already added to a buffer, stamp is increased instead of clearing marks
+	private int[] marks;
+	private int stamp;
+	private long nodes;
+	private long deadline;
+	// budget of the turn, which the search is a part of, or null
+	private SearchBudget budget;
+	private boolean aborted;
+
+	public ThreatSpaceSearch() {
+		this(DEFAULT_MAX_DEPTH, DEFAULT_TIME_LIMIT_MILLIS);
+	}
+	// maxDepth is the max count of attacker turns in the winning sequence
+	public ThreatSpaceSearch(int maxDepth, long timeLimitMillis) {
+		this(maxDepth, timeLimitMillis, DefaultConstants.WIN_COUNT);
+	}
+	// threes and fours are defined for winCount, so it can't be smaller than MIN_WIN_COUNT
+	public ThreatSpaceSearch(int maxDepth, long timeLimitMillis, int winCount) {
+		if (maxDepth <= 0 || timeLimitMillis <= 0) {
+			throw new IllegalArgumentException("Limits of threat search must be positive: maxDepth=" + maxDepth + ", timeLimitMillis=" + timeLimitMillis);
+		}
+		if (winCount < MIN_WIN_COUNT) {
+			throw new IllegalArgumentException("Win count of threat search is small: winCount=" + winCount + ". Required >= " + MIN_WIN_COUNT);
+		}
+		this.maxDepth = maxDepth;
+		this.timeLimitMillis = timeLimitMillis;
+		this.winCount = winCount;
+	}
+	// finding the first turn of a victory by continuous fours, returns null if it isn't found in limits
+	// the game table isn't changed
+	public Cell findVcf(GameTable gameTable, CellValue attacker) {
+		return find(gameTable, attacker, false, null);
+	}
+	// finding the first turn of a victory by continuous fours and threes, returns null if it isn't found in limits
+	public Cell findVct(GameTable gameTable, CellValue attacker) {
+		return find(gameTable, attacker, true, null);
+	}
+	// the searches as a part of the turn: nodes are counted by the budget of the turn, and the search stops
+	// when the budget is over, so the time and nodes of the threat search come out of the turn budget
+	Cell findVcf(GameTable gameTable, CellValue attacker, SearchBudget budget) {
+		return find(gameTable, attacker, false, budget);
+	}
+
+	Cell findVct(GameTable gameTable, CellValue attacker, SearchBudget budget) {
+		return find(gameTable, attacker, true, budget);
+	}
+
+	private Cell find(GameTable gameTable, CellValue attacker, boolean withThrees, SearchBudget budget) {
+		if (attacker != CellValue.HUMAN && attacker != CellValue.COMPUTER) {
+			throw new IllegalArgumentException("Attacker must be a player: " + attacker);
+		}
+		long startTime = System.nanoTime();
+		setPosition(gameTable);
+		nodes = 0;
+		aborted = false;
+		deadline = SearchBudget.getDeadline(startTime, timeLimitMillis);
+		this.budget = budget;
+		try {
+			// deepening finds the shortest win first
+			for (int depth = 1; depth <= maxDepth && !aborted; depth++) {
+				int move = attack(attacker, depth, withThrees, 0);
+				if (move >= 0) {
+					Cell cell = new Cell(move / size, move % size);
+					LOGGER.debug("{} found for {} in {} turns: first turn {}, nodes {}", withThrees ? "VCT" : "VCF", attacker, depth, cell, nodes);
+					return cell;
+				}
+			}
+		} finally {
+			this.budget = null;
+		}
+		LOGGER.trace("{} not found for {}: nodes {}, aborted {}", withThrees ? "VCT" : "VCF", attacker, nodes, aborted);
+		return null;
+	}
+	// copying position, buffers are reallocated only if the size of game table is changed
+	private void setPosition(GameTable gameTable) {
+		if (board == null || size != gameTable.getSize()) {
+			size = gameTable.getSize();
+			board = new BitBoardGameTable(size);
+			threats = new int[maxDepth + 1][size * size];
+			replies = new int[maxDepth + 1][size * size];
+			completions = new int[size * size];
+			marks = new int[size * size];
+		}
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				board.setValue(i, j, gameTable.getValue(i, j));
+			}
+		}
+	}
+	// searching a forced win of the attacker in depth turns, returns the first turn or -1
+	private int attack(CellValue attacker, int depth, boolean withThrees, int ply) {
+		// every node scans the whole field, so the time and the budget are checked by every node: it's cheap compared
+		// with the scan and the limit holds on large fields too; an interrupted (cancelled) turn stops the search as well
+		nodes++;
+		if (System.nanoTime() >= deadline || Thread.currentThread().isInterrupted() || (budget != null && !budget.addNodes(1))) {
+			aborted = true;
+		}
+		CellValue defender = AlphaBetaSearcher.opposite(attacker);
+		if (collectCompletions(attacker, completions) > 0) {
+			return completions[0];
+		}
+		if (depth == 0 || aborted) {
+			return -1;
+		}
+		// the four of the defender must be blocked, two fours can't be blocked at all
+		int defenderCompletions = collectCompletions(defender, completions);
+		if (defenderCompletions > 1) {
+			return -1;
+		}
+		int blockCell = defenderCompletions == 1 ? completions[0] : -1;
+		int[] plyThreats = threats[ply];
+		int count = collectThreats(attacker, withThrees, plyThreats);
+		for (int i = 0; i < count && !aborted; i++) {
+			int move = plyThreats[i];
+			if (blockCell >= 0 && move != blockCell) {
+				continue;
+			}
+			makeMove(move, attacker);
+			boolean win = defend(attacker, depth, withThrees, ply);
+			board.undoMove();
+			if (win) {
+				return move;
+			}
+		}
+		return -1;
+	}
+	// checking that the attacker wins against every reply of the defender to the turn just made
+	private boolean defend(CellValue attacker, int depth, boolean withThrees, int ply) {
+		CellValue defender = AlphaBetaSearcher.opposite(attacker);
+		int[] plyReplies = replies[ply];
+		int count = collectCompletions(attacker, plyReplies);
+		if (count > 1) {
+			// open four or double four
+			return true;
+		}
+		if (count == 0) {
+			// not a four, so it must be a three: the defender blocks it or makes his own four
+			if (!withThrees) {
+				return false;
+			}
+			count = collectThreeDefences(attacker, plyReplies);
+			if (count < 0) {
+				return false;
+			}
+			// no defence cells means a double three, then only fours of the defender are left
+			int mark = ++stamp;
+			for (int i = 0; i < count; i++) {
+				marks[plyReplies[i]] = mark;
+			}
+			count = collectPatternCells(defender, winCount - 2, plyReplies, count, mark);
+		}
+		for (int i = 0; i < count; i++) {
+			int reply = plyReplies[i];
+			makeMove(reply, defender);
+			boolean win = !isFive(reply, defender) && attack(attacker, depth - 1, withThrees, ply + 1) >= 0;
+			board.undoMove();
+			if (!win) {
+				return false;
+			}
+		}
+		return true;
+	}
+	// collecting empty cells which complete a line of winCount stones of the side
+	private int collectCompletions(CellValue side, int[] buffer) {
+		return collectPatternCells(side, winCount - 1, buffer, 0, ++stamp);
+	}
+	// collecting empty cells which make a four (and a three candidate if it's needed) of the side
+	private int collectThreats(CellValue side, boolean withThrees, int[] buffer) {
+		int mark = ++stamp;
+		int count = collectPatternCells(side, winCount - 2, buffer, 0, mark);
+		if (withThrees) {
+			count = collectPatternCells(side, winCount - 3, buffer, count, mark);
+		}
+		return count;
+	}
+	// scanning all patterns of winCount cells in all directions: the pattern with notBlankCount stones of the side
+	// and empty other cells gives all its empty cells
+	private int collectPatternCells(CellValue side, int notBlankCount, int[] buffer, int count, int mark) {
+		for (LineDirection direction : LineDirection.ALL) {
+			for (int i = 0; i < size; i++) {
+				for (int j = 0; j < size; j++) {
+					int lastRow = i + (winCount - 1) * direction.rowStep;
+					int lastCol = j + (winCount - 1) * direction.colStep;
+					if (lastRow >= size || lastCol < 0 || lastCol >= size) {
+						continue;
+					}
+					int stones = 0;
+					boolean blocked = false;
+					for (int k = 0; k < winCount && !blocked; k++) {
+						CellValue value = board.getValue(i + k * direction.rowStep, j + k * direction.colStep);
+						if (value == side) {
+							stones++;
+						} else if (value != CellValue.EMPTY) {
+							blocked = true;
+						}
+					}
+					if (!blocked && stones == notBlankCount) {
+						for (int k = 0; k < winCount; k++) {
+							int cell = (i + k * direction.rowStep) * size + j + k * direction.colStep;
+							if (marks[cell] != mark && board.isCellFree(cell / size, cell % size)) {
+								marks[cell] = mark;
+								buffer[count++] = cell;
+							}
+						}
+					}
+				}
+			}
+		}
+		return count;
+	}
+	// collecting cells which defend all open threes of the attacker: after the defender stone on such cell
+	// the attacker can't make an open four (four with two completions) anymore
+	// returns -1 if the attacker has no open three at all
+	private int collectThreeDefences(CellValue attacker, int[] buffer) {
+		int threatCount = collectOpenFourCells(attacker, completions);
+		if (threatCount == 0) {
+			return -1;
+		}
+		CellValue defender = AlphaBetaSearcher.opposite(attacker);
+		// candidates are open four cells and cells of patterns with them
+		int[] candidates = threats[threats.length - 1];
+		int mark = ++stamp;
+		int candidateCount = 0;
+		for (int i = 0; i < threatCount; i++) {
+			int cell = completions[i];
+			for (LineDirection direction : LineDirection.ALL) {
+				for (int k = -(winCount - 1); k < winCount; k++) {
+					int r = cell / size + k * direction.rowStep;
+					int c = cell % size + k * direction.colStep;
+					if (r >= 0 && r < size && c >= 0 && c < size && marks[r * size + c] != mark && board.isCellFree(r, c)) {
+						marks[r * size + c] = mark;
+						candidates[candidateCount++] = r * size + c;
+					}
+				}
+			}
+		}
+		int count = 0;
+		for (int i = 0; i < candidateCount; i++) {
+			int cell = candidates[i];
+			makeMove(cell, defender);
+			boolean defended = collectOpenFourCells(attacker, completions) == 0;
+			board.undoMove();
+			if (defended) {
+				buffer[count++] = cell;
+			}
+		}
+		return count;
+	}
+	// collecting empty cells where the side makes an open four
+	private int collectOpenFourCells(CellValue side, int[] buffer) {
+		int[] candidates = replies[replies.length - 1];
+		int candidateCount = collectPatternCells(side, winCount - 2, candidates, 0, ++stamp);
+		int count = 0;
+		for (int i = 0; i < candidateCount; i++) {
+			int cell = candidates[i];
+			makeMove(cell, side);
+			if (countCompletionsNear(cell, side) > 1) {
+				buffer[count++] = cell;
+			}
+			board.undoMove();
+		}
+		return count;
+	}
+	// counting distinct completions of the side in patterns through the cell
+	private int countCompletionsNear(int cell, CellValue side) {
+		int first = -1;
+		int row = cell / size;
+		int col = cell % size;
+		for (LineDirection direction : LineDirection.ALL) {
+			for (int start = -(winCount - 1); start <= 0; start++) {
+				int empty = -1;
+				int stones = 0;
+				boolean inside = true;
+				for (int k = start; k < start + winCount && inside; k++) {
+					int r = row + k * direction.rowStep;
+					int c = col + k * direction.colStep;
+					if (r < 0 || r >= size || c < 0 || c >= size) {
+						inside = false;
+					} else {
+						CellValue value = board.getValue(r, c);
+						if (value == side) {
+							stones++;
+						} else if (value == CellValue.EMPTY) {
+							empty = r * size + c;
+						}
+					}
+				}
+				if (inside && stones == winCount - 1 && empty >= 0) {
+					if (first < 0) {
+						first = empty;
+					} else if (first != empty) {
+						return 2;
+					}
+				}
+			}
+		}
+		return first < 0 ? 0 : 1;
+	}
+	// checking that the stone on the cell made a line of winCount stones
+	private boolean isFive(int cell, CellValue side) {
+		int row = cell / size;
+		int col = cell % size;
+		for (LineDirection direction : LineDirection.ALL) {
+			int count = 1 + direction.countStones(board, row, col, side, -1, winCount - 1);
+			if (count + direction.countStones(board, row, col, side, 1, winCount - count) >= winCount) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void makeMove(int cell, CellValue cellValue) {
+		board.makeMove(cell / size, cell % size, cellValue);
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+}
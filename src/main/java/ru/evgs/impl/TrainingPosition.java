@@ -0,0 +1,140 @@
+package ru.evgs.impl;
+
+import java.util.Arrays;
+
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+// position of a finished game for offline analysis and fitting: stones, the side to move, the result of the game for
+// the side to move and the evaluation of the position for the side to move
+// positions are written by PositionExporter and read by PositionReader, one position can be reused for every read
+public class TrainingPosition {
+	// results of the game for the side to move in half points
+	public static final int LOSS = 0;
+	public static final int DRAW = 1;
+	public static final int WIN = 2;
+	private int size;
+	private int winCount;
+	private long key;
+	private int stoneCount;
+	private CellValue sideToMove = CellValue.HUMAN;
+	private int result;
+	private int evaluation;
+	private boolean searched;
+	// bits of computer stones, then bits of human stones, a cell is the bit row * size + col
+	private byte[] bits = new byte[0];
+
+	// empty position of the standard field, e.g. to be filled by the reader
+	public TrainingPosition() {
+		reset(DefaultConstants.SIZE, DefaultConstants.WIN_COUNT);
+	}
+	// clearing stones for the field, the array of bits is reused if it's large enough
+	void reset(int size, int winCount) {
+		this.size = size;
+		this.winCount = winCount;
+		int length = 2 * TrainingPositionFormat.getBitsSize(size);
+		if (bits.length < length) {
+			bits = new byte[length];
+		} else {
+			Arrays.fill(bits, (byte) 0);
+		}
+		stoneCount = 0;
+	}
+
+	void setStone(int row, int col, CellValue cellValue) {
+		int cell = row * size + col;
+		int offset = cellValue == CellValue.COMPUTER ? 0 : TrainingPositionFormat.getBitsSize(size);
+		bits[offset + (cell >>> 3)] |= 1 << (cell & 7);
+		stoneCount++;
+	}
+
+	void setState(long key, CellValue sideToMove, int result, int evaluation, boolean searched) {
+		this.key = key;
+		this.sideToMove = sideToMove;
+		this.result = result;
+		this.evaluation = evaluation;
+		this.searched = searched;
+	}
+	// bits are read and written by TrainingPositionFormat
+	byte[] getBits() {
+		return bits;
+	}
+
+	void setStoneCount(int stoneCount) {
+		this.stoneCount = stoneCount;
+	}
+
+	public CellValue getValue(int row, int col) {
+		if (row < 0 || row >= size || col < 0 || col >= size) {
+			throw new IndexOutOfBoundsException("Invalid cell: row=" + row + ", col=" + col + ", size=" + size);
+		}
+		int cell = row * size + col;
+		int mask = 1 << (cell & 7);
+		if ((bits[cell >>> 3] & mask) != 0) {
+			return CellValue.COMPUTER;
+		}
+		return (bits[TrainingPositionFormat.getBitsSize(size) + (cell >>> 3)] & mask) != 0 ? CellValue.HUMAN : CellValue.EMPTY;
+	}
+	// putting stones of the position on the empty game table of the same size
+	public void copyTo(GameTable gameTable) {
+		if (gameTable.getSize() != size) {
+			throw new IllegalArgumentException("Invalid game table: size=" + gameTable.getSize() + ", required " + size);
+		}
+		gameTable.reInit();
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				CellValue cellValue = getValue(i, j);
+				if (cellValue != CellValue.EMPTY) {
+					gameTable.setValue(i, j, cellValue);
+				}
+			}
+		}
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getWinCount() {
+		return winCount;
+	}
+	// canonical key of stones and the side to move (see SymmetricKeys), symmetric positions have the same key
+	public long getKey() {
+		return key;
+	}
+
+	public int getStoneCount() {
+		return stoneCount;
+	}
+
+	public CellValue getSideToMove() {
+		return sideToMove;
+	}
+	// one of LOSS, DRAW, WIN for the side to move
+	public int getResult() {
+		return result;
+	}
+	// evaluation for the side to move, the score of the search or the static evaluation of PatternEvaluator
+	public int getEvaluation() {
+		return evaluation;
+	}
+	// the evaluation is the score of the search made by the engine in the game
+	public boolean isSearched() {
+		return searched;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("TrainingPosition[size=").append(size).append(", winCount=").append(winCount)
+				.append(", side=").append(sideToMove).append(", result=").append(result).append(", evaluation=").append(evaluation)
+				.append(searched ? " (search)" : " (static)").append(", stones=");
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				CellValue cellValue = getValue(i, j);
+				if (cellValue != CellValue.EMPTY) {
+					builder.append(cellValue == CellValue.COMPUTER ? " O" : " X").append(i).append(':').append(j);
+				}
+			}
+		}
+		return builder.append(']').toString();
+	}
+}
@@ -0,0 +1,61 @@
+package ru.evgs.impl;
+
+import java.nio.ByteBuffer;
+
+import ru.evgs.CellValue;
+// binary format of chunks of training positions, a chunk is a file of positions of one field
+// - header: int MAGIC, int VERSION, short size, short win count, int count of positions (big endian)
+// - positions of the same length, so the position i starts at HEADER_SIZE + i * getPositionSize(size):
+//   long key, int count of stones, byte side to move (1 - human, 2 - computer), byte result for the side to move
+//   in half points, byte 1 if the evaluation is the score of the search or 0 if it's static, int evaluation,
+//   then bits of computer stones and bits of human stones, a cell is the bit row * size + col
+// a cell takes 2 bits instead of a byte, so a position of the standard field takes 77 bytes instead of 244
+final class TrainingPositionFormat {
+	static final int MAGIC = 0x474D4B50;
+	static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	// offset of the count of positions in the header, it's written when the chunk is complete
+	static final int COUNT_OFFSET = 12;
+	private static final int FIXED_SIZE = 19;
+
+	private TrainingPositionFormat() {
+	}
+
+	static int getBitsSize(int size) {
+		return (size * size + 7) / 8;
+	}
+
+	static int getPositionSize(int size) {
+		return FIXED_SIZE + 2 * getBitsSize(size);
+	}
+
+	static void writeHeader(ByteBuffer buffer, int size, int winCount, int count) {
+		buffer.putInt(MAGIC).putInt(VERSION).putShort((short) size).putShort((short) winCount).putInt(count);
+	}
+	// writing the position to the buffer, it must have getPositionSize bytes remaining
+	static void writePosition(TrainingPosition position, ByteBuffer buffer) {
+		buffer.putLong(position.getKey());
+		buffer.putInt(position.getStoneCount());
+		buffer.put((byte) (position.getSideToMove() == CellValue.HUMAN ? 1 : 2));
+		buffer.put((byte) position.getResult());
+		buffer.put((byte) (position.isSearched() ? 1 : 0));
+		buffer.putInt(position.getEvaluation());
+		buffer.put(position.getBits(), 0, 2 * getBitsSize(position.getSize()));
+	}
+	// reading the position at the offset by absolute gets, so threads can read one buffer at the same time
+	static void readPosition(ByteBuffer buffer, int offset, int size, int winCount, TrainingPosition position) {
+		position.reset(size, winCount);
+		int side = buffer.get(offset + 12);
+		int result = buffer.get(offset + 13);
+		if ((side != 1 && side != 2) || result < TrainingPosition.LOSS || result > TrainingPosition.WIN) {
+			throw new IllegalArgumentException("Invalid position: side=" + side + ", result=" + result);
+		}
+		position.setState(buffer.getLong(offset), side == 1 ? CellValue.HUMAN : CellValue.COMPUTER, result,
+				buffer.getInt(offset + 15), buffer.get(offset + 14) != 0);
+		position.setStoneCount(buffer.getInt(offset + 8));
+		byte[] bits = position.getBits();
+		for (int i = 0; i < 2 * getBitsSize(size); i++) {
+			bits[i] = buffer.get(offset + FIXED_SIZE + i);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package ru.evgs.impl;
+// fixed-size hash table of searched positions, which can be used by any computer turn implementation
+// entries are stored in two primitive arrays, so storing doesn't allocate anything:
+// - data packs score (32 bits), move + 1 (20 bits), depth (7 bits), flag (2 bits) and generation (3 bits)
+// - key slot keeps key xor data, so an entry torn by a concurrent write is seen as a miss, not as a wrong hit;
+//   that's why the table can be shared by search threads without locks (counters are approximate then)
+// entries are grouped by buckets of two; a new position replaces the entry of an older search first,
+// then the entry with the smaller depth
+public class TranspositionTable {
+	// bytes of memory used by one entry
+	public static final int ENTRY_SIZE = 16;
+	// result of probe when position is not found
+	public static final long MISS = 0;
+	// the score is exact, or it's a lower bound (fail high), or it's an upper bound (fail low)
+	public static final int EXACT = 1;
+	public static final int LOWER_BOUND = 2;
+	public static final int UPPER_BOUND = 3;
+	// max cell index + 1 which fits to the move field
+	public static final int MAX_MOVES = (1 << 20) - 1;
+	private static final int BUCKET_SIZE = 2;
+	private final long[] keys;
+	private final long[] data;
+	private final int mask;
+	private int generation;
+	private long hits;
+	private long misses;
+	private long stores;
+	private long replacements;
+
+	public TranspositionTable(long memoryBytes) {
+		// count of entries is the largest power of 2 which fits the memory
+		long entries = Long.highestOneBit(Math.max(memoryBytes / ENTRY_SIZE, BUCKET_SIZE));
+		if (entries > (1 << 30)) {
+			throw new IllegalArgumentException("Memory of transposition table is too large: " + memoryBytes + " bytes");
+		}
+		keys = new long[(int) entries];
+		data = new long[(int) entries];
+		mask = (int) entries - 1;
+	}
+	// finding entry of the position, returns MISS if it isn't found
+	public long probe(long key) {
+		int index = bucketIndex(key);
+		for (int i = index; i < index + BUCKET_SIZE; i++) {
+			long entry = data[i];
+			if (entry != MISS && (keys[i] ^ entry) == key) {
+				hits++;
+				return entry;
+			}
+		}
+		misses++;
+		return MISS;
+	}
+	// storing result of the search of the position, move is -1 if there is no best move
+	public void store(long key, int move, int score, int depth, int flag) {
+		if (move < -1 || move >= MAX_MOVES || depth < 0 || depth > 127 || flag < EXACT || flag > UPPER_BOUND) {
+			throw new IllegalArgumentException("Invalid entry: move=" + move + ", depth=" + depth + ", flag=" + flag);
+		}
+		int index = bucketIndex(key);
+		int victim = -1;
+		for (int i = index; i < index + BUCKET_SIZE; i++) {
+			long entry = data[i];
+			if (entry == MISS || (keys[i] ^ entry) == key) {
+				// the same position or an empty slot
+				victim = i;
+				break;
+			}
+		}
+		if (victim < 0) {
+			victim = chooseVictim(index);
+			replacements++;
+		}
+		long entry = toEntry(move, score, depth, flag, generation);
+		data[victim] = entry;
+		keys[victim] = key ^ entry;
+		stores++;
+	}
+	// packing the entry, it's also the format of entries of the persistent position cache
+	static long toEntry(int move, int score, int depth, int flag, int generation) {
+		return ((long) score << 32) | ((long) (move + 1) << 12) | ((long) depth << 5) | ((long) flag << 3) | generation;
+	}
+	// replacement policy: entries of older searches first, then the shallower one
+	private int chooseVictim(int index) {
+		int victim = index;
+		int victimWeight = Integer.MAX_VALUE;
+		for (int i = index; i < index + BUCKET_SIZE; i++) {
+			long entry = data[i];
+			int weight = getDepth(entry) + (getGeneration(entry) == generation ? 128 : 0);
+			if (weight < victimWeight) {
+				victim = i;
+				victimWeight = weight;
+			}
+		}
+		return victim;
+	}
+
+	private int bucketIndex(long key) {
+		return (int) (key ^ (key >>> 32)) & mask & ~(BUCKET_SIZE - 1);
+	}
+	// marking the start of a new search, so entries of previous searches are replaced first
+	public void newSearch() {
+		generation = (generation + 1) & 7;
+	}
+	// removing all entries and zeroing counters
+	public void clear() {
+		for (int i = 0; i < data.length; i++) {
+			keys[i] = 0;
+			data[i] = 0;
+		}
+		hits = 0;
+		misses = 0;
+		stores = 0;
+		replacements = 0;
+	}
+
+	public static int getScore(long entry) {
+		return (int) (entry >> 32);
+	}
+
+	public static int getMove(long entry) {
+		return (int) ((entry >>> 12) & MAX_MOVES) - 1;
+	}
+
+	public static int getDepth(long entry) {
+		return (int) ((entry >>> 5) & 127);
+	}
+
+	public static int getFlag(long entry) {
+		return (int) ((entry >>> 3) & 3);
+	}
+
+	private static int getGeneration(long entry) {
+		return (int) (entry & 7);
+	}
+	// count of entries
+	public int getCapacity() {
+		return data.length;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	public long getMisses() {
+		return misses;
+	}
+
+	public long getStores() {
+		return stores;
+	}
+	// count of stores which have overwritten another position
+	public long getReplacements() {
+		return replacements;
+	}
+	// part of probes that found the position
+	public double getHitRate() {
+		long probes = hits + misses;
+		return probes == 0 ? 0 : (double) hits / probes;
+	}
+
+	@Override
+	public String toString() {
+		return "TranspositionTable[capacity=" + getCapacity() + ", hits=" + hits + ", misses=" + misses
+				+ ", stores=" + stores + ", replacements=" + replacements + "]";
+	}
+}
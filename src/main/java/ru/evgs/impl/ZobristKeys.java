@@ -0,0 +1,59 @@
+package ru.evgs.impl;
+
+import java.util.Random;
+
+import ru.evgs.CellValue;
+// random keys for Zobrist hashing of positions: the hash of a position is xor of keys of all its stones
+// keys are generated by the fixed seed, so the same position has the same hash in every game table and every JVM
+// for fields larger than MAX_TABLE_SIZE keys aren't stored, they are computed by mixing of the cell and the seed
+public class ZobristKeys {
+	private static final long SEED = 0x5DEECE66DL;
+	// the largest size of field with precomputed keys, it takes 2 * 256 * 256 longs = 1 MB
+	public static final int MAX_TABLE_SIZE = 256;
+	private final int size;
+	private final long[] humanKeys;
+	private final long[] computerKeys;
+	private final long computerToMoveKey;
+
+	public ZobristKeys(int size) {
+		this.size = size;
+		if (size > MAX_TABLE_SIZE) {
+			humanKeys = null;
+			computerKeys = null;
+			computerToMoveKey = mix(SEED);
+			return;
+		}
+		humanKeys = new long[size * size];
+		computerKeys = new long[size * size];
+		Random random = new Random(SEED);
+		for (int i = 0; i < humanKeys.length; i++) {
+			humanKeys[i] = random.nextLong();
+			computerKeys[i] = random.nextLong();
+		}
+		computerToMoveKey = random.nextLong();
+	}
+	// getting key of the stone on the cell, empty cell has zero key
+	public long getKey(int row, int col, CellValue cellValue) {
+		if (humanKeys == null) {
+			return cellValue == CellValue.HUMAN || cellValue == CellValue.COMPUTER
+					? mix(SEED + 2L * (row * (long) size + col) + (cellValue == CellValue.HUMAN ? 1 : 2)) : 0;
+		} else if (cellValue == CellValue.HUMAN) {
+			return humanKeys[row * size + col];
+		} else if (cellValue == CellValue.COMPUTER) {
+			return computerKeys[row * size + col];
+		} else {
+			return 0;
+		}
+	}
+	// getting key which distinguishes the same stones with the different side to move
+	public long getSideKey(CellValue sideToMove) {
+		return sideToMove == CellValue.COMPUTER ? computerToMoveKey : 0;
+	}
+	// splitmix64 finalizer, it gives well distributed keys for consecutive inputs
+	private static long mix(long value) {
+		long z = value * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,114 @@
+package ru.evgs.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+// JFR events of engines, the class is built by the profile of JDK 11+ (src/main/java11) and it's created by EngineEvents
+// only if jdk.jfr is available; events are returned as Object, so callers are verified without classes of jdk.jfr
+final class JfrEngineEvents implements EngineEvents.Events {
+	@Override
+	public Object beginTurn() {
+		MakeTurnEvent event = new MakeTurnEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void commitTurn(Object turnEvent, String engine, int cell, long nodes, long patterns) {
+		MakeTurnEvent event = (MakeTurnEvent) turnEvent;
+		event.end();
+		if (event.shouldCommit()) {
+			event.engine = engine;
+			event.cell = cell;
+			event.nodes = nodes;
+			event.patterns = patterns;
+			event.commit();
+		}
+	}
+
+	@Override
+	public Object beginWinCheck() {
+		WinCheckEvent event = new WinCheckEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void commitWinCheck(Object winCheckEvent, boolean byLastTurn, boolean winnerFound) {
+		WinCheckEvent event = (WinCheckEvent) winCheckEvent;
+		event.end();
+		if (event.shouldCommit()) {
+			event.byLastTurn = byLastTurn;
+			event.winnerFound = winnerFound;
+			event.commit();
+		}
+	}
+
+	@Override
+	public Object beginBoardScan() {
+		BoardScanEvent event = new BoardScanEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void commitBoardScan(Object scanEvent, String side, int stones, long patterns, boolean found) {
+		BoardScanEvent event = (BoardScanEvent) scanEvent;
+		event.end();
+		if (event.shouldCommit()) {
+			event.side = side;
+			event.stones = stones;
+			event.patterns = patterns;
+			event.found = found;
+			event.commit();
+		}
+	}
+
+	@Name("ru.evgs.MakeTurn")
+	@Label("Computer Turn")
+	@Category("Gomoku")
+	static class MakeTurnEvent extends Event {
+		@Label("Engine")
+		String engine;
+		@Label("Cell")
+		int cell;
+		@Label("Nodes")
+		long nodes;
+		@Label("Patterns")
+		long patterns;
+	}
+
+	@Name("ru.evgs.WinCheck")
+	@Label("Winner Check")
+	@Category("Gomoku")
+	static class WinCheckEvent extends Event {
+		@Label("By Last Turn")
+		boolean byLastTurn;
+		@Label("Winner Found")
+		boolean winnerFound;
+	}
+	// a phase of the scan of the default computer turn: lines of the side with the count of stones
+	@Name("ru.evgs.BoardScan")
+	@Label("Board Scan")
+	@Category("Gomoku")
+	static class BoardScanEvent extends Event {
+		@Label("Side")
+		String side;
+		@Label("Stones")
+		int stones;
+		@Label("Patterns")
+		long patterns;
+		@Label("Found")
+		boolean found;
+	}
+}
@@ -0,0 +1,117 @@
+package ru.evgs;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.evgs.impl.DefaultGameTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BoardComponentTest {
+	private static final int CELL_SIZE = 20;
+	private GameTable gameTable;
+	private BoardComponent board;
+	private final List<Integer> clickedCells = new ArrayList<>();
+
+	@Before
+	public void before() {
+		gameTable = new DefaultGameTable(100);
+		board = new BoardComponent(gameTable, CELL_SIZE);
+		board.setSize(board.getPreferredSize());
+		board.setCellClickListener(new BoardComponent.CellClickListener() {
+			@Override
+			public void cellClicked(int row, int col) {
+				clickedCells.add(row * gameTable.getSize() + col);
+			}
+		});
+	}
+
+	private void click(int x, int y) {
+		board.dispatchEvent(new MouseEvent(board, MouseEvent.MOUSE_CLICKED, System.currentTimeMillis(), 0, x, y, 1, false));
+	}
+	// painting of the region of one cell, so the test also checks that only the clip is painted
+	private BufferedImage paintCell(int row, int col) {
+		BufferedImage image = new BufferedImage(CELL_SIZE, CELL_SIZE, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = image.createGraphics();
+		g.translate(-col * CELL_SIZE, -row * CELL_SIZE);
+		g.setClip(col * CELL_SIZE, row * CELL_SIZE, CELL_SIZE, CELL_SIZE);
+		board.paint(g);
+		g.dispose();
+		return image;
+	}
+
+	// glyphs are antialiased, so a pixel close to the color is looked for
+	private static boolean containsColor(BufferedImage image, Color color) {
+		for (int x = 0; x < image.getWidth(); x++) {
+			for (int y = 0; y < image.getHeight(); y++) {
+				Color pixel = new Color(image.getRGB(x, y));
+				if (Math.abs(pixel.getRed() - color.getRed()) < 100 && Math.abs(pixel.getGreen() - color.getGreen()) < 100
+						&& Math.abs(pixel.getBlue() - color.getBlue()) < 100) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	@Test
+	public void testPreferredSize() {
+		assertEquals(100 * CELL_SIZE, board.getPreferredSize().width);
+		assertEquals(100 * CELL_SIZE, board.getPreferredSize().height);
+		assertEquals(BoardComponent.DEFAULT_CELL_SIZE, BoardComponent.getDefaultCellSize(15));
+		assertEquals(BoardComponent.MIN_CELL_SIZE, BoardComponent.getDefaultCellSize(1000));
+	}
+
+	@Test
+	public void testCellAt() {
+		assertEquals(0, board.getCellAt(0, 0));
+		assertEquals(3 * 100 + 7, board.getCellAt(7 * CELL_SIZE + 5, 3 * CELL_SIZE + CELL_SIZE - 1));
+		assertEquals(-1, board.getCellAt(-1, 0));
+		assertEquals(-1, board.getCellAt(0, 100 * CELL_SIZE));
+	}
+
+	@Test
+	public void testClick() {
+		click(42 * CELL_SIZE + 1, 99 * CELL_SIZE + 1);
+		assertEquals(Collections.singletonList(99 * 100 + 42), clickedCells);
+		// clicks out of the field and on the disabled board are ignored
+		board.setSize(101 * CELL_SIZE, 101 * CELL_SIZE);
+		click(100 * CELL_SIZE + 1, 1);
+		board.setEnabled(false);
+		click(1, 1);
+		assertEquals(1, clickedCells.size());
+	}
+
+	@Test
+	public void testPaint() {
+		assertFalse(containsColor(paintCell(50, 60), Color.BLUE));
+		gameTable.setValue(50, 60, CellValue.HUMAN);
+		gameTable.setValue(50, 61, CellValue.COMPUTER);
+		assertTrue(containsColor(paintCell(50, 60), Color.BLUE));
+		assertTrue(containsColor(paintCell(50, 61), Color.RED));
+		assertFalse(containsColor(paintCell(50, 61), Color.BLUE));
+		// the grid
+		assertEquals(Color.BLACK.getRGB(), paintCell(0, 0).getRGB(0, 0));
+	}
+
+	@Test
+	public void testWinnerCells() {
+		gameTable.setValue(1, 1, CellValue.COMPUTER);
+		board.markWinnerCells(Collections.singletonList(new Cell(1, 1)));
+		assertTrue(containsColor(paintCell(1, 1), Color.CYAN));
+		// a new game clears the marks
+		gameTable.reInit();
+		gameTable.setValue(1, 1, CellValue.COMPUTER);
+		assertFalse(containsColor(paintCell(1, 1), Color.CYAN));
+		assertTrue(containsColor(paintCell(1, 1), Color.RED));
+	}
+}
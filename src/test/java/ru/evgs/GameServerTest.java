@@ -0,0 +1,128 @@
+package ru.evgs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameServerTest {
+	private GameServer server;
+
+	@Before
+	public void before() throws IOException {
+		server = new GameServer(0, "default", 1, 2);
+		server.start();
+	}
+
+	@After
+	public void after() {
+		server.stop();
+	}
+	// response code and body
+	private String[] request(String method, String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+		connection.setRequestMethod(method);
+		int code = connection.getResponseCode();
+		try (InputStream input = code < 400 ? connection.getInputStream() : connection.getErrorStream();
+				Scanner scanner = new Scanner(input, "UTF-8")) {
+			return new String[] { String.valueOf(code), scanner.useDelimiter("\\A").hasNext() ? scanner.next() : "" };
+		}
+	}
+
+	@Test
+	public void testGame() throws IOException {
+		String[] response = request("POST", "/sessions");
+		assertEquals("200", response[0]);
+		assertTrue(response[1].contains("session=1\n"));
+		assertTrue(response[1].contains("state=" + GameServer.PLAYING));
+		response = request("POST", "/sessions/1/turn?row=7&col=7");
+		assertEquals("200", response[0]);
+		assertTrue(response[1].contains("human=7:7\n"));
+		assertTrue(response[1].contains("computer="));
+		// the cell is taken
+		assertEquals("409", request("POST", "/sessions/1/turn?row=7&col=7")[0]);
+		assertEquals("400", request("POST", "/sessions/1/turn?row=7")[0]);
+		assertEquals("200", request("DELETE", "/sessions/1")[0]);
+		assertEquals("404", request("POST", "/sessions/1/turn?row=1&col=1")[0]);
+		assertEquals(1, server.getTurnLatencies().getCount());
+	}
+
+	@Test
+	public void testComputerFirst() throws IOException {
+		String[] response = request("POST", "/sessions?first=computer");
+		assertEquals("200", response[0]);
+		assertTrue(response[1].contains("computer=7:7\n"));
+	}
+
+	@Test
+	public void testAlphaBetaSessions() throws IOException {
+		// engines of sessions share the transposition table and helper threads
+		server.stop();
+		server = new GameServer(0, "alphabeta:nodes=500,threads=2", 1, 2);
+		server.start();
+		assertEquals("200", request("POST", "/sessions")[0]);
+		assertEquals("200", request("POST", "/sessions?first=computer")[0]);
+		assertTrue(request("POST", "/sessions/1/turn?row=7&col=7")[1].contains("computer="));
+		assertTrue(request("POST", "/sessions/2/turn?row=0&col=0")[1].contains("computer="));
+	}
+
+	@Test
+	public void testTooManySessions() throws IOException {
+		assertEquals("200", request("POST", "/sessions")[0]);
+		assertEquals("200", request("POST", "/sessions")[0]);
+		assertEquals("503", request("POST", "/sessions")[0]);
+		assertEquals(1, server.getRejectedRequests());
+		// a closed session is reused by the next one
+		assertEquals("200", request("DELETE", "/sessions/1")[0]);
+		assertEquals("200", request("POST", "/sessions")[0]);
+		assertEquals(2, server.getActiveSessions());
+		assertTrue(request("GET", "/stats")[1].contains("created=3\n"));
+		// the reused session isn't found by the id of the closed one
+		assertEquals("404", request("POST", "/sessions/1/turn?row=1&col=1")[0]);
+		assertEquals("404", request("DELETE", "/sessions/1")[0]);
+	}
+
+	@Test
+	public void testConcurrentSessionsAreLimited() throws InterruptedException {
+		final AtomicInteger created = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if ("200".equals(request("POST", "/sessions")[0])) {
+							created.incrementAndGet();
+						}
+					} catch (IOException e) {
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(2, created.get());
+		assertEquals(2, server.getActiveSessions());
+	}
+
+	@Test
+	public void testLoadGenerator() throws InterruptedException {
+		LoadGenerator.LoadResult result = new LoadGenerator("localhost", server.getPort(), 2, 10, 15, 1).run();
+		assertEquals(10, result.getCompletedSessions());
+		assertEquals(0, result.getErrors() + result.getRejected());
+		assertTrue(result.getTurnLatencies().getPercentile(99) <= result.getTurnLatencies().getMax());
+		assertEquals(0, server.getActiveSessions());
+	}
+}
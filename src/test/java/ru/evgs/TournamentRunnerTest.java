@@ -0,0 +1,157 @@
+package ru.evgs;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.evgs.impl.AlphaBetaComputerTurn;
+import ru.evgs.impl.DefaultGameTable;
+import ru.evgs.impl.DefaultWinnerChecker;
+import ru.evgs.impl.GameRecord;
+import ru.evgs.impl.GameRecordReader;
+import ru.evgs.impl.GameRecordWriter;
+import ru.evgs.impl.PositionExporter;
+import ru.evgs.impl.PositionReader;
+import ru.evgs.impl.TrainingPosition;
+import ru.evgs.impl.TranspositionTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TournamentRunnerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testAllGamesArePlayed() throws InterruptedException {
+		TournamentRunner.TournamentResult result = new TournamentRunner(4, 2, "alphabeta:nodes=2000", "default", 2, 1).run();
+		assertEquals(0, result.getErrors());
+		assertEquals(4, result.getFirstWins() + result.getDraws() + result.getSecondWins());
+		assertTrue(result.getLatencyPercentile(0, 50) <= result.getLatencyPercentile(0, 100));
+		assertTrue(result.getGamesPerSecond() > 0);
+	}
+
+	@Test
+	public void testMctsGamesArePlayed() throws InterruptedException {
+		TournamentRunner.TournamentResult result = new TournamentRunner(2, 2, "mcts:playouts=2000,memory=8", "default", 2, 1).run();
+		assertEquals(0, result.getErrors());
+		assertEquals(2, result.getFirstWins() + result.getDraws() + result.getSecondWins());
+	}
+
+	@Test
+	public void testEngineThreadsAreReleased() throws InterruptedException {
+		int threads = countEngineThreads();
+		TournamentRunner.TournamentResult result = new TournamentRunner(4, 2, "alphabeta:nodes=2000,threads=2",
+				"alphabeta:nodes=2000,ponder=50", 2, 1).run();
+		assertEquals(0, result.getErrors());
+		result = new TournamentRunner(2, 2, "mcts:playouts=2000,memory=8,threads=2", "default", 2, 1).run();
+		assertEquals(0, result.getErrors());
+		// helper and ponder threads of engines of every game are shut down after the game
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (countEngineThreads() > threads && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(threads, countEngineThreads());
+	}
+
+	private static int countEngineThreads() {
+		int count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if ((thread.getName().startsWith("alpha-beta-") || thread.getName().startsWith("mcts-")) && thread.isAlive()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	@Test
+	public void testGamesAreRecorded() throws InterruptedException, IOException {
+		Path path = folder.newFile().toPath();
+		TournamentRunner runner = new TournamentRunner(4, 2, "alphabeta:nodes=2000", "default", 2, 1);
+		TournamentRunner.TournamentResult result;
+		try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+			runner.setGameRecordWriter(writer);
+			result = runner.run();
+		}
+		int computerWins = 0;
+		try (GameRecordReader reader = GameRecordReader.open(path)) {
+			GameRecord record = new GameRecord();
+			while (reader.next(record)) {
+				// the last move of the replayed game wins
+				GameTable gameTable = new DefaultGameTable(record.getSize());
+				record.replay(gameTable);
+				WinnerChecker winnerChecker = new DefaultWinnerChecker(record.getWinCount());
+				winnerChecker.setGameTable(gameTable);
+				int lastMove = record.getMove(record.getMoveCount() - 1);
+				assertEquals(record.getResult() != GameRecord.DRAW,
+						winnerChecker.isWinnerFoundByLastTurn(new Cell(lastMove / record.getSize(), lastMove % record.getSize())).winnerExists());
+				assertTrue(record.hasTimes());
+				if (record.getResult() == GameRecord.COMPUTER_WINS) {
+					computerWins++;
+				}
+			}
+			assertEquals(4, reader.getRecordCount());
+		}
+		assertEquals(result.getFirstWins(), computerWins);
+	}
+
+	@Test
+	public void testPositionsAreExported() throws InterruptedException, IOException {
+		Path directory = folder.newFolder().toPath();
+		TournamentRunner runner = new TournamentRunner(2, 2, "alphabeta:nodes=2000", "default", 2, 1);
+		try (PositionExporter exporter = PositionExporter.open(directory)) {
+			runner.setPositionExporter(exporter);
+			runner.run();
+		}
+		PositionReader reader = PositionReader.open(directory);
+		assertTrue(reader.getPositionCount() > 0);
+		TrainingPosition position = new TrainingPosition();
+		boolean searched = false;
+		for (int i = 0; i < reader.getPositionCount(); i++) {
+			reader.read(i, position);
+			searched |= position.isSearched();
+		}
+		assertTrue(searched);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooManyOpeningStones() {
+		// there are only 49 cells for opening stones
+		new TournamentRunner(1, 1, "default", "default", 50, 1);
+	}
+
+	@Test
+	public void testEnginesShareTable() {
+		TranspositionTable transpositionTable = TournamentRunner.createTranspositionTable("alphabeta:hash=1");
+		ComputerTurn first = TournamentRunner.createComputerTurn("alphabeta:nodes=100", 5, transpositionTable, null);
+		ComputerTurn second = TournamentRunner.createComputerTurn("alphabeta:nodes=100", 5, transpositionTable, null);
+		assertSame(transpositionTable, ((AlphaBetaComputerTurn) first).getTranspositionTable());
+		assertSame(transpositionTable, ((AlphaBetaComputerTurn) second).getTranspositionTable());
+		assertNull(TournamentRunner.createTranspositionTable("default"));
+	}
+
+	@Test
+	public void testEngineIsChecked() {
+		TournamentRunner.checkEngine("alphabeta:time=100,ponder=0", 5);
+		String[] invalidEngines = { "alphabeta:nodes=0", "alphabeta:playouts=10", "mcts:time=x", "default:time=10", "default:book=missing.bin" };
+		for (String engine : invalidEngines) {
+			try {
+				TournamentRunner.checkEngine(engine, 5);
+				fail("Engine is accepted: " + engine);
+			} catch (IllegalArgumentException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnknownEngine() {
+		new TournamentRunner(1, 1, "random", "default", 0, 1);
+	}
+}
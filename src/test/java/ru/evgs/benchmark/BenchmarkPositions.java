@@ -0,0 +1,103 @@
+package ru.evgs.benchmark;
+
+import java.util.Random;
+
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.impl.DefaultWinnerChecker;
+// fixed corpus of positions for benchmarks: X - computer stone, O - human stone, . - empty cell
+// there is no winner in any position, so every benchmark can make a turn on it
+public final class BenchmarkPositions {
+	public static final String OPENING = "opening";
+	public static final String MIDGAME = "midgame";
+	public static final String NEAR_FULL = "nearFull";
+	private static final String[] OPENING_ROWS = {
+			"...............",
+			"...............",
+			"...............",
+			"...............",
+			"...............",
+			"...............",
+			".......X.......",
+			"......XO.......",
+			"........O......",
+			"...............",
+			"...............",
+			"...............",
+			"...............",
+			"...............",
+			"..............." };
+	private static final String[] MIDGAME_ROWS = {
+			"...............",
+			"...............",
+			"...............",
+			"...............",
+			"......O........",
+			".....XXO.......",
+			"....OXOX.......",
+			".....XOXO......",
+			"....XOOOX......",
+			".....X..O......",
+			"....X..........",
+			"...............",
+			"...............",
+			"...............",
+			"..............." };
+	// count of empty cells left in the near full position
+	private static final int NEAR_FULL_EMPTY_CELLS = 20;
+	private static final long NEAR_FULL_SEED = 42;
+
+	private BenchmarkPositions() {
+	}
+	// putting stones of the position to the empty game table
+	public static void load(GameTable gameTable, String position) {
+		gameTable.reInit();
+		switch (position) {
+		case OPENING:
+			load(gameTable, OPENING_ROWS);
+			break;
+		case MIDGAME:
+			load(gameTable, MIDGAME_ROWS);
+			break;
+		case NEAR_FULL:
+			fillRandomly(gameTable);
+			break;
+		default:
+			throw new IllegalArgumentException("Unknown position: " + position);
+		}
+	}
+
+	private static void load(GameTable gameTable, String[] rows) {
+		for (int i = 0; i < rows.length; i++) {
+			for (int j = 0; j < rows[i].length(); j++) {
+				char c = rows[i].charAt(j);
+				if (c != '.') {
+					gameTable.setValue(i, j, c == 'X' ? CellValue.COMPUTER : CellValue.HUMAN);
+				}
+			}
+		}
+	}
+	// filling the field by the fixed seed, stones which would make a line of winCount are skipped
+	private static void fillRandomly(GameTable gameTable) {
+		DefaultWinnerChecker winnerChecker = new DefaultWinnerChecker();
+		winnerChecker.setGameTable(gameTable);
+		Random random = new Random(NEAR_FULL_SEED);
+		int size = gameTable.getSize();
+		int emptyCells = size * size;
+		for (int attempt = 0; emptyCells > NEAR_FULL_EMPTY_CELLS && attempt < 100 * size * size; attempt++) {
+			int row = random.nextInt(size);
+			int col = random.nextInt(size);
+			if (!gameTable.isCellFree(row, col)) {
+				continue;
+			}
+			CellValue cellValue = emptyCells % 2 == 0 ? CellValue.COMPUTER : CellValue.HUMAN;
+			gameTable.setValue(row, col, cellValue);
+			if (winnerChecker.isWinnerFoundByLastTurn(new Cell(row, col)).winnerExists()) {
+				gameTable.setValue(row, col, CellValue.EMPTY);
+			} else {
+				emptyCells--;
+			}
+		}
+	}
+}
@@ -0,0 +1,61 @@
+package ru.evgs.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.ComputerTurn;
+import ru.evgs.GameTable;
+import ru.evgs.impl.AlphaBetaComputerTurn;
+import ru.evgs.impl.DefaultComputerTurn;
+// time of one computer turn on the fixed positions, the turn is taken back after every call
+// alpha-beta search is limited by nodes, so its result doesn't depend on the speed of the machine
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ComputerTurnBenchmark {
+	private static final long ALPHA_BETA_NODE_LIMIT = 20000;
+	// finite and far above the time of the node limit, so the turn is always ended by the node limit
+	private static final long ALPHA_BETA_TIME_LIMIT_MILLIS = 60000;
+	@Param({ "default", "alphabeta" })
+	public String computerTurnType;
+	@Param({ BenchmarkPositions.OPENING, BenchmarkPositions.MIDGAME, BenchmarkPositions.NEAR_FULL })
+	public String position;
+	private GameTable gameTable;
+	private ComputerTurn computerTurn;
+
+	@Setup
+	public void setUp() {
+		gameTable = GameTableBenchmark.createGameTable("default");
+		BenchmarkPositions.load(gameTable, position);
+		if ("default".equals(computerTurnType)) {
+			computerTurn = new DefaultComputerTurn();
+		} else if ("alphabeta".equals(computerTurnType)) {
+			computerTurn = new AlphaBetaComputerTurn(ALPHA_BETA_TIME_LIMIT_MILLIS, ALPHA_BETA_NODE_LIMIT, AlphaBetaComputerTurn.DEFAULT_MAX_DEPTH);
+		} else {
+			throw new IllegalArgumentException("Unknown computer turn: " + computerTurnType);
+		}
+		computerTurn.setGameTable(gameTable);
+	}
+
+	@Benchmark
+	public Cell makeTurn() {
+		Cell cell = computerTurn.makeTurn();
+		gameTable.setValue(cell.getRowIndex(), cell.getColIndex(), CellValue.EMPTY);
+		return cell;
+	}
+}
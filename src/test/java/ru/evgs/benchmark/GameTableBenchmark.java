@@ -0,0 +1,86 @@
+package ru.evgs.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.impl.BitBoardGameTable;
+import ru.evgs.impl.DefaultGameTable;
+import ru.evgs.impl.SparseGameTable;
+// throughput of the basic operations of game table implementations
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameTableBenchmark {
+	@Param({ "default", "bitboard", "sparse" })
+	public String gameTableType;
+	@Param({ BenchmarkPositions.OPENING, BenchmarkPositions.MIDGAME, BenchmarkPositions.NEAR_FULL })
+	public String position;
+	private GameTable gameTable;
+	private int size;
+
+	@Setup
+	public void setUp() {
+		gameTable = createGameTable(gameTableType);
+		BenchmarkPositions.load(gameTable, position);
+		size = gameTable.getSize();
+	}
+
+	static GameTable createGameTable(String gameTableType) {
+		switch (gameTableType) {
+		case "default":
+			return new DefaultGameTable();
+		case "bitboard":
+			return new BitBoardGameTable();
+		case "sparse":
+			return new SparseGameTable();
+		default:
+			throw new IllegalArgumentException("Unknown game table: " + gameTableType);
+		}
+	}
+	// reading of all cells of the field
+	@Benchmark
+	public int getValue() {
+		int stones = 0;
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (gameTable.getValue(i, j) != CellValue.EMPTY) {
+					stones++;
+				}
+			}
+		}
+		return stones;
+	}
+	// putting and removing a stone on every empty cell of the field
+	@Benchmark
+	public long setValue() {
+		for (int i = 0; i < size; i++) {
+			for (int j = 0; j < size; j++) {
+				if (gameTable.isCellFree(i, j)) {
+					gameTable.setValue(i, j, CellValue.COMPUTER);
+					gameTable.setValue(i, j, CellValue.EMPTY);
+				}
+			}
+		}
+		return gameTable.getHashKey();
+	}
+
+	@Benchmark
+	public boolean emptyCellExists() {
+		return gameTable.emptyCellExists();
+	}
+}
@@ -0,0 +1,69 @@
+package ru.evgs.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.WinnerChecker;
+import ru.evgs.WinnerResult;
+import ru.evgs.impl.BitBoardGameTable;
+import ru.evgs.impl.DefaultWinnerChecker;
+// full scan of the field against the check around the last turn, and the bit board line check
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WinnerCheckerBenchmark {
+	@Param({ BenchmarkPositions.OPENING, BenchmarkPositions.MIDGAME, BenchmarkPositions.NEAR_FULL })
+	public String position;
+	private WinnerChecker winnerChecker;
+	private BitBoardGameTable bitBoardGameTable;
+	private Cell lastTurn;
+
+	@Setup
+	public void setUp() {
+		GameTable gameTable = GameTableBenchmark.createGameTable("default");
+		BenchmarkPositions.load(gameTable, position);
+		winnerChecker = new DefaultWinnerChecker();
+		winnerChecker.setGameTable(gameTable);
+		bitBoardGameTable = new BitBoardGameTable();
+		BenchmarkPositions.load(bitBoardGameTable, position);
+		// the last turn is the last stone of the computer found by the scan
+		for (int i = 0; i < gameTable.getSize(); i++) {
+			for (int j = 0; j < gameTable.getSize(); j++) {
+				if (gameTable.getValue(i, j) == CellValue.COMPUTER) {
+					lastTurn = new Cell(i, j);
+				}
+			}
+		}
+	}
+
+	@Benchmark
+	public WinnerResult isWinnerFound() {
+		return winnerChecker.isWinnerFound(CellValue.COMPUTER);
+	}
+
+	@Benchmark
+	public WinnerResult isWinnerFoundByLastTurn() {
+		return winnerChecker.isWinnerFoundByLastTurn(lastTurn);
+	}
+
+	@Benchmark
+	public boolean bitBoardHasLine() {
+		return bitBoardGameTable.hasLine(CellValue.COMPUTER, 5);
+	}
+}
@@ -0,0 +1,188 @@
+package ru.evgs.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.MoveListener;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+// contract tests which every game table implementation must pass
+public abstract class AbstractGameTableTest {
+	protected GameTable gameTable;
+
+	protected abstract GameTable createGameTable();
+
+	@Before
+	public void before() {
+		gameTable = createGameTable();
+	}
+
+	@Test
+	public void testNewTableIsEmpty() {
+		assertEquals(DefaultConstants.SIZE, gameTable.getSize());
+		for (int i = 0; i < gameTable.getSize(); i++) {
+			for (int j = 0; j < gameTable.getSize(); j++) {
+				assertEquals(CellValue.EMPTY, gameTable.getValue(i, j));
+				assertTrue(gameTable.isCellFree(i, j));
+			}
+		}
+		assertTrue(gameTable.emptyCellExists());
+	}
+
+	@Test
+	public void testSetValue() {
+		gameTable.setValue(0, 1, CellValue.HUMAN);
+		gameTable.setValue(14, 14, CellValue.COMPUTER);
+		assertEquals(CellValue.HUMAN, gameTable.getValue(0, 1));
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(14, 14));
+		assertEquals(CellValue.EMPTY, gameTable.getValue(1, 0));
+		assertFalse(gameTable.isCellFree(0, 1));
+		assertFalse(gameTable.isCellFree(14, 14));
+		gameTable.setValue(0, 1, CellValue.COMPUTER);
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(0, 1));
+		gameTable.setValue(0, 1, CellValue.EMPTY);
+		assertTrue(gameTable.isCellFree(0, 1));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testGetValueInvalidIndex() {
+		gameTable.getValue(gameTable.getSize(), 0);
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void testSetValueInvalidIndex() {
+		gameTable.setValue(0, -1, CellValue.HUMAN);
+	}
+
+	@Test
+	public void testReInit() {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		gameTable.setValue(7, 8, CellValue.COMPUTER);
+		gameTable.reInit();
+		assertTrue(gameTable.isCellFree(7, 7));
+		assertTrue(gameTable.isCellFree(7, 8));
+	}
+
+	@Test
+	public void testEmptyCellExists() {
+		for (int i = 0; i < gameTable.getSize(); i++) {
+			for (int j = 0; j < gameTable.getSize(); j++) {
+				assertTrue(gameTable.emptyCellExists());
+				gameTable.setValue(i, j, (i + j) % 2 == 0 ? CellValue.HUMAN : CellValue.COMPUTER);
+			}
+		}
+		assertFalse(gameTable.emptyCellExists());
+		gameTable.setValue(3, 4, CellValue.EMPTY);
+		assertTrue(gameTable.emptyCellExists());
+	}
+
+	@Test
+	public void testHashKey() {
+		assertEquals(0, gameTable.getHashKey());
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		gameTable.setValue(7, 8, CellValue.COMPUTER);
+		long hashKey = gameTable.getHashKey();
+		// the same position reached by another order of turns
+		GameTable other = createGameTable();
+		other.setValue(7, 8, CellValue.COMPUTER);
+		other.setValue(7, 7, CellValue.HUMAN);
+		assertEquals(hashKey, other.getHashKey());
+		// every implementation gives the same hash for the same position
+		GameTable reference = new DefaultGameTable();
+		reference.setValue(7, 7, CellValue.HUMAN);
+		reference.setValue(7, 8, CellValue.COMPUTER);
+		assertEquals(hashKey, reference.getHashKey());
+		gameTable.setValue(7, 8, CellValue.HUMAN);
+		assertFalse(hashKey == gameTable.getHashKey());
+		gameTable.setValue(7, 8, CellValue.EMPTY);
+		gameTable.setValue(7, 7, CellValue.EMPTY);
+		assertEquals(0, gameTable.getHashKey());
+		gameTable.setValue(1, 1, CellValue.HUMAN);
+		gameTable.reInit();
+		assertEquals(0, gameTable.getHashKey());
+	}
+
+	@Test
+	public void testMakeAndUndoMove() {
+		assertEquals(-1, gameTable.getLastMove());
+		gameTable.makeMove(7, 7, CellValue.HUMAN);
+		long hashKey = gameTable.getHashKey();
+		gameTable.makeMove(7, 8, CellValue.COMPUTER);
+		assertEquals(2, gameTable.getMoveCount());
+		assertEquals(2, gameTable.getStoneCount());
+		assertEquals(7 * gameTable.getSize() + 8, gameTable.getLastMove());
+		gameTable.undoMove();
+		assertEquals(CellValue.EMPTY, gameTable.getValue(7, 8));
+		assertEquals(1, gameTable.getMoveCount());
+		assertEquals(1, gameTable.getStoneCount());
+		assertEquals(hashKey, gameTable.getHashKey());
+		assertEquals(7 * gameTable.getSize() + 7, gameTable.getLastMove());
+		gameTable.reInit();
+		assertEquals(0, gameTable.getMoveCount());
+		assertEquals(0, gameTable.getStoneCount());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testMakeMoveToBusyCell() {
+		gameTable.makeMove(7, 7, CellValue.HUMAN);
+		gameTable.makeMove(7, 7, CellValue.COMPUTER);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUndoMoveWithoutMoves() {
+		gameTable.undoMove();
+	}
+
+	@Test
+	public void testMoveListener() {
+		final int[] counts = new int[3];
+		MoveListener listener = new MoveListener() {
+			@Override
+			public void makeMove(int row, int col, CellValue cellValue) {
+				counts[0]++;
+			}
+
+			@Override
+			public void undoMove(int row, int col, CellValue cellValue) {
+				counts[1]++;
+			}
+
+			@Override
+			public void reset() {
+				counts[2]++;
+			}
+		};
+		gameTable.addMoveListener(listener);
+		gameTable.makeMove(7, 7, CellValue.HUMAN);
+		gameTable.makeMove(7, 8, CellValue.COMPUTER);
+		// replacing of the stone is undoing of the old one and making of the new one
+		gameTable.setValue(7, 7, CellValue.COMPUTER);
+		gameTable.undoMove();
+		gameTable.reInit();
+		assertArrayEquals(new int[] { 3, 2, 1 }, counts);
+		gameTable.removeMoveListener(listener);
+		gameTable.makeMove(7, 7, CellValue.HUMAN);
+		assertEquals(3, counts[0]);
+	}
+
+	@Test
+	public void testReplacedMoveIsDropped() {
+		gameTable.makeMove(7, 7, CellValue.HUMAN);
+		gameTable.makeMove(7, 8, CellValue.COMPUTER);
+		gameTable.makeMove(8, 8, CellValue.HUMAN);
+		// the stone of the first move is removed by editing, so the move can't be undone
+		gameTable.setValue(7, 7, CellValue.EMPTY);
+		gameTable.setValue(7, 7, CellValue.COMPUTER);
+		assertEquals(2, gameTable.getMoveCount());
+		gameTable.undoMove();
+		gameTable.undoMove();
+		assertEquals(0, gameTable.getMoveCount());
+		assertEquals(-1, gameTable.getLastMove());
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(7, 7));
+		assertEquals(1, gameTable.getStoneCount());
+	}
+}
@@ -0,0 +1,221 @@
+package ru.evgs.impl;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.ComputerTurn;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AlphaBetaComputerTurnTest {
+	private GameTable gameTable;
+
+	@Before
+	public void before() {
+		gameTable = new DefaultGameTable();
+	}
+
+	private ComputerTurn createComputerTurn(long timeLimitMillis, long nodeLimit, int maxDepth) {
+		ComputerTurn computerTurn = new AlphaBetaComputerTurn(timeLimitMillis, nodeLimit, maxDepth);
+		computerTurn.setGameTable(gameTable);
+		return computerTurn;
+	}
+
+	@Test
+	public void testMakeWinningTurn() {
+		for (int j = 3; j < 7; j++) {
+			gameTable.setValue(5, j, CellValue.COMPUTER);
+			gameTable.setValue(9, j, CellValue.HUMAN);
+		}
+		gameTable.setValue(5, 2, CellValue.HUMAN);
+		Cell cell = createComputerTurn(1000, Long.MAX_VALUE, 4).makeTurn();
+		assertEquals("5:7", cell.toString());
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(5, 7));
+	}
+
+	@Test
+	public void testBlockOpenThree() {
+		gameTable.setValue(7, 7, CellValue.COMPUTER);
+		gameTable.setValue(3, 4, CellValue.HUMAN);
+		gameTable.setValue(4, 4, CellValue.HUMAN);
+		gameTable.setValue(5, 4, CellValue.HUMAN);
+		Cell cell = createComputerTurn(1000, Long.MAX_VALUE, 4).makeTurn();
+		assertEquals(4, cell.getColIndex());
+		assertTrue(cell.getRowIndex() == 2 || cell.getRowIndex() == 6);
+	}
+
+	@Test
+	public void testNodeBudgetStillMakesTurn() {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		AlphaBetaComputerTurn computerTurn = (AlphaBetaComputerTurn) createComputerTurn(1000, 1, AlphaBetaComputerTurn.DEFAULT_MAX_DEPTH);
+		Cell cell = computerTurn.makeTurn();
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(cell.getRowIndex(), cell.getColIndex()));
+		// the search stops right after the first node instead of a whole chunk of nodes
+		assertTrue(computerTurn.getLastNodes() < 16);
+	}
+
+	@Test
+	public void testUnlimitedTimeSearchesNodeBudget() {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		AlphaBetaComputerTurn computerTurn = (AlphaBetaComputerTurn) createComputerTurn(Long.MAX_VALUE, 5000, AlphaBetaComputerTurn.DEFAULT_MAX_DEPTH);
+		computerTurn.makeTurn();
+		// the deadline of the unlimited time doesn't overflow, so the search isn't stopped by the first chunk
+		assertTrue(computerTurn.getLastNodes() >= 5000);
+	}
+
+	@Test(timeout = 10000)
+	public void testInterruptedTurnIsStopped() {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		ComputerTurn computerTurn = createComputerTurn(600000, Long.MAX_VALUE, AlphaBetaComputerTurn.DEFAULT_MAX_DEPTH);
+		// a cancelled turn interrupts its thread, the best move found so far is made
+		Thread.currentThread().interrupt();
+		try {
+			Cell cell = computerTurn.makeTurn();
+			assertEquals(CellValue.COMPUTER, gameTable.getValue(cell.getRowIndex(), cell.getColIndex()));
+		} finally {
+			Thread.interrupted();
+		}
+	}
+
+	@Test
+	public void testPonderedTurn() throws InterruptedException {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		AlphaBetaComputerTurn computerTurn = new AlphaBetaComputerTurn(60000, Long.MAX_VALUE, 2);
+		computerTurn.setPonderCpuShare(100);
+		computerTurn.setGameTable(gameTable);
+		computerTurn.makeTurn();
+		computerTurn.startPondering();
+		Thread.sleep(500);
+		computerTurn.stopPondering();
+		int expectedMove = computerTurn.getPonderExpectedMove();
+		assertTrue(expectedMove >= 0);
+		gameTable.setValue(expectedMove / gameTable.getSize(), expectedMove % gameTable.getSize(), CellValue.HUMAN);
+		// the expected position is searched on the max depth, so the turn is made without the search
+		Cell cell = computerTurn.makeTurn();
+		assertEquals(0, computerTurn.getLastNodes());
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(cell.getRowIndex(), cell.getColIndex()));
+	}
+
+	@Test
+	public void testPonderingIsDiscarded() throws InterruptedException {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		AlphaBetaComputerTurn computerTurn = new AlphaBetaComputerTurn(60000, Long.MAX_VALUE, 2);
+		computerTurn.setPonderCpuShare(10);
+		computerTurn.setGameTable(gameTable);
+		computerTurn.makeTurn();
+		computerTurn.startPondering();
+		Thread.sleep(100);
+		// the human makes an unexpected turn far from stones
+		gameTable.setValue(0, 0, CellValue.HUMAN);
+		Cell cell = computerTurn.makeTurn();
+		assertTrue(computerTurn.getLastNodes() > 0);
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(cell.getRowIndex(), cell.getColIndex()));
+	}
+
+	@Test
+	public void testQueuedPonderingIsCancelled() throws Exception {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		AlphaBetaComputerTurn computerTurn = new AlphaBetaComputerTurn(50, Long.MAX_VALUE, 20);
+		computerTurn.setPonderCpuShare(100);
+		computerTurn.setGameTable(gameTable);
+		computerTurn.makeTurn();
+		// the shared thread of pondering is held by another game
+		ExecutorService ponderExecutor = Executors.newSingleThreadExecutor();
+		final CountDownLatch release = new CountDownLatch(1);
+		Future<?> otherPondering = ponderExecutor.submit(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		try {
+			computerTurn.setPonderExecutor(ponderExecutor);
+			computerTurn.startPondering();
+			computerTurn.stopPondering();
+			assertFalse(otherPondering.isDone());
+			assertEquals(-1, computerTurn.getPonderExpectedMove());
+		} finally {
+			release.countDown();
+			ponderExecutor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testPonderingIsLimited() throws Exception {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		AlphaBetaComputerTurn computerTurn = new AlphaBetaComputerTurn(50, Long.MAX_VALUE, 20);
+		computerTurn.setPonderCpuShare(100);
+		computerTurn.setGameTable(gameTable);
+		computerTurn.makeTurn();
+		ExecutorService ponderExecutor = Executors.newSingleThreadExecutor();
+		try {
+			computerTurn.setPonderExecutor(ponderExecutor);
+			computerTurn.startPondering();
+			// pondering isn't stopped, but it frees the shared thread by its budget
+			Future<?> next = ponderExecutor.submit(new Runnable() {
+				@Override
+				public void run() {
+				}
+			});
+			next.get(10, TimeUnit.SECONDS);
+			computerTurn.stopPondering();
+		} finally {
+			ponderExecutor.shutdownNow();
+		}
+	}
+
+	@Test(expected = ComputerCantMakeTurnException.class)
+	public void testAllCellsFilled() {
+		for (int i = 0; i < gameTable.getSize(); i++) {
+			for (int j = 0; j < gameTable.getSize(); j++) {
+				gameTable.setValue(i, j, CellValue.HUMAN);
+			}
+		}
+		createComputerTurn(1000, Long.MAX_VALUE, 4).makeTurn();
+	}
+
+	@Test
+	public void testParallelSearchBlocksFour() {
+		gameTable.setValue(7, 7, CellValue.COMPUTER);
+		for (int i = 3; i < 7; i++) {
+			gameTable.setValue(i, 4, CellValue.HUMAN);
+		}
+		gameTable.setValue(2, 4, CellValue.COMPUTER);
+		AlphaBetaComputerTurn computerTurn = new AlphaBetaComputerTurn(300, Long.MAX_VALUE, AlphaBetaComputerTurn.DEFAULT_MAX_DEPTH);
+		computerTurn.setThreadCount(3);
+		computerTurn.setGameTable(gameTable);
+		assertEquals("7:4", computerTurn.makeTurn().toString());
+		assertTrue(computerTurn.getLastNodes() > 0);
+	}
+
+	@Test
+	public void testSingleThreadSearchIsReproducible() {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		gameTable.setValue(7, 8, CellValue.COMPUTER);
+		gameTable.setValue(8, 8, CellValue.HUMAN);
+		GameTable copy = new DefaultGameTable();
+		copy.setValue(7, 7, CellValue.HUMAN);
+		copy.setValue(7, 8, CellValue.COMPUTER);
+		copy.setValue(8, 8, CellValue.HUMAN);
+		AlphaBetaComputerTurn first = new AlphaBetaComputerTurn(60000, 20000, AlphaBetaComputerTurn.DEFAULT_MAX_DEPTH);
+		first.setGameTable(gameTable);
+		AlphaBetaComputerTurn second = new AlphaBetaComputerTurn(60000, 20000, AlphaBetaComputerTurn.DEFAULT_MAX_DEPTH);
+		second.setGameTable(copy);
+		assertEquals(first.makeTurn().toString(), second.makeTurn().toString());
+		assertEquals(first.getLastNodes(), second.getLastNodes());
+	}
+}
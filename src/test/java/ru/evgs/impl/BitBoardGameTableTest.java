@@ -0,0 +1,59 @@
+package ru.evgs.impl;
+
+import org.junit.Test;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BitBoardGameTableTest extends AbstractGameTableTest {
+	@Override
+	protected GameTable createGameTable() {
+		return new BitBoardGameTable();
+	}
+
+	@Test
+	public void testHasLineByRowDoesNotWrap() {
+		BitBoardGameTable table = (BitBoardGameTable) gameTable;
+		// 3 stones at the end of row 4 and 2 at the start of row 5
+		for (int j = 12; j < 15; j++) {
+			table.setValue(4, j, CellValue.HUMAN);
+		}
+		table.setValue(5, 0, CellValue.HUMAN);
+		table.setValue(5, 1, CellValue.HUMAN);
+		assertFalse(table.hasLine(CellValue.HUMAN, 5));
+		table.setValue(4, 11, CellValue.HUMAN);
+		assertFalse(table.hasLine(CellValue.HUMAN, 5));
+		table.setValue(4, 10, CellValue.HUMAN);
+		assertTrue(table.hasLine(CellValue.HUMAN, 5));
+		assertFalse(table.hasLine(CellValue.COMPUTER, 5));
+	}
+
+	@Test
+	public void testHasLineByDiagonals() {
+		BitBoardGameTable table = (BitBoardGameTable) gameTable;
+		for (int k = 0; k < 5; k++) {
+			table.setValue(10 + k, 14 - k, CellValue.COMPUTER);
+		}
+		assertTrue(table.hasLine(CellValue.COMPUTER, 5));
+		table.reInit();
+		for (int k = 0; k < 5; k++) {
+			table.setValue(k, k + 10, CellValue.COMPUTER);
+		}
+		assertTrue(table.hasLine(CellValue.COMPUTER, 5));
+		table.setValue(2, 12, CellValue.HUMAN);
+		assertFalse(table.hasLine(CellValue.COMPUTER, 5));
+	}
+
+	@Test
+	public void testHasLineByCol() {
+		BitBoardGameTable table = (BitBoardGameTable) gameTable;
+		for (int k = 10; k < 15; k++) {
+			table.setValue(k, 0, CellValue.HUMAN);
+		}
+		assertTrue(table.hasLine(CellValue.HUMAN, 5));
+		assertTrue(table.hasLine(CellValue.HUMAN, 4));
+		assertFalse(table.hasLine(CellValue.HUMAN, 6));
+	}
+}
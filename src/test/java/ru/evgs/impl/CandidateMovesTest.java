@@ -0,0 +1,75 @@
+package ru.evgs.impl;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CandidateMovesTest {
+	private static final int SIZE = DefaultConstants.SIZE;
+
+	@Test
+	public void testEmptyFieldHasMiddleCandidate() {
+		CandidateMoves candidates = new CandidateMoves(SIZE);
+		int[] buffer = new int[SIZE * SIZE];
+		assertEquals(1, candidates.getCandidates(buffer));
+		assertEquals((SIZE / 2) * SIZE + SIZE / 2, buffer[0]);
+	}
+
+	@Test
+	public void testRadius() {
+		CandidateMoves candidates = new CandidateMoves(SIZE, 1);
+		candidates.makeMove(0, 0, CellValue.HUMAN);
+		assertEquals(3, candidates.size());
+		assertTrue(candidates.isCandidate(1, 1));
+		assertFalse(candidates.isCandidate(0, 0));
+		assertFalse(candidates.isCandidate(2, 2));
+		candidates.makeMove(7, 7, CellValue.COMPUTER);
+		assertEquals(11, candidates.size());
+		candidates.undoMove(0, 0, CellValue.HUMAN);
+		assertEquals(8, candidates.size());
+		assertFalse(candidates.isCandidate(1, 1));
+	}
+
+	@Test
+	public void testIncrementalSetMatchesRecomputedSet() {
+		Random random = new Random(3);
+		GameTable gameTable = new DefaultGameTable();
+		CandidateMoves candidates = new CandidateMoves(SIZE);
+		CandidateMoves recomputed = new CandidateMoves(SIZE);
+		int[] moves = new int[SIZE * SIZE];
+		int moveCount = 0;
+		for (int turn = 0; turn < 300; turn++) {
+			if (moveCount > 0 && random.nextInt(3) == 0) {
+				int cell = moves[--moveCount];
+				candidates.undoMove(cell / SIZE, cell % SIZE, gameTable.getValue(cell / SIZE, cell % SIZE));
+				gameTable.setValue(cell / SIZE, cell % SIZE, CellValue.EMPTY);
+			} else {
+				int cell = random.nextInt(SIZE * SIZE);
+				if (!gameTable.isCellFree(cell / SIZE, cell % SIZE)) {
+					continue;
+				}
+				gameTable.setValue(cell / SIZE, cell % SIZE, CellValue.HUMAN);
+				candidates.makeMove(cell / SIZE, cell % SIZE, CellValue.HUMAN);
+				moves[moveCount++] = cell;
+			}
+			recomputed.setPosition(gameTable);
+			assertArrayEquals(sortedCandidates(recomputed), sortedCandidates(candidates));
+		}
+	}
+
+	private static int[] sortedCandidates(CandidateMoves candidates) {
+		int[] buffer = new int[SIZE * SIZE];
+		int count = candidates.getCandidates(buffer);
+		int[] result = Arrays.copyOf(buffer, count);
+		Arrays.sort(result);
+		return result;
+	}
+}
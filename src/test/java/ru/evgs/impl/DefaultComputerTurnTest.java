@@ -0,0 +1,146 @@
+package ru.evgs.impl;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+
+public class DefaultComputerTurnTest {
+	private GameTable gameTable;
+	private DefaultComputerTurn computerTurn;
+
+	@Before
+	public void setUp() {
+		gameTable = new DefaultGameTable();
+		computerTurn = new DefaultComputerTurn();
+		computerTurn.setGameTable(gameTable);
+	}
+
+	@Test
+	public void testCompletesOwnFour() {
+		for (int j = 3; j < 7; j++) {
+			gameTable.setValue(5, j, CellValue.COMPUTER);
+		}
+		gameTable.setValue(5, 2, CellValue.HUMAN);
+		Cell cell = computerTurn.makeTurn();
+		assertEquals(5, cell.getRowIndex());
+		assertEquals(7, cell.getColIndex());
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(5, 7));
+	}
+
+	@Test
+	public void testBlocksFourByDiagonal() {
+		for (int k = 0; k < 4; k++) {
+			gameTable.setValue(2 + k, 9 - k, CellValue.HUMAN);
+		}
+		gameTable.setValue(1, 10, CellValue.COMPUTER);
+		Cell cell = computerTurn.makeTurn();
+		assertEquals(6, cell.getRowIndex());
+		assertEquals(5, cell.getColIndex());
+	}
+
+	@Test
+	public void testRandomTurnOnLastEmptyCell() {
+		for (int i = 0; i < gameTable.getSize(); i++) {
+			for (int j = 0; j < gameTable.getSize(); j++) {
+				// stones are put so that no pattern can be completed
+				gameTable.setValue(i, j, (i + j / 2) % 2 == 0 ? CellValue.COMPUTER : CellValue.HUMAN);
+			}
+		}
+		gameTable.setValue(14, 14, CellValue.EMPTY);
+		Cell cell = computerTurn.makeTurn();
+		assertEquals(14, cell.getRowIndex());
+		assertEquals(14, cell.getColIndex());
+	}
+
+	@Test
+	public void testOverriddenScanIsUsed() {
+		// a subclass made for the protected methods of cells still extends the turn
+		final int[] patterns = new int[1];
+		DefaultComputerTurn rowsOnly = new DefaultComputerTurn() {
+			@Override
+			protected Cell tryMakeTurn(CellValue cellValue, int notBlankCount) {
+				assertEquals(gameTable.getSize() * gameTable.getSize() - 2, getAllEmptyCells().size());
+				return tryMakeTurnByRow(cellValue, notBlankCount);
+			}
+
+			@Override
+			protected Cell findEmptyCellForComputerTurn(List<Cell> cells) {
+				patterns[0]++;
+				assertEquals(5, cells.size());
+				return cells.get(0);
+			}
+		};
+		rowsOnly.setGameTable(gameTable);
+		gameTable.setValue(5, 5, CellValue.HUMAN);
+		gameTable.setValue(5, 6, CellValue.HUMAN);
+		Cell cell = rowsOnly.makeTurn();
+		assertEquals(1, patterns[0]);
+		// the first cell of the first pattern by rows with both stones
+		assertEquals(5, cell.getRowIndex());
+		assertEquals(2, cell.getColIndex());
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(cell.getRowIndex(), cell.getColIndex()));
+	}
+
+	@Test(expected = ComputerCantMakeTurnException.class)
+	public void testFullField() {
+		for (int i = 0; i < gameTable.getSize(); i++) {
+			for (int j = 0; j < gameTable.getSize(); j++) {
+				gameTable.setValue(i, j, CellValue.HUMAN);
+			}
+		}
+		computerTurn.makeTurn();
+	}
+
+	@Test
+	public void testTurnByStonesMatchesFullScan() {
+		GameTable otherGameTable = new DefaultGameTable();
+		DefaultComputerTurn byStones = new DefaultComputerTurn(5, new Random(1)) {
+			@Override
+			boolean isScanByStones() {
+				return true;
+			}
+		};
+		DefaultComputerTurn fullScan = new DefaultComputerTurn(5, new Random(1)) {
+			@Override
+			boolean isScanByStones() {
+				return false;
+			}
+		};
+		byStones.setGameTable(gameTable);
+		fullScan.setGameTable(otherGameTable);
+		Random random = new Random(3);
+		for (int game = 0; game < 50; game++) {
+			gameTable.reInit();
+			otherGameTable.reInit();
+			for (int turn = 0; turn < 40; turn++) {
+				int row = random.nextInt(gameTable.getSize());
+				int col = random.nextInt(gameTable.getSize());
+				if (gameTable.isCellFree(row, col)) {
+					gameTable.setValue(row, col, CellValue.HUMAN);
+					otherGameTable.setValue(row, col, CellValue.HUMAN);
+					assertEquals(fullScan.makeTurn().toString(), byStones.makeTurn().toString());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTurnOnSparseField() {
+		GameTable sparseGameTable = new SparseGameTable(SparseGameTable.MAX_SIZE);
+		DefaultComputerTurn sparseComputerTurn = new DefaultComputerTurn(6);
+		sparseComputerTurn.setGameTable(sparseGameTable);
+		for (int k = 0; k < 5; k++) {
+			sparseGameTable.setValue(20000, 20001 + k, CellValue.COMPUTER);
+		}
+		sparseGameTable.setValue(20000, 20000, CellValue.HUMAN);
+		Cell cell = sparseComputerTurn.makeTurn();
+		assertEquals("20000:20006", cell.toString());
+	}
+}
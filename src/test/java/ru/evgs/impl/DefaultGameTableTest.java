@@ -0,0 +1,10 @@
+package ru.evgs.impl;
+
+import ru.evgs.GameTable;
+
+public class DefaultGameTableTest extends AbstractGameTableTest {
+	@Override
+	protected GameTable createGameTable() {
+		return new DefaultGameTable();
+	}
+}
@@ -35,6 +35,6 @@ public class DefaultHumanTurnTest {
         Cell cell = humanTurn.makeTurn(0, 1);
         assertEquals(0, cell.getRowIndex());
         assertEquals(1, cell.getColIndex());
-        verify(gameTable).setValue(0, 1, CellValue.HUMAN);
+        verify(gameTable).makeMove(0, 1, CellValue.HUMAN);
     }
 }
@@ -0,0 +1,110 @@
+package ru.evgs.impl;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+import ru.evgs.WinnerChecker;
+import ru.evgs.WinnerResult;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DefaultWinnerCheckerTest {
+	private GameTable gameTable;
+	private WinnerChecker winnerChecker;
+
+	@Before
+	public void before() {
+		gameTable = new DefaultGameTable();
+		winnerChecker = new DefaultWinnerChecker();
+		winnerChecker.setGameTable(gameTable);
+	}
+
+	@Test
+	public void testWinnerByLastTurnInEveryDirection() {
+		for (int k = 0; k < 5; k++) {
+			gameTable.setValue(14 - k, k, CellValue.COMPUTER);
+		}
+		WinnerResult result = winnerChecker.isWinnerFoundByLastTurn(new Cell(12, 2));
+		assertTrue(result.winnerExists());
+		assertEquals("[10:4, 11:3, 12:2, 13:1, 14:0]", result.getWinnerCells().toString());
+		assertFalse(winnerChecker.isWinnerFoundByLastTurn(new Cell(0, 0)).winnerExists());
+	}
+
+	@Test
+	public void testLastTurnCheckMatchesFullScan() {
+		Random random = new Random(42);
+		for (int game = 0; game < 200; game++) {
+			gameTable.reInit();
+			CellValue cellValue = CellValue.HUMAN;
+			while (gameTable.emptyCellExists()) {
+				int row = random.nextInt(gameTable.getSize());
+				int col = random.nextInt(gameTable.getSize());
+				if (!gameTable.isCellFree(row, col)) {
+					continue;
+				}
+				gameTable.setValue(row, col, cellValue);
+				WinnerResult expected = winnerChecker.isWinnerFound(cellValue);
+				WinnerResult actual = winnerChecker.isWinnerFoundByLastTurn(new Cell(row, col));
+				assertEquals(expected.winnerExists(), actual.winnerExists());
+				assertEquals(expected.getWinnerCells().toString(), actual.getWinnerCells().toString());
+				if (actual.winnerExists()) {
+					break;
+				}
+				cellValue = cellValue == CellValue.HUMAN ? CellValue.COMPUTER : CellValue.HUMAN;
+			}
+		}
+	}
+
+	@Test
+	public void testScanByStonesMatchesFullScan() {
+		DefaultWinnerChecker byStones = new DefaultWinnerChecker() {
+			@Override
+			boolean isScanByStones() {
+				return true;
+			}
+		};
+		DefaultWinnerChecker fullScan = new DefaultWinnerChecker() {
+			@Override
+			boolean isScanByStones() {
+				return false;
+			}
+		};
+		byStones.setGameTable(gameTable);
+		fullScan.setGameTable(gameTable);
+		Random random = new Random(7);
+		for (int game = 0; game < 50; game++) {
+			gameTable.reInit();
+			// the field is filled further than the first win, so there are several lines to choose from
+			for (int turn = 0; turn < 150; turn++) {
+				int row = random.nextInt(gameTable.getSize());
+				int col = random.nextInt(gameTable.getSize());
+				gameTable.setValue(row, col, random.nextBoolean() ? CellValue.HUMAN : CellValue.COMPUTER);
+				for (CellValue cellValue : new CellValue[] { CellValue.HUMAN, CellValue.COMPUTER }) {
+					assertEquals(fullScan.isWinnerFound(cellValue).getWinnerCells().toString(),
+							byStones.isWinnerFound(cellValue).getWinnerCells().toString());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testWinnerOnSparseField() {
+		GameTable sparseGameTable = new SparseGameTable(SparseGameTable.MAX_SIZE);
+		DefaultWinnerChecker sparseWinnerChecker = new DefaultWinnerChecker(6);
+		sparseWinnerChecker.setGameTable(sparseGameTable);
+		for (int k = 0; k < 6; k++) {
+			sparseGameTable.setValue(40000 + k, 30000, CellValue.HUMAN);
+		}
+		assertFalse(sparseWinnerChecker.isWinnerFound(CellValue.COMPUTER).winnerExists());
+		assertEquals("[40000:30000, 40001:30000, 40002:30000, 40003:30000, 40004:30000, 40005:30000]",
+				sparseWinnerChecker.isWinnerFound(CellValue.HUMAN).getWinnerCells().toString());
+		sparseGameTable.setValue(40005, 30000, CellValue.EMPTY);
+		assertFalse(sparseWinnerChecker.isWinnerFound(CellValue.HUMAN).winnerExists());
+	}
+}
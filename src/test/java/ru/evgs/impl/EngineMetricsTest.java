@@ -0,0 +1,115 @@
+package ru.evgs.impl;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EngineMetricsTest {
+	private final EngineMetrics metrics = EngineMetrics.getInstance();
+	private boolean enabled;
+
+	@Before
+	public void setUp() {
+		enabled = metrics.isEnabled();
+		metrics.reset();
+	}
+
+	@After
+	public void tearDown() {
+		metrics.setEnabled(enabled);
+		metrics.reset();
+	}
+
+	static GameTable createGameTable() {
+		GameTable gameTable = new DefaultGameTable(15);
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		gameTable.setValue(7, 8, CellValue.COMPUTER);
+		gameTable.setValue(8, 7, CellValue.HUMAN);
+		return gameTable;
+	}
+	// a turn of the default engine and two checks of the winner
+	static void playTurn() {
+		GameTable gameTable = createGameTable();
+		DefaultComputerTurn computerTurn = new DefaultComputerTurn();
+		computerTurn.setGameTable(gameTable);
+		Cell cell = computerTurn.makeTurn();
+		DefaultWinnerChecker winnerChecker = new DefaultWinnerChecker();
+		winnerChecker.setGameTable(gameTable);
+		assertFalse(winnerChecker.isWinnerFound(CellValue.COMPUTER).winnerExists());
+		assertFalse(winnerChecker.isWinnerFoundByLastTurn(cell).winnerExists());
+	}
+
+	@Test
+	public void testNothingIsRecordedWhileDisabled() {
+		metrics.setEnabled(false);
+		playTurn();
+		assertEquals(0, metrics.getTurns());
+		assertEquals(0, metrics.getPatternsScanned());
+		assertEquals(0, metrics.getWinChecks());
+	}
+
+	@Test
+	public void testTurnsAndWinChecksAreRecorded() {
+		metrics.setEnabled(true);
+		playTurn();
+		assertEquals(1, metrics.getTurns());
+		assertTrue(metrics.getPatternsScanned() > 0);
+		assertEquals(2, metrics.getWinChecks());
+		assertTrue(metrics.getWinCheckMaxNanos() > 0);
+		metrics.reset();
+		assertEquals(0, metrics.getTurns());
+	}
+
+	@Test
+	public void testSearchIsRecorded() {
+		metrics.setEnabled(true);
+		AlphaBetaComputerTurn computerTurn = new AlphaBetaComputerTurn(60000, Long.MAX_VALUE, 3);
+		computerTurn.setTranspositionTable(new TranspositionTable(1 << 20));
+		computerTurn.setGameTable(createGameTable());
+		computerTurn.makeTurn();
+		assertEquals(1, metrics.getTurns());
+		assertEquals(computerTurn.getLastNodes(), metrics.getNodes());
+		assertTrue(metrics.getNodesPerSecond() > 0);
+		assertTrue(metrics.getTranspositionTableHitRate() > 0);
+	}
+
+	@Test
+	public void testPlayoutsAreRecordedApartFromNodes() {
+		metrics.setEnabled(true);
+		MctsComputerTurn computerTurn = new MctsComputerTurn(60000, 1000, MctsComputerTurn.DEFAULT_TREE_MEMORY_BYTES);
+		computerTurn.setGameTable(createGameTable());
+		computerTurn.makeTurn();
+		assertEquals(1, metrics.getTurns());
+		assertEquals(computerTurn.getLastPlayouts(), metrics.getPlayouts());
+		assertTrue(metrics.getPlayoutsPerSecond() > 0);
+		assertEquals(0, metrics.getNodes());
+	}
+
+	@Test
+	public void testMBeanIsRegistered() throws Exception {
+		EngineMetrics.registerMBean();
+		EngineMetrics.registerMBean();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName(EngineMetrics.OBJECT_NAME);
+		server.setAttribute(name, new Attribute("Enabled", true));
+		assertTrue(EngineMetrics.isMetricsEnabled());
+		playTurn();
+		assertEquals(1L, server.getAttribute(name, "Turns"));
+		assertEquals(2L, server.getAttribute(name, "WinChecks"));
+		server.invoke(name, "reset", null, null);
+		assertEquals(0L, server.getAttribute(name, "Turns"));
+	}
+}
@@ -0,0 +1,65 @@
+package ru.evgs.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.evgs.TournamentRunner;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EvaluationTunerTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path recordGames(int games) throws IOException, InterruptedException {
+		Path path = folder.newFile().toPath();
+		TournamentRunner runner = new TournamentRunner(games, 1, "alphabeta:nodes=500", "default", 2, 3);
+		try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+			runner.setGameRecordWriter(writer);
+			runner.run();
+		}
+		return path;
+	}
+
+	@Test
+	public void testTuningReducesError() throws IOException, InterruptedException {
+		Path records = recordGames(12);
+		int[] initial = PatternEvaluator.defaultWeights(DefaultConstants.WIN_COUNT);
+		try (EvaluationTuner tuner = new EvaluationTuner(DefaultConstants.WIN_COUNT, 2)) {
+			assertTrue(tuner.extract(Collections.singletonList(records)) > 0);
+			int[] weights = tuner.tune(initial, 20);
+			assertEquals(DefaultConstants.WIN_COUNT, weights.length);
+			assertTrue(tuner.getScale() > 0);
+			assertTrue(tuner.getLastError() <= tuner.getInitialError());
+			for (int weight : weights) {
+				assertTrue(weight >= 0 && weight <= EvaluationTuner.MAX_WEIGHT);
+			}
+			// the engine plays with tuned weights
+			Path path = folder.newFile().toPath();
+			EvaluationTuner.writeWeights(path, weights, "test");
+			assertArrayEquals(weights, PatternEvaluator.readWeights(path));
+			AlphaBetaComputerTurn computerTurn = new AlphaBetaComputerTurn(60000, 1000, 3);
+			computerTurn.setWeights(weights);
+			assertArrayEquals(weights, computerTurn.getWeights());
+		}
+	}
+
+	@Test
+	public void testGamesOfOtherWinCountAreSkipped() throws IOException, InterruptedException {
+		Path records = recordGames(2);
+		try (EvaluationTuner tuner = new EvaluationTuner(4, 1)) {
+			assertEquals(0, tuner.extract(Collections.singletonList(records)));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWrongWeightCount() {
+		new AlphaBetaComputerTurn(60000, 1000, 3).setWeights(new int[] {0, 1, 8});
+	}
+}
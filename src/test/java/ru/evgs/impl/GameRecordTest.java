@@ -0,0 +1,184 @@
+package ru.evgs.impl;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GameRecordTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static GameRecord createRecord() {
+		GameRecord record = new GameRecord(15, 5, CellValue.COMPUTER);
+		record.addMove(7, 7);
+		record.addMove(7 * 15 + 8, GameRecord.NO_SCORE, 0);
+		record.addMove(0, -350, 1200);
+		record.addMove(14 * 15 + 14, 1000000, 3000000);
+		record.setResult(GameRecord.COMPUTER_WINS);
+		return record;
+	}
+	// a game of random moves on the field of the size, moves are distinct
+	private static GameRecord createRandomRecord(Random random, int size, boolean scores) {
+		GameRecord record = new GameRecord(size, 5, random.nextBoolean() ? CellValue.HUMAN : CellValue.COMPUTER);
+		boolean[] occupied = new boolean[size * size];
+		int moves = random.nextInt(Math.min(size * size, 100));
+		for (int i = 0; i < moves; i++) {
+			int move = random.nextInt(size * size);
+			while (occupied[move]) {
+				move = (move + 1) % occupied.length;
+			}
+			occupied[move] = true;
+			record.addMove(move, scores ? random.nextInt() : GameRecord.NO_SCORE, scores ? random.nextInt(1000000) : 0);
+		}
+		record.setResult(random.nextInt(GameRecord.DRAW + 1));
+		return record;
+	}
+
+	private static void assertRecordEquals(GameRecord expected, GameRecord actual) {
+		assertEquals(expected.toString(), actual.toString());
+		for (int i = 0; i < expected.getMoveCount(); i++) {
+			assertEquals(expected.getScore(i), actual.getScore(i));
+			assertEquals(expected.getMicros(i), actual.getMicros(i));
+		}
+	}
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		Path path = folder.newFile().toPath();
+		GameRecord record = createRecord();
+		try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+			assertTrue(writer.write(record));
+			// the record is encoded by write, so it can be reused right away
+			record.reset(15, 5, CellValue.HUMAN);
+			record.addMove(1, 1);
+			assertTrue(writer.write(record));
+		}
+		try (GameRecordReader reader = GameRecordReader.open(path)) {
+			assertRecordEquals(createRecord(), reader.next());
+			GameRecord second = reader.next();
+			assertEquals(1, second.getMoveCount());
+			assertEquals(CellValue.HUMAN, second.getFirstSide());
+			assertEquals(GameRecord.UNFINISHED, second.getResult());
+			assertFalse(second.hasScores());
+			assertFalse(second.hasTimes());
+			assertNull(reader.next());
+			assertEquals(2, reader.getRecordCount());
+			assertEquals(Files.size(path), reader.getPosition());
+		}
+	}
+
+	@Test
+	public void testReplay() {
+		GameRecord record = createRecord();
+		GameTable gameTable = new DefaultGameTable(15);
+		gameTable.setValue(3, 3, CellValue.HUMAN);
+		record.replay(gameTable, 2);
+		assertEquals(2, gameTable.getStoneCount());
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(7, 7));
+		assertEquals(CellValue.HUMAN, gameTable.getValue(7, 8));
+		record.replay(gameTable);
+		assertEquals(4, gameTable.getMoveCount());
+		assertEquals(14 * 15 + 14, gameTable.getLastMove());
+		assertEquals(CellValue.HUMAN, gameTable.getValue(14, 14));
+	}
+
+	@Test
+	public void testMoveIsTakenBack() {
+		GameRecord record = createRecord();
+		record.removeLastMove();
+		record.removeLastMove();
+		assertEquals(2, record.getMoveCount());
+		// only the removed moves had scores and times
+		assertFalse(record.hasScores());
+		assertFalse(record.hasTimes());
+		record.addMove(1, 1);
+		assertEquals(3, record.getMoveCount());
+		assertEquals(16, record.getMove(2));
+	}
+
+	@Test
+	public void testManyRecordsAreAppended() throws IOException {
+		Path path = folder.newFile().toPath();
+		Random random = new Random(1);
+		// records of the file are larger than the buffer of the reader
+		int count = 20000;
+		for (int part = 0; part < 2; part++) {
+			try (GameRecordWriter writer = GameRecordWriter.open(path, count)) {
+				for (int i = part * count / 2; i < (part + 1) * count / 2; i++) {
+					assertTrue(writer.write(createRandomRecord(random, i % 2 == 0 ? 15 : 200, i % 3 == 0)));
+				}
+			}
+		}
+		assertTrue(Files.size(path) > GameRecordReader.DEFAULT_BUFFER_SIZE);
+		random = new Random(1);
+		GameRecord record = new GameRecord();
+		try (GameRecordReader reader = GameRecordReader.open(path)) {
+			for (int i = 0; i < count; i++) {
+				assertTrue(reader.next(record));
+				assertRecordEquals(createRandomRecord(random, i % 2 == 0 ? 15 : 200, i % 3 == 0), record);
+			}
+			assertFalse(reader.next(record));
+		}
+	}
+
+	@Test
+	public void testTornRecordIsCutOff() throws IOException {
+		Path path = folder.newFile().toPath();
+		try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+			writer.write(createRecord());
+			writer.write(createRecord());
+		}
+		long size = Files.size(path);
+		// a crash in the middle of the second record
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.truncate(size - 3);
+		}
+		try (GameRecordReader reader = GameRecordReader.open(path)) {
+			assertTrue(reader.next() != null);
+			assertNull(reader.next());
+		}
+		try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+			writer.write(createRecord());
+		}
+		try (GameRecordReader reader = GameRecordReader.open(path)) {
+			assertRecordEquals(createRecord(), reader.next());
+			assertRecordEquals(createRecord(), reader.next());
+			assertNull(reader.next());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotRecordFile() throws IOException {
+		Path path = folder.newFile().toPath();
+		Files.write(path, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 });
+		GameRecordReader.open(path);
+	}
+
+	@Test
+	public void testMovesAreCompact() throws IOException {
+		Path path = folder.newFile().toPath();
+		GameRecord record = new GameRecord(15, 5, CellValue.HUMAN);
+		for (int i = 0; i < 100; i++) {
+			record.addMove(7 + i % 3 - 1, 7 + i / 3 % 3 - 1);
+		}
+		try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+			writer.write(record);
+		}
+		// a move near the previous one takes one byte
+		assertTrue(Files.size(path) < GameRecordFormat.HEADER_SIZE + 10 + 100);
+	}
+}
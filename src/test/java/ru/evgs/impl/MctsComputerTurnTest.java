@@ -0,0 +1,124 @@
+package ru.evgs.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MctsComputerTurnTest {
+	private GameTable gameTable;
+
+	@Before
+	public void before() {
+		gameTable = new DefaultGameTable();
+	}
+
+	private MctsComputerTurn createComputerTurn(long playoutLimit, long memoryBytes) {
+		MctsComputerTurn computerTurn = new MctsComputerTurn(60000, playoutLimit, memoryBytes);
+		computerTurn.setSeed(1);
+		computerTurn.setGameTable(gameTable);
+		return computerTurn;
+	}
+
+	@Test
+	public void testMakeWinningTurn() {
+		for (int j = 3; j < 7; j++) {
+			gameTable.setValue(5, j, CellValue.COMPUTER);
+			gameTable.setValue(9, j, CellValue.HUMAN);
+		}
+		gameTable.setValue(5, 2, CellValue.HUMAN);
+		MctsComputerTurn computerTurn = createComputerTurn(10000, MctsComputerTurn.DEFAULT_TREE_MEMORY_BYTES);
+		Cell cell = computerTurn.makeTurn();
+		assertEquals("5:7", cell.toString());
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(5, 7));
+		// the win is made without the search
+		assertEquals(0, computerTurn.getLastPlayouts());
+	}
+
+	@Test
+	public void testBlockFour() {
+		gameTable.setValue(7, 7, CellValue.COMPUTER);
+		gameTable.setValue(8, 8, CellValue.COMPUTER);
+		for (int i = 2; i < 6; i++) {
+			gameTable.setValue(i, 4, CellValue.HUMAN);
+		}
+		gameTable.setValue(1, 4, CellValue.COMPUTER);
+		Cell cell = createComputerTurn(10000, MctsComputerTurn.DEFAULT_TREE_MEMORY_BYTES).makeTurn();
+		assertEquals("6:4", cell.toString());
+	}
+
+	@Test
+	public void testBlockOpenThree() {
+		gameTable.setValue(7, 7, CellValue.COMPUTER);
+		gameTable.setValue(3, 4, CellValue.HUMAN);
+		gameTable.setValue(4, 4, CellValue.HUMAN);
+		gameTable.setValue(5, 4, CellValue.HUMAN);
+		Cell cell = createComputerTurn(20000, MctsComputerTurn.DEFAULT_TREE_MEMORY_BYTES).makeTurn();
+		assertEquals(4, cell.getColIndex());
+		assertTrue(cell.getRowIndex() == 2 || cell.getRowIndex() == 6);
+	}
+
+	@Test
+	public void testTreeIsReused() {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		MctsComputerTurn computerTurn = createComputerTurn(5000, MctsComputerTurn.DEFAULT_TREE_MEMORY_BYTES);
+		Cell cell = computerTurn.makeTurn();
+		assertEquals(0, computerTurn.getLastReusedNodes());
+		// the reply next to both stones is surely searched
+		int row = cell.getRowIndex() == 7 ? 8 : 7;
+		int col = cell.getColIndex() == 7 ? 8 : 7;
+		if (!gameTable.isCellFree(row, col)) {
+			row = 6;
+			col = 6;
+		}
+		gameTable.setValue(row, col, CellValue.HUMAN);
+		computerTurn.makeTurn();
+		assertTrue(computerTurn.getLastReusedNodes() > 1);
+		// an unexpected position builds the tree again
+		gameTable.setValue(0, 0, CellValue.HUMAN);
+		gameTable.setValue(14, 14, CellValue.HUMAN);
+		computerTurn.makeTurn();
+		assertEquals(0, computerTurn.getLastReusedNodes());
+	}
+
+	@Test
+	public void testMemoryCapIsKept() {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		MctsComputerTurn computerTurn = createComputerTurn(50000, 1024 * MctsComputerTurn.BYTES_PER_NODE);
+		for (int i = 0; i < 3; i++) {
+			Cell cell = computerTurn.makeTurn();
+			assertEquals(CellValue.COMPUTER, gameTable.getValue(cell.getRowIndex(), cell.getColIndex()));
+			assertTrue(computerTurn.getNodeCount() <= computerTurn.getCapacity());
+			assertEquals(50000, computerTurn.getLastPlayouts());
+			// the human plays far from the computer, so a reused tree may be too large to keep
+			gameTable.setValue(i, 0, CellValue.HUMAN);
+		}
+	}
+
+	@Test
+	public void testParallelSearch() {
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		MctsComputerTurn computerTurn = new MctsComputerTurn(200, Long.MAX_VALUE, MctsComputerTurn.DEFAULT_TREE_MEMORY_BYTES);
+		computerTurn.setThreadCount(4);
+		computerTurn.setGameTable(gameTable);
+		Cell cell = computerTurn.makeTurn();
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(cell.getRowIndex(), cell.getColIndex()));
+		assertTrue(computerTurn.getLastPlayouts() > 0);
+	}
+
+	@Test
+	public void testLargeField() {
+		gameTable = new DefaultGameTable(100);
+		gameTable.setValue(50, 50, CellValue.HUMAN);
+		gameTable.setValue(50, 51, CellValue.HUMAN);
+		gameTable.setValue(50, 52, CellValue.HUMAN);
+		gameTable.setValue(50, 53, CellValue.HUMAN);
+		gameTable.setValue(50, 49, CellValue.COMPUTER);
+		Cell cell = createComputerTurn(1000, MctsComputerTurn.DEFAULT_TREE_MEMORY_BYTES).makeTurn();
+		assertEquals("50:54", cell.toString());
+	}
+}
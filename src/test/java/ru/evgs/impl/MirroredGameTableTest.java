@@ -0,0 +1,33 @@
+package ru.evgs.impl;
+
+import org.junit.Test;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+
+public class MirroredGameTableTest {
+
+	@Test
+	public void testValuesAreSwapped() {
+		GameTable gameTable = new DefaultGameTable();
+		GameTable mirroredGameTable = new MirroredGameTable(gameTable);
+		gameTable.setValue(1, 1, CellValue.HUMAN);
+		mirroredGameTable.setValue(2, 2, CellValue.HUMAN);
+		assertEquals(CellValue.COMPUTER, mirroredGameTable.getValue(1, 1));
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(2, 2));
+		assertEquals(CellValue.EMPTY, mirroredGameTable.getValue(3, 3));
+	}
+
+	@Test
+	public void testHashKeyOfMirroredPosition() {
+		GameTable gameTable = new DefaultGameTable();
+		GameTable mirroredGameTable = new MirroredGameTable(gameTable);
+		GameTable expected = new DefaultGameTable();
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		gameTable.setValue(7, 8, CellValue.COMPUTER);
+		expected.setValue(7, 7, CellValue.COMPUTER);
+		expected.setValue(7, 8, CellValue.HUMAN);
+		assertEquals(expected.getHashKey(), mirroredGameTable.getHashKey());
+	}
+}
@@ -0,0 +1,135 @@
+package ru.evgs.impl;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.ComputerTurn;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class OpeningBookTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private OpeningBook buildBook() throws IOException {
+		OpeningBookBuilder builder = new OpeningBookBuilder(DefaultConstants.SIZE, DefaultConstants.WIN_COUNT, 3, 2, 2000);
+		assertEquals(1 + 1 + 2, builder.build());
+		Path path = folder.newFile("book.bin").toPath();
+		builder.write(path);
+		return OpeningBook.open(path);
+	}
+
+	@Test
+	public void testLookup() throws IOException {
+		OpeningBook openingBook = buildBook();
+		assertEquals(DefaultConstants.SIZE, openingBook.getSize());
+		assertEquals(4, openingBook.getEntryCount());
+		GameTable gameTable = new DefaultGameTable();
+		// the first move of the empty field is in the middle
+		assertEquals(7 * DefaultConstants.SIZE + 7, openingBook.getMove(gameTable.getHashKey()));
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		int move = openingBook.getMove(gameTable.getHashKey());
+		assertTrue(move >= 0 && gameTable.isCellFree(move / DefaultConstants.SIZE, move % DefaultConstants.SIZE));
+		gameTable.setValue(0, 0, CellValue.HUMAN);
+		assertEquals(OpeningBook.NO_MOVE, openingBook.getMove(gameTable.getHashKey()));
+	}
+
+	@Test
+	public void testBookTurnAndFallback() throws IOException {
+		OpeningBook openingBook = buildBook();
+		GameTable gameTable = new DefaultGameTable();
+		ComputerTurn engine = mock(ComputerTurn.class);
+		ComputerTurn computerTurn = new BookComputerTurn(openingBook, engine);
+		computerTurn.setGameTable(gameTable);
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		int move = openingBook.getMove(gameTable.getHashKey());
+		Cell cell = computerTurn.makeTurn();
+		assertEquals(move / DefaultConstants.SIZE, cell.getRowIndex());
+		assertEquals(move % DefaultConstants.SIZE, cell.getColIndex());
+		assertEquals(CellValue.COMPUTER, gameTable.getValue(cell.getRowIndex(), cell.getColIndex()));
+		verify(engine).setGameTable(gameTable);
+		gameTable.setValue(0, 0, CellValue.HUMAN);
+		computerTurn.makeTurn();
+		verify(engine).makeTurn();
+	}
+
+	@Test
+	public void testBookTurnInSymmetricPosition() throws IOException {
+		OpeningBook openingBook = buildBook();
+		int size = DefaultConstants.SIZE;
+		// the position of the human after the book move of the computer, as the human sees it
+		GameTable gameTable = new DefaultGameTable();
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		int move = openingBook.getMove(gameTable.getHashKey());
+		gameTable.reInit();
+		gameTable.setValue(7, 7, CellValue.COMPUTER);
+		gameTable.setValue(move / size, move % size, CellValue.HUMAN);
+		SymmetricKeys keys = new SymmetricKeys(size);
+		keys.setPosition(gameTable);
+		int reply = SymmetricKeys.inverse(size, keys.getCanonicalSymmetry(), openingBook.getMove(keys.getCanonicalKey()));
+		gameTable.setValue(reply / size, reply % size, CellValue.COMPUTER);
+		keys.setPosition(gameTable);
+		long replyKey = keys.getCanonicalKey();
+		for (int symmetry = 0; symmetry < SymmetricKeys.SYMMETRY_COUNT; symmetry++) {
+			GameTable moved = new DefaultGameTable();
+			int movedCell = SymmetricKeys.transform(size, symmetry, move);
+			moved.setValue(7, 7, CellValue.COMPUTER);
+			moved.setValue(movedCell / size, movedCell % size, CellValue.HUMAN);
+			ComputerTurn engine = mock(ComputerTurn.class);
+			ComputerTurn computerTurn = new BookComputerTurn(openingBook, engine);
+			computerTurn.setGameTable(moved);
+			computerTurn.makeTurn();
+			verify(engine, never()).makeTurn();
+			// the reply is the book reply moved by the symmetry, or a move symmetric to it in this position
+			keys.setPosition(moved);
+			assertEquals(replyKey, keys.getCanonicalKey());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBookOfAnotherSize() throws IOException {
+		ComputerTurn engine = mock(ComputerTurn.class);
+		try {
+			new BookComputerTurn(buildBook(), engine).setGameTable(new DefaultGameTable(19));
+		} finally {
+			verifyZeroInteractions(engine);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testNotBookFile() throws IOException {
+		Path path = folder.newFile("not-book.bin").toPath();
+		try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(path))) {
+			output.writeInt(0x12345678);
+			output.writeInt(OpeningBook.VERSION);
+			output.writeInt(DefaultConstants.SIZE);
+			output.writeInt(0);
+		}
+		OpeningBook.open(path);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedBook() throws IOException {
+		Path path = folder.newFile("truncated.bin").toPath();
+		try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(path))) {
+			output.writeInt(OpeningBook.MAGIC);
+			output.writeInt(OpeningBook.VERSION);
+			output.writeInt(DefaultConstants.SIZE);
+			output.writeInt(10);
+		}
+		OpeningBook.open(path);
+	}
+}
@@ -0,0 +1,133 @@
+package ru.evgs.impl;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PatternEvaluatorTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private GameTable gameTable;
+	private PatternEvaluator evaluator;
+
+	@Before
+	public void before() {
+		gameTable = new DefaultGameTable();
+		evaluator = new PatternEvaluator(gameTable.getSize(), DefaultConstants.WIN_COUNT);
+	}
+
+	@Test
+	public void testIncrementalEvaluationMatchesFullEvaluation() {
+		Random random = new Random(7);
+		PatternEvaluator fullEvaluator = new PatternEvaluator(gameTable.getSize(), DefaultConstants.WIN_COUNT);
+		CellValue side = CellValue.HUMAN;
+		for (int turn = 0; turn < 120; turn++) {
+			int row = random.nextInt(gameTable.getSize());
+			int col = random.nextInt(gameTable.getSize());
+			if (gameTable.isCellFree(row, col)) {
+				gameTable.setValue(row, col, side);
+				evaluator.makeMove(row, col, side);
+				side = AlphaBetaSearcher.opposite(side);
+			} else if (turn % 3 == 0) {
+				// undo of some stone
+				evaluator.undoMove(row, col, gameTable.getValue(row, col));
+				gameTable.setValue(row, col, CellValue.EMPTY);
+			}
+			fullEvaluator.setPosition(gameTable);
+			assertEquals(fullEvaluator.evaluate(CellValue.COMPUTER), evaluator.evaluate(CellValue.COMPUTER));
+			assertEquals(fullEvaluator.evaluate(CellValue.HUMAN), evaluator.evaluate(CellValue.HUMAN));
+			assertEquals(fullEvaluator.hasFive(CellValue.HUMAN), evaluator.hasFive(CellValue.HUMAN));
+		}
+	}
+
+	@Test
+	public void testEvaluation() {
+		// one stone in the corner is a part of 3 patterns, in the middle of 20 patterns
+		evaluator.makeMove(0, 0, CellValue.COMPUTER);
+		assertEquals(3, evaluator.evaluate(CellValue.COMPUTER));
+		assertEquals(-3, evaluator.evaluate(CellValue.HUMAN));
+		evaluator.makeMove(7, 7, CellValue.HUMAN);
+		assertEquals(17, evaluator.evaluate(CellValue.HUMAN));
+		evaluator.undoMove(0, 0, CellValue.COMPUTER);
+		assertEquals(20, evaluator.evaluate(CellValue.HUMAN));
+	}
+
+	@Test
+	public void testHasFive() {
+		for (int j = 0; j < 4; j++) {
+			evaluator.makeMove(3, j, CellValue.HUMAN);
+		}
+		assertFalse(evaluator.hasFive(CellValue.HUMAN));
+		evaluator.makeMove(3, 4, CellValue.HUMAN);
+		assertTrue(evaluator.hasFive(CellValue.HUMAN));
+		assertFalse(evaluator.hasFive(CellValue.COMPUTER));
+		evaluator.undoMove(3, 4, CellValue.HUMAN);
+		assertFalse(evaluator.hasFive(CellValue.HUMAN));
+	}
+
+	@Test
+	public void testCellThreat() {
+		for (int j = 5; j < 9; j++) {
+			evaluator.makeMove(7, j, CellValue.HUMAN);
+		}
+		int winScore = AlphaBetaSearcher.WIN_SCORE;
+		// completion of the four wins for human and must be blocked by computer
+		assertTrue(evaluator.getCellThreat(7, 9, CellValue.HUMAN, winScore) >= winScore);
+		assertTrue(evaluator.getCellThreat(7, 9, CellValue.COMPUTER, winScore) >= winScore / 2);
+		assertTrue(evaluator.getCellThreat(0, 0, CellValue.COMPUTER, winScore) < evaluator.getCellThreat(6, 6, CellValue.COMPUTER, winScore));
+	}
+
+	@Test
+	public void testFeaturesMatchEvaluation() {
+		Random random = new Random(11);
+		int[] weights = PatternEvaluator.defaultWeights(DefaultConstants.WIN_COUNT);
+		int[] features = new int[DefaultConstants.WIN_COUNT];
+		CellValue side = CellValue.HUMAN;
+		for (int turn = 0; turn < 60; turn++) {
+			int row = random.nextInt(gameTable.getSize());
+			int col = random.nextInt(gameTable.getSize());
+			if (gameTable.isCellFree(row, col)) {
+				gameTable.setValue(row, col, side);
+				evaluator.makeMove(row, col, side);
+				side = AlphaBetaSearcher.opposite(side);
+			}
+			for (CellValue evaluated : new CellValue[] {CellValue.COMPUTER, CellValue.HUMAN}) {
+				evaluator.getFeatures(evaluated, features);
+				int sum = 0;
+				for (int k = 0; k < features.length; k++) {
+					sum += weights[k] * features[k];
+				}
+				assertEquals(evaluator.evaluate(evaluated), sum);
+			}
+		}
+	}
+
+	@Test
+	public void testReadWeights() throws IOException {
+		Path path = folder.newFile().toPath();
+		Files.write(path, Arrays.asList("# tuned weights", "0 2 9", "  70 500"), StandardCharsets.UTF_8);
+		assertArrayEquals(new int[] {0, 2, 9, 70, 500}, PatternEvaluator.readWeights(path));
+	}
+
+	@Test(expected = IOException.class)
+	public void testReadNegativeWeight() throws IOException {
+		Path path = folder.newFile().toPath();
+		Files.write(path, Arrays.asList("0 1 -8 64 512"), StandardCharsets.UTF_8);
+		PatternEvaluator.readWeights(path);
+	}
+}
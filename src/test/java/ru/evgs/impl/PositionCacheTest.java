@@ -0,0 +1,152 @@
+package ru.evgs.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PositionCacheTest {
+	// memory of one bucket, so all positions compete for it
+	private static final long ONE_BUCKET = PositionCache.BUCKET_SIZE * PositionCache.ENTRY_SIZE;
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testStoreAndProbe() throws IOException {
+		try (PositionCache positionCache = PositionCache.open(folder.newFile().toPath(), 1024 * 1024)) {
+			assertEquals(TranspositionTable.MISS, positionCache.probe(42));
+			positionCache.store(42, 112, -350, 6, TranspositionTable.LOWER_BOUND);
+			long entry = positionCache.probe(42);
+			assertEquals(112, TranspositionTable.getMove(entry));
+			assertEquals(-350, TranspositionTable.getScore(entry));
+			assertEquals(6, TranspositionTable.getDepth(entry));
+			assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getFlag(entry));
+			assertEquals(1, positionCache.getHits());
+			assertEquals(1, positionCache.getMisses());
+		}
+	}
+
+	@Test
+	public void testEntriesSurviveReopen() throws IOException {
+		Path path = folder.newFile().toPath();
+		try (PositionCache positionCache = PositionCache.open(path, 1024 * 1024)) {
+			positionCache.store(42, 112, 100, 6, TranspositionTable.EXACT);
+		}
+		try (PositionCache positionCache = PositionCache.open(path, 1024 * 1024)) {
+			assertEquals(112, TranspositionTable.getMove(positionCache.probe(42)));
+		}
+	}
+
+	@Test
+	public void testDeeperEntryIsKept() throws IOException {
+		try (PositionCache positionCache = PositionCache.open(folder.newFile().toPath(), ONE_BUCKET)) {
+			positionCache.store(42, 112, 100, 6, TranspositionTable.EXACT);
+			positionCache.store(42, 113, 100, 4, TranspositionTable.EXACT);
+			assertEquals(112, TranspositionTable.getMove(positionCache.probe(42)));
+			positionCache.store(42, 114, 100, 6, TranspositionTable.EXACT);
+			assertEquals(114, TranspositionTable.getMove(positionCache.probe(42)));
+		}
+	}
+
+	@Test
+	public void testShallowEntryIsEvicted() throws IOException {
+		try (PositionCache positionCache = PositionCache.open(folder.newFile().toPath(), ONE_BUCKET)) {
+			assertEquals(PositionCache.BUCKET_SIZE, positionCache.getCapacity());
+			for (int i = 0; i < PositionCache.BUCKET_SIZE; i++) {
+				positionCache.store(i + 1, i, 0, i == 2 ? 1 : 5, TranspositionTable.EXACT);
+			}
+			positionCache.store(100, 100, 0, 3, TranspositionTable.EXACT);
+			assertEquals(TranspositionTable.MISS, positionCache.probe(3));
+			assertEquals(100, TranspositionTable.getMove(positionCache.probe(100)));
+			// the shallowest entry is evicted again, not the older deeper ones
+			positionCache.store(200, 200, 0, 3, TranspositionTable.EXACT);
+			assertEquals(TranspositionTable.MISS, positionCache.probe(100));
+			assertEquals(0, TranspositionTable.getMove(positionCache.probe(1)));
+		}
+	}
+
+	@Test
+	public void testCorruptEntryIsMiss() throws IOException {
+		Path path = folder.newFile().toPath();
+		try (PositionCache positionCache = PositionCache.open(path, ONE_BUCKET)) {
+			positionCache.store(42, 112, 100, 6, TranspositionTable.EXACT);
+		}
+		// a torn write: the move of the entry is changed without its checksum
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 1 }), PositionCache.HEADER_SIZE + 13);
+		}
+		try (PositionCache positionCache = PositionCache.open(path, ONE_BUCKET)) {
+			assertEquals(TranspositionTable.MISS, positionCache.probe(42));
+			assertTrue(positionCache.getCorruptEntries() > 0);
+			// the corrupt slot is reused
+			positionCache.store(42, 112, 100, 6, TranspositionTable.EXACT);
+			assertEquals(112, TranspositionTable.getMove(positionCache.probe(42)));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testCacheOfAnotherSize() throws IOException {
+		Path path = folder.newFile().toPath();
+		PositionCache.open(path, ONE_BUCKET).close();
+		PositionCache.open(path, 2 * ONE_BUCKET);
+	}
+
+	@Test
+	public void testComputerTurnFromCache() throws IOException {
+		try (PositionCache positionCache = PositionCache.open(folder.newFile().toPath(), 1024 * 1024)) {
+			GameTable gameTable = new DefaultGameTable();
+			gameTable.setValue(7, 7, CellValue.HUMAN);
+			AlphaBetaComputerTurn computerTurn = new AlphaBetaComputerTurn(1000, 2000, 2);
+			computerTurn.setPositionCache(positionCache);
+			computerTurn.setGameTable(gameTable);
+			Cell searched = computerTurn.makeTurn();
+			assertEquals(1, positionCache.getStores());
+			gameTable.setValue(searched.getRowIndex(), searched.getColIndex(), CellValue.EMPTY);
+			// the result of the max depth is made again without the search
+			Cell cached = computerTurn.makeTurn();
+			assertEquals(searched.toString(), cached.toString());
+			assertEquals(0, computerTurn.getLastNodes());
+			assertEquals(1, positionCache.getStores());
+		}
+	}
+
+	@Test
+	public void testSymmetricPositionFromCache() throws IOException {
+		try (PositionCache positionCache = PositionCache.open(folder.newFile().toPath(), 1024 * 1024)) {
+			GameTable gameTable = new DefaultGameTable();
+			gameTable.setValue(7, 7, CellValue.HUMAN);
+			gameTable.setValue(7, 8, CellValue.COMPUTER);
+			gameTable.setValue(5, 6, CellValue.HUMAN);
+			AlphaBetaComputerTurn computerTurn = new AlphaBetaComputerTurn(1000, 2000, 2);
+			computerTurn.setPositionCache(positionCache);
+			computerTurn.setGameTable(gameTable);
+			Cell searched = computerTurn.makeTurn();
+			// the position rotated by a quarter turn shares the entry, its move is rotated too
+			int symmetry = SymmetricKeys.TRANSPOSE | SymmetricKeys.FLIP_COLS;
+			GameTable rotated = new DefaultGameTable();
+			for (int cell : new int[] {7 * 15 + 7, 5 * 15 + 6}) {
+				int image = SymmetricKeys.transform(15, symmetry, cell);
+				rotated.setValue(image / 15, image % 15, CellValue.HUMAN);
+			}
+			int image = SymmetricKeys.transform(15, symmetry, 7 * 15 + 8);
+			rotated.setValue(image / 15, image % 15, CellValue.COMPUTER);
+			computerTurn.setGameTable(rotated);
+			Cell cached = computerTurn.makeTurn();
+			assertEquals(0, computerTurn.getLastNodes());
+			assertEquals(1, positionCache.getStores());
+			assertEquals(SymmetricKeys.transform(15, symmetry, searched.getRowIndex() * 15 + searched.getColIndex()),
+					cached.getRowIndex() * 15 + cached.getColIndex());
+		}
+	}
+}
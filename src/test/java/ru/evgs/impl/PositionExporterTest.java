@@ -0,0 +1,193 @@
+package ru.evgs.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PositionExporterTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	// the human makes a five in the row 7 while the computer plays in the row 8 from the column
+	private static GameRecord createGame(int computerCol) {
+		GameRecord record = new GameRecord(DefaultConstants.SIZE, DefaultConstants.WIN_COUNT, CellValue.HUMAN);
+		for (int j = 0; j < 5; j++) {
+			record.addMove(7 * DefaultConstants.SIZE + j, GameRecord.NO_SCORE, 0);
+			if (j < 4) {
+				record.addMove(8 * DefaultConstants.SIZE + computerCol + j, 100 + j, 0);
+			}
+		}
+		record.setResult(GameRecord.HUMAN_WINS);
+		return record;
+	}
+
+	@Test
+	public void testPositionsAreReadBack() throws IOException {
+		Path directory = folder.newFolder().toPath();
+		GameRecord record = createGame(0);
+		try (PositionExporter exporter = PositionExporter.open(directory)) {
+			assertTrue(exporter.export(record));
+			record.setResult(GameRecord.UNFINISHED);
+			assertFalse(exporter.export(record));
+		}
+		PositionReader reader = PositionReader.open(directory);
+		assertEquals(1, reader.getChunkCount());
+		assertEquals(9, reader.getPositionCount());
+		GameTable gameTable = new DefaultGameTable();
+		GameTable replayed = new DefaultGameTable();
+		TrainingPosition position = new TrainingPosition();
+		for (int i = 0; i < reader.getPositionCount(); i++) {
+			reader.read(i, position);
+			// the position before the move i of the game
+			record.replay(replayed, i);
+			position.copyTo(gameTable);
+			assertEquals(replayed.getHashKey(), gameTable.getHashKey());
+			assertEquals(i, position.getStoneCount());
+			assertEquals(record.getSide(i), position.getSideToMove());
+			assertEquals(record.getSide(i) == CellValue.HUMAN ? TrainingPosition.WIN : TrainingPosition.LOSS, position.getResult());
+			// moves of the computer have scores of the search
+			assertEquals(record.getSide(i) == CellValue.COMPUTER, position.isSearched());
+			if (position.isSearched()) {
+				assertEquals(record.getScore(i), position.getEvaluation());
+			} else {
+				PatternEvaluator evaluator = new PatternEvaluator(DefaultConstants.SIZE, DefaultConstants.WIN_COUNT);
+				evaluator.setPosition(replayed);
+				assertEquals(evaluator.evaluate(position.getSideToMove()), position.getEvaluation());
+			}
+		}
+	}
+
+	@Test
+	public void testDuplicatesAreSkipped() throws IOException {
+		Path directory = folder.newFolder().toPath();
+		PositionExporter exporter = PositionExporter.open(directory);
+		try {
+			exporter.export(createGame(0));
+			exporter.export(createGame(0));
+			// the third game has the same first two positions
+			exporter.export(createGame(1));
+		} finally {
+			exporter.close();
+		}
+		// counters are complete after close
+		assertEquals(9 + 7, exporter.getExportedPositions());
+		assertEquals(9 + 2, exporter.getDuplicatePositions());
+		assertEquals(0, exporter.getDroppedGames());
+		assertEquals(16, PositionReader.open(directory).getPositionCount());
+	}
+
+	@Test
+	public void testSymmetricPositionsAreDuplicates() throws IOException {
+		Path directory = folder.newFolder().toPath();
+		GameRecord record = createGame(0);
+		// the same game reflected from top to bottom
+		GameRecord reflected = new GameRecord(DefaultConstants.SIZE, DefaultConstants.WIN_COUNT, CellValue.HUMAN);
+		for (int i = 0; i < record.getMoveCount(); i++) {
+			reflected.addMove(SymmetricKeys.transform(DefaultConstants.SIZE, SymmetricKeys.FLIP_ROWS, record.getMove(i)), record.getScore(i), 0);
+		}
+		reflected.setResult(GameRecord.HUMAN_WINS);
+		PositionExporter exporter = PositionExporter.open(directory);
+		try {
+			exporter.export(record);
+			exporter.export(reflected);
+		} finally {
+			exporter.close();
+		}
+		assertEquals(9, exporter.getExportedPositions());
+		assertEquals(9, exporter.getDuplicatePositions());
+	}
+
+	@Test
+	public void testChunks() throws IOException {
+		Path directory = folder.newFolder().toPath();
+		PositionExporter exporter = PositionExporter.open(directory, 4, PositionExporter.DEFAULT_QUEUE_CAPACITY);
+		try {
+			exporter.export(createGame(0));
+		} finally {
+			exporter.close();
+		}
+		assertEquals(3, exporter.getChunkCount());
+		// a chunk not completed by a crash is deleted, new chunks are numbered after existing ones
+		Files.createFile(directory.resolve(PositionExporter.getChunkName(4) + ".tmp"));
+		try (PositionExporter otherExporter = PositionExporter.open(directory, 4, PositionExporter.DEFAULT_QUEUE_CAPACITY)) {
+			otherExporter.export(createGame(1));
+		}
+		assertFalse(Files.exists(directory.resolve(PositionExporter.getChunkName(4) + ".tmp")));
+		assertTrue(Files.exists(directory.resolve(PositionExporter.getChunkName(4))));
+		PositionReader reader = PositionReader.open(directory);
+		assertEquals(6, reader.getChunkCount());
+		// duplicates are known only to one exporter
+		assertEquals(18, reader.getPositionCount());
+		TrainingPosition position = new TrainingPosition();
+		reader.read(17, position);
+		assertEquals(8, position.getStoneCount());
+		assertEquals(CellValue.COMPUTER, position.getValue(8, 4));
+		assertEquals(CellValue.EMPTY, position.getValue(8, 0));
+		Random random = new Random(1);
+		for (int i = 0; i < 100; i++) {
+			reader.sample(random, position);
+			assertTrue(position.getStoneCount() < 9);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testCorruptGameIsDropped() throws IOException {
+		Path directory = folder.newFolder().toPath();
+		// the second move is made to the taken cell, so the replay fails
+		GameRecord broken = new GameRecord(DefaultConstants.SIZE, DefaultConstants.WIN_COUNT, CellValue.HUMAN);
+		broken.addMove(7, 7);
+		broken.addMove(7, 7);
+		broken.setResult(GameRecord.DRAW);
+		PositionExporter exporter = PositionExporter.open(directory);
+		try {
+			assertTrue(exporter.export(broken));
+			// later games are exported
+			assertTrue(exporter.export(createGame(0)));
+		} finally {
+			exporter.close();
+		}
+		assertEquals(1, exporter.getDroppedGames());
+		// two positions of the broken game before its error and all positions of the next game but the empty field
+		assertEquals(2 + 8, exporter.getExportedPositions());
+		assertEquals(10, PositionReader.open(directory).getPositionCount());
+	}
+
+	@Test
+	public void testFieldsOfDifferentSizes() throws IOException {
+		Path directory = folder.newFolder().toPath();
+		GameRecord record = new GameRecord(100, 4, CellValue.COMPUTER);
+		for (int j = 0; j < 4; j++) {
+			record.addMove(99 * 100 + 96 + j, GameRecord.NO_SCORE, 0);
+			if (j < 3) {
+				record.addMove(j, GameRecord.NO_SCORE, 0);
+			}
+		}
+		record.setResult(GameRecord.COMPUTER_WINS);
+		try (PositionExporter exporter = PositionExporter.open(directory)) {
+			exporter.export(createGame(0));
+			exporter.export(record);
+		}
+		PositionReader reader = PositionReader.open(directory);
+		assertEquals(2, reader.getChunkCount());
+		assertEquals(9 + 7, reader.getPositionCount());
+		TrainingPosition position = new TrainingPosition();
+		reader.read(15, position);
+		assertEquals(100, position.getSize());
+		assertEquals(4, position.getWinCount());
+		assertEquals(CellValue.COMPUTER, position.getValue(99, 98));
+		assertEquals(CellValue.HUMAN, position.getValue(0, 2));
+		assertEquals(CellValue.EMPTY, position.getValue(99, 99));
+		assertEquals(TrainingPosition.WIN, position.getResult());
+	}
+}
@@ -0,0 +1,64 @@
+package ru.evgs.impl;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SparseGameTableTest extends AbstractGameTableTest {
+	@Override
+	protected GameTable createGameTable() {
+		return new SparseGameTable();
+	}
+
+	@Test
+	public void testSameCellsAsDenseTable() {
+		GameTable dense = new DefaultGameTable();
+		Random random = new Random(11);
+		// putting, replacing and removing stones, so the map grows, shifts entries back and rehashes
+		for (int i = 0; i < 5000; i++) {
+			int row = random.nextInt(gameTable.getSize());
+			int col = random.nextInt(gameTable.getSize());
+			CellValue cellValue = CellValue.values()[random.nextInt(CellValue.values().length)];
+			gameTable.setValue(row, col, cellValue);
+			dense.setValue(row, col, cellValue);
+		}
+		for (int i = 0; i < gameTable.getSize(); i++) {
+			for (int j = 0; j < gameTable.getSize(); j++) {
+				assertEquals(dense.getValue(i, j), gameTable.getValue(i, j));
+			}
+		}
+		assertEquals(dense.getStoneCount(), gameTable.getStoneCount());
+		assertEquals(dense.getHashKey(), gameTable.getHashKey());
+		int[] expected = new int[dense.getStoneCount()];
+		int[] actual = new int[gameTable.getStoneCount()];
+		dense.getStoneCells(expected);
+		gameTable.getStoneCells(actual);
+		Arrays.sort(actual);
+		assertArrayEquals(expected, actual);
+	}
+
+	@Test
+	public void testLargeField() {
+		GameTable large = new SparseGameTable(SparseGameTable.MAX_SIZE);
+		large.makeMove(SparseGameTable.MAX_SIZE - 1, SparseGameTable.MAX_SIZE - 1, CellValue.HUMAN);
+		large.makeMove(0, 0, CellValue.COMPUTER);
+		assertEquals(CellValue.HUMAN, large.getValue(SparseGameTable.MAX_SIZE - 1, SparseGameTable.MAX_SIZE - 1));
+		assertEquals(2, large.getStoneCount());
+		assertTrue(large.emptyCellExists());
+		large.undoMove();
+		assertTrue(large.isCellFree(0, 0));
+		assertTrue(large.getHashKey() != 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooLargeField() {
+		new SparseGameTable(SparseGameTable.MAX_SIZE + 1);
+	}
+}
@@ -0,0 +1,101 @@
+package ru.evgs.impl;
+
+import java.util.Random;
+
+import org.junit.Test;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class SymmetricKeysTest {
+	private static final int SIZE = DefaultConstants.SIZE;
+
+	@Test
+	public void testInverseRevertsTransform() {
+		for (int symmetry = 0; symmetry < SymmetricKeys.SYMMETRY_COUNT; symmetry++) {
+			boolean[] images = new boolean[SIZE * SIZE];
+			for (int cell = 0; cell < SIZE * SIZE; cell++) {
+				int image = SymmetricKeys.transform(SIZE, symmetry, cell);
+				images[image] = true;
+				assertEquals(cell, SymmetricKeys.inverse(SIZE, symmetry, image));
+			}
+			// the symmetry is a permutation of cells
+			for (boolean image : images) {
+				assertEquals(true, image);
+			}
+		}
+		// all symmetries are different
+		int corner = SymmetricKeys.transform(SIZE, SymmetricKeys.IDENTITY, 1);
+		for (int symmetry = 1; symmetry < SymmetricKeys.SYMMETRY_COUNT; symmetry++) {
+			assertNotEquals(corner, SymmetricKeys.transform(SIZE, symmetry, 1));
+		}
+	}
+
+	@Test
+	public void testKeysOfSymmetries() {
+		Random random = new Random(3);
+		GameTable gameTable = new DefaultGameTable();
+		SymmetricKeys keys = new SymmetricKeys(SIZE);
+		gameTable.addMoveListener(keys);
+		CellValue side = CellValue.HUMAN;
+		for (int turn = 0; turn < 20; turn++) {
+			int row = random.nextInt(SIZE);
+			int col = random.nextInt(SIZE);
+			if (gameTable.isCellFree(row, col)) {
+				gameTable.makeMove(row, col, side);
+				side = AlphaBetaSearcher.opposite(side);
+			}
+		}
+		gameTable.undoMove();
+		// the key of the identity is the hash of the table, the key of a symmetry is the hash of the moved position
+		assertEquals(gameTable.getHashKey(), keys.getKey(SymmetricKeys.IDENTITY));
+		for (int symmetry = 0; symmetry < SymmetricKeys.SYMMETRY_COUNT; symmetry++) {
+			GameTable moved = transform(gameTable, symmetry);
+			assertEquals(moved.getHashKey(), keys.getKey(symmetry));
+			// all symmetric positions have one canonical key
+			SymmetricKeys movedKeys = new SymmetricKeys(SIZE);
+			movedKeys.setPosition(moved);
+			assertEquals(keys.getCanonicalKey(), movedKeys.getCanonicalKey());
+			assertEquals(keys.getCanonicalKey(CellValue.COMPUTER), movedKeys.getCanonicalKey(CellValue.COMPUTER));
+			// the canonical symmetry of the position moves its stones to the stones of the canonical position
+			int cell = gameTable.getLastMove();
+			int canonicalCell = SymmetricKeys.transform(SIZE, keys.getCanonicalSymmetry(), cell);
+			int movedCell = SymmetricKeys.transform(SIZE, symmetry, cell);
+			assertEquals(canonicalCell, SymmetricKeys.transform(SIZE, movedKeys.getCanonicalSymmetry(), movedCell));
+		}
+		assertNotEquals(keys.getCanonicalKey(), keys.getCanonicalKey(CellValue.COMPUTER));
+		gameTable.reInit();
+		assertEquals(0, keys.getCanonicalKey());
+	}
+
+	@Test
+	public void testSymmetricPositionIsIdentity() {
+		GameTable gameTable = new DefaultGameTable();
+		gameTable.setValue(7, 7, CellValue.HUMAN);
+		gameTable.setValue(6, 6, CellValue.COMPUTER);
+		gameTable.setValue(6, 8, CellValue.COMPUTER);
+		gameTable.setValue(8, 6, CellValue.COMPUTER);
+		gameTable.setValue(8, 8, CellValue.COMPUTER);
+		SymmetricKeys keys = new SymmetricKeys(SIZE);
+		keys.setPosition(gameTable);
+		// the position is kept by every symmetry, so the identity is the smallest of equal keys
+		for (int symmetry = 0; symmetry < SymmetricKeys.SYMMETRY_COUNT; symmetry++) {
+			assertEquals(gameTable.getHashKey(), keys.getKey(symmetry));
+		}
+		assertEquals(SymmetricKeys.IDENTITY, keys.getCanonicalSymmetry());
+	}
+
+	private static GameTable transform(GameTable gameTable, int symmetry) {
+		GameTable moved = new DefaultGameTable(gameTable.getSize());
+		for (int cell = 0; cell < SIZE * SIZE; cell++) {
+			CellValue cellValue = gameTable.getValue(cell / SIZE, cell % SIZE);
+			if (cellValue != CellValue.EMPTY) {
+				int image = SymmetricKeys.transform(SIZE, symmetry, cell);
+				moved.setValue(image / SIZE, image % SIZE, cellValue);
+			}
+		}
+		return moved;
+	}
+}
@@ -0,0 +1,90 @@
+package ru.evgs.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.evgs.Cell;
+import ru.evgs.CellValue;
+import ru.evgs.GameTable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ThreatSpaceSearchTest {
+	private GameTable gameTable;
+	private ThreatSpaceSearch threatSpaceSearch;
+
+	@Before
+	public void before() {
+		gameTable = new DefaultGameTable();
+		threatSpaceSearch = new ThreatSpaceSearch(6, 5000);
+	}
+
+	private void setValues(CellValue cellValue, int... cells) {
+		for (int i = 0; i < cells.length; i += 2) {
+			gameTable.setValue(cells[i], cells[i + 1], cellValue);
+		}
+	}
+
+	@Test
+	public void testVcfByDoubleFour() {
+		// closed three by row and closed three by col, both are fours after 5:9
+		setValues(CellValue.COMPUTER, 5, 5, 5, 6, 5, 7, 6, 9, 7, 9, 8, 9);
+		setValues(CellValue.HUMAN, 5, 4, 9, 9, 0, 0, 0, 1, 0, 2, 14, 14);
+		Cell cell = threatSpaceSearch.findVcf(gameTable, CellValue.COMPUTER);
+		assertEquals("5:9", cell.toString());
+		assertEquals(CellValue.EMPTY, gameTable.getValue(5, 9));
+	}
+
+	@Test
+	public void testUnlimitedTime() {
+		// the deadline of the unlimited time doesn't overflow into the past
+		setValues(CellValue.COMPUTER, 5, 5, 5, 6, 5, 7, 6, 9, 7, 9, 8, 9);
+		setValues(CellValue.HUMAN, 5, 4, 9, 9, 0, 0, 0, 1, 0, 2, 14, 14);
+		assertEquals("5:9", new ThreatSpaceSearch(6, Long.MAX_VALUE).findVcf(gameTable, CellValue.COMPUTER).toString());
+	}
+
+	@Test
+	public void testVcfByConsecutiveFours() {
+		// closed threes by col 10, by row 5 and by col 13: there are no double fours, but any of the first turns
+		// 5:10, 5:13 or 4:10 forces a block, after which the second turn makes a double or an open four
+		setValues(CellValue.COMPUTER, 6, 10, 7, 10, 8, 10, 5, 11, 5, 12, 6, 13, 7, 13, 8, 13);
+		setValues(CellValue.HUMAN, 9, 10, 5, 9, 9, 13, 14, 0, 14, 2, 14, 4, 14, 6);
+		assertNull(new ThreatSpaceSearch(1, 5000).findVcf(gameTable, CellValue.COMPUTER));
+		Cell cell = threatSpaceSearch.findVcf(gameTable, CellValue.COMPUTER);
+		assertTrue(cell.toString().equals("5:10") || cell.toString().equals("5:13") || cell.toString().equals("4:10"));
+	}
+
+	@Test
+	public void testSearchStopsByTurnBudget() {
+		// the same position, the second turn of the win isn't reached by the budget of the turn
+		setValues(CellValue.COMPUTER, 6, 10, 7, 10, 8, 10, 5, 11, 5, 12, 6, 13, 7, 13, 8, 13);
+		setValues(CellValue.HUMAN, 9, 10, 5, 9, 9, 13, 14, 0, 14, 2, 14, 4, 14, 6);
+		SearchBudget budget = new SearchBudget(2, Long.MAX_VALUE);
+		assertNull(threatSpaceSearch.findVcf(gameTable, CellValue.COMPUTER, budget));
+		assertTrue(budget.isStopped());
+		assertNull(threatSpaceSearch.findVcf(gameTable, CellValue.COMPUTER, new SearchBudget(Long.MAX_VALUE, System.nanoTime())));
+		assertNotNull(threatSpaceSearch.findVcf(gameTable, CellValue.COMPUTER));
+	}
+
+	@Test
+	public void testVctByDoubleThree() {
+		// 7:9 makes open threes by row and by col
+		setValues(CellValue.COMPUTER, 7, 7, 7, 8, 5, 9, 6, 9);
+		setValues(CellValue.HUMAN, 0, 0, 0, 2, 14, 0, 14, 2);
+		assertNull(threatSpaceSearch.findVcf(gameTable, CellValue.COMPUTER));
+		Cell cell = threatSpaceSearch.findVct(gameTable, CellValue.COMPUTER);
+		assertEquals("7:9", cell.toString());
+	}
+
+	@Test
+	public void testVctRefutedByDefenderFour() {
+		// the same double three, but human has a four and must win first
+		setValues(CellValue.COMPUTER, 7, 7, 7, 8, 5, 9, 6, 9);
+		setValues(CellValue.HUMAN, 12, 1, 12, 2, 12, 3, 12, 4);
+		Cell cell = threatSpaceSearch.findVct(gameTable, CellValue.COMPUTER);
+		// the only way is to block the four, and it's not a threat
+		assertNull(cell);
+	}
+}
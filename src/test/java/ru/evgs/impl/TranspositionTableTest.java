@@ -0,0 +1,68 @@
+package ru.evgs.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TranspositionTableTest {
+	private TranspositionTable transpositionTable;
+
+	@Before
+	public void before() {
+		// 4 buckets of 2 entries
+		transpositionTable = new TranspositionTable(8 * TranspositionTable.ENTRY_SIZE);
+	}
+
+	@Test
+	public void testStoreAndProbe() {
+		assertEquals(8, transpositionTable.getCapacity());
+		assertEquals(TranspositionTable.MISS, transpositionTable.probe(12345L));
+		transpositionTable.store(12345L, 224, -999985, 7, TranspositionTable.LOWER_BOUND);
+		long entry = transpositionTable.probe(12345L);
+		assertEquals(224, TranspositionTable.getMove(entry));
+		assertEquals(-999985, TranspositionTable.getScore(entry));
+		assertEquals(7, TranspositionTable.getDepth(entry));
+		assertEquals(TranspositionTable.LOWER_BOUND, TranspositionTable.getFlag(entry));
+		transpositionTable.store(12345L, -1, 0, 0, TranspositionTable.EXACT);
+		entry = transpositionTable.probe(12345L);
+		assertEquals(-1, TranspositionTable.getMove(entry));
+		assertEquals(0, TranspositionTable.getScore(entry));
+		assertEquals(1, transpositionTable.getMisses());
+		assertEquals(2, transpositionTable.getHits());
+		assertEquals(2, transpositionTable.getStores());
+	}
+
+	@Test
+	public void testReplacementPrefersShallowAndOldEntries() {
+		// keys of the same bucket
+		long deep = 1L << 40;
+		long shallow = 2L << 40;
+		long next = 3L << 40;
+		transpositionTable.store(deep, 1, 10, 9, TranspositionTable.EXACT);
+		transpositionTable.store(shallow, 2, 20, 1, TranspositionTable.EXACT);
+		transpositionTable.store(next, 3, 30, 5, TranspositionTable.EXACT);
+		assertEquals(1, transpositionTable.getReplacements());
+		assertEquals(TranspositionTable.MISS, transpositionTable.probe(shallow));
+		assertEquals(1, TranspositionTable.getMove(transpositionTable.probe(deep)));
+		// on a new search the deep entry is old and is replaced before the refreshed one
+		transpositionTable.newSearch();
+		transpositionTable.store(next, 3, 30, 5, TranspositionTable.EXACT);
+		transpositionTable.store(shallow, 2, 20, 1, TranspositionTable.EXACT);
+		assertEquals(TranspositionTable.MISS, transpositionTable.probe(deep));
+		assertEquals(3, TranspositionTable.getMove(transpositionTable.probe(next)));
+	}
+
+	@Test
+	public void testClear() {
+		transpositionTable.store(1L, 1, 1, 1, TranspositionTable.EXACT);
+		transpositionTable.clear();
+		assertEquals(TranspositionTable.MISS, transpositionTable.probe(1L));
+		assertEquals(0, transpositionTable.getHits());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidDepth() {
+		transpositionTable.store(1L, 1, 1, 128, TranspositionTable.EXACT);
+	}
+}
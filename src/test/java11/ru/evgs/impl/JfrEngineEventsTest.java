@@ -0,0 +1,73 @@
+package ru.evgs.impl;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JfrEngineEventsTest {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private final EngineMetrics metrics = EngineMetrics.getInstance();
+	private boolean enabled;
+
+	@Before
+	public void setUp() {
+		enabled = metrics.isEnabled();
+		metrics.reset();
+	}
+
+	@After
+	public void tearDown() {
+		metrics.setEnabled(enabled);
+		metrics.reset();
+	}
+
+	@Test
+	public void testJfrEvents() throws Exception {
+		metrics.setEnabled(true);
+		Path path = folder.newFile("engine.jfr").toPath();
+		try (Recording recording = new Recording()) {
+			recording.enable("ru.evgs.MakeTurn");
+			recording.enable("ru.evgs.WinCheck");
+			recording.enable("ru.evgs.BoardScan");
+			recording.start();
+			EngineMetricsTest.playTurn();
+			recording.stop();
+			recording.dump(path);
+		}
+		List<RecordedEvent> events = RecordingFile.readAllEvents(path);
+		int turns = 0;
+		int winChecks = 0;
+		int scans = 0;
+		for (RecordedEvent event : events) {
+			switch (event.getEventType().getName()) {
+			case "ru.evgs.MakeTurn":
+				assertEquals("default", event.getString("engine"));
+				turns++;
+				break;
+			case "ru.evgs.WinCheck":
+				winChecks++;
+				break;
+			case "ru.evgs.BoardScan":
+				scans++;
+				break;
+			default:
+				break;
+			}
+		}
+		assertEquals(1, turns);
+		assertEquals(2, winChecks);
+		assertTrue(scans > 0);
+	}
+}